@@ -18,6 +18,7 @@ import net.sourceforge.kolmafia.request.PurchaseRequest;
 import net.sourceforge.kolmafia.request.UneffectRequest;
 import net.sourceforge.kolmafia.session.GoalManager;
 import net.sourceforge.kolmafia.session.InventoryManager;
+import net.sourceforge.kolmafia.utilities.IndexedItemList;
 import net.sourceforge.kolmafia.utilities.StringUtilities;
 
 public class AdventureResult implements Comparable<AdventureResult>, Cloneable {
@@ -1097,6 +1098,13 @@ public class AdventureResult implements Comparable<AdventureResult>, Cloneable {
    * intent more transparent.
    */
   public int getCount(final List<AdventureResult> list) {
+    if (list instanceof IndexedItemList indexed && this.isItem() && this.id > 0) {
+      AdventureResult item = indexed.findItem(this.id);
+      if (item == null) return 0;
+      if (this.compareTo(item) == 0) return item.getCount();
+      // Same id under a different name; let indexOf decide
+    }
+
     int index = list.indexOf(this);
     if (index == -1) return 0;
     AdventureResult item = list.get(index);
@@ -1105,6 +1113,10 @@ public class AdventureResult implements Comparable<AdventureResult>, Cloneable {
   }
 
   public static AdventureResult findItem(final int itemId, final List<AdventureResult> list) {
+    if (list instanceof IndexedItemList indexed && itemId > 0) {
+      return indexed.findItem(itemId);
+    }
+
     for (AdventureResult item : list) {
       if (item.getItemId() == itemId) {
         return item;
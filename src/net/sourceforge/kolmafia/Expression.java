@@ -2,6 +2,7 @@ package net.sourceforge.kolmafia;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import net.sourceforge.kolmafia.objectpool.EffectPool;
@@ -52,21 +53,109 @@ public class Expression {
     return "Expression syntax errors for '" + name + "':" + KoLConstants.LINE_BREAK + this.error;
   }
 
-  private static double[] cachedStack;
+  // Each thread keeps a stack for its evaluations. It is taken while in use, so that an
+  // evaluation which somehow starts another gets a fresh one.
+  private static class StackHolder {
+    double[] stack = new double[STACK_SIZE];
+  }
 
-  private static synchronized double[] stackFactory(double[] recycle) {
-    if (recycle != null) { // Reuse this stack for the next evaluation.
-      cachedStack = recycle;
-      return null;
-    } else if (cachedStack != null) { // We have a stack handy; it's yours now.
-      double[] rv = cachedStack;
-      cachedStack = null;
-      return rv;
-    } else { // We're all out of stacks.
-      return new double[STACK_SIZE];
+  private static final ThreadLocal<StackHolder> stacks = ThreadLocal.withInitial(StackHolder::new);
+
+  /**
+   * Values which can't change while the character is only being speculated about, shared by every
+   * evaluation between beginEpoch and the matching endEpoch on the thread which began it, and by
+   * any work that thread hands to others with inEpoch.
+   */
+  public static final class Epoch {
+    private volatile String holiday;
+    private volatile Boolean december;
+    private volatile double effects = -1.0;
+    private int depth = 0;
+
+    private Epoch() {}
+  }
+
+  private static final ThreadLocal<Epoch> epochs = new ThreadLocal<>();
+
+  /**
+   * Starts caching, for this thread, the values of variables which depend only on the character's
+   * real state, such as the current holiday. Callers must make sure that state doesn't change
+   * before endEpoch. Epochs may nest.
+   */
+  public static void beginEpoch() {
+    Epoch current = Expression.epochs.get();
+    if (current == null) {
+      current = new Epoch();
+      Expression.epochs.set(current);
+    }
+    ++current.depth;
+  }
+
+  public static void endEpoch() {
+    Epoch current = Expression.epochs.get();
+    if (current != null && --current.depth == 0) {
+      Expression.epochs.remove();
     }
   }
 
+  /** Returns this thread's epoch, or null if it is not in one. */
+  public static Epoch getEpoch() {
+    return Expression.epochs.get();
+  }
+
+  /** Runs an action on this thread in another thread's epoch, or in none if it is null. */
+  public static <T> T inEpoch(final Epoch epoch, final Supplier<T> action) {
+    Epoch previous = Expression.epochs.get();
+    Expression.epochs.set(epoch);
+    try {
+      return action.get();
+    } finally {
+      if (previous == null) {
+        Expression.epochs.remove();
+      } else {
+        Expression.epochs.set(previous);
+      }
+    }
+  }
+
+  private static String getHoliday() {
+    Epoch current = Expression.epochs.get();
+    if (current == null) {
+      return HolidayDatabase.getHoliday();
+    }
+    if (current.holiday == null) {
+      current.holiday = HolidayDatabase.getHoliday();
+    }
+    return current.holiday;
+  }
+
+  private static boolean isDecember() {
+    Epoch current = Expression.epochs.get();
+    if (current == null) {
+      return HolidayDatabase.isDecember();
+    }
+    if (current.december == null) {
+      current.december = HolidayDatabase.isDecember();
+    }
+    return current.december;
+  }
+
+  private static double countEffects() {
+    Epoch current = Expression.epochs.get();
+    if (current != null && current.effects >= 0.0) {
+      return current.effects;
+    }
+    double count =
+        KoLConstants.activeEffects.stream()
+            .map(e -> e.getCount())
+            .filter(d -> d < Integer.MAX_VALUE)
+            .count();
+    if (current != null) {
+      current.effects = count;
+    }
+    return count;
+  }
+
   public Expression(String text, String name) {
     this.name = name;
     this.text = text;
@@ -118,7 +207,13 @@ public class Expression {
   }
 
   public double evalInternal() {
-    double[] s = stackFactory(null);
+    StackHolder holder = Expression.stacks.get();
+    double[] s = holder.stack;
+    if (s == null) {
+      s = new double[STACK_SIZE];
+    } else {
+      holder.stack = null;
+    }
     int sp = 0;
     int pc = 0;
     double v = 0.0;
@@ -162,7 +257,7 @@ public class Expression {
 
         case 'r':
           v = s[--sp];
-          stackFactory(s); // recycle this stack
+          holder.stack = s; // recycle this stack
           return v;
 
         case '+':
@@ -275,15 +370,13 @@ public class Expression {
           v = KoLCharacter.hasEquipped(item) ? 1 : 0;
           break;
         case 'h':
-          v =
-              Modifiers.mainhandClass.equalsIgnoreCase((String) this.literals.get((int) s[--sp]))
-                  ? 1
-                  : 0;
+          String mainhandClass = (String) this.literals.get((int) s[--sp]);
+          v = Modifiers.getMainhandClass().equalsIgnoreCase(mainhandClass) ? 1 : 0;
           break;
         case 'i':
           v =
               FamiliarDatabase.hasAttribute(
-                      Modifiers.currentFamiliar, (String) this.literals.get((int) s[--sp]))
+                      Modifiers.getCurrentFamiliar(), (String) this.literals.get((int) s[--sp]))
                   ? 1
                   : 0;
           break;
@@ -313,7 +406,7 @@ public class Expression {
               (StringUtilities.isNumeric(fam))
                   ? FamiliarDatabase.getFamiliarName(StringUtilities.parseInt(fam))
                   : fam;
-          v = Modifiers.currentFamiliar.equalsIgnoreCase(familiarName) ? 1 : 0;
+          v = Modifiers.getCurrentFamiliar().equalsIgnoreCase(familiarName) ? 1 : 0;
           break;
         case 'z':
           String expressionZone = (String) this.literals.get((int) s[--sp]);
@@ -336,10 +429,10 @@ public class Expression {
 
           switch (event) {
             case "December":
-              v = HolidayDatabase.isDecember() ? 1 : 0;
+              v = Expression.isDecember() ? 1 : 0;
               break;
             default:
-              if (HolidayDatabase.getHoliday().contains(event)) {
+              if (Expression.getHoliday().contains(event)) {
                 v = 1;
               }
               break;
@@ -446,14 +539,8 @@ public class Expression {
           v = KoLCharacter.getInebriety();
           break;
         case 'E':
-          {
-            v =
-                KoLConstants.activeEffects.stream()
-                    .map(e -> e.getCount())
-                    .filter(d -> d < Integer.MAX_VALUE)
-                    .count();
-            break;
-          }
+          v = Expression.countEffects();
+          break;
         case 'F':
           v = KoLCharacter.getFullness();
           break;
@@ -461,16 +548,16 @@ public class Expression {
           v = HolidayDatabase.getGrimaciteEffect() / 10.0;
           break;
         case 'H':
-          v = Modifiers.hoboPower;
+          v = Modifiers.getHoboPower();
           break;
         case 'I':
           v = KoLCharacter.getDiscoMomentum();
           break;
         case 'J':
-          v = HolidayDatabase.getHoliday().contains("Festival of Jarlsberg") ? 1.0 : 0.0;
+          v = Expression.getHoliday().contains("Festival of Jarlsberg") ? 1.0 : 0.0;
           break;
         case 'K':
-          v = Modifiers.smithsness;
+          v = Modifiers.getSmithsness();
           break;
         case 'L':
           v = KoLCharacter.getLevel();
@@ -500,7 +587,7 @@ public class Expression {
           v = KoLCharacter.getTelescopeUpgrades();
           break;
         case 'W':
-          v = Modifiers.currentWeight;
+          v = Modifiers.getCurrentWeight();
           break;
         case 'X':
           v = KoLCharacter.getGender();
@@ -1,6 +1,7 @@
 package net.sourceforge.kolmafia;
 
 import java.awt.Taskbar;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -4903,6 +4904,7 @@ public abstract class KoLCharacter {
   }
 
   public static final boolean recalculateAdjustments(boolean debug) {
+    ModifierAccumulator.invalidate();
     return KoLCharacter.currentModifiers.set(
         KoLCharacter.recalculateAdjustments(
             debug,
@@ -4932,17 +4934,47 @@ public abstract class KoLCharacter {
       String boomBox,
       Map<Modeable, String> modeables,
       boolean speculation) {
+    return KoLCharacter.recalculateAdjustments(
+        debug,
+        MCD,
+        equipment,
+        effects,
+        familiar,
+        enthroned,
+        bjorned,
+        custom,
+        horsery,
+        boomBox,
+        modeables,
+        speculation,
+        null);
+  }
+
+  public static final Modifiers recalculateAdjustments(
+      boolean debug,
+      int MCD,
+      AdventureResult[] equipment,
+      List<AdventureResult> effects,
+      FamiliarData familiar,
+      FamiliarData enthroned,
+      FamiliarData bjorned,
+      String custom,
+      String horsery,
+      String boomBox,
+      Map<Modeable, String> modeables,
+      boolean speculation,
+      ModifierAccumulator accumulator) {
     int taoFactor = KoLCharacter.hasSkill("Tao of the Terrapin") ? 2 : 1;
 
     Modifiers newModifiers = debug ? new DebugModifiers() : new Modifiers();
     Modifiers.setFamiliar(familiar);
     AdventureResult weapon = equipment[EquipmentManager.WEAPON];
-    Modifiers.mainhandClass =
-        weapon == null ? "" : EquipmentDatabase.getItemType(weapon.getItemId());
+    Modifiers.setMainhandClass(
+        weapon == null ? "" : EquipmentDatabase.getItemType(weapon.getItemId()));
     AdventureResult offhand = equipment[EquipmentManager.OFFHAND];
-    Modifiers.unarmed =
+    Modifiers.setUnarmed(
         (weapon == null || weapon == EquipmentRequest.UNEQUIP)
-            && (offhand == null || offhand == EquipmentRequest.UNEQUIP);
+            && (offhand == null || offhand == EquipmentRequest.UNEQUIP));
 
     // Area-specific adjustments
     newModifiers.add(Modifiers.getModifiers("Loc", Modifiers.currentLocation));
@@ -4997,7 +5029,7 @@ public abstract class KoLCharacter {
                 newModifiers.add(Modifiers.INITIATIVE, level * 20, "El Vibrato:SELF");
                 break;
               case 8:
-                if (Modifiers.currentFamiliar.contains("megadrone")) {
+                if (Modifiers.getCurrentFamiliar().contains("megadrone")) {
                   newModifiers.add(Modifiers.FAMILIAR_WEIGHT, level * 10, "El Vibrato:DRONE");
                 }
                 break;
@@ -5054,51 +5086,68 @@ public abstract class KoLCharacter {
       newModifiers.add(Modifiers.ITEMDROP, cloathingLevel / 2, "Outfit:cloathing");
     }
 
-    // Add modifiers from Passive Skills
-    newModifiers.applyPassiveModifiers();
-
-    // For the sake of easier maintenance, execute a lot of extra
-    // string comparisons when looking at status effects.
-
-    for (AdventureResult effect : effects) {
-      newModifiers.add(Modifiers.getEffectModifiers(effect.getEffectId()));
-    }
+    ModifierAccumulator.add(
+        accumulator,
+        newModifiers,
+        ModifierAccumulator.PASSIVES,
+        () ->
+            Arrays.asList(
+                effects,
+                KoLConstants.campground,
+                CampgroundRequest.getCurrentDwelling(),
+                InventoryManager.getCount(ItemPool.COMFY_BLANKET),
+                HolidayDatabase.getRonaldPhase(),
+                HolidayDatabase.getGrimacePhase(),
+                ChateauRequest.ceiling,
+                ClanManager.getClanRumpus(),
+                KoLCharacter.getFamiliar().getId()),
+        mods -> {
+          // Add modifiers from Passive Skills
+          mods.applyPassiveModifiers();
+
+          // For the sake of easier maintenance, execute a lot of extra
+          // string comparisons when looking at status effects.
+
+          for (AdventureResult effect : effects) {
+            mods.add(Modifiers.getEffectModifiers(effect.getEffectId()));
+          }
 
-    // Add modifiers from campground equipment.
-    for (int i = 0; i < KoLConstants.campground.size(); ++i) {
-      AdventureResult item = KoLConstants.campground.get(i);
-      // Skip ginormous pumpkin growing in garden
-      if (item.getItemId() == ItemPool.GINORMOUS_PUMPKIN) {
-        continue;
-      }
-      for (int count = item.getCount(); count > 0; --count) {
-        newModifiers.add(Modifiers.getItemModifiers(item.getItemId()));
-      }
-    }
+          // Add modifiers from campground equipment.
+          for (int i = 0; i < KoLConstants.campground.size(); ++i) {
+            AdventureResult item = KoLConstants.campground.get(i);
+            // Skip ginormous pumpkin growing in garden
+            if (item.getItemId() == ItemPool.GINORMOUS_PUMPKIN) {
+              continue;
+            }
+            for (int count = item.getCount(); count > 0; --count) {
+              mods.add(Modifiers.getItemModifiers(item.getItemId()));
+            }
+          }
 
-    // Add modifiers from dwelling
-    AdventureResult dwelling = CampgroundRequest.getCurrentDwelling();
-    newModifiers.add(Modifiers.getItemModifiers(dwelling.getItemId()));
+          // Add modifiers from dwelling
+          AdventureResult dwelling = CampgroundRequest.getCurrentDwelling();
+          mods.add(Modifiers.getItemModifiers(dwelling.getItemId()));
 
-    if (InventoryManager.getCount(ItemPool.COMFY_BLANKET) > 0) {
-      newModifiers.add(Modifiers.getItemModifiers(ItemPool.COMFY_BLANKET));
-    }
+          if (InventoryManager.getCount(ItemPool.COMFY_BLANKET) > 0) {
+            mods.add(Modifiers.getItemModifiers(ItemPool.COMFY_BLANKET));
+          }
 
-    if (HolidayDatabase.getRonaldPhase() == 5) {
-      newModifiers.add(Modifiers.RESTING_MP_PCT, 100, "Moons:Ronald full");
-    }
+          if (HolidayDatabase.getRonaldPhase() == 5) {
+            mods.add(Modifiers.RESTING_MP_PCT, 100, "Moons:Ronald full");
+          }
 
-    if (HolidayDatabase.getGrimacePhase() == 5) {
-      newModifiers.add(Modifiers.RESTING_HP_PCT, 100, "Moons:Grimace full");
-    }
+          if (HolidayDatabase.getGrimacePhase() == 5) {
+            mods.add(Modifiers.RESTING_HP_PCT, 100, "Moons:Grimace full");
+          }
 
-    if (ChateauRequest.ceiling != null) {
-      newModifiers.add(Modifiers.getModifiers("Item", ChateauRequest.ceiling));
-    }
+          if (ChateauRequest.ceiling != null) {
+            mods.add(Modifiers.getModifiers("Item", ChateauRequest.ceiling));
+          }
 
-    for (String equip : ClanManager.getClanRumpus()) {
-      newModifiers.add(Modifiers.getModifiers("Rumpus", equip));
-    }
+          for (String equip : ClanManager.getClanRumpus()) {
+            mods.add(Modifiers.getModifiers("Rumpus", equip));
+          }
+        });
 
     // Add other oddball interactions
     newModifiers.applySynergies();
@@ -5107,69 +5156,98 @@ public abstract class KoLCharacter {
 
     newModifiers.applyFamiliarModifiers(familiar, equipment[EquipmentManager.FAMILIAR]);
 
-    // Add Pasta Thrall effects
-
-    if (ascensionClass == AscensionClass.PASTAMANCER) {
-      PastaThrallData thrall = KoLCharacter.currentPastaThrall;
-      if (thrall != PastaThrallData.NO_THRALL) {
-        newModifiers.add(Modifiers.getModifiers("Thrall", thrall.getType()));
-      }
-    }
+    ModifierAccumulator.add(
+        accumulator,
+        newModifiers,
+        ModifierAccumulator.COMPANIONS,
+        () -> null,
+        mods -> {
+          // Add Pasta Thrall effects
+
+          if (ascensionClass == AscensionClass.PASTAMANCER) {
+            PastaThrallData thrall = KoLCharacter.currentPastaThrall;
+            if (thrall != PastaThrallData.NO_THRALL) {
+              mods.add(Modifiers.getModifiers("Thrall", thrall.getType()));
+            }
+          }
 
-    // Add in strung-up quartet.
+          // Add in strung-up quartet.
 
-    if (KoLCharacter.getAscensions() == Preferences.getInteger("lastQuartetAscension")) {
-      switch (Preferences.getInteger("lastQuartetRequest")) {
-        case 1:
-          newModifiers.add(Modifiers.MONSTER_LEVEL, 5, "Ballroom:quartet");
-          break;
-        case 2:
-          newModifiers.add(Modifiers.COMBAT_RATE, -5, "Ballroom:quartet");
-          break;
-        case 3:
-          newModifiers.add(Modifiers.ITEMDROP, 5, "Ballroom:quartet");
-          break;
-      }
-    }
+          if (KoLCharacter.getAscensions() == Preferences.getInteger("lastQuartetAscension")) {
+            switch (Preferences.getInteger("lastQuartetRequest")) {
+              case 1:
+                mods.add(Modifiers.MONSTER_LEVEL, 5, "Ballroom:quartet");
+                break;
+              case 2:
+                mods.add(Modifiers.COMBAT_RATE, -5, "Ballroom:quartet");
+                break;
+              case 3:
+                mods.add(Modifiers.ITEMDROP, 5, "Ballroom:quartet");
+                break;
+            }
+          }
+        });
 
     // Mummery
     newModifiers.add(
         Modifiers.evaluatedModifiers("Mummery", Preferences.getString("_mummeryMods")));
 
-    // Add modifiers from inventory
-    if (InventoryManager.hasItem(ItemPool.FISHING_POLE)) {
-      newModifiers.add(Modifiers.FISHING_SKILL, 20, "Inventory Item:fishin' pole");
-    }
-    if (InventoryManager.hasItem(ItemPool.ANTIQUE_TACKLE_BOX)) {
-      newModifiers.add(Modifiers.FISHING_SKILL, 5, "Inventory Item:antique tacklebox");
-    }
+    ModifierAccumulator.add(
+        accumulator,
+        newModifiers,
+        ModifierAccumulator.INVENTORY,
+        () ->
+            Arrays.asList(
+                boomBox,
+                horsery,
+                InventoryManager.hasItem(ItemPool.FISHING_POLE),
+                InventoryManager.hasItem(ItemPool.ANTIQUE_TACKLE_BOX),
+                FloristRequest.haveFlorist(),
+                Modifiers.currentLocation,
+                FloristRequest.getPlants(Modifiers.currentLocation)),
+        mods -> {
+          // Add modifiers from inventory
+          if (InventoryManager.hasItem(ItemPool.FISHING_POLE)) {
+            mods.add(Modifiers.FISHING_SKILL, 20, "Inventory Item:fishin' pole");
+          }
+          if (InventoryManager.hasItem(ItemPool.ANTIQUE_TACKLE_BOX)) {
+            mods.add(Modifiers.FISHING_SKILL, 5, "Inventory Item:antique tacklebox");
+          }
 
-    // Boombox, no check for having one so it can work with Maximizer "show things you don't have"
-    newModifiers.add(Modifiers.getModifiers("BoomBox", boomBox));
+          // Boombox, no check for having one so it can work with Maximizer "show things you don't have"
+          mods.add(Modifiers.getModifiers("BoomBox", boomBox));
 
-    // Add modifiers from Florist Friar plants
-    newModifiers.applyFloristModifiers();
+          // Add modifiers from Florist Friar plants
+          mods.applyFloristModifiers();
 
-    // Horsery
-    newModifiers.add(Modifiers.getModifiers("Horsery", horsery));
+          // Horsery
+          mods.add(Modifiers.getModifiers("Horsery", horsery));
+        });
 
     // Voting Booth
     newModifiers.add(
         Modifiers.evaluatedModifiers("Local Vote", Preferences.getString("_voteModifier")));
 
-    // Miscellaneous
+    ModifierAccumulator.add(
+        accumulator,
+        newModifiers,
+        ModifierAccumulator.GENERATED,
+        () -> custom,
+        mods -> {
+          // Miscellaneous
 
-    newModifiers.add(Modifiers.getModifiers("Generated", "_userMods"));
-    newModifiers.add(Modifiers.getModifiers("Generated", "fightMods"));
+          mods.add(Modifiers.getModifiers("Generated", "_userMods"));
+          mods.add(Modifiers.getModifiers("Generated", "fightMods"));
 
-    // Temporary custom modifier
-    if (custom != null) {
-      newModifiers.add(Modifiers.parseModifiers("Generated:custom", custom));
-    }
+          // Temporary custom modifier
+          if (custom != null) {
+            mods.add(Modifiers.parseModifiers("Generated:custom", custom));
+          }
+        });
 
     // Store some modifiers as statics
-    Modifiers.hoboPower = newModifiers.get(Modifiers.HOBO_POWER);
-    Modifiers.smithsness = KoLCharacter.getSmithsnessModifier(equipment, effects);
+    Modifiers.setHoboPower(newModifiers.get(Modifiers.HOBO_POWER));
+    Modifiers.setSmithsness(KoLCharacter.getSmithsnessModifier(equipment, effects));
 
     if (Modifiers.currentLocation.equals("The Slime Tube")) {
       int hatred = (int) newModifiers.get(Modifiers.SLIME_HATES_IT);
@@ -5181,71 +5259,79 @@ public abstract class KoLCharacter {
       }
     }
 
-    // Path specific modifiers
-
-    // Add modifiers from Current Path
-    newModifiers.add(Modifiers.getModifiers("Path", KoLCharacter.ascensionPath.toString()));
-
-    // If Sneaky Pete, add Motorbike effects
-
-    if (KoLCharacter.isSneakyPete()) {
-      newModifiers.add(
-          Modifiers.getModifiers("Motorbike", Preferences.getString("peteMotorbikeTires")));
-      newModifiers.add(
-          Modifiers.getModifiers("Motorbike", Preferences.getString("peteMotorbikeGasTank")));
-      newModifiers.add(
-          Modifiers.getModifiers("Motorbike", Preferences.getString("peteMotorbikeHeadlight")));
-      newModifiers.add(
-          Modifiers.getModifiers("Motorbike", Preferences.getString("peteMotorbikeCowling")));
-      newModifiers.add(
-          Modifiers.getModifiers("Motorbike", Preferences.getString("peteMotorbikeMuffler")));
-      newModifiers.add(
-          Modifiers.getModifiers("Motorbike", Preferences.getString("peteMotorbikeSeat")));
-    }
+    ModifierAccumulator.add(
+        accumulator,
+        newModifiers,
+        ModifierAccumulator.PATH,
+        () -> null,
+        mods -> {
+          // Path specific modifiers
+
+          // Add modifiers from Current Path
+          mods.add(Modifiers.getModifiers("Path", KoLCharacter.ascensionPath.toString()));
+
+          // If Sneaky Pete, add Motorbike effects
+
+          if (KoLCharacter.isSneakyPete()) {
+            mods.add(
+                Modifiers.getModifiers("Motorbike", Preferences.getString("peteMotorbikeTires")));
+            mods.add(
+                Modifiers.getModifiers("Motorbike", Preferences.getString("peteMotorbikeGasTank")));
+            mods.add(
+                Modifiers.getModifiers(
+                    "Motorbike", Preferences.getString("peteMotorbikeHeadlight")));
+            mods.add(
+                Modifiers.getModifiers("Motorbike", Preferences.getString("peteMotorbikeCowling")));
+            mods.add(
+                Modifiers.getModifiers("Motorbike", Preferences.getString("peteMotorbikeMuffler")));
+            mods.add(
+                Modifiers.getModifiers("Motorbike", Preferences.getString("peteMotorbikeSeat")));
+          }
 
-    // If in Nuclear Autumn, add Radiation Sickness
+          // If in Nuclear Autumn, add Radiation Sickness
 
-    if (KoLCharacter.inNuclearAutumn() && KoLCharacter.getRadSickness() > 0) {
-      newModifiers.add(Modifiers.MUS, -KoLCharacter.getRadSickness(), "Path:Rads");
-      newModifiers.add(Modifiers.MYS, -KoLCharacter.getRadSickness(), "Path:Rads");
-      newModifiers.add(Modifiers.MOX, -KoLCharacter.getRadSickness(), "Path:Rads");
-    }
+          if (KoLCharacter.inNuclearAutumn() && KoLCharacter.getRadSickness() > 0) {
+            mods.add(Modifiers.MUS, -KoLCharacter.getRadSickness(), "Path:Rads");
+            mods.add(Modifiers.MYS, -KoLCharacter.getRadSickness(), "Path:Rads");
+            mods.add(Modifiers.MOX, -KoLCharacter.getRadSickness(), "Path:Rads");
+          }
 
-    if (KoLCharacter.inAxecore() && KoLCharacter.currentInstrument != null) {
-      newModifiers.applyMinstrelModifiers(
-          KoLCharacter.minstrelLevel, KoLCharacter.currentInstrument);
-    }
+          if (KoLCharacter.inAxecore() && KoLCharacter.currentInstrument != null) {
+            mods.applyMinstrelModifiers(KoLCharacter.minstrelLevel, KoLCharacter.currentInstrument);
+          }
 
-    if (KoLCharacter.isJarlsberg() && KoLCharacter.companion != null) {
-      newModifiers.applyCompanionModifiers(KoLCharacter.companion);
-    }
+          if (KoLCharacter.isJarlsberg() && KoLCharacter.companion != null) {
+            mods.applyCompanionModifiers(KoLCharacter.companion);
+          }
 
-    if (KoLCharacter.isEd() && EdServantData.currentServant() != null) {
-      newModifiers.applyServantModifiers(EdServantData.currentServant());
-    }
+          if (KoLCharacter.isEd() && EdServantData.currentServant() != null) {
+            mods.applyServantModifiers(EdServantData.currentServant());
+          }
 
-    if (KoLCharacter.inNoobcore()) {
-      newModifiers.add(Modifiers.getModifiers("Generated", "Enchantments Absorbed"));
-    }
+          if (KoLCharacter.inNoobcore()) {
+            mods.add(Modifiers.getModifiers("Generated", "Enchantments Absorbed"));
+          }
 
-    if (KoLCharacter.inDisguise() && KoLCharacter.getMask() != null) {
-      newModifiers.add(Modifiers.getModifiers("Mask", KoLCharacter.getMask()));
-    }
+          if (KoLCharacter.inDisguise() && KoLCharacter.getMask() != null) {
+            mods.add(Modifiers.getModifiers("Mask", KoLCharacter.getMask()));
+          }
 
-    if (KoLCharacter.isVampyre()) {
-      MonsterData ensorcelee = MonsterDatabase.findMonster(Preferences.getString("ensorcelee"));
-      if (ensorcelee != null) {
-        newModifiers.add(Modifiers.getModifiers("Ensorcel", ensorcelee.getPhylum().toString()));
-      }
-    }
+          if (KoLCharacter.isVampyre()) {
+            MonsterData ensorcelee =
+                MonsterDatabase.findMonster(Preferences.getString("ensorcelee"));
+            if (ensorcelee != null) {
+              mods.add(Modifiers.getModifiers("Ensorcel", ensorcelee.getPhylum().toString()));
+            }
+          }
 
-    if (KoLCharacter.inRobocore()) {
-      YouRobotManager.addRobotModifiers(newModifiers);
-    }
+          if (KoLCharacter.inRobocore()) {
+            YouRobotManager.addRobotModifiers(mods);
+          }
 
-    if (VYKEACompanionData.currentCompanion() != VYKEACompanionData.NO_COMPANION) {
-      newModifiers.applyCompanionModifiers(VYKEACompanionData.currentCompanion());
-    }
+          if (VYKEACompanionData.currentCompanion() != VYKEACompanionData.NO_COMPANION) {
+            mods.applyCompanionModifiers(VYKEACompanionData.currentCompanion());
+          }
+        });
 
     // Lastly, experience adjustment also implicitly depends on
     // monster level.  Add that information.
@@ -575,13 +575,13 @@ public interface KoLConstants extends UtilityConstants {
 
   List<String> saveStateNames = LockableListFactory.getSortedInstance(String.class);
 
-  List<AdventureResult> inventory = LockableListFactory.getSortedInstance(AdventureResult.class);
-  List<AdventureResult> closet = LockableListFactory.getSortedInstance(AdventureResult.class);
-  List<AdventureResult> storage = LockableListFactory.getSortedInstance(AdventureResult.class);
-  List<AdventureResult> unlimited = LockableListFactory.getSortedInstance(AdventureResult.class);
-  List<AdventureResult> freepulls = LockableListFactory.getSortedInstance(AdventureResult.class);
-  List<AdventureResult> nopulls = LockableListFactory.getSortedInstance(AdventureResult.class);
-  List<AdventureResult> collection = LockableListFactory.getSortedInstance(AdventureResult.class);
+  List<AdventureResult> inventory = LockableListFactory.getSortedItemInstance();
+  List<AdventureResult> closet = LockableListFactory.getSortedItemInstance();
+  List<AdventureResult> storage = LockableListFactory.getSortedItemInstance();
+  List<AdventureResult> unlimited = LockableListFactory.getSortedItemInstance();
+  List<AdventureResult> freepulls = LockableListFactory.getSortedItemInstance();
+  List<AdventureResult> nopulls = LockableListFactory.getSortedItemInstance();
+  List<AdventureResult> collection = LockableListFactory.getSortedItemInstance();
   List<AdventureResult> campground = LockableListFactory.getSortedInstance(AdventureResult.class);
   List<AdventureResult> chateau = LockableListFactory.getSortedInstance(AdventureResult.class);
   List<AdventureResult> falloutShelter =
@@ -112,6 +112,7 @@ import net.sourceforge.kolmafia.swingui.SystemTrayFrame;
 import net.sourceforge.kolmafia.swingui.listener.LicenseDisplayListener;
 import net.sourceforge.kolmafia.swingui.panel.GenericPanel;
 import net.sourceforge.kolmafia.textui.AshRuntime;
+import net.sourceforge.kolmafia.utilities.DataPrefetcher;
 import net.sourceforge.kolmafia.utilities.FileUtilities;
 import net.sourceforge.kolmafia.utilities.LockableListFactory;
 import net.sourceforge.kolmafia.utilities.LogStream;
@@ -280,6 +281,10 @@ public abstract class KoLmafia {
 
     KoLmafia.checkDataOverrides();
 
+    // Start reading the game databases, so they are ready by the time they are needed
+
+    DataPrefetcher.start();
+
     // Create an images directory if necessary
     KoLConstants.IMAGE_LOCATION.mkdirs();
 
@@ -661,6 +666,10 @@ public abstract class KoLmafia {
     // It would be nice to not have to do this
     IslandManager.ensureUpdatedBigIsland();
 
+    if (Preferences.getBoolean("maximizerPreloadModifiers")) {
+      RequestThread.runInParallel(Modifiers::preloadModifiers, false);
+    }
+
     KoLmafia.setIsRefreshing(false);
   }
 
@@ -1,8 +1,12 @@
 package net.sourceforge.kolmafia;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -22,9 +26,68 @@ import net.sourceforge.kolmafia.utilities.FileUtilities;
 public abstract class KoLmafiaASH {
   private static final HashMap<String, File> relayScriptMap = new HashMap<>();
 
-  private static final HashMap<File, Long> TIMESTAMPS = new HashMap<>();
+  private static final HashMap<File, ScriptFingerprint> FINGERPRINTS = new HashMap<>();
   private static final HashMap<File, ScriptRuntime> INTERPRETERS = new HashMap<>();
 
+  /**
+   * Identifies the version of a script, and everything it imports, that an interpreter was built
+   * from. Modification dates are checked first, since that is cheap; if any has changed, the
+   * contents are compared with those the parser read, so that a script which was touched but not
+   * changed (by an SVN or git update, say) is not parsed again.
+   *
+   * <p>This only avoids parsing a script again within a session. Nothing is saved to disk, so
+   * every script is parsed again after the client restarts, however little has changed.
+   */
+  private static class ScriptFingerprint {
+    private final Map<File, Long> timestamps = new HashMap<>();
+    // The digest of what was parsed from each file, or null if unknown
+    private final Map<File, byte[]> digests = new HashMap<>();
+    private final long parseTime;
+
+    private ScriptFingerprint(final ScriptRuntime interpreter, final File script, long parseTime) {
+      if (interpreter instanceof AshRuntime) {
+        for (Entry<File, Parser> entry : ((AshRuntime) interpreter).getImports().entrySet()) {
+          Parser parser = entry.getValue();
+          this.timestamps.put(entry.getKey(), parser.getModificationTimestamp());
+          this.digests.put(entry.getKey(), parser.getContentDigest());
+        }
+      }
+      this.timestamps.putIfAbsent(script, script.lastModified());
+      this.parseTime = parseTime;
+    }
+
+    private static byte[] digest(final File file) {
+      try {
+        return MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(file.toPath()));
+      } catch (IOException | NoSuchAlgorithmException e) {
+        return null;
+      }
+    }
+
+    private boolean timestampsMatch() {
+      for (Entry<File, Long> entry : this.timestamps.entrySet()) {
+        if (entry.getValue() != entry.getKey().lastModified()) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private boolean contentsMatch() {
+      Map<File, Long> current = new HashMap<>();
+      for (File file : this.timestamps.keySet()) {
+        // Note the time before reading, so that a later change is noticed next time
+        current.put(file, file.lastModified());
+        byte[] parsed = this.digests.get(file);
+        if (parsed == null || !Arrays.equals(parsed, ScriptFingerprint.digest(file))) {
+          return false;
+        }
+      }
+      this.timestamps.putAll(current);
+      return true;
+    }
+  }
+
   public static final AshRuntime NAMESPACE_INTERPRETER = new NamespaceInterpreter();
 
   public static final void logScriptExecution(
@@ -189,48 +252,46 @@ public abstract class KoLmafiaASH {
       return null;
     }
 
-    boolean createInterpreter = !KoLmafiaASH.TIMESTAMPS.containsKey(toExecute);
-
-    if (!createInterpreter) {
-      Long timestamp = KoLmafiaASH.TIMESTAMPS.get(toExecute);
-      createInterpreter = timestamp != toExecute.lastModified();
+    ScriptFingerprint fingerprint = KoLmafiaASH.FINGERPRINTS.get(toExecute);
+    if (fingerprint != null && (fingerprint.timestampsMatch() || fingerprint.contentsMatch())) {
+      return KoLmafiaASH.INTERPRETERS.get(toExecute);
     }
 
-    if (!createInterpreter) {
-      ScriptRuntime interpreter = KoLmafiaASH.INTERPRETERS.get(toExecute);
-      if (interpreter instanceof AshRuntime) {
-        Map<File, Parser> imports = ((AshRuntime) interpreter).getImports();
-
-        Iterator<Entry<File, Parser>> it = imports.entrySet().iterator();
+    KoLmafiaASH.FINGERPRINTS.remove(toExecute);
+    ScriptRuntime interpreter;
+    long start = System.nanoTime();
+    if (toExecute.getName().endsWith(".js")) {
+      interpreter = new JavascriptRuntime(toExecute);
+    } else {
+      interpreter = new AshRuntime();
+    }
 
-        while (it.hasNext() && !createInterpreter) {
-          Entry<File, Parser> entry = it.next();
-          File file = entry.getKey();
-          long timestamp = entry.getValue().getModificationTimestamp();
-          createInterpreter = timestamp != file.lastModified();
-        }
-      }
+    if (interpreter instanceof AshRuntime
+        && !((AshRuntime) interpreter).validate(toExecute, null)) {
+      return null;
     }
+    long parseTime = System.nanoTime() - start;
 
-    if (createInterpreter) {
-      KoLmafiaASH.TIMESTAMPS.remove(toExecute);
-      ScriptRuntime interpreter;
-      if (toExecute.getName().endsWith(".js")) {
-        interpreter = new JavascriptRuntime(toExecute);
-      } else {
-        interpreter = new AshRuntime();
-      }
+    KoLmafiaASH.FINGERPRINTS.put(
+        toExecute, new ScriptFingerprint(interpreter, toExecute, parseTime));
+    KoLmafiaASH.INTERPRETERS.put(toExecute, interpreter);
 
-      if (interpreter instanceof AshRuntime
-          && !((AshRuntime) interpreter).validate(toExecute, null)) {
-        return null;
-      }
+    return interpreter;
+  }
 
-      KoLmafiaASH.TIMESTAMPS.put(toExecute, toExecute.lastModified());
-      KoLmafiaASH.INTERPRETERS.put(toExecute, interpreter);
-    }
+  /**
+   * Returns how long it took to parse the given script and its imports, in milliseconds, when its
+   * current interpreter was created, or -1 if there is no such interpreter.
+   */
+  public static final long getParseTime(final File script) {
+    ScriptFingerprint fingerprint = KoLmafiaASH.FINGERPRINTS.get(script);
+    return fingerprint == null ? -1 : fingerprint.parseTime / 1_000_000;
+  }
 
-    return KoLmafiaASH.INTERPRETERS.get(toExecute);
+  /** Returns the number of files, including itself, which make up the given parsed script. */
+  public static final int getParsedFileCount(final File script) {
+    ScriptFingerprint fingerprint = KoLmafiaASH.FINGERPRINTS.get(script);
+    return fingerprint == null ? 0 : fingerprint.timestamps.size();
   }
 
   public static void showUserFunctions(final AshRuntime interpreter, final String filter) {
@@ -0,0 +1,177 @@
+package net.sourceforge.kolmafia;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Remembers which modifiers went into a speculation from sources that don't depend on the
+ * speculated equipment or familiar - passive skills, effects, campground, path and so on - so that
+ * speculating about many sets of equipment only has to look them up once.
+ *
+ * <p>Each group of sources is recorded the first time it is added, as the sequence of additions
+ * that it made, and replayed into later speculations in the same place. Sources with variable
+ * modifiers are fetched again when replayed, so that expressions which depend on the speculated
+ * familiar or equipment are still evaluated against it. Replaying in the original order keeps
+ * order-dependent modifiers such as Mana Cost and Familiar Action Bonus exactly as they would be
+ * if everything were added from scratch.
+ *
+ * <p>Recordings are discarded whenever the character's real modifiers are recalculated, since the
+ * sources themselves may have changed. An accumulator may be shared between speculations on
+ * different threads.
+ */
+public class ModifierAccumulator {
+  public static final int PASSIVES = 0;
+  public static final int COMPANIONS = 1;
+  public static final int INVENTORY = 2;
+  public static final int GENERATED = 3;
+  public static final int PATH = 4;
+  private static final int SEGMENTS = 5;
+
+  private static final AtomicInteger generation = new AtomicInteger();
+
+  private final Recording[] recordings = new Recording[SEGMENTS];
+
+  public static void invalidate() {
+    ModifierAccumulator.generation.incrementAndGet();
+  }
+
+  /**
+   * Adds a group of sources to the given modifiers. If there is no accumulator, the sources are
+   * added directly; otherwise they are replayed from the accumulator's recording, which is made
+   * first if missing or if it was made with a different key.
+   *
+   * <p>The key should hold everything the sources read other than the speculated equipment and
+   * familiar. It is only built when there is an accumulator, so that recalculating the character's
+   * own modifiers pays nothing for it. Lists in it may be live: they are compared element by
+   * element, counts included, and only copied when a new recording is made.
+   */
+  public static void add(
+      final ModifierAccumulator accumulator,
+      final Modifiers mods,
+      final int segment,
+      final Supplier<Object> key,
+      final Consumer<Modifiers> sources) {
+    if (accumulator == null) {
+      sources.accept(mods);
+      return;
+    }
+    accumulator.getRecording(segment, key.get(), sources).replay(mods);
+  }
+
+  private synchronized Recording getRecording(
+      final int segment, final Object key, final Consumer<Modifiers> sources) {
+    int current = ModifierAccumulator.generation.get();
+    Recording recording = this.recordings[segment];
+    if (recording == null
+        || recording.generation != current
+        || !ModifierAccumulator.sameKey(recording.key, key)) {
+      RecordingModifiers recorder = new RecordingModifiers();
+      sources.accept(recorder);
+      recording =
+          new Recording(current, ModifierAccumulator.snapshot(key), recorder.ops.toArray());
+      this.recordings[segment] = recording;
+    }
+    return recording;
+  }
+
+  private static Object snapshot(final Object key) {
+    if (!(key instanceof List<?> list)) {
+      return key;
+    }
+    List<Object> copy = new ArrayList<>(list.size());
+    for (Object element : list) {
+      copy.add(ModifierAccumulator.snapshot(element));
+    }
+    return copy;
+  }
+
+  private static boolean sameKey(final Object recorded, final Object key) {
+    if (recorded instanceof List<?> recordedList && key instanceof List<?> keyList) {
+      int size = recordedList.size();
+      if (keyList.size() != size) {
+        return false;
+      }
+      for (int i = 0; i < size; ++i) {
+        if (!ModifierAccumulator.sameKey(recordedList.get(i), keyList.get(i))) {
+          return false;
+        }
+      }
+      return true;
+    }
+    if (recorded instanceof AdventureResult recordedResult
+        && key instanceof AdventureResult keyResult) {
+      return recordedResult.equals(keyResult) && recordedResult.getCount() == keyResult.getCount();
+    }
+    return Objects.equals(recorded, key);
+  }
+
+  private static class Recording {
+    private final int generation;
+    private final Object key;
+    private final Object[] ops;
+
+    Recording(final int generation, final Object key, final Object[] ops) {
+      this.generation = generation;
+      this.key = key;
+      this.ops = ops;
+    }
+
+    void replay(final Modifiers mods) {
+      for (Object op : this.ops) {
+        if (op instanceof Addition) {
+          Addition addition = (Addition) op;
+          mods.add(addition.index, addition.value, addition.desc);
+        } else if (op instanceof Lookup) {
+          Lookup lookup = (Lookup) op;
+          mods.add(Modifiers.getModifiers(lookup.type, lookup.name));
+        } else {
+          mods.add((Modifiers) op);
+        }
+      }
+    }
+  }
+
+  private static class Addition {
+    private final int index;
+    private final double value;
+    private final String desc;
+
+    Addition(final int index, final double value, final String desc) {
+      this.index = index;
+      this.value = value;
+      this.desc = desc;
+    }
+  }
+
+  private static class Lookup {
+    private final String type;
+    private final String name;
+
+    Lookup(final String lookup) {
+      this.type = Modifiers.getTypeFromLookup(lookup);
+      this.name = Modifiers.getNameFromLookup(lookup);
+    }
+  }
+
+  private static class RecordingModifiers extends Modifiers {
+    private final List<Object> ops = new ArrayList<>();
+
+    @Override
+    public void add(final int index, final double mod, final String desc) {
+      this.ops.add(new Addition(index, mod, desc));
+    }
+
+    @Override
+    public void add(final Modifiers mods) {
+      if (mods == null) {
+        return;
+      }
+      // Variable modifiers must be evaluated afresh for each speculation
+      this.ops.add(mods.variable ? new Lookup(mods.getName()) : mods);
+    }
+  }
+}
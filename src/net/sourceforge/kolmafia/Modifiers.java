@@ -17,6 +17,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -60,16 +61,40 @@ public class Modifiers {
   private static final Map<String, Integer> synergies = new HashMap<>();
   private static final List<String> mutexes = new ArrayList<>();
   private static final Map<String, Set<String>> uniques = new HashMap<>();
+  // Parsed item and effect modifiers by id, so that the most common lookups
+  // don't have to build and hash a lookup name
+  private static final IdTable itemModifiersById = new IdTable();
+  private static final IdTable effectModifiersById = new IdTable();
   public static String currentLocation = "";
   public static String currentZone = "";
   public static String currentEnvironment = "";
   public static double currentML = 4.0;
-  public static String currentFamiliar = "";
-  public static String mainhandClass = "";
-  public static double hoboPower = 0.0;
-  public static double smithsness = 0.0;
-  public static double currentWeight = 0.0;
-  public static boolean unarmed = false;
+
+  // Values set while modifiers are being calculated, which modifier
+  // expressions can refer to. A thread speculating concurrently with others
+  // (see beginConcurrentSpeculation) works on its own copy.
+  private static class CalculationState {
+    private String familiar = "";
+    private String mainhandClass = "";
+    private double hoboPower = 0.0;
+    private double smithsness = 0.0;
+    private double weight = 0.0;
+    private boolean unarmed = false;
+
+    private CalculationState copy() {
+      CalculationState copy = new CalculationState();
+      copy.familiar = this.familiar;
+      copy.mainhandClass = this.mainhandClass;
+      copy.hoboPower = this.hoboPower;
+      copy.smithsness = this.smithsness;
+      copy.weight = this.weight;
+      copy.unarmed = this.unarmed;
+      return copy;
+    }
+  }
+
+  private static final CalculationState globalState = new CalculationState();
+  private static final ThreadLocal<CalculationState> speculativeState = new ThreadLocal<>();
 
   private static final Pattern FAMILIAR_EFFECT_PATTERN =
       Pattern.compile("Familiar Effect: \"(.*?)\"");
@@ -1154,10 +1179,24 @@ public class Modifiers {
   }
 
   public static final void overrideModifier(String lookup, Object value) {
-    if (value != null) {
-      Modifiers.modifiersByName.put(lookup, value);
-    } else {
-      Modifiers.modifiersByName.remove(lookup);
+    synchronized (Modifiers.modifiersByName) {
+      if (value != null) {
+        Modifiers.modifiersByName.put(lookup, value);
+      } else {
+        Modifiers.modifiersByName.remove(lookup);
+      }
+    }
+    Modifiers.forgetById(lookup);
+  }
+
+  private static void forgetById(final String lookup) {
+    switch (Modifiers.getTypeFromLookup(lookup)) {
+      case "Item":
+        Modifiers.itemModifiersById.clear();
+        break;
+      case "Effect":
+        Modifiers.effectModifiersById.clear();
+        break;
     }
   }
 
@@ -1674,7 +1713,7 @@ public class Modifiers {
 
     // Unarmed modifiers apply only if the character has no weapon or offhand
     boolean unarmed = mods.getBoolean(Modifiers.UNARMED);
-    if (unarmed && !Modifiers.unarmed) {
+    if (unarmed && !Modifiers.isUnarmed()) {
       return;
     }
 
@@ -1766,8 +1805,7 @@ public class Modifiers {
     if (id <= 0) {
       return null;
     }
-    String name = "[" + id + "]";
-    return Modifiers.getModifiers("Item", name);
+    return Modifiers.getModifiersById(Modifiers.itemModifiersById, "Item", id);
   }
 
   /**
@@ -1799,8 +1837,67 @@ public class Modifiers {
         return null;
       }
     }
-    String name = "[" + id + "]";
-    return Modifiers.getModifiers("Effect", name);
+    return Modifiers.getModifiersById(Modifiers.effectModifiersById, "Effect", id);
+  }
+
+  private static Modifiers getModifiersById(final IdTable table, final String type, final int id) {
+    Object cached = table.get(id);
+    if (cached == IdTable.NONE) {
+      return null;
+    }
+    if (cached != null) {
+      return (Modifiers) cached;
+    }
+
+    int version = table.getVersion();
+    Modifiers mods = Modifiers.getModifiers(type, "[" + id + "]");
+    if (mods == null) {
+      table.put(id, IdTable.NONE, version);
+    } else if (!mods.variable) {
+      // Variable modifiers must be evaluated each time they're fetched
+      table.put(id, mods, version);
+    }
+    return mods;
+  }
+
+  private static class IdTable {
+    // Stands in for ids which have no modifiers
+    static final Object NONE = new Object();
+
+    private volatile AtomicReferenceArray<Object> entries = new AtomicReferenceArray<>(0);
+    private volatile int version = 0;
+
+    Object get(final int id) {
+      AtomicReferenceArray<Object> current = this.entries;
+      return id < current.length() ? current.get(id) : null;
+    }
+
+    int getVersion() {
+      return this.version;
+    }
+
+    synchronized void put(final int id, final Object value, final int version) {
+      if (version != this.version) {
+        // Cleared since the value was looked up, so it may be stale
+        return;
+      }
+      AtomicReferenceArray<Object> current = this.entries;
+      if (id >= current.length()) {
+        AtomicReferenceArray<Object> grown =
+            new AtomicReferenceArray<>(Math.max(id + 1, current.length() * 2));
+        for (int i = 0; i < current.length(); ++i) {
+          grown.set(i, current.get(i));
+        }
+        current = grown;
+        this.entries = grown;
+      }
+      current.set(id, value);
+    }
+
+    synchronized void clear() {
+      this.version++;
+      this.entries = new AtomicReferenceArray<>(0);
+    }
   }
 
   public static final Modifiers getModifiers(String type, final String name) {
@@ -1815,44 +1912,59 @@ public class Modifiers {
     }
 
     String lookup = Modifiers.getLookupName(type, name);
-    Object modifier = Modifiers.modifiersByName.get(lookup);
+    Modifiers mods;
 
-    if (modifier == null) {
-      return null;
-    }
+    synchronized (Modifiers.modifiersByName) {
+      Object modifier = Modifiers.modifiersByName.get(lookup);
+
+      if (modifier instanceof String) {
+        Modifiers newMods = Modifiers.parseModifiers(lookup, (String) modifier);
 
-    if (modifier instanceof Modifiers) {
-      Modifiers mods = (Modifiers) modifier;
-      if (mods.variable) {
-        mods.override(lookup);
         if (changeType != null) {
-          mods.name = changeType + ":" + name;
+          newMods.name = changeType + ":" + name;
         }
-      }
-      return mods;
-    }
 
-    if (!(modifier instanceof String)) {
-      return null;
-    }
+        newMods.variable = newMods.override(lookup) || type.equals("Loc") || type.equals("Zone");
 
-    Modifiers newMods = Modifiers.parseModifiers(lookup, (String) modifier);
+        Modifiers.modifiersByName.put(lookup, newMods);
 
-    if (changeType != null) {
-      newMods.name = changeType + ":" + name;
-    }
+        return newMods;
+      }
 
-    newMods.variable = newMods.override(lookup) || type.equals("Loc") || type.equals("Zone");
+      if (!(modifier instanceof Modifiers)) {
+        return null;
+      }
 
-    Modifiers.modifiersByName.put(lookup, newMods);
+      mods = (Modifiers) modifier;
+    }
 
-    return newMods;
+    if (mods.variable) {
+      if (Modifiers.speculativeState.get() != null) {
+        // Don't evaluate into the shared instance while other threads are reading it
+        Modifiers copy = new Modifiers(mods);
+        copy.expressions = mods.expressions;
+        copy.variable = true;
+        mods = copy;
+      }
+      mods.override(lookup);
+      if (changeType != null) {
+        mods.name = changeType + ":" + name;
+      }
+    }
+    return mods;
   }
 
   public static final Modifiers parseModifiers(final String lookup, final String string) {
+    Modifiers newMods = Modifiers.parseValues(lookup, string);
+    Modifiers.parseBitmaps(newMods, lookup, string);
+    return newMods;
+  }
+
+  // Everything but the bitmap modifiers, whose bits are allocated from shared masks.
+  // Safe to call from any thread.
+  private static Modifiers parseValues(final String lookup, final String string) {
     Modifiers newMods = new Modifiers();
     double[] newDoubles = newMods.doubles;
-    int[] newBitmaps = newMods.bitmaps;
     String[] newStrings = newMods.strings;
 
     newMods.name = lookup;
@@ -1878,6 +1990,50 @@ public class Modifiers {
       }
     }
 
+    for (int i = 0; i < Modifiers.BOOLEAN_MODIFIERS; ++i) {
+      Pattern pattern = Modifiers.booleanModifiers[i].getTagPattern();
+      if (pattern == null) {
+        continue;
+      }
+
+      Matcher matcher = pattern.matcher(string);
+      if (!matcher.find()) {
+        continue;
+      }
+
+      newMods.bitmaps[0] |= 1 << i;
+    }
+
+    for (int i = 0; i < newStrings.length; ++i) {
+      Pattern pattern = Modifiers.stringModifiers[i].getTagPattern();
+      if (pattern == null) {
+        continue;
+      }
+
+      Matcher matcher = pattern.matcher(string);
+      if (!matcher.find()) {
+        continue;
+      }
+
+      String key = Modifiers.stringModifiers[i].getName();
+      String value = matcher.group(1);
+
+      if (key.equals("Class")) {
+        value = Modifiers.depluralizeClassName(value);
+      }
+
+      newStrings[i] = value;
+    }
+
+    newStrings[Modifiers.MODIFIERS] = string;
+
+    return newMods;
+  }
+
+  private static void parseBitmaps(
+      final Modifiers newMods, final String lookup, final String string) {
+    int[] newBitmaps = newMods.bitmaps;
+
     for (int i = 0; i < newBitmaps.length; ++i) {
       Pattern pattern = Modifiers.bitmapModifiers[i].getTagPattern();
       if (pattern == null) {
@@ -1914,45 +2070,46 @@ public class Modifiers {
 
       newBitmaps[i] |= mask;
     }
+  }
 
-    for (int i = 0; i < Modifiers.BOOLEAN_MODIFIERS; ++i) {
-      Pattern pattern = Modifiers.booleanModifiers[i].getTagPattern();
-      if (pattern == null) {
-        continue;
-      }
-
-      Matcher matcher = pattern.matcher(string);
-      if (!matcher.find()) {
-        continue;
+  /**
+   * Parses the modifiers of every item and effect which hasn't been looked up yet, so that the
+   * first maximization doesn't have to. The text is parsed in parallel; only allocating bits for
+   * bitmap modifiers is done one at a time.
+   */
+  public static void preloadModifiers() {
+    List<Entry<String, String>> unparsed = new ArrayList<>();
+    synchronized (Modifiers.modifiersByName) {
+      for (Entry<String, Object> entry : Modifiers.modifiersByName.entrySet()) {
+        if (!(entry.getValue() instanceof String)) {
+          continue;
+        }
+        String type = Modifiers.getTypeFromLookup(entry.getKey());
+        if (type.equals("Item") || type.equals("Effect")) {
+          unparsed.add(Map.entry(entry.getKey(), (String) entry.getValue()));
+        }
       }
-
-      newBitmaps[0] |= 1 << i;
     }
 
-    for (int i = 0; i < newStrings.length; ++i) {
-      Pattern pattern = Modifiers.stringModifiers[i].getTagPattern();
-      if (pattern == null) {
-        continue;
-      }
-
-      Matcher matcher = pattern.matcher(string);
-      if (!matcher.find()) {
-        continue;
-      }
+    List<Modifiers> parsed =
+        unparsed.parallelStream()
+            .map(entry -> Modifiers.parseValues(entry.getKey(), entry.getValue()))
+            .collect(Collectors.toList());
 
-      String key = Modifiers.stringModifiers[i].getName();
-      String value = matcher.group(1);
-
-      if (key.equals("Class")) {
-        value = Modifiers.depluralizeClassName(value);
+    synchronized (Modifiers.modifiersByName) {
+      for (int i = 0; i < unparsed.size(); ++i) {
+        String lookup = unparsed.get(i).getKey();
+        String string = unparsed.get(i).getValue();
+        // Skip anything which has been looked up or replaced in the meantime
+        if (Modifiers.modifiersByName.get(lookup) != string) {
+          continue;
+        }
+        Modifiers newMods = parsed.get(i);
+        Modifiers.parseBitmaps(newMods, lookup, string);
+        newMods.variable = newMods.override(lookup);
+        Modifiers.modifiersByName.put(lookup, newMods);
       }
-
-      newStrings[i] = value;
     }
-
-    newStrings[Modifiers.MODIFIERS] = string;
-
-    return newMods;
   }
 
   private static final String[][] classStrings = {
@@ -2625,7 +2782,7 @@ public class Modifiers {
       final FamiliarData familiar, int weight, final AdventureResult famItem) {
     int familiarId = familiar.getId();
     weight = Math.max(1, weight);
-    Modifiers.currentWeight = weight;
+    Modifiers.state().weight = weight;
 
     String race = familiar.getRace();
 
@@ -3328,8 +3485,72 @@ public class Modifiers {
     return Modifiers.currentML;
   }
 
+  private static CalculationState state() {
+    CalculationState state = Modifiers.speculativeState.get();
+    return state != null ? state : Modifiers.globalState;
+  }
+
+  /**
+   * Gives the current thread a private copy of the calculation state, so that it can calculate
+   * speculative modifiers while other threads do the same. Cached modifiers which depend on
+   * expressions are evaluated into a private copy while this is in effect.
+   *
+   * @return false if the current thread was already speculating
+   */
+  public static boolean beginConcurrentSpeculation() {
+    if (Modifiers.speculativeState.get() != null) {
+      return false;
+    }
+    Modifiers.speculativeState.set(Modifiers.globalState.copy());
+    return true;
+  }
+
+  public static void endConcurrentSpeculation() {
+    Modifiers.speculativeState.remove();
+  }
+
   public static void setFamiliar(FamiliarData fam) {
-    Modifiers.currentFamiliar = fam == null ? "" : fam.getRace();
+    Modifiers.state().familiar = fam == null ? "" : fam.getRace();
+  }
+
+  public static String getCurrentFamiliar() {
+    return Modifiers.state().familiar;
+  }
+
+  public static double getCurrentWeight() {
+    return Modifiers.state().weight;
+  }
+
+  public static String getMainhandClass() {
+    return Modifiers.state().mainhandClass;
+  }
+
+  public static void setMainhandClass(String mainhandClass) {
+    Modifiers.state().mainhandClass = mainhandClass;
+  }
+
+  public static boolean isUnarmed() {
+    return Modifiers.state().unarmed;
+  }
+
+  public static void setUnarmed(boolean unarmed) {
+    Modifiers.state().unarmed = unarmed;
+  }
+
+  public static double getHoboPower() {
+    return Modifiers.state().hoboPower;
+  }
+
+  public static void setHoboPower(double hoboPower) {
+    Modifiers.state().hoboPower = hoboPower;
+  }
+
+  public static double getSmithsness() {
+    return Modifiers.state().smithsness;
+  }
+
+  public static void setSmithsness(double smithsness) {
+    Modifiers.state().smithsness = smithsness;
   }
 
   public static String getLookupName(final String type, final String name) {
@@ -3366,6 +3587,8 @@ public class Modifiers {
 
   public static void resetModifiers() {
     Modifiers.modifiersByName.clear();
+    Modifiers.itemModifiersById.clear();
+    Modifiers.effectModifiersById.clear();
     Modifiers.familiarEffectByName.clear();
     Modifiers.passiveSkills.clear();
     Modifiers.synergies.clear();
@@ -3816,7 +4039,7 @@ public class Modifiers {
 
   public static final void updateItem(final String name, final String known) {
     String lookup = Modifiers.getLookupName("Item", name);
-    Modifiers.modifiersByName.put(lookup, known);
+    Modifiers.overrideModifier(lookup, known);
   }
 
   private static void registerObject(
@@ -3839,9 +4062,12 @@ public class Modifiers {
       RequestLogger.updateSessionLog(printMe);
 
       String lookup = Modifiers.getLookupName(type, name);
-      if (!Modifiers.modifiersByName.containsKey(lookup)) {
-        Modifiers.modifiersByName.put(lookup, known);
+      synchronized (Modifiers.modifiersByName) {
+        if (!Modifiers.modifiersByName.containsKey(lookup)) {
+          Modifiers.modifiersByName.put(lookup, known);
+        }
       }
+      Modifiers.forgetById(lookup);
     }
   }
 }
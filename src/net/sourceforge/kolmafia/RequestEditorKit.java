@@ -31,6 +31,7 @@ import net.sourceforge.kolmafia.objectpool.AdventurePool;
 import net.sourceforge.kolmafia.objectpool.EffectPool;
 import net.sourceforge.kolmafia.objectpool.FamiliarPool;
 import net.sourceforge.kolmafia.objectpool.ItemPool;
+import net.sourceforge.kolmafia.pages.PageDispatcher;
 import net.sourceforge.kolmafia.persistence.AdventureDatabase;
 import net.sourceforge.kolmafia.persistence.BountyDatabase;
 import net.sourceforge.kolmafia.persistence.ItemDatabase;
@@ -76,6 +77,7 @@ import net.sourceforge.kolmafia.webui.BasementDecorator;
 import net.sourceforge.kolmafia.webui.BeerPongDecorator;
 import net.sourceforge.kolmafia.webui.CharPaneDecorator;
 import net.sourceforge.kolmafia.webui.ClanFortuneDecorator;
+import net.sourceforge.kolmafia.webui.DecorationRules;
 import net.sourceforge.kolmafia.webui.DiscoCombatHelper;
 import net.sourceforge.kolmafia.webui.FightDecorator;
 import net.sourceforge.kolmafia.webui.HobopolisDecorator;
@@ -280,188 +282,384 @@ public class RequestEditorKit extends HTMLEditorKit {
 
     // Make changes which only apply to a single page.
 
-    if (location.startsWith("account.php")) {
-      StringUtilities.singleStringReplace(
-          buffer, "Manage Subscriptions", "Manage Subscriptions (this will not work in KoLmafia)");
-      StringUtilities.singleStringReplace(
-          buffer, "account_subscription.php\"", "#\" title='This will not work in KoLmafia'");
-    } else if (location.startsWith("account_combatmacros.php")) {
+    RequestEditorKit.PAGE_DECORATIONS.dispatch(
+        location, new DecoratedPage(buffer, addComplexFeatures));
+  }
+
+  record DecoratedPage(StringBuffer buffer, boolean addComplexFeatures) {}
+
+  // What to decorate on each page, other than the character pane and the top menu. Each page's
+  // decorations are tried in order, and only the first which wants the page is made.
+  static final PageDispatcher<DecoratedPage> PAGE_DECORATIONS =
+      new PageDispatcher<DecoratedPage>()
+          .add(
+              "account.php",
+              "account",
+              (location, page) -> {
+                StringUtilities.singleStringReplace(
+                    page.buffer(),
+                    "Manage Subscriptions",
+                    "Manage Subscriptions (this will not work in KoLmafia)");
+                StringUtilities.singleStringReplace(
+                    page.buffer(),
+                    "account_subscription.php\"",
+                    "#\" title='This will not work in KoLmafia'");
+              })
+          .add(
+              "account_combatmacros.php",
+              "combat macros",
+              (location, page) ->
+                  StringUtilities.insertAfter(
+                      page.buffer(),
+                      "</textarea>",
+                      "<script language=JavaScript src=\"/"
+                          + KoLConstants.MACROHELPER_JS
+                          + "\"></script>"))
+          // Per KoL dev team request, add extra warning to the
+          // bug report form.
+          .add(
+              "adminmail.php",
+              "bug report",
+              (location, page) -> RequestEditorKit.addBugReportWarning(page.buffer()))
+          .add(
+              "adventure.php",
+              "adventure",
+              (location, page) -> RequestEditorKit.decorateAdventure(location, page.buffer()))
+          .add(
+              "ascend.php",
+              "gash jump",
+              (location, page) -> ValhallaDecorator.decorateGashJump(location, page.buffer()))
+          .add(
+              "ascensionhistory.php",
+              "ascension history",
+              (location, page) -> {
+                // No Javascript in Java's HTML renderer
+                if (page.addComplexFeatures()) {
+                  RequestEditorKit.decorateAscensionHistory(page.buffer());
+                }
+              })
+          .add("barrel.php", "barrel", (location, page) -> BarrelDecorator.decorate(page.buffer()))
+          .add(
+              "basement.php",
+              "basement",
+              (location, page) -> BasementDecorator.decorate(page.buffer()))
+          .add(
+              "bathole.php",
+              "bat hole",
+              (location, page) ->
+                  StringUtilities.globalStringReplace(
+                      page.buffer(), "action=bathole.php", "action=adventure.php"))
+          .add(
+              "beerpong.php",
+              "beer pong",
+              (location, page) -> BeerPongDecorator.decorate(page.buffer()))
+          .add(
+              "bigisland.php",
+              "island",
+              (location, page) -> IslandDecorator.decorateBigIsland(location, page.buffer()))
+          .add(
+              "casino.php",
+              "casino",
+              (location, page) -> RequestEditorKit.decorateCasino(page.buffer()))
+          .add(
+              "cave.php",
+              "nemesis cave",
+              (location, page) -> NemesisManager.decorate(location, page.buffer()))
+          .add(
+              "choice.php",
+              "choice",
+              (location, page) -> RequestEditorKit.decorateChoice(location, page.buffer()))
+          .add(
+              "clan_hobopolis.php",
+              "hobopolis",
+              (location, page) -> HobopolisDecorator.decorate(location, page.buffer()))
+          .add(
+              "clan_viplounge.php",
+              "clan fortune",
+              "preaction",
+              "testlove",
+              (location, page) -> ClanFortuneDecorator.decorateAnswer(page.buffer()))
+          .add(
+              "council.php",
+              "council",
+              (location, page) -> RequestEditorKit.decorateCouncil(page.buffer()))
+          .add(
+              "crypt.php",
+              "cyrpt",
+              (location, page) -> RequestEditorKit.decorateCrypt(page.buffer()))
+          .add(
+              "dwarffactory.php",
+              "dwarf factory",
+              (location, page) -> DwarfFactoryRequest.decorate(location, page.buffer()))
+          .add(
+              "fight.php",
+              "fight",
+              (location, page) -> RequestEditorKit.decorateFight(location, page.buffer()))
+          .add(
+              "fambattle.php",
+              "familiar battle",
+              (location, page) -> RequestEditorKit.decorateFamBattle(page.buffer()))
+          .add(
+              "hermit.php",
+              "hermit",
+              (location, page) -> {
+                StringUtilities.singleStringReplace(
+                    page.buffer(),
+                    RequestEditorKit.NO_PERMIT_TEXT,
+                    RequestEditorKit.BUY_PERMIT_TEXT);
+                StringUtilities.singleStringReplace(
+                    page.buffer(),
+                    RequestEditorKit.NO_WORTHLESS_ITEM_TEXT,
+                    RequestEditorKit.BUY_WORTHLESS_ITEM_TEXT);
+              })
+          .add(
+              "inventory.php",
+              "inventory",
+              (location, page) -> {
+                RequestEditorKit.decorateInventory(page.buffer(), page.addComplexFeatures());
+                UseItemDecorator.decorate(location, page.buffer());
+              })
+          .add(
+              "inv_use.php",
+              "item use",
+              (location, page) -> UseItemDecorator.decorate(location, page.buffer()))
+          .add(
+              "lchat.php",
+              "chat",
+              (location, page) -> {
+                StringUtilities.globalStringDelete(page.buffer(), "spacing: 0px;");
+                StringUtilities.insertBefore(
+                    page.buffer(),
+                    "if (postedgraf",
+                    "if (postedgraf == \"/exit\") { document.location.href = \"chatlaunch.php\"; return true; } ");
+              })
+          .add(
+              "mall.php",
+              "mall search",
+              (location, page) -> MallSearchRequest.decorateMallSearch(page.buffer()))
+          .add(
+              "mining.php",
+              "mining",
+              (location, page) -> MineDecorator.decorate(location, page.buffer()))
+          .add(
+              "mrstore.php",
+              "mr. store",
+              (location, page) -> {
+                StringUtilities.singleStringReplace(
+                    page.buffer(),
+                    "account_subscription.php",
+                    "# title='This will not work in KoLmafia'");
+                StringUtilities.singleStringReplace(
+                    page.buffer(),
+                    "subscribing</a>",
+                    "subscribing (does not work in KoLmafia)</a>");
+              })
+          .add(
+              "multiuse.php",
+              "multi-use",
+              (location, page) -> RequestEditorKit.addMultiuseModifiers(page.buffer()))
+          .add("ocean.php", "ocean", (location, page) -> OceanManager.decorate(page.buffer()))
+          .add(
+              "pandamonium.php",
+              "pandamonium",
+              (location, page) -> PandamoniumRequest.decoratePandamonium(location, page.buffer()))
+          .add(
+              "place.php",
+              "arcade",
+              "whichplace",
+              "arcade",
+              (location, page) -> RequestEditorKit.decorateArcade(page.buffer()))
+          .add(
+              "place.php",
+              "place",
+              (location, page) -> PlaceRequest.decorate(location, page.buffer()))
+          .add(
+              "postwarisland.php",
+              "island",
+              (location, page) -> IslandDecorator.decoratePostwarIsland(location, page.buffer()))
+          .add(
+              "searchplayer.php",
+              "search player",
+              (location, page) -> RequestEditorKit.decorateSearchPlayer(page.buffer()))
+          .add(
+              "tiles.php",
+              "dvorak's revenge",
+              (location, page) -> DvorakManager.decorate(page.buffer()))
+          .add(
+              "volcanomaze.php",
+              "volcano maze",
+              (location, page) -> VolcanoMazeManager.decorate(location, page.buffer()))
+          .add(
+              "wand.php",
+              "zap",
+              location -> !location.contains("notrim=1"),
+              (location, page) -> ZapRequest.decorate(page.buffer()));
+
+  private static void decorateAdventure(final String location, final StringBuffer buffer) {
+    RequestEditorKit.fixTavernCellar(buffer);
+    // RequestEditorKit.fixBallroom1( buffer );
+    RequestEditorKit.fixDucks(buffer);
+    StationaryButtonDecorator.decorate(location, buffer);
+    RequestEditorKit.fixBallroom2(buffer);
+    RequestEditorKit.fixGovernmentLab(buffer);
+  }
+
+  private static void decorateAscensionHistory(final StringBuffer buffer) {
+    StringUtilities.insertBefore(
+        buffer,
+        "</head>",
+        "<script language=\"Javascript\" src=\"/" + KoLConstants.SORTTABLE_JS + "\"></script>");
+    StringUtilities.singleStringReplace(
+        buffer,
+        "<table><tr><td class=small>",
+        "<table class=\"sortable\" id=\"history\"><tr><td class=small>");
+    StringUtilities.globalStringReplace(
+        buffer,
+        "<tr><td colspan=9",
+        "<tr class=\"sortbottom\" style=\"display:none\"><td colspan=9");
+  }
+
+  private static void decorateCasino(final StringBuffer buffer) {
+    if (!KoLConstants.activeEffects.contains(EffectPool.get(EffectPool.LUCKY))) {
       StringUtilities.insertAfter(
           buffer,
-          "</textarea>",
-          "<script language=JavaScript src=\"/" + KoLConstants.MACROHELPER_JS + "\"></script>");
-    } else if (location.startsWith("adminmail.php")) {
-      // Per KoL dev team request, add extra warning to the
-      // bug report form.
-      RequestEditorKit.addBugReportWarning(buffer);
-    } else if (location.startsWith("adventure.php")) {
-      RequestEditorKit.fixTavernCellar(buffer);
-      // RequestEditorKit.fixBallroom1( buffer );
-      RequestEditorKit.fixDucks(buffer);
-      StationaryButtonDecorator.decorate(location, buffer);
-      RequestEditorKit.fixBallroom2(buffer);
-      RequestEditorKit.fixGovernmentLab(buffer);
-    } else if (location.startsWith("ascend.php")) {
-      ValhallaDecorator.decorateGashJump(location, buffer);
-    } else if (location.startsWith("ascensionhistory.php")) {
-      // No Javascript in Java's HTML renderer
-      if (addComplexFeatures) {
-        StringUtilities.insertBefore(
-            buffer,
-            "</head>",
-            "<script language=\"Javascript\" src=\"/" + KoLConstants.SORTTABLE_JS + "\"></script>");
-        StringUtilities.singleStringReplace(
-            buffer,
-            "<table><tr><td class=small>",
-            "<table class=\"sortable\" id=\"history\"><tr><td class=small>");
-        StringUtilities.globalStringReplace(
-            buffer,
-            "<tr><td colspan=9",
-            "<tr class=\"sortbottom\" style=\"display:none\"><td colspan=9");
-      }
-    } else if (location.startsWith("barrel.php")) {
-      BarrelDecorator.decorate(buffer);
-    } else if (location.startsWith("basement.php")) {
-      BasementDecorator.decorate(buffer);
-    } else if (location.startsWith("bathole.php")) {
-      StringUtilities.globalStringReplace(buffer, "action=bathole.php", "action=adventure.php");
-    } else if (location.startsWith("beerpong.php")) {
-      BeerPongDecorator.decorate(buffer);
-    } else if (location.startsWith("bigisland.php")) {
-      IslandDecorator.decorateBigIsland(location, buffer);
-    } else if (location.startsWith("casino.php")) {
-      if (!KoLConstants.activeEffects.contains(EffectPool.get(EffectPool.LUCKY))) {
-        StringUtilities.insertAfter(
-            buffer,
-            "<a href=\"casino.php?action=slot&whichslot=11\"",
-            " onclick=\"return confirm('Are you sure you want to adventure here WITHOUT Lucky!?');\"");
-      }
-    } else if (location.startsWith("cave.php")) {
-      NemesisManager.decorate(location, buffer);
-    } else if (location.startsWith("choice.php")) {
-      RequestEditorKit.fixTavernCellar(buffer);
-      StationaryButtonDecorator.decorate(location, buffer);
-      RequestEditorKit.addChoiceSpoilers(location, buffer);
-      RequestEditorKit.addBarrelSounds(buffer);
-    } else if (location.startsWith("clan_hobopolis.php")) {
-      HobopolisDecorator.decorate(location, buffer);
-    } else if (location.startsWith("clan_viplounge.php?preaction=testlove")) {
-      ClanFortuneDecorator.decorateAnswer(buffer);
-    } else if (location.startsWith("council.php")) {
-      RequestEditorKit.decorateCouncil(buffer);
-    } else if (location.startsWith("crypt.php")) {
-      RequestEditorKit.decorateCrypt(buffer);
-    } else if (location.startsWith("dwarffactory.php")) {
-      DwarfFactoryRequest.decorate(location, buffer);
-    } else if (location.startsWith("fight.php")) {
-      // Remove bogus directive in monster images
-      StringUtilities.globalStringDelete(buffer, "crossorigin=\"Anonymous\"");
-
-      RequestEditorKit.suppressInappropriateNags(buffer);
-      RequestEditorKit.suppressPowerPixellation(buffer);
-      RequestEditorKit.fixTavernCellar(buffer);
-
-      // Decorate end of fight before stationary buttons
-      FightDecorator.decorateEndOfFight(buffer);
-
-      StationaryButtonDecorator.decorate(location, buffer);
-
-      DiscoCombatHelper.decorate(buffer);
-      RequestEditorKit.addFightModifiers(buffer);
-      RequestEditorKit.addTaleOfDread(buffer);
-      RequestEditorKit.addDesertProgress(buffer);
-      RequestEditorKit.addBlackForestProgress(buffer);
-      RequestEditorKit.addPartyFairProgress(buffer);
-
-      // Do any monster-specific decoration
-      FightDecorator.decorateMonster(buffer);
-
-      // Do any location-specific decoration
-      FightDecorator.decorateLocation(buffer);
-    } else if (location.startsWith("fambattle.php")) {
-      // Do a subset of the above for a Pokefam battle
-      RequestEditorKit.fixTavernCellar(buffer);
-      FightDecorator.decorateEndOfFight(buffer);
-      // Not yet.
-      // StationaryButtonDecorator.decorate( location, buffer );
-      RequestEditorKit.addFambattleModifiers(buffer);
-      RequestEditorKit.addDesertProgress(buffer);
-      RequestEditorKit.addBlackForestProgress(buffer);
-      FightDecorator.decorateMonster(buffer);
-      FightDecorator.decorateLocation(buffer);
-    } else if (location.startsWith("hermit.php")) {
-      StringUtilities.singleStringReplace(
-          buffer, RequestEditorKit.NO_PERMIT_TEXT, RequestEditorKit.BUY_PERMIT_TEXT);
-      StringUtilities.singleStringReplace(
-          buffer,
-          RequestEditorKit.NO_WORTHLESS_ITEM_TEXT,
-          RequestEditorKit.BUY_WORTHLESS_ITEM_TEXT);
-    } else if (location.startsWith("inventory.php")) {
-      RequestEditorKit.decorateInventory(buffer, addComplexFeatures);
-      UseItemDecorator.decorate(location, buffer);
-    } else if (location.startsWith("inv_use.php")) {
-      UseItemDecorator.decorate(location, buffer);
-    } else if (location.contains("lchat.php")) {
-      StringUtilities.globalStringDelete(buffer, "spacing: 0px;");
-      StringUtilities.insertBefore(
-          buffer,
-          "if (postedgraf",
-          "if (postedgraf == \"/exit\") { document.location.href = \"chatlaunch.php\"; return true; } ");
-    } else if (location.startsWith("mall.php")) {
-      MallSearchRequest.decorateMallSearch(buffer);
-    } else if (location.startsWith("mining.php")) {
-      MineDecorator.decorate(location, buffer);
-    } else if (location.startsWith("mrstore.php")) {
-      StringUtilities.singleStringReplace(
-          buffer, "account_subscription.php", "# title='This will not work in KoLmafia'");
-      StringUtilities.singleStringReplace(
-          buffer, "subscribing</a>", "subscribing (does not work in KoLmafia)</a>");
-    } else if (location.startsWith("multiuse.php")) {
-      RequestEditorKit.addMultiuseModifiers(buffer);
-    } else if (location.startsWith("ocean.php")) {
-      OceanManager.decorate(buffer);
-    } else if (location.startsWith("pandamonium.php")) {
-      PandamoniumRequest.decoratePandamonium(location, buffer);
-    } else if (location.startsWith("place.php?whichplace=arcade")) {
-      StringBuilder note = new StringBuilder("Arcade (");
-      int count = InventoryManager.getCount(ItemPool.GG_TOKEN);
-      note.append(count);
-      note.append(" token");
-      if (count != 1) {
-        note.append('s');
-      }
-      note.append(", ");
-      count = InventoryManager.getCount(ItemPool.GG_TICKET);
-      note.append(count);
-      note.append(" ticket");
-      if (count != 1) {
-        note.append('s');
-      }
-      note.append(")</b>");
-
-      StringUtilities.singleStringReplace(buffer, "Arcade</b>", note.toString());
-    } else if (location.startsWith("place.php")) {
-      PlaceRequest.decorate(location, buffer);
-    } else if (location.startsWith("postwarisland.php")) {
-      IslandDecorator.decoratePostwarIsland(location, buffer);
-    } else if (location.startsWith("searchplayer.php")) {
-      StringUtilities.insertAfter(buffer, "name=pvponly", " checked");
-      StringUtilities.singleStringReplace(buffer, "value=0 checked", "value=0");
-
-      if (KoLCharacter.isHardcore()) {
-        StringUtilities.insertAfter(buffer, "value=1", " checked");
-      } else {
-        StringUtilities.insertAfter(buffer, "value=2", " checked");
-      }
-    } else if (location.startsWith("tiles.php")) {
-      DvorakManager.decorate(buffer);
-    } else if (location.startsWith("volcanomaze.php")) {
-      VolcanoMazeManager.decorate(location, buffer);
-    } else if (location.startsWith("wand.php") && !location.contains("notrim=1")) {
-      ZapRequest.decorate(buffer);
+          "<a href=\"casino.php?action=slot&whichslot=11\"",
+          " onclick=\"return confirm('Are you sure you want to adventure here WITHOUT Lucky!?');\"");
+    }
+  }
+
+  private static void decorateChoice(final String location, final StringBuffer buffer) {
+    RequestEditorKit.fixTavernCellar(buffer);
+    StationaryButtonDecorator.decorate(location, buffer);
+    RequestEditorKit.addChoiceSpoilers(location, buffer);
+    RequestEditorKit.addBarrelSounds(buffer);
+  }
+
+  private static void decorateFight(final String location, final StringBuffer buffer) {
+    // Remove bogus directive in monster images
+    StringUtilities.globalStringDelete(buffer, "crossorigin=\"Anonymous\"");
+
+    RequestEditorKit.suppressInappropriateNags(buffer);
+    RequestEditorKit.suppressPowerPixellation(buffer);
+    RequestEditorKit.fixTavernCellar(buffer);
+
+    // Decorate end of fight before stationary buttons
+    FightDecorator.decorateEndOfFight(buffer);
+
+    StationaryButtonDecorator.decorate(location, buffer);
+
+    DiscoCombatHelper.decorate(buffer);
+    RequestEditorKit.addFightModifiers(buffer);
+    RequestEditorKit.addTaleOfDread(buffer);
+    RequestEditorKit.addDesertProgress(buffer);
+    RequestEditorKit.addBlackForestProgress(buffer);
+    RequestEditorKit.addPartyFairProgress(buffer);
+
+    // Do any monster-specific decoration
+    FightDecorator.decorateMonster(buffer);
+
+    // Do any location-specific decoration
+    FightDecorator.decorateLocation(buffer);
+  }
+
+  private static void decorateFamBattle(final StringBuffer buffer) {
+    // Do a subset of the above for a Pokefam battle
+    RequestEditorKit.fixTavernCellar(buffer);
+    FightDecorator.decorateEndOfFight(buffer);
+    // Not yet.
+    // StationaryButtonDecorator.decorate( location, buffer );
+    RequestEditorKit.addFambattleModifiers(buffer);
+    RequestEditorKit.addDesertProgress(buffer);
+    RequestEditorKit.addBlackForestProgress(buffer);
+    FightDecorator.decorateMonster(buffer);
+    FightDecorator.decorateLocation(buffer);
+  }
+
+  private static void decorateArcade(final StringBuffer buffer) {
+    StringBuilder note = new StringBuilder("Arcade (");
+    int count = InventoryManager.getCount(ItemPool.GG_TOKEN);
+    note.append(count);
+    note.append(" token");
+    if (count != 1) {
+      note.append('s');
+    }
+    note.append(", ");
+    count = InventoryManager.getCount(ItemPool.GG_TICKET);
+    note.append(count);
+    note.append(" ticket");
+    if (count != 1) {
+      note.append('s');
+    }
+    note.append(")</b>");
+
+    StringUtilities.singleStringReplace(buffer, "Arcade</b>", note.toString());
+  }
+
+  private static void decorateSearchPlayer(final StringBuffer buffer) {
+    StringUtilities.insertAfter(buffer, "name=pvponly", " checked");
+    StringUtilities.singleStringReplace(buffer, "value=0 checked", "value=0");
+
+    if (KoLCharacter.isHardcore()) {
+      StringUtilities.insertAfter(buffer, "value=1", " checked");
+    } else {
+      StringUtilities.insertAfter(buffer, "value=2", " checked");
     }
   }
 
+  // Decorations which might apply to any page, in the order they are made. Each is keyed by the
+  // strings without which it leaves the page alone, so that a page is scanned for all of them at
+  // once.
+  static final DecorationRules GLOBAL_DECORATIONS =
+      new DecorationRules()
+          .add(
+              "suppress redundant refreshes",
+              RequestEditorKit::suppressRedundantRefreshes,
+              "href=\"charpane")
+          .add(
+              "change punchcard names",
+              RequestEditorKit::changePunchcardNames,
+              "El Vibrato punchcard")
+          .add(
+              "change potion images",
+              RequestEditorKit::changePotionImages,
+              "exclam.gif",
+              "vial.gif")
+          .add(
+              "decorate level gain",
+              RequestEditorKit::decorateLevelGain,
+              "<b>You gain a Level!</b>",
+              "<b>You gain some Levels!</b>")
+          .add(
+              "add absinthe link",
+              RequestEditorKit::addAbsintheLink,
+              "For some reason, you can't find your way back there.")
+          .add(
+              "add transponder link",
+              RequestEditorKit::addTransponderLink,
+              "You consider beating up Kenneth to see if <i>he</i> remembers it, but you think better of it.",
+              "You can't get here without the proper transporter frequency.")
+          .add(
+              "add battery link",
+              RequestEditorKit::addBatteryLink,
+              "Your hoverbelt would totally do the trick to get you up there, only it's out of juice.")
+          .add(
+              "add folio link",
+              RequestEditorKit::addFolioLink,
+              "'Til you do, you can't visit the Suburbs of Dis!")
+          .add(
+              "add new location links",
+              RequestEditorKit::addNewLocationLinks,
+              "New Area Unlocked")
+          .add(
+              "suppress potential malware",
+              RequestEditorKit::suppressPotentialMalware,
+              "GoogleAnalyticsObject",
+              "adsbygoogle")
+          .add(
+              "extend right click menu",
+              RequestEditorKit::extendRightClickMenu,
+              "pop_ircm_contents");
+
   protected static final void applyGlobalAdjustments(
       final String location, final StringBuffer buffer, final boolean addComplexFeatures) {
     // Make basics.js and basics.css available to all pages
@@ -484,22 +682,11 @@ public class RequestEditorKit extends HTMLEditorKit {
       return;
     }
 
-    // Remove redundant requests for a charpane refresh
-    RequestEditorKit.suppressRedundantRefreshes(buffer);
-
-    // Handle changes which happen on a lot of different pages
-    // rather than just one or two.
+    // Remove redundant requests for a charpane refresh, and handle
+    // changes which happen on a lot of different pages rather than
+    // just one or two.
 
-    RequestEditorKit.changePunchcardNames(buffer);
-    RequestEditorKit.changePotionImages(buffer);
-    RequestEditorKit.decorateLevelGain(buffer);
-    RequestEditorKit.addAbsintheLink(buffer);
-    RequestEditorKit.addTransponderLink(buffer);
-    RequestEditorKit.addBatteryLink(buffer);
-    RequestEditorKit.addFolioLink(buffer);
-    RequestEditorKit.addNewLocationLinks(buffer);
-    RequestEditorKit.suppressPotentialMalware(buffer);
-    RequestEditorKit.extendRightClickMenu(buffer);
+    RequestEditorKit.GLOBAL_DECORATIONS.apply(buffer);
 
     // Now do anything which doesn't work in Java's internal HTML renderer
 
@@ -588,7 +775,7 @@ public class RequestEditorKit extends HTMLEditorKit {
     }
   }
 
-  private static void extendRightClickMenu(StringBuffer buffer) {
+  static void extendRightClickMenu(StringBuffer buffer) {
     if (buffer.indexOf("pop_ircm_contents") != -1) {
       StringUtilities.insertBefore(
           buffer, "</html>", "<script src=\"/" + KoLConstants.IRCM_JS + "\"></script>");
@@ -605,7 +792,7 @@ public class RequestEditorKit extends HTMLEditorKit {
     }
   }
 
-  private static void decorateLevelGain(final StringBuffer buffer) {
+  static void decorateLevelGain(final StringBuffer buffer) {
     String test = "<b>You gain a Level!</b>";
     int index = buffer.indexOf(test);
 
@@ -677,7 +864,7 @@ public class RequestEditorKit extends HTMLEditorKit {
     }
   }
 
-  private static void addTransponderLink(final StringBuffer buffer) {
+  static void addTransponderLink(final StringBuffer buffer) {
     // You can't get there anymore, because you don't know the
     // transporter frequency. You consider beating up Kenneth to
     // see if <i>he</i> remembers it, but you think better of it.
@@ -710,7 +897,7 @@ public class RequestEditorKit extends HTMLEditorKit {
 
   private static final AdventureResult WARBEAR_BATTERY = ItemPool.get(ItemPool.WARBEAR_BATTERY, 1);
 
-  private static void addBatteryLink(final StringBuffer buffer) {
+  static void addBatteryLink(final StringBuffer buffer) {
     // Your hoverbelt would totally do the trick to get you up
     // there, only it's out of juice.
 
@@ -734,7 +921,7 @@ public class RequestEditorKit extends HTMLEditorKit {
     buffer.insert(index + test.length(), link.getItemHTML());
   }
 
-  private static void addFolioLink(final StringBuffer buffer) {
+  static void addFolioLink(final StringBuffer buffer) {
     // Remember that devilish folio you read?
     // No, you don't! You don't have it all still in your head!
     // Better find a new one you can read! I swear this:
@@ -757,7 +944,7 @@ public class RequestEditorKit extends HTMLEditorKit {
     buffer.insert(index + test.length(), link.getItemHTML());
   }
 
-  private static void addAbsintheLink(final StringBuffer buffer) {
+  static void addAbsintheLink(final StringBuffer buffer) {
     // For some reason, you can't find your way back there.
 
     String test = "For some reason, you can't find your way back there.";
@@ -882,7 +1069,7 @@ public class RequestEditorKit extends HTMLEditorKit {
       Pattern.compile(
           "(?:top|parent).charpane.location.href=\"charpane.php\";\\n?", Pattern.DOTALL);
 
-  private static void suppressRedundantRefreshes(final StringBuffer buffer) {
+  static void suppressRedundantRefreshes(final StringBuffer buffer) {
     Matcher matcher = CHARPANE_REFRESH_PATTERN.matcher(buffer);
     MatchResult[] matches = matcher.results().toArray(MatchResult[]::new);
     // Index of the last match - if any
@@ -926,7 +1113,7 @@ public class RequestEditorKit extends HTMLEditorKit {
       Pattern.compile(
           "<script async src=\"//.*?adsbygoogle.js\".*?1x1trans.gif.*?<br>", Pattern.DOTALL);
 
-  private static void suppressPotentialMalware(final StringBuffer buffer) {
+  static void suppressPotentialMalware(final StringBuffer buffer) {
     // Always remove lag-inducing Javascript
     if (buffer.indexOf("GoogleAnalyticsObject") != -1) {
       Matcher matcher = RequestEditorKit.MALWARE1_PATTERN.matcher(buffer);
@@ -1536,7 +1723,7 @@ public class RequestEditorKit extends HTMLEditorKit {
     RequestEditorKit.changePotionNames(buffer);
   }
 
-  private static void changePotionImages(final StringBuffer buffer) {
+  static void changePotionImages(final StringBuffer buffer) {
     if (buffer.indexOf("exclam.gif") == -1 && buffer.indexOf("vial.gif") == -1) {
       return;
     }
@@ -1616,7 +1803,7 @@ public class RequestEditorKit extends HTMLEditorKit {
     }
   }
 
-  private static void changePunchcardNames(final StringBuffer buffer) {
+  static void changePunchcardNames(final StringBuffer buffer) {
     if (buffer.indexOf("El Vibrato punchcard") == -1) {
       return;
     }
@@ -14,6 +14,7 @@ import net.sourceforge.kolmafia.session.DvorakManager;
 import net.sourceforge.kolmafia.session.SorceressLairManager;
 import net.sourceforge.kolmafia.utilities.LogStream;
 import net.sourceforge.kolmafia.utilities.NullStream;
+import net.sourceforge.kolmafia.utilities.OutputBatcher;
 import net.sourceforge.kolmafia.utilities.StringUtilities;
 import net.sourceforge.kolmafia.webui.RelayServer;
 
@@ -27,6 +28,11 @@ public class RequestLogger extends NullStream {
   private static PrintStream debugStream = NullStream.INSTANCE;
   private static PrintStream traceStream = NullStream.INSTANCE;
 
+  // Output for the gCLI window and the relay browser's status feed is handed on in batches, so
+  // that printing many lines neither floods the Swing event queue nor waits on it
+  private static final OutputBatcher commandOutput =
+      new OutputBatcher(RequestLogger::showOutput, 50, 50000);
+
   private static String lastURLString = "";
   public static String previousUpdateString = "";
   private static boolean wasLastRequestSimple = false;
@@ -73,7 +79,7 @@ public class RequestLogger extends NullStream {
 
     buffer.setLength(0);
     SkillDatabase.generateSkillList(buffer, true);
-    KoLConstants.commandBuffer.append(buffer.toString());
+    RequestLogger.commandOutput.add(buffer.toString());
   }
 
   public static final void printList(final List<?> printing) {
@@ -121,7 +127,7 @@ public class RequestLogger extends NullStream {
       return;
     }
 
-    StringBuffer colorBuffer = new StringBuffer();
+    StringBuffer colorBuffer = new StringBuffer(message.length() + 32);
 
     if (message.isEmpty()) {
       colorBuffer.append("<br>");
@@ -165,13 +171,29 @@ public class RequestLogger extends NullStream {
         colorBuffer.append("</span>");
       }
 
-      StringUtilities.globalStringDelete(colorBuffer, "<html>");
-      StringUtilities.globalStringDelete(colorBuffer, "</html>");
+      if (message.contains("html>")) {
+        StringUtilities.globalStringDelete(colorBuffer, "<html>");
+        StringUtilities.globalStringDelete(colorBuffer, "</html>");
+      }
     }
 
     colorBuffer.append(KoLConstants.LINE_BREAK);
-    KoLConstants.commandBuffer.append(colorBuffer.toString());
-    RelayServer.addStatusMessage(colorBuffer.toString());
+    RequestLogger.commandOutput.add(colorBuffer.toString());
+  }
+
+  private static void showOutput(final String output) {
+    KoLConstants.commandBuffer.append(output);
+    RelayServer.addStatusMessage(output);
+  }
+
+  /** Shows any output still waiting to be shown in the gCLI window and the relay browser. */
+  public static final void flushOutput() {
+    RequestLogger.commandOutput.flush();
+  }
+
+  /** Clears the gCLI window, along with any output not yet shown in it. */
+  public static final void clearOutput() {
+    RequestLogger.commandOutput.clear(KoLConstants.commandBuffer::clear);
   }
 
   public static final PrintStream openStream(
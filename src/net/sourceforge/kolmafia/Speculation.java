@@ -25,6 +25,8 @@ public class Speculation {
   protected boolean calculated = false;
   protected Modifiers mods;
   private Map<Modeable, String> modeables;
+  // Shared with clones, which differ only in equipment
+  protected ModifierAccumulator accumulator = new ModifierAccumulator();
 
   public Speculation() {
     this.MCD = KoLCharacter.getMindControlLevel();
@@ -150,7 +152,8 @@ public class Speculation {
             this.horsery,
             this.boomBox,
             this.modeables,
-            true);
+            true,
+            this.accumulator);
     this.calculated = true;
     return this.mods;
   }
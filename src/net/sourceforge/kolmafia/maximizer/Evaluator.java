@@ -22,6 +22,7 @@ import net.sourceforge.kolmafia.KoLConstants.MafiaState;
 import net.sourceforge.kolmafia.KoLConstants.WeaponType;
 import net.sourceforge.kolmafia.KoLmafia;
 import net.sourceforge.kolmafia.Modeable;
+import net.sourceforge.kolmafia.ModifierAccumulator;
 import net.sourceforge.kolmafia.Modifiers;
 import net.sourceforge.kolmafia.RequestLogger;
 import net.sourceforge.kolmafia.SpecialOutfit;
@@ -92,6 +93,7 @@ public class Evaluator {
   private final Set<AdventureResult> uniques = new HashSet<>();
   private final Map<AdventureResult, Double> bonuses = new HashMap<>();
   private final List<BonusFunction> bonusFunc = new ArrayList<>();
+  final ModifierAccumulator accumulator = new ModifierAccumulator();
 
   static class BonusFunction {
     public final Function<AdventureResult, Double> bonusFunction;
@@ -717,9 +719,20 @@ public class Evaluator {
                 : haveHammer ? hammer : haveFireFlower ? fireFlower : workBoots;
   }
 
+  // The result of scoring one set of modifiers. Scoring keeps nothing in the evaluator, so any
+  // number of threads can score at once.
+  record Score(double score, boolean failed, boolean exceeded) {}
+
   public double getScore(Modifiers mods, AdventureResult[] equipment) {
-    this.failed = false;
-    this.exceeded = false;
+    Score result = this.score(mods, equipment);
+    this.failed = result.failed();
+    this.exceeded = result.exceeded();
+    return result.score();
+  }
+
+  Score score(Modifiers mods, AdventureResult[] equipment) {
+    boolean failed = false;
+    boolean exceeded = false;
     int[] predicted = mods.predict();
 
     double score = 0.0;
@@ -806,7 +819,7 @@ public class Evaluator {
           val = ((baseExp + exp) * (1 + expPct)) / 2.0f;
           break;
       }
-      if (val < min) this.failed = true;
+      if (val < min) failed = true;
       score += weight * Math.min(val, max);
     }
     if (!this.bonuses.isEmpty()) {
@@ -827,8 +840,8 @@ public class Evaluator {
     if (mods.getString(Modifiers.ROLLOVER_EFFECT).length() > 0) {
       score += 0.01f;
     }
-    if (score < this.totalMin) this.failed = true;
-    if (score >= this.totalMax) this.exceeded = true;
+    if (score < this.totalMin) failed = true;
+    if (score >= this.totalMax) exceeded = true;
     // special handling for -osity:
     // The "weight" specified is actually the desired -osity.
     // Allow partials to contribute to the score (1:1 ratio) up to the desired value.
@@ -836,34 +849,52 @@ public class Evaluator {
     if (this.clownosity > 0) {
       int osity = ((int) mods.get(Modifiers.CLOWNINESS)) / 25;
       score += Math.min(osity, this.clownosity);
-      if (osity < this.clownosity) this.failed = true;
+      if (osity < this.clownosity) failed = true;
     }
     if (this.raveosity > 0) {
       int osity = mods.getBitmap(Modifiers.RAVEOSITY);
       score += Math.min(osity, this.raveosity);
-      if (osity < this.raveosity) this.failed = true;
+      if (osity < this.raveosity) failed = true;
     }
     if (this.surgeonosity > 0) {
       int osity = (int) mods.get(Modifiers.SURGEONOSITY);
       score += Math.min(osity, this.surgeonosity);
-      if (osity < this.surgeonosity) this.failed = true;
+      if (osity < this.surgeonosity) failed = true;
     }
-    if (!this.failed
+    if (!failed
         && this.booleanMask != 0
         && (mods.getRawBitmap(0) & this.booleanMask) != this.booleanValue) {
-      this.failed = true;
+      failed = true;
     }
-    return score;
+    return new Score(score, failed, exceeded);
   }
 
   public double getScore(Modifiers mods) {
     return this.getScore(mods, new AdventureResult[0]);
   }
 
+  /**
+   * Scores a speculation, including whether its equipment satisfies the constraints. Safe to call
+   * from several threads at once.
+   */
+  Score score(Modifiers mods, AdventureResult[] equipment, int beeosity) {
+    Score result = this.score(mods, equipment);
+    boolean failed =
+        result.failed() || this.failsEquipmentCheck(mods, equipment, beeosity, result.failed());
+    return new Score(result.score(), failed, result.exceeded());
+  }
+
   void checkEquipment(Modifiers mods, AdventureResult[] equipment, int beeosity) {
+    if (this.failsEquipmentCheck(mods, equipment, beeosity, this.failed)) {
+      this.failed = true;
+    }
+  }
+
+  private boolean failsEquipmentCheck(
+      Modifiers mods, AdventureResult[] equipment, int beeosity, boolean failed) {
     boolean outfitSatisfied = this.posOutfits.isEmpty();
     boolean equipSatisfied = this.posEquip.isEmpty();
-    if (!this.failed && !this.posEquip.isEmpty()) {
+    if (!failed && !this.posEquip.isEmpty()) {
       equipSatisfied = true;
       for (AdventureResult item : this.posEquip) {
         if (!KoLCharacter.hasEquipped(equipment, item)) {
@@ -872,10 +903,10 @@ public class Evaluator {
         }
       }
     }
-    if (!this.failed) {
+    if (!failed) {
       String outfit = mods.getString(Modifiers.OUTFIT);
       if (this.negOutfits.contains(outfit)) {
-        this.failed = true;
+        return true;
       } else {
         outfitSatisfied = this.posOutfits.contains(outfit) || this.posOutfits.isEmpty();
       }
@@ -883,16 +914,14 @@ public class Evaluator {
     // negEquip is not checked, since enumerateEquipment should make it
     // impossible for such items to be chosen.
     if (!outfitSatisfied || !equipSatisfied) {
-      this.failed = true;
-    }
-    if (beeosity > this.beeosity) {
-      this.failed = true;
+      return true;
     }
+    return beeosity > this.beeosity;
   }
 
   double getTiebreaker(Modifiers mods) {
     if (this.noTiebreaker) return 0.0;
-    return this.tiebreaker.getScore(mods);
+    return this.tiebreaker.score(mods, new AdventureResult[0]).score();
   }
 
   boolean isUsingTiebreaker() {
@@ -1312,7 +1341,7 @@ public class Evaluator {
               continue;
             }
             if (hoboPowerUseful && name.startsWith("Hodgman's")) {
-              Modifiers.hoboPower = 100.0;
+              Modifiers.setHoboPower(100.0);
               item.automaticFlag = true;
             }
             break;
@@ -2290,6 +2319,20 @@ public class Evaluator {
           }
         });
 
+    if (Preferences.getBoolean("maximizerParallelSearch")) {
+      ParallelSearch.tryAll(
+          spec,
+          this.familiars,
+          this.carriedFamiliars,
+          usefulOutfits,
+          outfitPieces,
+          automatic,
+          useCard,
+          useCrownFamiliar,
+          useBjornFamiliar);
+      return;
+    }
+
     spec.tryAll(
         this.familiars,
         this.carriedFamiliars,
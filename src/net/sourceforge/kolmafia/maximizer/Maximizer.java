@@ -8,6 +8,7 @@ import java.util.Objects;
 import java.util.Set;
 import net.java.dev.spellcast.utilities.LockableListModel;
 import net.sourceforge.kolmafia.AdventureResult;
+import net.sourceforge.kolmafia.Expression;
 import net.sourceforge.kolmafia.FamiliarData;
 import net.sourceforge.kolmafia.KoLCharacter;
 import net.sourceforge.kolmafia.KoLConstants;
@@ -72,7 +73,7 @@ public class Maximizer {
   };
 
   static MaximizerSpeculation best;
-  static int bestChecked;
+  static long bestChecked;
   static long bestUpdate;
 
   private Maximizer() {}
@@ -106,6 +107,21 @@ public class Maximizer {
       int priceLevel,
       boolean includeAll,
       EnumMap<KoLConstants.filterType, Boolean> filter) {
+    // Nothing is changed until a boost is executed, so expressions can cache what they look up
+    Expression.beginEpoch();
+    try {
+      Maximizer.maximizeInEpoch(equipScope, maxPrice, priceLevel, includeAll, filter);
+    } finally {
+      Expression.endEpoch();
+    }
+  }
+
+  private static void maximizeInEpoch(
+      int equipScope,
+      int maxPrice,
+      int priceLevel,
+      boolean includeAll,
+      EnumMap<KoLConstants.filterType, Boolean> filter) {
     KoLmafia.forceContinue();
     String maxMe = (String) MaximizerFrame.expressionSelect.getSelectedItem();
     RequestLogger.printLine("Maximizer: " + maxMe);
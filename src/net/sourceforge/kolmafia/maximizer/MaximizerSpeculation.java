@@ -1,5 +1,6 @@
 package net.sourceforge.kolmafia.maximizer;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import net.sourceforge.kolmafia.AdventureResult;
@@ -32,11 +33,27 @@ public class MaximizerSpeculation extends Speculation
   public CheckedItem attachment;
   private boolean foldables = false;
 
+  // Used when the search is split into branches by ParallelSearch
+  private List<MaximizerSpeculation> branches;
+  List<List<CheckedItem>> branchPossibles;
+  ParallelSearch search;
+  MaximizerSpeculation branchBest;
+
+  public MaximizerSpeculation() {
+    super();
+    if (Maximizer.eval != null) {
+      // Every speculation in a maximization shares the modifiers that don't change
+      this.accumulator = Maximizer.eval.accumulator;
+    }
+  }
+
   @Override
   public MaximizerSpeculation clone() {
     try {
       MaximizerSpeculation copy = (MaximizerSpeculation) super.clone();
       copy.equipment = this.equipment.clone();
+      copy.branches = null;
+      copy.branchBest = null;
       return copy;
     } catch (CloneNotSupportedException e) {
       return null;
@@ -59,19 +76,19 @@ public class MaximizerSpeculation extends Speculation
   public double getScore() {
     if (this.scored) return this.score;
     if (!this.calculated) this.calculate();
-    this.score = Maximizer.eval.getScore(this.mods, this.equipment);
     if (KoLCharacter.inBeecore()) {
       this.beeosity = KoLCharacter.getBeeosity(this.equipment);
     }
-    Maximizer.eval.checkEquipment(this.mods, this.equipment, this.beeosity);
-    this.failed = Maximizer.eval.failed;
+    Evaluator.Score result = Maximizer.eval.score(this.mods, this.equipment, this.beeosity);
+    this.score = result.score();
+    this.failed = result.failed();
+    this.exceeded = result.exceeded();
     if ((this.mods.getRawBitmap(Modifiers.MUTEX_VIOLATIONS)
             & ~KoLCharacter.currentRawBitmapModifier(Modifiers.MUTEX_VIOLATIONS))
         != 0) { // We're speculating about something that would create a
       // mutex problem that the player didn't already have.
       this.failed = true;
     }
-    this.exceeded = Maximizer.eval.exceeded;
     this.scored = true;
     return this.score;
   }
@@ -192,6 +209,12 @@ public class MaximizerSpeculation extends Speculation
     System.arraycopy(mark, 0, this.equipment, 0, EquipmentManager.ALL_SLOTS);
   }
 
+  // Instead of searching, record a branch for each combination of
+  // familiar, outfit, familiar item and container that would be searched.
+  void collectBranches(List<MaximizerSpeculation> branches) {
+    this.branches = branches;
+  }
+
   public void tryAll(
       List<FamiliarData> familiars,
       List<FamiliarData> enthronedFamiliars,
@@ -387,19 +410,20 @@ public class MaximizerSpeculation extends Speculation
         if (item.getItemId() == ItemPool.BUDDY_BJORN) {
           if (useBjornFamiliar != null) {
             this.setBjorned(useBjornFamiliar);
-            this.tryAccessories(enthronedFamiliars, possibles, 0, bestCard, useCrownFamiliar);
+            this.branchOrTryAccessories(enthronedFamiliars, possibles, bestCard, useCrownFamiliar);
             any = true;
             this.restore(mark);
           } else {
             for (FamiliarData f : enthronedFamiliars) {
               this.setBjorned(f);
-              this.tryAccessories(enthronedFamiliars, possibles, 0, bestCard, useCrownFamiliar);
+              this.branchOrTryAccessories(
+                  enthronedFamiliars, possibles, bestCard, useCrownFamiliar);
               any = true;
               this.restore(mark);
             }
           }
         } else {
-          this.tryAccessories(enthronedFamiliars, possibles, 0, bestCard, useCrownFamiliar);
+          this.branchOrTryAccessories(enthronedFamiliars, possibles, bestCard, useCrownFamiliar);
           any = true;
           this.restore(mark);
         }
@@ -409,10 +433,26 @@ public class MaximizerSpeculation extends Speculation
       this.equipment[EquipmentManager.CONTAINER] = EquipmentRequest.UNEQUIP;
     }
 
-    this.tryAccessories(enthronedFamiliars, possibles, 0, bestCard, useCrownFamiliar);
+    this.branchOrTryAccessories(enthronedFamiliars, possibles, bestCard, useCrownFamiliar);
     this.restore(mark);
   }
 
+  private void branchOrTryAccessories(
+      List<FamiliarData> enthronedFamiliars,
+      List<List<CheckedItem>> possibles,
+      AdventureResult bestCard,
+      FamiliarData useCrownFamiliar)
+      throws MaximizerInterruptedException {
+    if (this.branches == null) {
+      this.tryAccessories(enthronedFamiliars, possibles, 0, bestCard, useCrownFamiliar);
+      return;
+    }
+    MaximizerSpeculation branch = this.clone();
+    // tryAll swaps in the familiar slot's list for each familiar
+    branch.branchPossibles = new ArrayList<>(possibles);
+    this.branches.add(branch);
+  }
+
   public void tryAccessories(
       List<FamiliarData> enthronedFamiliars,
       List<List<CheckedItem>> possibles,
@@ -791,14 +831,22 @@ public class MaximizerSpeculation extends Speculation
       // this isn't really what is happening but trying to understand why this is happening, first.
       throw new MaximizerLimitException();
     }
-    if (this.compareTo(Maximizer.best) > 0) {
-      Maximizer.best = this.clone();
-    }
-    Maximizer.bestChecked++;
-    long t = System.currentTimeMillis();
-    if (t > Maximizer.bestUpdate) {
-      MaximizerSpeculation.showProgress();
-      Maximizer.bestUpdate = t + 5000;
+    long checked;
+    if (this.search != null) {
+      if (this.branchBest == null || this.compareTo(this.branchBest) > 0) {
+        this.branchBest = this.clone();
+      }
+      checked = this.search.checked(this.branchBest);
+    } else {
+      if (this.compareTo(Maximizer.best) > 0) {
+        Maximizer.best = this.clone();
+      }
+      checked = ++Maximizer.bestChecked;
+      long t = System.currentTimeMillis();
+      if (t > Maximizer.bestUpdate) {
+        MaximizerSpeculation.showProgress();
+        Maximizer.bestUpdate = t + 5000;
+      }
     }
     this.restore(mark);
     if (!KoLmafia.permitsContinue()) {
@@ -808,7 +856,7 @@ public class MaximizerSpeculation extends Speculation
       throw new MaximizerExceededException();
     }
     long comboLimit = Preferences.getLong("maximizerCombinationLimit");
-    if (comboLimit != 0 && Maximizer.bestChecked >= comboLimit) {
+    if (comboLimit != 0 && checked >= comboLimit) {
       throw new MaximizerLimitException();
     }
   }
@@ -855,12 +903,16 @@ public class MaximizerSpeculation extends Speculation
   }
 
   public static void showProgress() {
+    MaximizerSpeculation.showProgress(
+        Maximizer.bestChecked, Maximizer.best.getScore(), Maximizer.best.failed);
+  }
+
+  static void showProgress(long checked, double score, boolean failed) {
     StringBuilder msg = new StringBuilder();
-    msg.append(Maximizer.bestChecked);
+    msg.append(checked);
     msg.append(" combinations checked, best score ");
-    double score = Maximizer.best.getScore();
     msg.append(KoLConstants.FLOAT_FORMAT.format(score));
-    if (Maximizer.best.failed) {
+    if (failed) {
       msg.append(" (FAIL)");
     }
     // if ( MaximizerFrame.best.tiebreakered )
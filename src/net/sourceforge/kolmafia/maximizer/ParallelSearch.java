@@ -0,0 +1,202 @@
+package net.sourceforge.kolmafia.maximizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import net.sourceforge.kolmafia.AdventureResult;
+import net.sourceforge.kolmafia.Expression;
+import net.sourceforge.kolmafia.FamiliarData;
+import net.sourceforge.kolmafia.Modifiers;
+
+/**
+ * Searches equipment combinations for the maximizer on a fork/join pool.
+ *
+ * <p>The familiar, outfit, familiar item and container levels of the search are walked serially
+ * to collect branches, and each branch is then searched on its own with its own best combination.
+ * Those are merged in the order that the serial search would have visited them, using the same
+ * comparison, so a search that runs to completion picks the same combination as the serial one.
+ * A search which is interrupted or hits the combination limit keeps the best combination found by
+ * any branch so far.
+ */
+class ParallelSearch {
+  private static final ForkJoinPool POOL =
+      new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+  private final List<FamiliarData> enthronedFamiliars;
+  private final AdventureResult bestCard;
+  private final FamiliarData useCrownFamiliar;
+  // The maximizer's epoch, which the pool's threads evaluate expressions in
+  private final Expression.Epoch epoch = Expression.getEpoch();
+
+  private final AtomicLong checked = new AtomicLong();
+  private volatile MaximizerInterruptedException failure = null;
+
+  // Best seen by any branch, for progress reports
+  private double shownScore = Double.NEGATIVE_INFINITY;
+  private boolean shownFailed = true;
+  private long nextUpdate;
+
+  private ParallelSearch(
+      List<FamiliarData> enthronedFamiliars,
+      AdventureResult bestCard,
+      FamiliarData useCrownFamiliar) {
+    this.enthronedFamiliars = enthronedFamiliars;
+    this.bestCard = bestCard;
+    this.useCrownFamiliar = useCrownFamiliar;
+    this.nextUpdate = Maximizer.bestUpdate;
+  }
+
+  static void tryAll(
+      MaximizerSpeculation spec,
+      List<FamiliarData> familiars,
+      List<FamiliarData> enthronedFamiliars,
+      Map<Integer, Boolean> usefulOutfits,
+      Map<AdventureResult, AdventureResult> outfitPieces,
+      List<List<CheckedItem>> possibles,
+      AdventureResult bestCard,
+      FamiliarData useCrownFamiliar,
+      FamiliarData useBjornFamiliar)
+      throws MaximizerInterruptedException {
+    if (Maximizer.best == null) {
+      throw new MaximizerLimitException();
+    }
+
+    List<MaximizerSpeculation> branches = new ArrayList<>();
+    spec.collectBranches(branches);
+    try {
+      spec.tryAll(
+          familiars,
+          enthronedFamiliars,
+          usefulOutfits,
+          outfitPieces,
+          possibles,
+          bestCard,
+          useCrownFamiliar,
+          useBjornFamiliar);
+    } finally {
+      spec.collectBranches(null);
+    }
+
+    ParallelSearch search = new ParallelSearch(enthronedFamiliars, bestCard, useCrownFamiliar);
+    search.shownScore = Maximizer.best.getScore();
+    search.shownFailed = Maximizer.best.failed;
+
+    MaximizerSpeculation best = null;
+    if (!branches.isEmpty()) {
+      best = POOL.invoke(search.new BranchTask(branches, 0, branches.size()));
+    }
+
+    if (best != null && best.compareTo(Maximizer.best) > 0) {
+      Maximizer.best = best;
+    }
+    Maximizer.bestChecked = search.checked.get();
+
+    if (search.failure != null) {
+      throw search.failure;
+    }
+  }
+
+  // Called for every combination tried by a branch.
+  long checked(MaximizerSpeculation branchBest) throws MaximizerInterruptedException {
+    if (this.failure != null) {
+      // Another branch has stopped the search
+      throw new MaximizerInterruptedException();
+    }
+
+    long count = this.checked.incrementAndGet();
+    double score = branchBest.getScore();
+    boolean failed = branchBest.failed;
+    long t = System.currentTimeMillis();
+
+    synchronized (this) {
+      if ((this.shownFailed && !failed)
+          || (this.shownFailed == failed && score > this.shownScore)) {
+        this.shownScore = score;
+        this.shownFailed = failed;
+      }
+      if (t > this.nextUpdate) {
+        MaximizerSpeculation.showProgress(count, this.shownScore, this.shownFailed);
+        this.nextUpdate = t + 5000;
+      }
+    }
+    return count;
+  }
+
+  private synchronized void stop(MaximizerInterruptedException e) {
+    if (this.failure == null) {
+      this.failure = e;
+    }
+  }
+
+  private static MaximizerSpeculation better(
+      MaximizerSpeculation first, MaximizerSpeculation second) {
+    if (first == null) return second;
+    if (second == null) return first;
+    return second.compareTo(first) > 0 ? second : first;
+  }
+
+  private class BranchTask extends RecursiveTask<MaximizerSpeculation> {
+    private final List<MaximizerSpeculation> branches;
+    private final int from, to;
+
+    BranchTask(List<MaximizerSpeculation> branches, int from, int to) {
+      this.branches = branches;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected MaximizerSpeculation compute() {
+      if (this.to - this.from > 1) {
+        int middle = (this.from + this.to) >>> 1;
+        BranchTask first = new BranchTask(this.branches, this.from, middle);
+        BranchTask second = new BranchTask(this.branches, middle, this.to);
+        first.fork();
+        MaximizerSpeculation secondBest = second.compute();
+        MaximizerSpeculation firstBest = first.join();
+        return this.speculate(() -> better(firstBest, secondBest));
+      }
+
+      if (ParallelSearch.this.failure != null) {
+        return null;
+      }
+
+      MaximizerSpeculation branch = this.branches.get(this.from);
+      this.branches.set(this.from, null);
+      return this.speculate(
+          () -> {
+            branch.search = ParallelSearch.this;
+            try {
+              branch.tryAccessories(
+                  ParallelSearch.this.enthronedFamiliars,
+                  branch.branchPossibles,
+                  0,
+                  ParallelSearch.this.bestCard,
+                  ParallelSearch.this.useCrownFamiliar);
+            } catch (MaximizerInterruptedException e) {
+              ParallelSearch.this.stop(e);
+            }
+            MaximizerSpeculation best = branch.branchBest;
+            if (best != null) {
+              best.search = null;
+            }
+            return best;
+          });
+    }
+
+    private MaximizerSpeculation speculate(Supplier<MaximizerSpeculation> f) {
+      boolean started = Modifiers.beginConcurrentSpeculation();
+      try {
+        return Expression.inEpoch(ParallelSearch.this.epoch, f);
+      } finally {
+        if (started) {
+          Modifiers.endConcurrentSpeculation();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,169 @@
+package net.sourceforge.kolmafia.pages;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Routes something to do with a page, such as the response to a request for it, to whatever
+ * handles that page.
+ *
+ * <p>Handlers are registered for a page's path ("choice.php", say), optionally with the value of
+ * a field of the query string ("whichchoice=562", say), or with a test of the full location, for
+ * handlers that only want some requests for it. A location's path is looked up once, and the first
+ * of its handlers which wants it is run, in the order they were registered, so routing costs the
+ * same however many pages there are. Consecutive handlers keyed on the same field are looked up by
+ * that field's value, so routing costs the same however many values are handled, too.
+ */
+public class PageDispatcher<T> {
+  public interface Handler<T> {
+    void handle(String location, T page);
+  }
+
+  private record Route<T>(String name, Handler<T> handler) {}
+
+  // One of the ways a page's handlers are tried: returns the route which wants the location, or
+  // null if there is none
+  private interface Step<T> {
+    Route<T> find(String location);
+
+    List<String> getNames();
+  }
+
+  private record TestStep<T>(Predicate<String> test, Route<T> route) implements Step<T> {
+    @Override
+    public Route<T> find(final String location) {
+      return this.test.test(location) ? this.route : null;
+    }
+
+    @Override
+    public List<String> getNames() {
+      return List.of(this.route.name());
+    }
+  }
+
+  private record FieldStep<T>(String field, Map<String, Route<T>> routes, List<String> names)
+      implements Step<T> {
+    @Override
+    public Route<T> find(final String location) {
+      String value = PageDispatcher.getField(location, this.field);
+      return value == null ? null : this.routes.get(value);
+    }
+
+    @Override
+    public List<String> getNames() {
+      return this.names;
+    }
+  }
+
+  private final Map<String, List<Step<T>>> steps = new HashMap<>();
+
+  /** Returns the part of the location before the query string. */
+  public static String getPath(final String location) {
+    int queryStringBegin = location.indexOf('?');
+    return queryStringBegin == -1 ? location : location.substring(0, queryStringBegin);
+  }
+
+  /** Returns the value of the first occurrence of a field in the query string, or null. */
+  public static String getField(final String location, final String field) {
+    int queryStringBegin = location.indexOf('?');
+    if (queryStringBegin == -1) {
+      return null;
+    }
+
+    int length = location.length();
+    for (int start = queryStringBegin + 1; start < length; ) {
+      int end = location.indexOf('&', start);
+      if (end == -1) {
+        end = length;
+      }
+      if (end - start > field.length()
+          && location.startsWith(field, start)
+          && location.charAt(start + field.length()) == '=') {
+        return location.substring(start + field.length() + 1, end);
+      }
+      start = end + 1;
+    }
+
+    return null;
+  }
+
+  /** Registers a handler for every request for a page. */
+  public PageDispatcher<T> add(final String path, final String name, final Handler<T> handler) {
+    return this.add(path, name, location -> true, handler);
+  }
+
+  /** Registers a handler for requests for a page whose location passes the given test. */
+  public PageDispatcher<T> add(
+      final String path,
+      final String name,
+      final Predicate<String> test,
+      final Handler<T> handler) {
+    this.getSteps(path).add(new TestStep<>(test, new Route<>(name, handler)));
+    return this;
+  }
+
+  /** Registers a handler for requests for a page whose query string gives a field a value. */
+  public PageDispatcher<T> add(
+      final String path,
+      final String name,
+      final String field,
+      final String value,
+      final Handler<T> handler) {
+    List<Step<T>> steps = this.getSteps(path);
+    Step<T> last = steps.isEmpty() ? null : steps.get(steps.size() - 1);
+    FieldStep<T> step;
+    if (last instanceof FieldStep<T> fieldStep && fieldStep.field().equals(field)) {
+      step = fieldStep;
+    } else {
+      step = new FieldStep<>(field, new HashMap<>(), new ArrayList<>());
+      steps.add(step);
+    }
+    // As with tests, the first handler registered for a value wins
+    step.routes().putIfAbsent(value, new Route<>(name, handler));
+    step.names().add(name);
+    return this;
+  }
+
+  private List<Step<T>> getSteps(final String path) {
+    return this.steps.computeIfAbsent(path, k -> new ArrayList<>());
+  }
+
+  /**
+   * Runs the first handler for the location's page which wants it.
+   *
+   * @return The name of the handler run, or null if there was none
+   */
+  public String dispatch(final String location, final T page) {
+    List<Step<T>> candidates = this.steps.get(PageDispatcher.getPath(location));
+    if (candidates == null) {
+      return null;
+    }
+
+    for (Step<T> step : candidates) {
+      Route<T> route = step.find(location);
+      if (route != null) {
+        route.handler().handle(location, page);
+        return route.name();
+      }
+    }
+
+    return null;
+  }
+
+  /** Returns the names of the handlers for a page, in the order they are tried. */
+  public List<String> getNames(final String path) {
+    List<Step<T>> candidates = this.steps.get(path);
+    if (candidates == null) {
+      return List.of();
+    }
+    return candidates.stream().flatMap(step -> step.getNames().stream()).toList();
+  }
+
+  /** Returns every page with a handler. */
+  public List<String> getPaths() {
+    return this.steps.keySet().stream().sorted().toList();
+  }
+}
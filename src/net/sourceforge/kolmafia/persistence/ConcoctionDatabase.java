@@ -2,11 +2,15 @@ package net.sourceforge.kolmafia.persistence;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
 import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -54,6 +58,7 @@ import net.sourceforge.kolmafia.session.EquipmentManager;
 import net.sourceforge.kolmafia.session.InventoryManager;
 import net.sourceforge.kolmafia.swingui.ItemManageFrame;
 import net.sourceforge.kolmafia.utilities.FileUtilities;
+import net.sourceforge.kolmafia.utilities.SortedItemListModel;
 import net.sourceforge.kolmafia.utilities.StringUtilities;
 
 public class ConcoctionDatabase {
@@ -84,6 +89,10 @@ public class ConcoctionDatabase {
   public static String excuse; // reason why creation is impossible
 
   private static boolean refreshNeeded = true;
+  private static boolean fullRefreshNeeded = true;
+  private static final Set<Integer> changedItems = new HashSet<>();
+  // Whether the last refresh only recalculated the concoctions made from changed items
+  static boolean lastRefreshWasIncremental = false;
   private static boolean recalculateAdventureRange = false;
   public static int refreshLevel = 0;
 
@@ -1100,7 +1109,7 @@ public class ConcoctionDatabase {
       return KoLConstants.inventory;
     }
 
-    SortedListModel<AdventureResult> availableIngredients = new SortedListModel<AdventureResult>();
+    SortedItemListModel availableIngredients = new SortedItemListModel();
     availableIngredients.addAll(KoLConstants.inventory);
 
     if (includeCloset) {
@@ -1159,24 +1168,13 @@ public class ConcoctionDatabase {
   }
 
   public static final void setRefreshNeeded(int itemId) {
-    switch (ItemDatabase.getConsumptionType(itemId)) {
-      case KoLConstants.CONSUME_EAT:
-      case KoLConstants.CONSUME_DRINK:
-      case KoLConstants.CONSUME_SPLEEN:
-      case KoLConstants.CONSUME_USE:
-      case KoLConstants.CONSUME_MULTIPLE:
-      case KoLConstants.CONSUME_FOOD_HELPER:
-      case KoLConstants.CONSUME_DRINK_HELPER:
-        ConcoctionDatabase.setRefreshNeeded(false);
-        return;
-    }
-
     switch (itemId) {
         // Items that affect creatability of other items, but
         // aren't explicitly listed in their recipes:
       case ItemPool.WORTHLESS_TRINKET:
       case ItemPool.WORTHLESS_GEWGAW:
       case ItemPool.WORTHLESS_KNICK_KNACK:
+      case ItemPool.MEAT_PASTE:
 
         // Interchangeable ingredients, which might have been missed
         // by the getKnownUses check because the recipes are set to
@@ -1193,28 +1191,53 @@ public class ConcoctionDatabase {
         return;
     }
 
+    // Coin Master tokens limit everything bought with them
+    for (CoinmasterData coinmaster : CoinmasterRegistry.COINMASTERS) {
+      AdventureResult item = coinmaster.getItem();
+      if (item != null && itemId == item.getItemId()) {
+        ConcoctionDatabase.setRefreshNeeded(false);
+        return;
+      }
+    }
+
+    switch (ItemDatabase.getConsumptionType(itemId)) {
+      case KoLConstants.CONSUME_EAT:
+      case KoLConstants.CONSUME_DRINK:
+      case KoLConstants.CONSUME_SPLEEN:
+      case KoLConstants.CONSUME_USE:
+      case KoLConstants.CONSUME_MULTIPLE:
+      case KoLConstants.CONSUME_FOOD_HELPER:
+      case KoLConstants.CONSUME_DRINK_HELPER:
+        ConcoctionDatabase.setItemRefreshNeeded(itemId);
+        return;
+    }
+
     for (AdventureResult use : ConcoctionDatabase.getKnownUses(itemId)) {
       CraftingType method = ConcoctionDatabase.getMixingMethod(use.getItemId());
       EnumSet<CraftingRequirements> requirements =
           ConcoctionDatabase.getRequirements(use.getItemId());
 
       if (ConcoctionDatabase.isPermittedMethod(method, requirements)) {
-        ConcoctionDatabase.setRefreshNeeded(false);
+        ConcoctionDatabase.setItemRefreshNeeded(itemId);
         return;
       }
     }
+  }
 
-    for (CoinmasterData coinmaster : CoinmasterRegistry.COINMASTERS) {
-      AdventureResult item = coinmaster.getItem();
-      if (item != null && itemId == item.getItemId()) {
-        ConcoctionDatabase.setRefreshNeeded(false);
-        return;
-      }
+  /**
+   * Notes that the quantity of a single item has changed, so the next refresh need only
+   * recalculate the concoctions which (directly or indirectly) use it.
+   */
+  private static void setItemRefreshNeeded(int itemId) {
+    synchronized (ConcoctionDatabase.changedItems) {
+      ConcoctionDatabase.changedItems.add(itemId);
     }
+    ConcoctionDatabase.refreshNeeded = true;
   }
 
   public static final void setRefreshNeeded(boolean recalculateAdventureRange) {
     ConcoctionDatabase.refreshNeeded = true;
+    ConcoctionDatabase.fullRefreshNeeded = true;
 
     if (recalculateAdventureRange) {
       ConcoctionDatabase.recalculateAdventureRange = true;
@@ -1233,6 +1256,7 @@ public class ConcoctionDatabase {
     if (force) {
       // Remember that refresh is forced, even if deferred
       ConcoctionDatabase.refreshNeeded = true;
+      ConcoctionDatabase.fullRefreshNeeded = true;
     }
 
     if (!ConcoctionDatabase.refreshNeeded) {
@@ -1250,11 +1274,35 @@ public class ConcoctionDatabase {
       return;
     }
 
-    ConcoctionDatabase.refreshConcoctionsNow();
+    ConcoctionDatabase.refreshConcoctionsNow(ConcoctionDatabase.fullRefreshNeeded);
+  }
+
+  public static final void refreshConcoctionsNow() {
+    ConcoctionDatabase.refreshConcoctionsNow(true);
   }
 
-  public static final synchronized void refreshConcoctionsNow() {
+  /**
+   * Recalculates concoctions. Unless a full refresh is requested, and if the only changes since
+   * the last refresh were to the quantities of particular items, only the concoctions made from
+   * those items are recalculated. Anything which turns out to affect concoctions more widely, such
+   * as a change in permitted crafting methods or available meat, falls back to a full refresh.
+   */
+  private static synchronized void refreshConcoctionsNow(boolean full) {
+    Set<Integer> changed;
+    synchronized (ConcoctionDatabase.changedItems) {
+      changed = new HashSet<>(ConcoctionDatabase.changedItems);
+      ConcoctionDatabase.changedItems.clear();
+    }
+
+    full |= ConcoctionDatabase.fullRefreshNeeded;
     ConcoctionDatabase.refreshNeeded = false;
+    ConcoctionDatabase.fullRefreshNeeded = false;
+
+    if (!full && ConcoctionDatabase.refreshChangedConcoctions(changed)) {
+      ConcoctionDatabase.lastRefreshWasIncremental = true;
+      return;
+    }
+    ConcoctionDatabase.lastRefreshWasIncremental = false;
 
     List<AdventureResult> availableIngredients = ConcoctionDatabase.getAvailableIngredients();
 
@@ -1266,75 +1314,181 @@ public class ConcoctionDatabase {
     boolean useCoinmasters = InventoryManager.canUseCoinmasters();
 
     for (Concoction item : ConcoctionPool.concoctions()) {
-      // Initialize all the variables
-      item.resetCalculations();
+      ConcoctionDatabase.initializeConcoction(
+          item, availableIngredients, useNPCStores, useCoinmasters);
+    }
 
-      if (item.speakeasy) {
-        // Has an item number, but can't appear in inventory
-        continue;
-      }
+    // Make assessment of availability of mixing methods.
+    // This method will also calculate the availability of
+    // chefs and bartenders automatically so a second call
+    // is not needed.
 
-      AdventureResult concoction = item.concoction;
-      if (concoction == null) {
-        continue;
-      }
+    ConcoctionDatabase.cachePermitted(availableIngredients);
+
+    // Finally, increment through all of the things which are
+    // created any other way, making sure that it's a permitted
+    // mixture before doing the calculation.
 
-      int itemId = concoction.getItemId();
+    for (Concoction item : ConcoctionPool.concoctions()) {
+      item.calculate2();
+      item.calculate3();
+    }
 
-      if (useNPCStores && NPCStoreDatabase.contains(itemId, true)) {
-        if (itemId != ItemPool.FLAT_DOUGH) {
-          // Don't buy flat dough from Degrassi Knoll Bakery -
-          // buy wads of dough for 20 meat less, instead.
+    ConcoctionDatabase.updateCreatables(ConcoctionPool.concoctions());
+  }
 
-          item.price = NPCStoreDatabase.price(itemId);
-          item.initial = concoction.getCount(availableIngredients);
-          item.creatable = 0;
-          item.total = item.initial;
-          item.visibleTotal = item.total;
-          continue;
+  /**
+   * Recalculates the concoctions which use any of the given items, directly or through
+   * intermediate concoctions.
+   *
+   * @return false if a full refresh is needed instead
+   */
+  private static boolean refreshChangedConcoctions(final Set<Integer> changed) {
+    // Find everything whose creatability depends on a changed item
+    Set<Concoction> affected = new LinkedHashSet<>();
+    Deque<Integer> pending = new ArrayDeque<>(changed);
+    Set<Integer> seen = new HashSet<>(changed);
+    while (!pending.isEmpty()) {
+      int itemId = pending.remove();
+      Concoction c = ConcoctionPool.get(itemId);
+      if (c != null) {
+        affected.add(c);
+      }
+      for (AdventureResult use : ConcoctionDatabase.getKnownUses(itemId)) {
+        if (use.getItemId() <= 0) {
+          Concoction pseudo = ConcoctionPool.get(use);
+          if (pseudo != null) {
+            affected.add(pseudo);
+          }
+        } else if (seen.add(use.getItemId())) {
+          pending.add(use.getItemId());
         }
       }
+    }
 
-      PurchaseRequest purchaseRequest = item.getPurchaseRequest();
-      if (purchaseRequest != null) {
-        purchaseRequest.setCanPurchase(useCoinmasters);
-        int acquirable = purchaseRequest.canPurchase() ? purchaseRequest.affordableCount() : 0;
-        item.price = 0;
-        item.initial = concoction.getCount(availableIngredients);
-        item.creatable = acquirable;
-        item.total = item.initial + acquirable;
-        item.visibleTotal = item.total;
-        continue;
+    // cachePermitted resets the items bought directly with meat
+    for (int itemId : new int[] {ItemPool.MEAT_PASTE, ItemPool.MEAT_STACK, ItemPool.DENSE_STACK}) {
+      Concoction c = ConcoctionPool.get(itemId);
+      if (c != null) {
+        affected.add(c);
       }
+    }
 
-      // Set initial quantity of all remaining items.
-
-      // Switch to the better of any interchangeable ingredients
-      ConcoctionDatabase.getIngredients(item.getIngredients(), availableIngredients);
+    List<AdventureResult> availableIngredients = ConcoctionDatabase.getAvailableIngredients();
+    boolean useNPCStores = InventoryManager.canUseNPCStores();
+    boolean useCoinmasters = InventoryManager.canUseCoinmasters();
 
-      item.initial = concoction.getCount(availableIngredients);
-      item.price = 0;
-      item.creatable = 0;
-      item.total = item.initial;
-      item.visibleTotal = item.total;
+    for (Concoction item : affected) {
+      ConcoctionDatabase.initializeConcoction(
+          item, availableIngredients, useNPCStores, useCoinmasters);
     }
 
-    // Make assessment of availability of mixing methods.
-    // This method will also calculate the availability of
-    // chefs and bartenders automatically so a second call
-    // is not needed.
+    // Changed items might be tools, or cost meat or adventures to
+    // acquire, in which case every concoction needs recalculating.
 
+    List<Object> permitted = ConcoctionDatabase.getPermittedState();
     ConcoctionDatabase.cachePermitted(availableIngredients);
+    if (!permitted.equals(ConcoctionDatabase.getPermittedState())) {
+      return false;
+    }
 
-    // Finally, increment through all of the things which are
-    // created any other way, making sure that it's a permitted
-    // mixture before doing the calculation.
-
-    for (Concoction item : ConcoctionPool.concoctions()) {
+    for (Concoction item : affected) {
       item.calculate2();
       item.calculate3();
     }
 
+    ConcoctionDatabase.updateCreatables(affected);
+    return true;
+  }
+
+  /** Returns everything set by cachePermitted which can affect the creatability of concoctions. */
+  private static List<Object> getPermittedState() {
+    List<Integer> limits = new ArrayList<>();
+    for (Concoction limit :
+        List.of(
+            ConcoctionDatabase.stillsLimit,
+            ConcoctionDatabase.clipArtLimit,
+            ConcoctionDatabase.extrudeLimit,
+            ConcoctionDatabase.adventureLimit,
+            ConcoctionDatabase.adventureSmithingLimit,
+            ConcoctionDatabase.adventureJewelcraftingLimit,
+            ConcoctionDatabase.turnFreeLimit,
+            ConcoctionDatabase.turnFreeSmithingLimit,
+            ConcoctionDatabase.meatLimit)) {
+      limits.add(limit.initial);
+      limits.add(limit.total);
+    }
+
+    return List.of(
+        EnumSet.copyOf(ConcoctionDatabase.PERMIT_METHOD),
+        EnumSet.copyOf(ConcoctionDatabase.REQUIREMENT_MET),
+        new EnumMap<>(ConcoctionDatabase.ADVENTURE_USAGE),
+        new EnumMap<>(ConcoctionDatabase.CREATION_COST),
+        limits);
+  }
+
+  // Initialize one concoction appropriately depending on whether it is
+  // an NPC item, a Coin Master item, or anything else.
+
+  private static void initializeConcoction(
+      final Concoction item,
+      final List<AdventureResult> availableIngredients,
+      final boolean useNPCStores,
+      final boolean useCoinmasters) {
+    // Initialize all the variables
+    item.resetCalculations();
+
+    if (item.speakeasy) {
+      // Has an item number, but can't appear in inventory
+      return;
+    }
+
+    AdventureResult concoction = item.concoction;
+    if (concoction == null) {
+      return;
+    }
+
+    int itemId = concoction.getItemId();
+
+    if (useNPCStores && NPCStoreDatabase.contains(itemId, true)) {
+      if (itemId != ItemPool.FLAT_DOUGH) {
+        // Don't buy flat dough from Degrassi Knoll Bakery -
+        // buy wads of dough for 20 meat less, instead.
+
+        item.price = NPCStoreDatabase.price(itemId);
+        item.initial = concoction.getCount(availableIngredients);
+        item.creatable = 0;
+        item.total = item.initial;
+        item.visibleTotal = item.total;
+        return;
+      }
+    }
+
+    PurchaseRequest purchaseRequest = item.getPurchaseRequest();
+    if (purchaseRequest != null) {
+      purchaseRequest.setCanPurchase(useCoinmasters);
+      int acquirable = purchaseRequest.canPurchase() ? purchaseRequest.affordableCount() : 0;
+      item.price = 0;
+      item.initial = concoction.getCount(availableIngredients);
+      item.creatable = acquirable;
+      item.total = item.initial + acquirable;
+      item.visibleTotal = item.total;
+      return;
+    }
+
+    // Set initial quantity of all remaining items.
+
+    // Switch to the better of any interchangeable ingredients
+    ConcoctionDatabase.getIngredients(item.getIngredients(), availableIngredients);
+
+    item.initial = concoction.getCount(availableIngredients);
+    item.price = 0;
+    item.creatable = 0;
+    item.total = item.initial;
+    item.visibleTotal = item.total;
+  }
+
+  private static void updateCreatables(final Collection<Concoction> concoctions) {
     // Now, to update the list of creatables without removing
     // all creatable items.	 We do this by determining the
     // number of items inside of the old list.
@@ -1345,7 +1499,7 @@ public class ConcoctionDatabase {
             && !KoLCharacter.isHardcore()
             && ConcoctionDatabase.getPullsBudgeted() > ConcoctionDatabase.queuedPullsUsed;
 
-    for (Concoction item : ConcoctionPool.concoctions()) {
+    for (Concoction item : concoctions) {
       AdventureResult ar = item.getItem();
       if (ar == null) {
         continue;
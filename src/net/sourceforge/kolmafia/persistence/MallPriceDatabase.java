@@ -1,6 +1,7 @@
 package net.sourceforge.kolmafia.persistence;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
@@ -12,10 +13,16 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpRequest.BodyPublishers;
 import java.net.http.HttpResponse;
 import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.HashSet;
-import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import net.sourceforge.kolmafia.KoLConstants;
@@ -33,20 +40,96 @@ public class MallPriceDatabase {
   // If false, blocks saving of mall prices. Do not modify outside of tests.
   public static boolean savePricesToFile = true;
 
-  private static final Map<Integer, Price> prices = new HashMap<>();
+  // Prices, and the times (in seconds) they were seen, indexed by item id. An item may be recorded
+  // with a price of 0, so NONE marks an item with no price. The arrays grow as needed, and are only
+  // touched while holding the lock.
+  private static final int NONE = -1;
+  private static int[] prices = new int[0];
+  private static long[] timestamps = new long[0];
+  private static final ReadWriteLock lock = new ReentrantReadWriteLock();
+
   private static final HashSet<String> updated = new HashSet<>();
   private static final HashSet<String> submitted = new HashSet<>();
-  private static int modCount = 0;
+  private static volatile int modCount = 0;
+  // Prices changed since mallprices.txt was last written
+  private static int unsavedCount = 0;
+
+  // Every price recorded is also appended to the journal, so that prices seen since
+  // mallprices.txt was last written survive a crash. The journal is deleted once they are in
+  // mallprices.txt. Held while writing either file.
+  private static final Object io = new Object();
+  private static PrintStream journal = null;
+
+  // Recording a price writes mallprices.txt this long afterwards, along with any other prices
+  // recorded in the meantime
+  private static final long WRITE_DELAY = 5000; // milliseconds
+  private static final AtomicBoolean writeScheduled = new AtomicBoolean(false);
+  private static final ScheduledExecutorService writer =
+      Executors.newSingleThreadScheduledExecutor(
+          r -> {
+            Thread thread = new Thread(r, "MallPriceDatabase");
+            thread.setDaemon(true);
+            return thread;
+          });
 
   private static final int CONNECT_TIMEOUT = 15 * 1000;
 
   static {
     updatePricesFromSource("mallprices.txt");
+    MallPriceDatabase.unsavedCount = 0;
+    MallPriceDatabase.readJournal(MallPriceDatabase.journalFile());
     MallPriceDatabase.modCount = 0;
+
+    Runtime.getRuntime()
+        .addShutdownHook(new Thread(MallPriceDatabase::writePrices, "MallPriceDatabase"));
   }
 
   private MallPriceDatabase() {}
 
+  private static File journalFile() {
+    return new File(KoLConstants.DATA_LOCATION, "mallprices.journal");
+  }
+
+  // Must be called holding the write lock
+  private static void ensureCapacity(int itemId) {
+    if (itemId < MallPriceDatabase.prices.length) {
+      return;
+    }
+    int length =
+        Math.max(
+            itemId + 1,
+            Math.max(ItemDatabase.maxItemId() + 1, MallPriceDatabase.prices.length * 3 / 2));
+    int oldLength = MallPriceDatabase.prices.length;
+    MallPriceDatabase.prices = Arrays.copyOf(MallPriceDatabase.prices, length);
+    Arrays.fill(MallPriceDatabase.prices, oldLength, length, NONE);
+    MallPriceDatabase.timestamps = Arrays.copyOf(MallPriceDatabase.timestamps, length);
+  }
+
+  // Must be called holding the write lock
+  private static void setPrice(int itemId, int price, long timestamp) {
+    MallPriceDatabase.ensureCapacity(itemId);
+    MallPriceDatabase.prices[itemId] = price;
+    MallPriceDatabase.timestamps[itemId] = timestamp;
+    ++MallPriceDatabase.unsavedCount;
+  }
+
+  // Record a price unless a newer one is already known. Returns whether it was recorded.
+  private static boolean mergePrice(int itemId, int price, long timestamp) {
+    MallPriceDatabase.lock.writeLock().lock();
+    try {
+      if (itemId < MallPriceDatabase.prices.length
+          && MallPriceDatabase.prices[itemId] != NONE
+          && timestamp <= MallPriceDatabase.timestamps[itemId]) {
+        return false;
+      }
+      MallPriceDatabase.setPrice(itemId, price, timestamp);
+      ++MallPriceDatabase.modCount;
+      return true;
+    } finally {
+      MallPriceDatabase.lock.writeLock().unlock();
+    }
+  }
+
   private static int updatePricesFromSource(String filename) {
     int count = 0;
     try (BufferedReader reader = FileUtilities.getReader(filename)) {
@@ -82,16 +165,8 @@ public class MallPriceDatabase {
         }
 
         if (!ItemDatabase.isTradeable(id)) continue;
-        Price p = MallPriceDatabase.prices.get(id);
-        if (p == null) {
-          MallPriceDatabase.prices.put(id, new Price(price, timestamp));
-          ++count;
-          ++MallPriceDatabase.modCount;
-        } else if (timestamp > p.timestamp) {
-          p.price = price;
-          p.timestamp = timestamp;
+        if (MallPriceDatabase.mergePrice(id, price, timestamp)) {
           ++count;
-          ++MallPriceDatabase.modCount;
         }
       }
     } catch (IOException e) {
@@ -139,44 +214,165 @@ public class MallPriceDatabase {
     }
   }
 
+  // For tests. Returns something which puts back the prices cleared.
+  static Runnable clearPrices() {
+    MallPriceDatabase.lock.writeLock().lock();
+    try {
+      int[] prices = MallPriceDatabase.prices;
+      long[] timestamps = MallPriceDatabase.timestamps;
+      int unsavedCount = MallPriceDatabase.unsavedCount;
+      MallPriceDatabase.prices = new int[0];
+      MallPriceDatabase.timestamps = new long[0];
+      MallPriceDatabase.unsavedCount = 0;
+      return () -> {
+        MallPriceDatabase.lock.writeLock().lock();
+        try {
+          MallPriceDatabase.prices = prices;
+          MallPriceDatabase.timestamps = timestamps;
+          MallPriceDatabase.unsavedCount = unsavedCount;
+        } finally {
+          MallPriceDatabase.lock.writeLock().unlock();
+        }
+      };
+    } finally {
+      MallPriceDatabase.lock.writeLock().unlock();
+    }
+  }
+
+  // Read prices recorded since mallprices.txt was last written. Returns how many were newer than
+  // those already known.
+  static int readJournal(File file) {
+    if (!file.exists()) {
+      return 0;
+    }
+
+    int count = 0;
+    try (BufferedReader reader = FileUtilities.getReader(file)) {
+      String[] data;
+      while ((data = FileUtilities.readData(reader)) != null) {
+        if (data.length < 3) {
+          continue;
+        }
+
+        int id = StringUtilities.parseInt(data[0]);
+        long timestamp = StringUtilities.parseLong(data[1]);
+        int price = StringUtilities.parseInt(data[2]);
+        if (id < 1 || price < 1 || timestamp <= 0) {
+          continue;
+        }
+
+        if (MallPriceDatabase.mergePrice(id, price, timestamp)) {
+          ++count;
+        }
+      }
+    } catch (IOException e) {
+      StaticEntity.printStackTrace(e);
+    }
+    return count;
+  }
+
+  /**
+   * Records the current price of an item.
+   *
+   * @param deferred If true, the caller will write mallprices.txt itself. Otherwise it is written
+   *     shortly, in the background.
+   */
   public static void recordPrice(int itemId, int price, boolean deferred) {
+    if (itemId < 1) {
+      return;
+    }
+
     long timestamp = MallPriceManager.currentTimeMillis() / 1000L;
-    Price p = MallPriceDatabase.prices.get(itemId);
-    if (p == null) {
-      MallPriceDatabase.prices.put(itemId, new Price(price, timestamp));
-    } else {
-      p.price = price;
-      p.timestamp = timestamp;
+    MallPriceDatabase.lock.writeLock().lock();
+    try {
+      MallPriceDatabase.setPrice(itemId, price, timestamp);
+      ++MallPriceDatabase.modCount;
+    } finally {
+      MallPriceDatabase.lock.writeLock().unlock();
     }
-    ++MallPriceDatabase.modCount;
-    if (!deferred) {
-      MallPriceDatabase.writePrices();
+
+    if (!MallPriceDatabase.savePricesToFile) {
+      return;
+    }
+
+    synchronized (MallPriceDatabase.io) {
+      if (MallPriceDatabase.journal == null) {
+        MallPriceDatabase.journal = LogStream.openStream(MallPriceDatabase.journalFile(), false);
+      }
+      MallPriceDatabase.journal.println(itemId + "\t" + timestamp + "\t" + price);
+    }
+
+    if (!deferred && MallPriceDatabase.writeScheduled.compareAndSet(false, true)) {
+      MallPriceDatabase.writer.schedule(
+          () -> {
+            MallPriceDatabase.writeScheduled.set(false);
+            MallPriceDatabase.writePrices();
+          },
+          WRITE_DELAY,
+          TimeUnit.MILLISECONDS);
     }
   }
 
+  /** Writes mallprices.txt, if any prices have changed since it was last written. */
   public static void writePrices() {
     if (!MallPriceDatabase.savePricesToFile) {
       return;
     }
 
-    File output = new File(KoLConstants.DATA_LOCATION, "mallprices.txt");
-    try (PrintStream writer = LogStream.openStream(output, true)) {
-      writePrices(writer);
+    synchronized (MallPriceDatabase.io) {
+      ByteArrayOutputStream contents = new ByteArrayOutputStream();
+      MallPriceDatabase.lock.writeLock().lock();
+      try {
+        if (MallPriceDatabase.unsavedCount == 0) {
+          return;
+        }
+        try (PrintStream writer = new PrintStream(contents, false, StandardCharsets.UTF_8)) {
+          writePrices(writer);
+        }
+        MallPriceDatabase.unsavedCount = 0;
+      } finally {
+        MallPriceDatabase.lock.writeLock().unlock();
+      }
+
+      File output = new File(KoLConstants.DATA_LOCATION, "mallprices.txt");
+      try {
+        FileUtilities.writeAtomically(output, contents.toByteArray());
+      } catch (IOException e) {
+        // The journal still has the prices. Try again next time.
+        RequestLogger.printLine(e.getMessage() + " trying to write mall prices to " + output + ".");
+        MallPriceDatabase.lock.writeLock().lock();
+        try {
+          ++MallPriceDatabase.unsavedCount;
+        } finally {
+          MallPriceDatabase.lock.writeLock().unlock();
+        }
+        return;
+      }
+
+      // Prices recorded since the lock was released are not yet in the file, but cannot have been
+      // journaled yet, either
+      if (MallPriceDatabase.journal != null) {
+        MallPriceDatabase.journal.close();
+        MallPriceDatabase.journal = null;
+      }
+      MallPriceDatabase.journalFile().delete();
     }
   }
 
   static void writePrices(PrintStream writer) {
     writer.println(KoLConstants.MALLPRICES_VERSION);
 
-    MallPriceDatabase.prices.entrySet().stream()
-        .sorted(Map.Entry.comparingByKey())
-        .forEach(
-            entry -> {
-              Price p = entry.getValue();
-              if (p != null) {
-                writer.println(entry.getKey() + "\t" + p.timestamp + "\t" + p.price);
-              }
-            });
+    MallPriceDatabase.lock.readLock().lock();
+    try {
+      for (int itemId = 0; itemId < MallPriceDatabase.prices.length; ++itemId) {
+        int price = MallPriceDatabase.prices[itemId];
+        if (price != NONE) {
+          writer.println(itemId + "\t" + MallPriceDatabase.timestamps[itemId] + "\t" + price);
+        }
+      }
+    } finally {
+      MallPriceDatabase.lock.readLock().unlock();
+    }
   }
 
   public static void submitPrices(String url) {
@@ -251,24 +447,32 @@ public class MallPriceDatabase {
   }
 
   public static int getPrice(int itemId) {
-    Price p = MallPriceDatabase.prices.get(itemId);
-    return p == null ? 0 : p.price;
+    MallPriceDatabase.lock.readLock().lock();
+    try {
+      if (itemId < 0 || itemId >= MallPriceDatabase.prices.length) {
+        return 0;
+      }
+      return Math.max(0, MallPriceDatabase.prices[itemId]);
+    } finally {
+      MallPriceDatabase.lock.readLock().unlock();
+    }
   }
 
   // Return age of price data, in fractional days
   public static float getAge(int itemId) {
-    Price p = MallPriceDatabase.prices.get(itemId);
-    long now = MallPriceManager.currentTimeMillis() / 1000L;
-    return p == null ? Float.POSITIVE_INFINITY : (now - p.timestamp) / 86400.0f;
-  }
-
-  private static class Price {
-    int price;
     long timestamp;
-
-    public Price(int price, long timestamp) {
-      this.price = price;
-      this.timestamp = timestamp;
+    MallPriceDatabase.lock.readLock().lock();
+    try {
+      if (itemId < 0
+          || itemId >= MallPriceDatabase.prices.length
+          || MallPriceDatabase.prices[itemId] == NONE) {
+        return Float.POSITIVE_INFINITY;
+      }
+      timestamp = MallPriceDatabase.timestamps[itemId];
+    } finally {
+      MallPriceDatabase.lock.readLock().unlock();
     }
+    long now = MallPriceManager.currentTimeMillis() / 1000L;
+    return (now - timestamp) / 86400.0f;
   }
 }
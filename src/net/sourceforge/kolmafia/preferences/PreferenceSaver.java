@@ -0,0 +1,119 @@
+package net.sourceforge.kolmafia.preferences;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import net.sourceforge.kolmafia.utilities.FileUtilities;
+
+/**
+ * Writes preferences files in the background.
+ *
+ * <p>Setting a preference asks for its file to be saved, which happens a short while later on a
+ * background thread, so that a burst of changes (such as those made while processing a fight) is
+ * written once rather than once per change, and not on the thread that made them.
+ *
+ * <p>A file is written to a temporary file in the same directory which is then renamed over it, so
+ * that the file on disk is always either the old contents or the new ones, even if KoLmafia stops
+ * part way through writing it. Pending saves are written when {@link #flush} is called, as it is on
+ * logout, and when the JVM shuts down. A file which could not be written is kept waiting, and tried
+ * again the next time anything is saved.
+ */
+public class PreferenceSaver {
+  public static final long DELAY = 500; // milliseconds
+
+  interface Writer {
+    void write(File file, byte[] contents) throws IOException;
+  }
+
+  private final Function<File, byte[]> encoder;
+  private final Writer writer;
+  private final long delay;
+  private final ScheduledExecutorService executor;
+
+  // Files waiting to be saved
+  private final Set<File> dirty = new LinkedHashSet<>();
+  private boolean scheduled = false;
+
+  // Held while saving, so that an older copy of a file is never written over a newer one
+  private final Object io = new Object();
+
+  /**
+   * @param encoder Returns the contents to write to a file, or null if it should not be written
+   * @param delay Milliseconds to wait for further changes before writing
+   */
+  public PreferenceSaver(final Function<File, byte[]> encoder, final long delay) {
+    this(encoder, delay, FileUtilities::writeAtomically);
+  }
+
+  PreferenceSaver(final Function<File, byte[]> encoder, final long delay, final Writer writer) {
+    this.encoder = encoder;
+    this.writer = writer;
+    this.delay = delay;
+    this.executor =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread thread = new Thread(r, "PreferenceSaver");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /** Saves the given file shortly. */
+  public void schedule(final File file) {
+    if (file == null) {
+      return;
+    }
+    synchronized (this.dirty) {
+      this.dirty.add(file);
+      if (!this.scheduled) {
+        this.scheduled = true;
+        this.executor.schedule(this::flush, this.delay, TimeUnit.MILLISECONDS);
+      }
+    }
+  }
+
+  /** Returns whether any files are waiting to be saved. */
+  public boolean isPending() {
+    synchronized (this.dirty) {
+      return !this.dirty.isEmpty();
+    }
+  }
+
+  /**
+   * Saves every file waiting to be saved, on this thread. Must not be called while holding the lock
+   * on a map of preferences.
+   */
+  public void flush() {
+    synchronized (this.io) {
+      List<File> files;
+      synchronized (this.dirty) {
+        files = new ArrayList<>(this.dirty);
+        this.dirty.clear();
+        this.scheduled = false;
+      }
+
+      for (File file : files) {
+        byte[] contents = this.encoder.apply(file);
+        if (contents == null) {
+          continue;
+        }
+        try {
+          this.writer.write(file, contents);
+        } catch (IOException e) {
+          System.out.println(e.getMessage() + " trying to write preferences to " + file + ".");
+          // Try again with the next save
+          synchronized (this.dirty) {
+            this.dirty.add(file);
+          }
+        }
+      }
+    }
+  }
+}
@@ -5,7 +5,6 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.HashMap;
@@ -16,9 +15,9 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
-import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import net.java.dev.spellcast.utilities.DataUtilities;
 import net.sourceforge.kolmafia.KoLCharacter;
 import net.sourceforge.kolmafia.KoLConstants;
@@ -36,22 +35,29 @@ public class Preferences {
   // If false, blocks saving of all preferences. Do not modify outside of tests.
   public static boolean saveSettingsToFile = true;
 
-  private static final Object lock = new Object(); // used to synch io
+  // Writes preferences files shortly after they change
+  private static final PreferenceSaver saver =
+      new PreferenceSaver(Preferences::encodeFile, PreferenceSaver.DELAY);
 
   private static final byte[] LINE_BREAK_AS_BYTES =
       KoLConstants.LINE_BREAK.getBytes(StandardCharsets.UTF_8);
 
   private static final String[] characterMap = new String[65536];
 
+  // Values are kept in concurrent maps, so that reading a preference takes no lock. They are only
+  // sorted when they are written to disk.
+
   private static final HashMap<String, String> globalNames = new HashMap<>();
-  private static final SortedMap<String, Object> globalValues =
-      Collections.synchronizedSortedMap(new TreeMap<>());
+  private static final Map<String, StoredValue> globalValues = new ConcurrentHashMap<>();
   private static File globalPropertiesFile = null;
 
+  // The user map is replaced, rather than cleared and refilled, when the user changes, so that
+  // nobody reading it sees it part way through being loaded. The lock is held while the map or
+  // its file changes.
   private static final HashMap<String, String> userNames = new HashMap<>();
-  private static final SortedMap<String, Object> userValues =
-      Collections.synchronizedSortedMap(new TreeMap<>());
+  private static volatile Map<String, StoredValue> userValues = new ConcurrentHashMap<>();
   private static File userPropertiesFile = null;
+  private static final Object userLock = new Object();
 
   private static final Set<String> defaultsSet = new HashSet<>();
   private static final Set<String> perUserGlobalSet = new HashSet<>();
@@ -453,10 +459,97 @@ public class Preferences {
 
     // Read GLOBAL_prefs.txt into globalNames and globalValues
     Preferences.loadGlobalPreferences();
+
+    // Don't lose changes which haven't been written yet
+    Runtime.getRuntime()
+        .addShutdownHook(new Thread(Preferences.saver::flush, "PreferenceSaver shutdown"));
   }
 
   private Preferences() {}
 
+  /**
+   * A preference's value, as a string, along with the value parsed as each type it has been read
+   * as. Parsed values are immutable objects, so they can be cached without locking: a thread which
+   * sees no cached value just parses the string again.
+   */
+  private static final class StoredValue {
+    private final String string;
+    private Boolean booleanValue;
+    private Integer intValue;
+    private Long longValue;
+    private Float floatValue;
+    private Double doubleValue;
+
+    private StoredValue(final String string) {
+      this.string = string;
+    }
+
+    private StoredValue(final String string, final Object parsed) {
+      this.string = string;
+      if (parsed instanceof Boolean b) {
+        this.booleanValue = b;
+      } else if (parsed instanceof Integer i) {
+        this.intValue = i;
+      } else if (parsed instanceof Long l) {
+        this.longValue = l;
+      } else if (parsed instanceof Float f) {
+        this.floatValue = f;
+      } else if (parsed instanceof Double d) {
+        this.doubleValue = d;
+      }
+    }
+
+    private boolean getBoolean() {
+      Boolean value = this.booleanValue;
+      if (value == null) {
+        value = Boolean.valueOf(this.string);
+        this.booleanValue = value;
+      }
+      return value;
+    }
+
+    private int getInteger() {
+      Integer value = this.intValue;
+      if (value == null) {
+        value = StringUtilities.parseInt(this.string);
+        this.intValue = value;
+      }
+      return value;
+    }
+
+    private long getLong() {
+      Long value = this.longValue;
+      if (value == null) {
+        value = StringUtilities.parseLong(this.string);
+        this.longValue = value;
+      }
+      return value;
+    }
+
+    private float getFloat() {
+      Float value = this.floatValue;
+      if (value == null) {
+        value = StringUtilities.parseFloat(this.string);
+        this.floatValue = value;
+      }
+      return value;
+    }
+
+    private double getDouble() {
+      Double value = this.doubleValue;
+      if (value == null) {
+        value = StringUtilities.parseDouble(this.string);
+        this.doubleValue = value;
+      }
+      return value;
+    }
+
+    @Override
+    public String toString() {
+      return this.string;
+    }
+  }
+
   private static void initializeMaps() {
     // There are three specific per-user settings that appear in
     // GLOBAL_prefs.txt because the LoginFrame needs them
@@ -515,15 +608,18 @@ public class Preferences {
 
   /** Resets all settings so that the given user is represented whenever settings are modified. */
   public static synchronized void reset(String username) {
-    Preferences.saveToFile(Preferences.globalPropertiesFile, Preferences.globalValues);
-    // Prevent anybody from manipulating the user map until we are
-    // done bulk-loading it.
-    synchronized (Preferences.userValues) {
+    // Write out everything before the user's settings go away
+    Preferences.saver.schedule(Preferences.globalPropertiesFile);
+    if (username == null || username.equals("")) {
+      Preferences.saver.schedule(Preferences.userPropertiesFile);
+    }
+    Preferences.flush();
+
+    synchronized (Preferences.userLock) {
       if (username == null || username.equals("")) {
         if (Preferences.userPropertiesFile != null) {
-          Preferences.saveToFile(Preferences.userPropertiesFile, Preferences.userValues);
           Preferences.userPropertiesFile = null;
-          Preferences.userValues.clear();
+          Preferences.userValues = new ConcurrentHashMap<>();
         }
 
         return;
@@ -564,7 +660,7 @@ public class Preferences {
       // continue;
 
       String value = (String) entry.getValue();
-      Preferences.globalValues.put(key, value);
+      Preferences.globalValues.put(key, new StoredValue(value));
     }
 
     // For all global properties in defaults.txt which were not in
@@ -574,7 +670,7 @@ public class Preferences {
       if (!Preferences.globalValues.containsKey(key)) {
         // System.out.println( "Adding new built-in global setting: " + key );
         String value = entry.getValue();
-        Preferences.globalValues.put(key, value);
+        Preferences.globalValues.put(key, new StoredValue(value));
       }
     }
   }
@@ -582,21 +678,20 @@ public class Preferences {
   private static void loadUserPreferences(String username) {
     File file =
         new File(KoLConstants.SETTINGS_LOCATION, Preferences.baseUserName(username) + "_prefs.txt");
-    Preferences.userPropertiesFile = file;
 
     Properties p = Preferences.loadPreferences(file);
-    Preferences.userValues.clear();
+    Map<String, StoredValue> values = new ConcurrentHashMap<>();
 
     for (Entry<Object, Object> currentEntry : p.entrySet()) {
       String key = (String) currentEntry.getKey();
       String value = (String) currentEntry.getValue();
 
-      Preferences.userValues.put(key, value);
+      values.put(key, new StoredValue(value));
     }
 
     for (Entry<String, String> entry : Preferences.userNames.entrySet()) {
       String key = entry.getKey();
-      if (Preferences.userValues.containsKey(key)) {
+      if (values.containsKey(key)) {
         continue;
       }
 
@@ -606,14 +701,15 @@ public class Preferences {
       //
       // If it had a value in the GLOBAL map, use that (this
       // is how we migrate a preference from GLOBAL to user)
-      String value =
-          Preferences.globalValues.containsKey(key)
-              ? (String) Preferences.globalValues.get(key)
-              : entry.getValue();
+      StoredValue global = Preferences.globalValues.get(key);
+      String value = global != null ? global.toString() : entry.getValue();
 
       // System.out.println( "Adding new built-in user setting: " + key );
-      Preferences.userValues.put(key, value);
+      values.put(key, new StoredValue(value));
     }
+
+    Preferences.userPropertiesFile = file;
+    Preferences.userValues = values;
   }
 
   private static Properties loadPreferences(File file) {
@@ -704,18 +800,8 @@ public class Preferences {
   }
 
   public static String getString(final String name, final boolean global) {
-    Object value = null;
-
-    if (global) {
-      if (Preferences.globalValues.containsKey(name)) {
-        value = Preferences.globalValues.get(name);
-      }
-    } else {
-      if (Preferences.userValues.containsKey(name)) {
-        value = Preferences.userValues.get(name);
-      }
-    }
-
+    StoredValue value =
+        global ? Preferences.globalValues.get(name) : Preferences.userValues.get(name);
     return value == null ? "" : value.toString();
   }
 
@@ -735,22 +821,18 @@ public class Preferences {
     // Remove only properties which do not have defaults
     if (global) {
       if (!Preferences.globalNames.containsKey(name)) {
-        // We are changing the structure of the map.
-        // globalValues is a synchronized map.
-
         Preferences.globalValues.remove(name);
         if (Preferences.getBoolean("saveSettingsOnSet")) {
-          Preferences.saveToFile(Preferences.globalPropertiesFile, Preferences.globalValues);
+          Preferences.saver.schedule(Preferences.globalPropertiesFile);
         }
       }
     } else {
       if (!Preferences.userNames.containsKey(name)) {
-        // We are changing the structure of the map.
-        // userValues is a synchronized map.
-
-        Preferences.userValues.remove(name);
-        if (Preferences.getBoolean("saveSettingsOnSet")) {
-          Preferences.saveToFile(Preferences.userPropertiesFile, Preferences.userValues);
+        synchronized (Preferences.userLock) {
+          Preferences.userValues.remove(name);
+          if (Preferences.getBoolean("saveSettingsOnSet")) {
+            Preferences.saver.schedule(Preferences.userPropertiesFile);
+          }
         }
       }
     }
@@ -876,107 +958,41 @@ public class Preferences {
   // key "<name>.<user>"
 
   public static String getString(final String user, final String name) {
-    Object value = Preferences.getObject(user, name);
-
-    if (value == null) {
-      return "";
-    }
-
-    return value.toString();
+    StoredValue value = Preferences.getValue(user, name);
+    return value == null ? "" : value.toString();
   }
 
   public static boolean getBoolean(final String user, final String name) {
-    Map<String, Object> map = Preferences.getMap(name);
-    Object value = Preferences.getObject(map, user, name);
-
-    if (value == null) {
-      return false;
-    }
-
-    if (!(value instanceof Boolean)) {
-      value = Boolean.valueOf(value.toString());
-      map.put(name, value);
-    }
-
-    return (Boolean) value;
+    StoredValue value = Preferences.getValue(user, name);
+    return value != null && value.getBoolean();
   }
 
   public static int getInteger(final String user, final String name) {
-    Map<String, Object> map = Preferences.getMap(name);
-    Object value = Preferences.getObject(map, user, name);
-
-    if (value == null) {
-      return 0;
-    }
-
-    if (!(value instanceof Integer)) {
-      value = StringUtilities.parseInt(value.toString());
-      map.put(name, value);
-    }
-
-    return (Integer) value;
+    StoredValue value = Preferences.getValue(user, name);
+    return value == null ? 0 : value.getInteger();
   }
 
   public static long getLong(final String user, final String name) {
-    Map<String, Object> map = Preferences.getMap(name);
-    Object value = Preferences.getObject(map, user, name);
-
-    if (value == null) {
-      return 0;
-    }
-
-    if (!(value instanceof Long)) {
-      value = StringUtilities.parseLong(value.toString());
-      map.put(name, value);
-    }
-
-    return (Long) value;
+    StoredValue value = Preferences.getValue(user, name);
+    return value == null ? 0 : value.getLong();
   }
 
   public static float getFloat(final String user, final String name) {
-    Map<String, Object> map = Preferences.getMap(name);
-    Object value = Preferences.getObject(map, user, name);
-
-    if (value == null) {
-      return 0.0f;
-    }
-
-    if (!(value instanceof Float)) {
-      value = StringUtilities.parseFloat(value.toString());
-      map.put(name, value);
-    }
-
-    return (Float) value;
+    StoredValue value = Preferences.getValue(user, name);
+    return value == null ? 0.0f : value.getFloat();
   }
 
   public static double getDouble(final String user, final String name) {
-    Map<String, Object> map = Preferences.getMap(name);
-    Object value = Preferences.getObject(map, user, name);
-
-    if (value == null) {
-      return 0.0;
-    }
-
-    if (!(value instanceof Double)) {
-      value = StringUtilities.parseDouble(value.toString());
-      map.put(name, value);
-    }
-
-    return (Double) value;
+    StoredValue value = Preferences.getValue(user, name);
+    return value == null ? 0.0 : value.getDouble();
   }
 
-  private static Map<String, Object> getMap(final String name) {
+  private static Map<String, StoredValue> getMap(final String name) {
     return Preferences.isGlobalProperty(name) ? Preferences.globalValues : Preferences.userValues;
   }
 
-  private static Object getObject(final String user, final String name) {
-    return Preferences.getObject(Preferences.getMap(name), user, name);
-  }
-
-  private static Object getObject(
-      final Map<String, Object> map, final String user, final String name) {
-    String key = Preferences.propertyName(user, name);
-    return map.get(key);
+  private static StoredValue getValue(final String user, final String name) {
+    return Preferences.getMap(name).get(Preferences.propertyName(user, name));
   }
 
   public static TreeMap<String, String> getMap(boolean defaults, boolean user) {
@@ -984,7 +1000,7 @@ public class Preferences {
       return new TreeMap<>(user ? userNames : globalNames);
     } else {
       TreeMap<String, String> map = new TreeMap<>();
-      Map<String, Object> srcmap = user ? userValues : globalValues;
+      Map<String, StoredValue> srcmap = user ? userValues : globalValues;
       for (String pref : srcmap.keySet()) {
         map.put(pref, getString(pref));
       }
@@ -1051,20 +1067,19 @@ public class Preferences {
     if (Preferences.isGlobalProperty(name)) {
       String actualName = Preferences.propertyName(user, name);
 
-      // We might be changing the structure of the map.
-      // globalValues is a synchronized map.
-
-      Preferences.globalValues.put(actualName, object);
+      Preferences.globalValues.put(actualName, new StoredValue(value, object));
       if (Preferences.getBoolean("saveSettingsOnSet")) {
-        Preferences.saveToFile(Preferences.globalPropertiesFile, Preferences.globalValues);
+        Preferences.saver.schedule(Preferences.globalPropertiesFile);
       }
-    } else if (Preferences.userPropertiesFile != null) {
-      // We might be changing the structure of the map.
-      // userValues is a synchronized map.
-
-      Preferences.userValues.put(name, object);
-      if (Preferences.getBoolean("saveSettingsOnSet")) {
-        Preferences.saveToFile(Preferences.userPropertiesFile, Preferences.userValues);
+    } else {
+      // Held so that the value goes into the map of the user whose file is saved
+      synchronized (Preferences.userLock) {
+        if (Preferences.userPropertiesFile != null) {
+          Preferences.userValues.put(name, new StoredValue(value, object));
+          if (Preferences.getBoolean("saveSettingsOnSet")) {
+            Preferences.saver.schedule(Preferences.userPropertiesFile);
+          }
+        }
       }
     }
 
@@ -1079,48 +1094,45 @@ public class Preferences {
     return user == null ? name : name + "." + Preferences.baseUserName(user);
   }
 
-  private static void saveToFile(File file, Map<String, Object> data) {
+  /** Writes any changed preferences to disk now, rather than shortly. */
+  public static void flush() {
+    Preferences.saver.flush();
+  }
+
+  // Returns the contents of a preferences file, or null if the file is no longer in use
+  private static byte[] encodeFile(File file) {
     if (!Preferences.saveSettingsToFile) {
-      return;
+      return null;
     }
 
-    // See Collections.synchronizedSortedMap
-    //
-    // We are essentially iterating over the map. Not exactly - we
-    // are iterating over the entrySet - but let's keep the map and
-    // the file in synch atomically
-
-    synchronized (lock) {
-      // Determine the contents of the file by
-      // actually printing them.
-
-      ByteArrayOutputStream ostream = new ByteArrayOutputStream();
-
-      try {
-        for (Entry<String, Object> current : data.entrySet()) {
-          ostream.write(
-              Preferences.encodeProperty(current.getKey(), current.getValue().toString())
-                  .getBytes(StandardCharsets.UTF_8));
-          ostream.write(LINE_BREAK_AS_BYTES);
+    Map<String, StoredValue> data;
+    if (file.equals(Preferences.globalPropertiesFile)) {
+      data = Preferences.globalValues;
+    } else {
+      // The user's file and map change together while the lock is held
+      synchronized (Preferences.userLock) {
+        if (!file.equals(Preferences.userPropertiesFile)) {
+          return null;
         }
-      } catch (IOException e) {
-        System.out.println(e.getMessage() + " trying to write preferences as byte array.");
+        data = Preferences.userValues;
       }
+    }
 
-      OutputStream fstream = DataUtilities.getOutputStream(file);
+    ByteArrayOutputStream ostream = new ByteArrayOutputStream();
 
-      try {
-        ostream.writeTo(fstream);
-      } catch (IOException e) {
-        System.out.println(e.getMessage() + " trying to write preferences as stream.");
-      }
-
-      try {
-        fstream.close();
-      } catch (IOException e) {
-        System.out.println(e.getMessage() + " trying to close preferences stream.");
+    try {
+      // Written sorted, from a copy of the map as it is now
+      for (Entry<String, StoredValue> current : new TreeMap<>(data).entrySet()) {
+        ostream.write(
+            Preferences.encodeProperty(current.getKey(), current.getValue().toString())
+                .getBytes(StandardCharsets.UTF_8));
+        ostream.write(LINE_BREAK_AS_BYTES);
       }
+    } catch (IOException e) {
+      System.out.println(e.getMessage() + " trying to write preferences as byte array.");
     }
+
+    return ostream.toByteArray();
   }
 
   public static void resetToDefault(String name) {
@@ -1157,12 +1169,10 @@ public class Preferences {
   }
 
   public static void resetDailies() {
-    // See Collections.synchronizedSortedMap
-    //
-    // userValues is a synchronized map, but we are doing a mass
-    // change to it.
+    // We are doing a mass change to the user map, which must not be
+    // replaced part way through.
 
-    synchronized (Preferences.userValues) {
+    synchronized (Preferences.userLock) {
       Iterator<String> it = Preferences.userValues.keySet().iterator();
       while (it.hasNext()) {
         String name = it.next();
@@ -1179,31 +1189,27 @@ public class Preferences {
       }
 
       if (Preferences.getBoolean("saveSettingsOnSet")) {
-        Preferences.saveToFile(Preferences.userPropertiesFile, Preferences.userValues);
+        Preferences.saver.schedule(Preferences.userPropertiesFile);
       }
     }
   }
 
   public static void resetGlobalDailies() {
-    // See Collections.synchronizedSortedMap
-    //
-    // globalValues is a synchronized map, but we are doing a mass
-    // change to it.
-
-    synchronized (Preferences.globalValues) {
-      for (String name : Preferences.globalValues.keySet()) {
-        if (isDaily(name)) {
-          String val = Preferences.globalNames.get(name);
-          if (val == null) val = "";
-          Preferences.setString(name, val);
-        }
+    // The global map is never replaced, and iterating over a concurrent map while it is changed
+    // is safe, so this needs no lock.
+
+    for (String name : Preferences.globalValues.keySet()) {
+      if (isDaily(name)) {
+        String val = Preferences.globalNames.get(name);
+        if (val == null) val = "";
+        Preferences.setString(name, val);
       }
+    }
 
-      Preferences.setLong("lastGlobalCounterDay", KoLCharacter.getRollover());
+    Preferences.setLong("lastGlobalCounterDay", KoLCharacter.getRollover());
 
-      if (Preferences.getBoolean("saveSettingsOnSet")) {
-        Preferences.saveToFile(Preferences.globalPropertiesFile, Preferences.globalValues);
-      }
+    if (Preferences.getBoolean("saveSettingsOnSet")) {
+      Preferences.saver.schedule(Preferences.globalPropertiesFile);
     }
   }
 
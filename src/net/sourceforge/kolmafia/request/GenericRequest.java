@@ -72,6 +72,7 @@ import net.sourceforge.kolmafia.session.ResultProcessor;
 import net.sourceforge.kolmafia.session.TurnCounter;
 import net.sourceforge.kolmafia.session.ValhallaManager;
 import net.sourceforge.kolmafia.swingui.RequestSynchFrame;
+import net.sourceforge.kolmafia.textui.Profiler;
 import net.sourceforge.kolmafia.textui.ScriptRuntime;
 import net.sourceforge.kolmafia.textui.parsetree.Value;
 import net.sourceforge.kolmafia.utilities.ByteBufferUtilities;
@@ -1566,7 +1567,13 @@ public class GenericRequest implements Runnable {
     }
 
     try {
-      response = getClient().send(request, BodyHandlers.ofInputStream());
+      // Time spent waiting on the server is profiled apart from the script making the request
+      Profiler profiler = Profiler.enterNetwork(this.getPath());
+      try {
+        response = getClient().send(request, BodyHandlers.ofInputStream());
+      } finally {
+        Profiler.exitNetwork(profiler);
+      }
       return false;
     } catch (SocketTimeoutException | InterruptedException e) {
       if (this.shouldUpdateDebugLog()) {
@@ -2058,7 +2065,12 @@ public class GenericRequest implements Runnable {
       RequestLogger.updateDebugLog("Retrieving server reply");
     }
 
-    this.responseText = new String(ByteBufferUtilities.read(istream), StandardCharsets.UTF_8);
+    Profiler profiler = Profiler.enterNetwork(this.getPath());
+    try {
+      this.responseText = new String(ByteBufferUtilities.read(istream), StandardCharsets.UTF_8);
+    } finally {
+      Profiler.exitNetwork(profiler);
+    }
 
     if (this.responseCode == 200 && RequestLogger.isTracing()) {
       String buffer =
@@ -21,6 +21,7 @@ public class MallSearchRequest extends GenericRequest {
   private String searchString;
   private final int storeId;
   private List<PurchaseRequest> results;
+  private boolean updatePrices = true;
 
   public MallSearchRequest(final int storeId) {
     super("mallstore.php");
@@ -152,6 +153,14 @@ public class MallSearchRequest extends GenericRequest {
     this.results = results;
   }
 
+  /**
+   * Whether an exact search should update the item's mall price when it completes. Callers which
+   * record the results themselves turn this off.
+   */
+  public void setUpdatePrices(final boolean updatePrices) {
+    this.updatePrices = updatePrices;
+  }
+
   // *** For testing
   public void setSearchString(final String searchString) {
     this.searchString = searchString;
@@ -231,7 +240,7 @@ public class MallSearchRequest extends GenericRequest {
     }
 
     // If an exact match, we can think about updating mall_price().
-    if (this.searchString.startsWith("\"") && this.results.size() > 0) {
+    if (this.updatePrices && this.searchString.startsWith("\"") && this.results.size() > 0) {
       AdventureResult item = this.results.get(0).getItem();
       MallPriceManager.updateMallPrice(item, new ArrayList<>(this.results));
     }
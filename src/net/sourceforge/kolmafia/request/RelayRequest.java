@@ -29,6 +29,7 @@ import net.sourceforge.kolmafia.KoLmafiaASH;
 import net.sourceforge.kolmafia.Modifiers;
 import net.sourceforge.kolmafia.Modifiers.ModifierList;
 import net.sourceforge.kolmafia.RequestEditorKit;
+import net.sourceforge.kolmafia.RequestLogger;
 import net.sourceforge.kolmafia.SpecialOutfit;
 import net.sourceforge.kolmafia.StaticEntity;
 import net.sourceforge.kolmafia.chat.ChatFormatter;
@@ -70,11 +71,11 @@ import net.sourceforge.kolmafia.session.TurnCounter;
 import net.sourceforge.kolmafia.session.VoteMonsterManager;
 import net.sourceforge.kolmafia.swingui.AdventureFrame;
 import net.sourceforge.kolmafia.swingui.CommandDisplayFrame;
-import net.sourceforge.kolmafia.utilities.ByteBufferUtilities;
 import net.sourceforge.kolmafia.utilities.FileUtilities;
 import net.sourceforge.kolmafia.utilities.PauseObject;
 import net.sourceforge.kolmafia.utilities.StringUtilities;
 import net.sourceforge.kolmafia.utilities.WikiUtilities;
+import net.sourceforge.kolmafia.webui.RelayFileCache;
 import net.sourceforge.kolmafia.webui.RelayServer;
 import net.sourceforge.kolmafia.webui.StationaryButtonDecorator;
 import org.json.JSONObject;
@@ -622,6 +623,7 @@ public class RelayRequest extends PasswordHashRequest {
   }
 
   public static void clearImageCache() {
+    RelayFileCache.clear();
     RelayRequest.clearImageDirectory(KoLConstants.IMAGE_LOCATION, RELAYIMAGES_FILTER);
     Preferences.setLong("lastImageCacheClear", (new Date()).getTime());
   }
@@ -640,17 +642,42 @@ public class RelayRequest extends PasswordHashRequest {
     return FileUtilities.imageFile(RelayRequest.localImagePath(filename));
   }
 
+  // Images from KoL's image server never change. Player pictures, the
+  // favicon and images generated by KoLmafia might.
+
+  public static boolean immutableImage(final String filename) {
+    return (filename.startsWith("images/") || filename.startsWith("iii/"))
+        && !filename.startsWith("images/playerpics/")
+        && !filename.startsWith("images/relayimages/");
+  }
+
+  public static void prefetchImage(final String filename) {
+    // Only prefetch things that look like image files, not fragments of
+    // image paths built up by scripts
+    if (RelayRequest.immutableImage(filename)
+        && !filename.contains("..")
+        && filename.lastIndexOf('.') > filename.lastIndexOf('/')) {
+      RelayFileCache.prefetchImage(RelayRequest.localImagePath(filename));
+    }
+  }
+
   private void sendLocalImage(final String filename) {
-    File imageFile = FileUtilities.downloadImage(RelayRequest.localImagePath(filename));
+    boolean immutable = RelayRequest.immutableImage(filename);
+    RelayFileCache.Entry image =
+        RelayFileCache.getImage(RelayRequest.localImagePath(filename), immutable);
 
-    if (imageFile == null) {
+    if (image == null) {
       this.sendNotFound();
       return;
     }
 
-    this.lastModified = imageFile.lastModified();
-    this.rawByteBuffer = ByteBufferUtilities.read(imageFile);
+    this.lastModified = image.lastModified;
+    this.rawByteBuffer = image.bytes;
     this.headers.add("Access-Control-Allow-Origin: *");
+    this.headers.add("ETag: " + image.etag);
+    if (immutable) {
+      this.headers.add("Cache-Control: public, max-age=31536000, immutable");
+    }
     this.pseudoResponse("HTTP/1.1 200 OK", "");
   }
 
@@ -690,7 +717,10 @@ public class RelayRequest extends PasswordHashRequest {
 
     if (override.exists()) {
       // If the file is in the file system, it is a local override
-      replyBuffer = this.readContents(DataUtilities.getReader(override));
+      String contents =
+          RelayFileCache.getText(
+              override, file -> this.readContents(DataUtilities.getReader(file)).toString());
+      replyBuffer = new StringBuffer(contents == null ? "" : contents);
     } else {
       // If the file is not in the file system, it's probably a KoL
       // file which is not in the image directory for some reason.
@@ -3114,6 +3144,7 @@ public class RelayRequest extends PasswordHashRequest {
       submitCommand("logout");
       this.pseudoResponse("HTTP/1.1 302 Found", "/loggedout.php");
     } else if (path.endsWith("messageUpdate")) {
+      RequestLogger.flushOutput();
       this.pseudoResponse("HTTP/1.1 200 OK", RelayServer.getNewStatusMessages());
     } else if (path.endsWith("lookupLocation")) {
       RelayRequest.lastSafety =
@@ -15,10 +15,17 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import net.sourceforge.kolmafia.KoLConstants;
 import net.sourceforge.kolmafia.KoLConstants.MafiaState;
 import net.sourceforge.kolmafia.KoLmafia;
 import net.sourceforge.kolmafia.RequestLogger;
+import net.sourceforge.kolmafia.StaticEntity;
 import net.sourceforge.kolmafia.preferences.Preferences;
 import net.sourceforge.kolmafia.scripts.ScriptManager;
 import org.eclipse.jgit.api.Git;
@@ -26,6 +33,7 @@ import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.api.errors.InvalidRemoteException;
 import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.lib.BranchTrackingStatus;
+import org.eclipse.jgit.lib.NullProgressMonitor;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.lib.ProgressMonitor;
@@ -85,10 +93,65 @@ public class GitManager extends ScriptManager {
     KoLmafia.updateDisplay("Cloned project " + id);
   }
 
-  /** Update all installed projects. */
+  /**
+   * Update all installed projects.
+   *
+   * <p>Projects are pulled several at a time, each into its own folder in git/. Their changes are
+   * copied to the permissible folders one project at a time, on this thread, as each pull finishes.
+   * A project which fails does not stop the others, since they may already have been pulled.
+   */
   public static void updateAll() {
-    for (var project : allFolders()) {
-      update(project);
+    var folders = allFolders();
+    if (folders.length == 0) {
+      return;
+    }
+
+    int poolSize = Math.max(1, Preferences.getInteger("gitThreadPoolSize"));
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(poolSize, folders.length));
+    CompletionService<ProjectUpdate> completion = new ExecutorCompletionService<>(executor);
+    long start = System.nanoTime();
+    List<String> failed = new ArrayList<>();
+
+    try {
+      for (var folder : folders) {
+        completion.submit(new ProjectUpdate(folder, true));
+      }
+
+      for (int i = 1; i <= folders.length; ++i) {
+        ProjectUpdate update;
+        try {
+          update = completion.take().get();
+        } catch (ExecutionException e) {
+          StaticEntity.printStackTrace(e.getCause(), "Failed to update a project");
+          failed.add("(unknown)");
+          continue;
+        }
+        update.progress =
+            " (" + i + " of " + folders.length + ", pulled in " + update.elapsed / 1000000 + " ms)";
+        update.apply();
+        if (update.failed) {
+          failed.add(update.folder);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      executor.shutdownNow();
+    }
+
+    String summary =
+        "Updated "
+            + (folders.length - failed.size())
+            + " of "
+            + folders.length
+            + " projects in "
+            + (System.nanoTime() - start) / 1000000
+            + " ms";
+    if (failed.isEmpty()) {
+      KoLmafia.updateDisplay(summary);
+    } else {
+      KoLmafia.updateDisplay(
+          MafiaState.ERROR, summary + "; failed to update " + String.join(", ", failed));
     }
   }
 
@@ -106,90 +169,185 @@ public class GitManager extends ScriptManager {
       KoLmafia.updateDisplay(MafiaState.ERROR, "Cannot find unique match for " + project);
       return;
     }
-    var folder = folderOpt.get();
-    Path projectPath = KoLConstants.GIT_LOCATION.toPath().resolve(folder);
-    var oldRoot = getRoot(projectPath);
-    Git git;
-    try {
-      git = Git.open(projectPath.toFile());
-    } catch (IOException e) {
-      KoLmafia.updateDisplay(MafiaState.ERROR, "Failed to open project " + folder + ": " + e);
-      return;
+    var update = new ProjectUpdate(folderOpt.get(), false);
+    update.call();
+    update.apply();
+  }
+
+  /**
+   * Updating one project: pulling it, which only touches its folder in git/ and so may be done on
+   * any thread, then applying its changes to the permissible folders.
+   *
+   * <p>A buffered update keeps what it would report until it is applied, so that the output of
+   * projects pulled at the same time is not interleaved.
+   */
+  private static class ProjectUpdate implements Callable<ProjectUpdate> {
+    private final String folder;
+    private final Path projectPath;
+    private final boolean buffered;
+    private final List<Runnable> reports = new ArrayList<>();
+
+    private Path oldRoot;
+    private Path newRoot;
+    // The changed files, or null if the whole project should be synced
+    private List<DiffEntry> diffs;
+    private List<RevCommit> commits = List.of();
+    private boolean pulled = false;
+    private boolean failed = false;
+    private long elapsed;
+    private String progress = "";
+
+    private ProjectUpdate(String folder, boolean buffered) {
+      this.folder = folder;
+      this.projectPath = KoLConstants.GIT_LOCATION.toPath().resolve(folder);
+      this.buffered = buffered;
+    }
+
+    private void report(Runnable report) {
+      if (this.buffered) {
+        this.reports.add(report);
+      } else {
+        report.run();
+      }
     }
-    // update repo, then find out what was updated
-    try (git) {
-      var repo = git.getRepository();
-      AbstractTreeIterator currTree;
-      AbstractTreeIterator incomingTree;
-      ObjectId currCommit;
-      ObjectId incomingCommit;
+
+    private void error(String message) {
+      this.failed = true;
+      this.report(() -> KoLmafia.updateDisplay(MafiaState.ERROR, message));
+    }
+
+    @Override
+    public ProjectUpdate call() {
+      long start = System.nanoTime();
+      this.pulled = this.pull();
+      this.elapsed = System.nanoTime() - start;
+      return this;
+    }
+
+    /** Pull the project, then find out what was updated. */
+    private boolean pull() {
+      this.oldRoot = getRoot(this.projectPath);
+      Git git;
       try {
-        currCommit = getCurrentCommit(repo);
-        currTree = getCurrentCommitTree(repo);
+        git = Git.open(this.projectPath.toFile());
       } catch (IOException e) {
-        KoLmafia.updateDisplay(
-            MafiaState.ERROR, "Failed to get details for project " + folder + ": " + e);
-        return;
+        this.error("Failed to open project " + this.folder + ": " + e);
+        return false;
       }
+      try (git) {
+        var repo = git.getRepository();
+        AbstractTreeIterator currTree;
+        AbstractTreeIterator incomingTree;
+        ObjectId currCommit;
+        ObjectId incomingCommit;
+        try {
+          currCommit = getCurrentCommit(repo);
+          currTree = getCurrentCommitTree(repo);
+        } catch (IOException e) {
+          this.error("Failed to get details for project " + this.folder + ": " + e);
+          return false;
+        }
 
-      RequestLogger.printLine("Updating project " + folder);
-      try {
-        git.pull().setProgressMonitor(new MafiaProgressMonitor()).setRebase(true).call();
-      } catch (GitAPIException e) {
-        KoLmafia.updateDisplay(MafiaState.ERROR, "Failed to update project " + folder + ": " + e);
-        return;
-      }
-      var newRoot = getRoot(projectPath);
+        this.report(
+            () -> RequestLogger.printLine("Updating project " + this.folder + this.progress));
+        try {
+          ProgressMonitor monitor =
+              this.buffered ? NullProgressMonitor.INSTANCE : new MafiaProgressMonitor();
+          git.pull().setProgressMonitor(monitor).setRebase(true).call();
+        } catch (GitAPIException e) {
+          this.error("Failed to update project " + this.folder + ": " + e);
+          return false;
+        }
+        this.newRoot = getRoot(this.projectPath);
 
-      if (!oldRoot.equals(newRoot)) {
-        // the root directory has changed. Figuring out the diff is too hard, just sync
-        sync(projectPath);
-        return;
+        if (!this.oldRoot.equals(this.newRoot)) {
+          // the root directory has changed. Figuring out the diff is too hard, just sync
+          this.diffs = null;
+          return true;
+        }
+
+        try {
+          incomingCommit = getCurrentCommit(repo);
+          incomingTree = getCurrentCommitTree(repo);
+        } catch (IOException e) {
+          this.error("Failed to get incoming changes for project " + this.folder + ": " + e);
+          return false;
+        }
+
+        try {
+          var cmd =
+              git.diff()
+                  .setOldTree(currTree)
+                  .setNewTree(incomingTree)
+                  .setShowNameAndStatusOnly(true);
+          if (!this.projectPath.equals(this.newRoot)) {
+            var relFilter = this.projectPath.relativize(this.newRoot);
+            var filter = PathFilter.create(relFilter.toString().replace(File.separatorChar, '/'));
+            cmd = cmd.setPathFilter(filter);
+          }
+          this.diffs = cmd.call();
+        } catch (GitAPIException e) {
+          this.error("Failed to diff incoming changes for project " + this.folder + ": " + e);
+          return false;
+        }
+
+        if (this.diffs.size() == 0) {
+          this.report(() -> RequestLogger.printLine("No changes"));
+          return false;
+        }
+
+        if (Preferences.getBoolean("gitShowCommitMessages")) {
+          this.commits = this.getCommits(git, currCommit, incomingCommit);
+        }
+        return true;
       }
+    }
 
+    /** Get commits from since to until */
+    private List<RevCommit> getCommits(Git git, ObjectId since, ObjectId until) {
+      List<RevCommit> commits = new ArrayList<>();
       try {
-        incomingCommit = getCurrentCommit(repo);
-        incomingTree = getCurrentCommitTree(repo);
-      } catch (IOException e) {
-        KoLmafia.updateDisplay(
-            MafiaState.ERROR, "Failed to get incoming changes for project " + folder + ": " + e);
-        return;
+        git.log().addRange(since, until).call().forEach(commits::add);
+      } catch (IOException | GitAPIException e) {
+        this.report(
+            () ->
+                KoLmafia.updateDisplay(
+                    MafiaState.CONTINUE,
+                    "Failed to get commit messages for " + this.folder + ": " + e));
       }
+      return commits;
+    }
 
-      List<DiffEntry> diffs;
-      try {
-        var cmd =
-            git.diff().setOldTree(currTree).setNewTree(incomingTree).setShowNameAndStatusOnly(true);
-        if (!projectPath.equals(newRoot)) {
-          var relFilter = projectPath.relativize(newRoot);
-          var filter = PathFilter.create(relFilter.toString().replace(File.separatorChar, '/'));
-          cmd = cmd.setPathFilter(filter);
-        }
-        diffs = cmd.call();
-      } catch (GitAPIException e) {
-        KoLmafia.updateDisplay(
-            MafiaState.ERROR, "Failed to diff incoming changes for project " + folder + ": " + e);
+    /**
+     * Report what happened while pulling, then copy the changes to the permissible folders. Must
+     * only be called on one thread at a time.
+     */
+    private void apply() {
+      this.reports.forEach(Runnable::run);
+      this.reports.clear();
+
+      if (!this.pulled) {
         return;
       }
 
-      if (diffs.size() == 0) {
-        RequestLogger.printLine("No changes");
+      if (this.diffs == null) {
+        sync(this.projectPath);
         return;
       }
 
       boolean checkDependencies = false;
 
-      for (var diff : diffs) {
+      for (var diff : this.diffs) {
         var oldDiffPath = diff.getOldPath();
-        var oldRelPath = oldRoot.relativize(projectPath.resolve(oldDiffPath));
+        var oldRelPath = this.oldRoot.relativize(this.projectPath.resolve(oldDiffPath));
         var newDiffPath = diff.getNewPath();
-        var newRelPath = newRoot.relativize(projectPath.resolve(newDiffPath));
+        var newRelPath = this.newRoot.relativize(this.projectPath.resolve(newDiffPath));
         switch (diff.getChangeType()) {
-          case ADD, MODIFY, COPY -> addNewFile(newRoot, newRelPath);
+          case ADD, MODIFY, COPY -> addNewFile(this.newRoot, newRelPath);
           case DELETE -> deleteOldFile(oldRelPath);
           case RENAME -> {
             deleteOldFile(oldRelPath);
-            addNewFile(newRoot, newRelPath);
+            addNewFile(this.newRoot, newRelPath);
           }
         }
 
@@ -198,12 +356,10 @@ public class GitManager extends ScriptManager {
         }
       }
 
-      if (Preferences.getBoolean("gitShowCommitMessages")) {
-        printCommitMessages(git, currCommit, incomingCommit, folder);
-      }
+      printCommitMessages(this.commits);
 
       if (checkDependencies) {
-        installDependencies(newRoot.resolve(DEPENDENCIES));
+        installDependencies(this.newRoot.resolve(DEPENDENCIES));
       }
     }
   }
@@ -246,17 +402,8 @@ public class GitManager extends ScriptManager {
     return treeIterator;
   }
 
-  /** Print commit messages from since to until */
-  private static void printCommitMessages(Git git, ObjectId since, ObjectId until, String folder) {
-    Iterable<RevCommit> commits;
-    try {
-      commits = git.log().addRange(since, until).call();
-    } catch (IOException | GitAPIException e) {
-      KoLmafia.updateDisplay(
-          MafiaState.CONTINUE, "Failed to get commit messages for " + folder + ": " + e);
-      return;
-    }
-
+  /** Print commit messages */
+  private static void printCommitMessages(List<RevCommit> commits) {
     for (var commit : commits) {
       var author = commit.getAuthorIdent();
       var datetime = getCommitDate(commit, author);
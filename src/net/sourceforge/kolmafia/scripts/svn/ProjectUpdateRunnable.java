@@ -0,0 +1,89 @@
+package net.sourceforge.kolmafia.scripts.svn;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import org.tmatesoft.svn.core.SVNDirEntry;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.wc.SVNClientManager;
+import org.tmatesoft.svn.core.wc.SVNRevision;
+import org.tmatesoft.svn.core.wc.SVNUpdateClient;
+import org.tmatesoft.svn.core.wc.SVNWCUtil;
+
+/**
+ * Updates one working copy to HEAD, so that several may be updated at once.
+ *
+ * <p>Each update uses a client manager of its own, and keeps its file events and messages rather
+ * than queueing and printing them, so that they can be pushed to the permissible folders one
+ * project at a time once it has finished.
+ */
+public class ProjectUpdateRunnable implements Runnable, Callable<ProjectUpdateRunnable> {
+  private final File WCDir;
+  private final List<SVNFileEvent> events = new ArrayList<>();
+  private final List<String> messages = new ArrayList<>();
+
+  private String error = null;
+  private long elapsed = 0;
+
+  public ProjectUpdateRunnable(File WCDir) {
+    this.WCDir = WCDir;
+  }
+
+  @Override
+  public void run() {
+    long start = System.nanoTime();
+    SVNClientManager manager = SVNClientManager.newInstance(SVNWCUtil.createDefaultOptions(true));
+    try {
+      SVNURL url = manager.getWCClient().doInfo(this.WCDir, SVNRevision.WORKING).getURL();
+
+      SVNRepository repository = manager.createRepository(url, true);
+      Collection<SVNDirEntry> entries =
+          repository.getDir("", -1, null, SVNDirEntry.DIRENT_ALL, (Collection<?>) null);
+      if (!SVNManager.isValidLayout(entries)) {
+        this.error = "The requested repo (" + url.getPath() + ") failed validation.";
+        return;
+      }
+
+      SVNUpdateClient updateClient = manager.getUpdateClient();
+      updateClient.setEventHandler(new UpdateEventHandler(this.events::add, this.messages::add));
+      SVNManager.update(updateClient, this.WCDir, SVNRevision.HEAD, true, this.messages::add);
+    } catch (SVNException e) {
+      this.error = e.getErrorMessage().getMessage();
+    } finally {
+      manager.dispose();
+      this.elapsed = System.nanoTime() - start;
+    }
+  }
+
+  @Override
+  public ProjectUpdateRunnable call() {
+    this.run();
+    return this;
+  }
+
+  public File getWCDir() {
+    return this.WCDir;
+  }
+
+  public List<SVNFileEvent> getEvents() {
+    return this.events;
+  }
+
+  public List<String> getMessages() {
+    return this.messages;
+  }
+
+  /** Returns why the update failed, or null if it succeeded. */
+  public String getError() {
+    return this.error;
+  }
+
+  /** Returns how long the update took, in nanoseconds. */
+  public long getElapsed() {
+    return this.elapsed;
+  }
+}
@@ -20,13 +20,17 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Stack;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import javax.swing.JOptionPane;
 import net.sourceforge.kolmafia.KoLConstants;
 import net.sourceforge.kolmafia.KoLConstants.MafiaState;
@@ -34,6 +38,7 @@ import net.sourceforge.kolmafia.KoLmafia;
 import net.sourceforge.kolmafia.KoLmafiaCLI;
 import net.sourceforge.kolmafia.RequestLogger;
 import net.sourceforge.kolmafia.RequestThread;
+import net.sourceforge.kolmafia.StaticEntity;
 import net.sourceforge.kolmafia.preferences.Preferences;
 import net.sourceforge.kolmafia.scripts.ScriptManager;
 import net.sourceforge.kolmafia.utilities.FileUtilities;
@@ -166,7 +171,39 @@ public class SVNManager extends ScriptManager {
       setupLibrary();
     }
 
-    SVNUpdateClient updateClient = ourClientManager.getUpdateClient();
+    return update(
+        ourClientManager.getUpdateClient(),
+        wcPath,
+        updateToRevision,
+        isRecursive,
+        RequestLogger::printLine,
+        retryCount);
+  }
+
+  /**
+   * Updates a working copy with the given client, as {@link #update(File, SVNRevision, boolean)}
+   * does with the shared one, so that several may be updated at once.
+   *
+   * @param messages Receives the lines to print
+   */
+  static long update(
+      SVNUpdateClient updateClient,
+      File wcPath,
+      SVNRevision updateToRevision,
+      boolean isRecursive,
+      Consumer<String> messages)
+      throws SVNException {
+    return update(updateClient, wcPath, updateToRevision, isRecursive, messages, 0);
+  }
+
+  private static long update(
+      SVNUpdateClient updateClient,
+      File wcPath,
+      SVNRevision updateToRevision,
+      boolean isRecursive,
+      Consumer<String> messages,
+      int retryCount)
+      throws SVNException {
     /*
      * sets externals not to be ignored during the update
      */
@@ -185,9 +222,9 @@ public class SVNManager extends ScriptManager {
           && retryCount <= RETRY_LIMIT) {
         retryCount++;
         // workaround for stupid sourceforge Apache bug
-        RequestLogger.printLine(
+        messages.accept(
             "Server-side error during svn update, retrying " + retryCount + " of " + RETRY_LIMIT);
-        return update(wcPath, updateToRevision, isRecursive, retryCount);
+        return update(updateClient, wcPath, updateToRevision, isRecursive, messages, retryCount);
       } else throw e;
     }
     return rev;
@@ -433,14 +470,7 @@ public class SVNManager extends ScriptManager {
       SVN_LOCK.unlock();
     }
 
-    for (SVNDirEntry entry : entries) {
-      if (entry.getKind().equals(SVNNodeKind.DIR)) {
-        failed |= !permissibles.contains(entry.getName());
-      } else
-        // something other than a directory
-        // we allow a single top-level file to declare dependencies, nothing else
-        failed = !entry.getName().equals(DEPENDENCIES);
-    }
+    failed = !isValidLayout(entries);
 
     if (failed && !quiet) {
       KoLmafia.updateDisplay(
@@ -452,6 +482,22 @@ public class SVNManager extends ScriptManager {
     return failed;
   }
 
+  /** Returns whether the top level of a repo holds only permissible folders. */
+  static boolean isValidLayout(Collection<SVNDirEntry> entries) {
+    boolean failed = false;
+
+    for (SVNDirEntry entry : entries) {
+      if (entry.getKind().equals(SVNNodeKind.DIR)) {
+        failed |= !permissibles.contains(entry.getName());
+      } else
+        // something other than a directory
+        // we allow a single top-level file to declare dependencies, nothing else
+        failed = !entry.getName().equals(DEPENDENCIES);
+    }
+
+    return !failed;
+  }
+
   private static void pushUpdates() {
     pushUpdates(false);
   }
@@ -999,9 +1045,9 @@ public class SVNManager extends ScriptManager {
               WCAtHead(f, false, checkingRunnables);
             }
 
+            int poolSize = Preferences.getInteger("svnThreadPoolSize");
+            poolSize = Math.max(1, poolSize);
             if (!checkingRunnables.isEmpty()) {
-              int poolSize = Preferences.getInteger("svnThreadPoolSize");
-              poolSize = Math.max(1, poolSize);
               // now start all threads and wait for them to finish.
               // we must keep one big lock over the entire time, until no thread accesses it anymore
               ExecutorService executor = Executors.newFixedThreadPool(poolSize);
@@ -1017,7 +1063,7 @@ public class SVNManager extends ScriptManager {
                   }
                 }
               } catch (InterruptedException | ExecutionException e) {
-                e.printStackTrace();
+                StaticEntity.printStackTrace(e);
               } finally {
                 SVN_LOCK.unlock();
                 executor.shutdown();
@@ -1031,16 +1077,9 @@ public class SVNManager extends ScriptManager {
               }
             }
 
-            // updates are serialized, if there even are any
-            KoLmafia.updateDisplay("Updating all SVN projects...");
-            for (File f : projectsToUpdate) {
-              if (!KoLmafia.permitsContinue()) {
-                return;
-              }
-
-              RequestThread.postRequest(new UpdateRunnable(f));
-
-              pushUpdates();
+            if (!projectsToUpdate.isEmpty()) {
+              KoLmafia.updateDisplay("Updating all SVN projects...");
+              updateConcurrently(projectsToUpdate, poolSize);
             }
           }
         };
@@ -1067,6 +1106,74 @@ public class SVNManager extends ScriptManager {
     if (Preferences.getBoolean("svnInstallDependencies")) checkDependencies();
   }
 
+  /**
+   * Updates several working copies at once. Each project's changes are pushed to the permissible
+   * folders on this thread as its update finishes, so that only one project is pushed at a time. A
+   * project which fails does not stop the others, since they may already have been updated.
+   */
+  private static void updateConcurrently(List<File> projects, int poolSize) {
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(poolSize, projects.size()));
+    CompletionService<ProjectUpdateRunnable> completion = new ExecutorCompletionService<>(executor);
+    long start = System.nanoTime();
+    List<String> failed = new ArrayList<>();
+
+    try {
+      for (File f : projects) {
+        completion.submit((Callable<ProjectUpdateRunnable>) new ProjectUpdateRunnable(f));
+      }
+
+      for (int i = 1; i <= projects.size(); ++i) {
+        ProjectUpdateRunnable r;
+        try {
+          r = completion.take().get();
+        } catch (ExecutionException e) {
+          StaticEntity.printStackTrace(e.getCause(), "Failed to update an SVN project");
+          failed.add("(unknown)");
+          continue;
+        }
+
+        KoLmafia.updateDisplay(
+            "Updated "
+                + r.getWCDir().getName()
+                + " ("
+                + i
+                + " of "
+                + projects.size()
+                + ", "
+                + r.getElapsed() / 1000000
+                + " ms)");
+        r.getMessages().forEach(RequestLogger::printLine);
+        if (r.getError() != null) {
+          KoLmafia.updateDisplay(MafiaState.ERROR, r.getError());
+          failed.add(r.getWCDir().getName());
+          continue;
+        }
+
+        eventStack.addAll(r.getEvents());
+        pushUpdates();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      executor.shutdownNow();
+    }
+
+    String summary =
+        "Updated "
+            + (projects.size() - failed.size())
+            + " of "
+            + projects.size()
+            + " SVN projects in "
+            + (System.nanoTime() - start) / 1000000
+            + " ms";
+    if (failed.isEmpty()) {
+      RequestLogger.printLine(summary);
+    } else {
+      KoLmafia.updateDisplay(
+          MafiaState.ERROR, summary + "; failed to update " + String.join(", ", failed));
+    }
+  }
+
   public static boolean WCAtHead(File f, boolean quiet) {
     return WCAtHead(f, quiet, null);
   }
@@ -11,6 +11,7 @@
  */
 package net.sourceforge.kolmafia.scripts.svn;
 
+import java.util.function.Consumer;
 import net.sourceforge.kolmafia.RequestLogger;
 import org.tmatesoft.svn.core.SVNCancelException;
 import org.tmatesoft.svn.core.wc.ISVNEventHandler;
@@ -32,6 +33,22 @@ import org.tmatesoft.svn.core.wc.SVNStatusType;
  * path, action performed upon the path and some other.
  */
 public class UpdateEventHandler implements ISVNEventHandler {
+  private final Consumer<SVNFileEvent> events;
+  private final Consumer<String> messages;
+
+  public UpdateEventHandler() {
+    this(SVNManager::queueFileEvent, RequestLogger::printLine);
+  }
+
+  /**
+   * @param events Receives the file events to push to the permissible folders
+   * @param messages Receives the lines to print
+   */
+  public UpdateEventHandler(Consumer<SVNFileEvent> events, Consumer<String> messages) {
+    this.events = events;
+    this.messages = messages;
+  }
+
   /*
    * progress is currently reserved for future purposes and now is always
    * ISVNEventHandler.UNKNOWN
@@ -49,13 +66,13 @@ public class UpdateEventHandler implements ISVNEventHandler {
       /*
        * the item was added
        */
-      SVNManager.queueFileEvent(new SVNFileEvent(event.getFile(), event));
+      this.events.accept(new SVNFileEvent(event.getFile(), event));
       pathChangeType = "A";
     } else if (action == SVNEventAction.UPDATE_DELETE) {
       /*
        * the item was deleted
        */
-      SVNManager.queueFileEvent(new SVNFileEvent(event.getFile(), event));
+      this.events.accept(new SVNFileEvent(event.getFile(), event));
       pathChangeType = "D";
     } else if (action == SVNEventAction.UPDATE_UPDATE) {
       /*
@@ -71,7 +88,7 @@ public class UpdateEventHandler implements ISVNEventHandler {
          * the item was modified in the repository (got the changes from
          * the repository
          */
-        SVNManager.queueFileEvent(new SVNFileEvent(event.getFile(), event));
+        this.events.accept(new SVNFileEvent(event.getFile(), event));
         pathChangeType = "U";
       } else if (contentsStatus == SVNStatusType.CONFLICTED) {
         /*
@@ -79,12 +96,12 @@ public class UpdateEventHandler implements ISVNEventHandler {
          * received from the repository during an update, overlap with
          * local changes the user has in his working copy.
          */
-        RequestLogger.printLine(
+        this.messages.accept(
             "<font color=\"red\">There are unresolved conflicts for "
                 + event.getFile().getName()
                 + "</font>");
-        RequestLogger.printLine("Resolve them manually and perform another SVN update.");
-        SVNManager.queueFileEvent(new SVNFileEvent(event.getFile(), event));
+        this.messages.accept("Resolve them manually and perform another SVN update.");
+        this.events.accept(new SVNFileEvent(event.getFile(), event));
         pathChangeType = "C";
       } else if (contentsStatus == SVNStatusType.MERGED) {
         /*
@@ -92,34 +109,34 @@ public class UpdateEventHandler implements ISVNEventHandler {
          * repository did not overlap local changes and were merged into
          * the file).
          */
-        SVNManager.queueFileEvent(new SVNFileEvent(event.getFile(), event));
+        this.events.accept(new SVNFileEvent(event.getFile(), event));
         pathChangeType = "G";
       }
     } else if (action == SVNEventAction.UPDATE_EXTERNAL) {
       /* for externals definitions */
-      RequestLogger.printLine(
+      this.messages.accept(
           "Fetching external item into '" + event.getFile().getAbsolutePath() + "'");
-      RequestLogger.printLine("External at revision " + event.getRevision());
+      this.messages.accept("External at revision " + event.getRevision());
       return;
     } else if (action == SVNEventAction.UPDATE_COMPLETED) {
       /*
        * Updating the working copy is completed. Prints out the revision.
        */
-      RequestLogger.printLine("At revision " + event.getRevision());
+      this.messages.accept("At revision " + event.getRevision());
       return;
     } else if (action == SVNEventAction.ADD) {
-      SVNManager.queueFileEvent(new SVNFileEvent(event.getFile(), event));
-      RequestLogger.printLine("A     " + event.getURL());
+      this.events.accept(new SVNFileEvent(event.getFile(), event));
+      this.messages.accept("A     " + event.getURL());
       return;
     } else if (action == SVNEventAction.DELETE) {
-      SVNManager.queueFileEvent(new SVNFileEvent(event.getFile(), event));
-      RequestLogger.printLine("D     " + event.getURL());
+      this.events.accept(new SVNFileEvent(event.getFile(), event));
+      this.messages.accept("D     " + event.getURL());
       return;
     } else if (action == SVNEventAction.LOCKED) {
-      RequestLogger.printLine("L     " + event.getURL());
+      this.messages.accept("L     " + event.getURL());
       return;
     } else if (action == SVNEventAction.LOCK_FAILED) {
-      RequestLogger.printLine("failed to lock    " + event.getURL());
+      this.messages.accept("failed to lock    " + event.getURL());
       return;
     }
 
@@ -164,7 +181,7 @@ public class UpdateEventHandler implements ISVNEventHandler {
     }
 
     String printMe = event.getURL() != null ? event.getURL().toString() : event.getFile().getPath();
-    RequestLogger.printLine(
+    this.messages.accept(
         pathChangeType + propertiesChangeType + lockLabel + "       " + printMe);
   }
 
@@ -2037,7 +2037,7 @@ public class EquipmentManager {
       default:
       case MUSCLE:
         hitStat = KoLCharacter.getAdjustedMuscle();
-        if (Modifiers.unarmed && KoLCharacter.hasSkill("Master of the Surprising Fist")) {
+        if (Modifiers.isUnarmed() && KoLCharacter.hasSkill("Master of the Surprising Fist")) {
           hitStat += 20;
         }
         return hitStat;
@@ -7,6 +7,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -612,11 +613,16 @@ public abstract class MallPriceManager {
     return price;
   }
 
+  // Refresh the prices of many items, searching the mall for those whose price is missing or too
+  // old. Searches run several at a time, no faster than the configured rate, and prices are
+  // recorded as each search finishes. mallprices.txt is written once, at the end.
+
   public static int getMallPrices(AdventureResult[] items, float maxAge) {
     // Count how many items we retrieved
     int count = 0;
 
     try {
+      Set<Integer> itemIds = new LinkedHashSet<>();
       for (AdventureResult item : items) {
         int itemId = item.getItemId();
         if (!validMallItem(itemId)) {
@@ -626,14 +632,24 @@ public abstract class MallPriceManager {
         if (price > 0 && MallPriceDatabase.getAge(itemId) <= maxAge) {
           continue;
         }
-        if (MallPriceManager.mallPrices.getOrDefault(itemId, 0) == 0) {
-          AdventureResult search = item.getInstance(NTH_CHEAPEST_COUNT);
-          List<PurchaseRequest> results = MallPriceManager.searchMall(search);
-          MallPriceManager.flushCache(itemId);
-          MallPriceManager.updateMallPrice(itemId, results, true);
-          MallPriceManager.mallSearches.put(itemId, results);
+        if (MallPriceManager.mallPrices.getOrDefault(itemId, 0) != 0) {
+          continue;
+        }
+        List<PurchaseRequest> saved = MallPriceManager.getSavedSearch(itemId, NTH_CHEAPEST_COUNT);
+        if (saved != null) {
+          MallPriceManager.recordSearch(itemId, saved);
           ++count;
+          continue;
         }
+        itemIds.add(itemId);
+      }
+
+      if (!itemIds.isEmpty() && !GenericRequest.abortIfInFightOrChoice()) {
+        MallPriceRefresher refresher =
+            new MallPriceRefresher(
+                Preferences.getInteger("mallPriceRefreshThreads"),
+                Preferences.getFloat("mallPriceRefreshRate"));
+        count += refresher.refresh(itemIds, MallPriceManager::recordSearch);
       }
     } finally {
       RequestLogger.printLine("Updating mallprices.txt with " + count + " prices.");
@@ -643,6 +659,13 @@ public abstract class MallPriceManager {
     return count;
   }
 
+  // Replace the saved search and price for an item, without writing mallprices.txt
+  private static void recordSearch(int itemId, List<PurchaseRequest> results) {
+    MallPriceManager.flushCache(itemId);
+    MallPriceManager.updateMallPrice(itemId, results, true);
+    MallPriceManager.mallSearches.put(itemId, results);
+  }
+
   public static int getMallPrices(String category) {
     return getMallPrices(category, "");
   }
@@ -687,10 +710,8 @@ public abstract class MallPriceManager {
         if (itemId != newItemId) {
           // Handle previous item, if any
           if (itemResults != null) {
-            MallPriceManager.flushCache(itemId);
             Collections.sort(itemResults, PurchaseRequest.priceComparator);
-            MallPriceManager.updateMallPrice(itemId, itemResults, true);
-            MallPriceManager.mallSearches.put(itemId, itemResults);
+            MallPriceManager.recordSearch(itemId, itemResults);
             ++count;
           }
 
@@ -704,10 +725,8 @@ public abstract class MallPriceManager {
 
       // Handle final item
       if (itemResults != null) {
-        MallPriceManager.flushCache(itemId);
         Collections.sort(itemResults, PurchaseRequest.priceComparator);
-        MallPriceManager.updateMallPrice(itemId, itemResults, true);
-        MallPriceManager.mallSearches.put(itemId, itemResults);
+        MallPriceManager.recordSearch(itemId, itemResults);
         ++count;
       }
     } finally {
@@ -0,0 +1,160 @@
+package net.sourceforge.kolmafia.session;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import net.sourceforge.kolmafia.KoLConstants.MafiaState;
+import net.sourceforge.kolmafia.KoLmafia;
+import net.sourceforge.kolmafia.RequestThread;
+import net.sourceforge.kolmafia.StaticEntity;
+import net.sourceforge.kolmafia.persistence.ItemDatabase;
+import net.sourceforge.kolmafia.request.CoinMasterPurchaseRequest;
+import net.sourceforge.kolmafia.request.MallSearchRequest;
+import net.sourceforge.kolmafia.request.PurchaseRequest;
+
+/**
+ * Searches the mall for the prices of many items at once.
+ *
+ * <p>Searches run on a small pool of threads, each making one request at a time. Requests start no
+ * faster than the given rate, however many threads there are, so as not to hammer the server.
+ * Results are handed back on the calling thread as each search finishes, so whatever records them
+ * needs no locking. A search that fails is logged, and the others carry on.
+ */
+public class MallPriceRefresher {
+  private final int threads;
+  // Nanoseconds between the starts of consecutive requests
+  private final long interval;
+  private long nextRequest;
+
+  /**
+   * @param threads The number of searches to run at once
+   * @param requestsPerSecond The most searches to start in a second, or 0 for no limit
+   */
+  public MallPriceRefresher(final int threads, final float requestsPerSecond) {
+    this.threads = Math.max(1, threads);
+    this.interval = requestsPerSecond > 0 ? (long) (1_000_000_000L / requestsPerSecond) : 0;
+    this.nextRequest = System.nanoTime();
+  }
+
+  record Search(int itemId, List<PurchaseRequest> results) {}
+
+  /**
+   * Searches the mall for each item.
+   *
+   * @param itemIds The items to search for
+   * @param consumer Given each item's search results, on this thread, as they arrive
+   * @return The number of items whose results were given to the consumer
+   */
+  public int refresh(
+      final Collection<Integer> itemIds,
+      final BiConsumer<Integer, List<PurchaseRequest>> consumer) {
+    if (itemIds.isEmpty()) {
+      return 0;
+    }
+
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            Math.min(this.threads, itemIds.size()),
+            r -> {
+              Thread thread = new Thread(r, "MallPriceRefresher");
+              thread.setDaemon(true);
+              return thread;
+            });
+    CompletionService<Search> completion = new ExecutorCompletionService<>(executor);
+    // The item each search is for, so that a failed search can be named
+    Map<Future<Search>, Integer> searches = new HashMap<>();
+    List<String> failed = new ArrayList<>();
+    int count = 0;
+
+    try {
+      for (int itemId : itemIds) {
+        searches.put(completion.submit(() -> this.search(itemId)), itemId);
+      }
+
+      for (int i = 0; i < itemIds.size(); ++i) {
+        Future<Search> future = completion.take();
+        Search search;
+        try {
+          search = future.get();
+        } catch (ExecutionException e) {
+          String name = ItemDatabase.getItemName(searches.get(future));
+          StaticEntity.printStackTrace(e.getCause(), "Failed to search the mall for " + name);
+          failed.add(name);
+          continue;
+        }
+        if (search == null) {
+          continue;
+        }
+        consumer.accept(search.itemId(), search.results());
+        ++count;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      executor.shutdownNow();
+    }
+
+    if (!failed.isEmpty()) {
+      KoLmafia.updateDisplay(
+          MafiaState.ERROR, "Failed to search the mall for " + String.join(", ", failed));
+    }
+
+    return count;
+  }
+
+  /** Waits until another request may start. */
+  private void acquire() throws InterruptedException {
+    long start;
+    synchronized (this) {
+      start = Math.max(System.nanoTime(), this.nextRequest);
+      this.nextRequest = start + this.interval;
+    }
+    long wait = start - System.nanoTime();
+    if (wait > 0) {
+      TimeUnit.NANOSECONDS.sleep(wait);
+    }
+  }
+
+  // Returns null if the search was abandoned
+  Search search(final int itemId) throws InterruptedException {
+    if (!KoLmafia.permitsContinue()) {
+      return null;
+    }
+
+    this.acquire();
+
+    if (!KoLmafia.permitsContinue()) {
+      return null;
+    }
+
+    String name = ItemDatabase.getItemDataName(itemId);
+    String formatted = MallSearchRequest.getSearchString("\"" + name + "\"");
+    List<PurchaseRequest> results = new ArrayList<>();
+    MallSearchRequest request =
+        MallPriceManager.newMallSearchRequest(
+            formatted, MallPriceManager.MALL_SEARCH_RESULTS, results);
+    // Prices are recorded by the consumer, on the calling thread
+    request.setUpdatePrices(false);
+    // Posted as a request sequence of its own, so that the display stays disabled, and world peace
+    // and checkOpenRequestSequences see it, until every search has finished
+    RequestThread.postRequest(request);
+
+    if (!KoLmafia.permitsContinue()) {
+      return null;
+    }
+
+    results.removeIf(purchaseRequest -> purchaseRequest instanceof CoinMasterPurchaseRequest);
+    results.sort(PurchaseRequest.nameComparator);
+    return new Search(itemId, results);
+  }
+}
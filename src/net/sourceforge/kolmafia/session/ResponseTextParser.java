@@ -12,6 +12,7 @@ import net.sourceforge.kolmafia.listener.PreferenceListenerRegistry;
 import net.sourceforge.kolmafia.objectpool.EffectPool;
 import net.sourceforge.kolmafia.objectpool.ItemPool;
 import net.sourceforge.kolmafia.objectpool.SkillPool;
+import net.sourceforge.kolmafia.pages.PageDispatcher;
 import net.sourceforge.kolmafia.pages.PageRegistry;
 import net.sourceforge.kolmafia.persistence.AdventureSpentDatabase;
 import net.sourceforge.kolmafia.persistence.ConcoctionDatabase;
@@ -213,6 +214,260 @@ public class ResponseTextParser {
     return true;
   }
 
+  // What to parse on each page, whether it was requested by KoLmafia or by the relay browser.
+  // Each page's parsers are tried in order, and only the first which wants the page is run.
+  static final PageDispatcher<String> PARSERS =
+      new PageDispatcher<String>()
+          .add("account.php", "account", AccountRequest::parseAccountData)
+          .add("account_contactlist.php", "contact list", ContactListRequest::parseResponse)
+          .add("account_manageoutfits.php", "custom outfits", CustomOutfitRequest::parseResponse)
+          .add("adventure.php", "colosseum", SeaMerkinRequest::parseColosseumResponse)
+          .add("api.php", "api", ApiRequest::parseResponse)
+          .add(
+              "ascend.php",
+              "community service",
+              location ->
+                  location.contains("alttext=communityservice")
+                      && !Preferences.getBoolean("kingLiberated"),
+              (location, responseText) -> {
+                // Redirect from donating body to science in Community Service
+                ChoiceManager.canWalkAway();
+                KoLCharacter.liberateKing();
+              })
+          .add("ascensionhistory.php", "ascension history", AscensionHistoryRequest::parseResponse)
+          .add("arena.php", "cake arena", CakeArenaRequest::parseResponse)
+          .add("backoffice.php", "manage store", ManageStoreRequest::parseResponse)
+          .add(
+              "basement.php",
+              "basement",
+              (location, responseText) -> BasementRequest.checkBasement(responseText))
+          .add(
+              "bedazzle.php",
+              "bedazzlements",
+              (location, responseText) -> EquipmentRequest.parseBedazzlements(responseText))
+          .add("beerpong.php", "beer pong", BeerPongRequest::parseResponse)
+          .add("bigisland.php", "island", IslandRequest::parseResponse)
+          .add("postwarisland.php", "island", IslandRequest::parseResponse)
+          .add("bone_altar.php", "altar of bones", AltarOfBonesRequest::parseResponse)
+          .add("bounty.php", "bounty hunter hunter", BountyHunterHunterRequest::parseResponse)
+          .add("campground.php", "campground", CampgroundRequest::parseResponse)
+          .add(
+              "cafe.php",
+              "cafe",
+              (location, responseText) -> {
+                ChezSnooteeRequest.parseResponse(location, responseText);
+                MicroBreweryRequest.parseResponse(location, responseText);
+              })
+          .add("cave.php", "nemesis cave", NemesisRequest::parseResponse)
+          .add(
+              "charsheet.php",
+              "character sheet",
+              location -> !location.contains("ajax=1"),
+              (location, responseText) -> CharSheetRequest.parseStatus(responseText))
+          .add("choice.php", "fudge wand", "whichchoice", "562", FudgeWandRequest::parseResponse)
+          .add(
+              "choice.php",
+              "swimming pool",
+              "whichchoice",
+              "585",
+              ClanLoungeSwimmingPoolRequest::parseResponse)
+          .add(
+              "choice.php",
+              "summoning chamber",
+              "whichchoice",
+              "922",
+              SummoningChamberRequest::parseResponse)
+          .add(
+              "choice.php",
+              "clan fortune",
+              "whichchoice",
+              "1278",
+              ClanFortuneRequest::parseResponse)
+          .add("clan_hall.php", "clan hall", ClanHallRequest::parseResponse)
+          .add("clan_rumpus.php", "clan rumpus room", ClanRumpusRequest::parseResponse)
+          .add("clan_stash.php", "clan stash", ClanStashRequest::parseTransfer)
+          .add("clan_dreadsylvania.php", "dreadsylvania", DreadsylvaniaRequest::parseResponse)
+          .add(
+              "clan_viplounge.php",
+              "clan fortune",
+              "preaction",
+              "lovetester",
+              ClanFortuneRequest::parseResponse)
+          .add("clan_viplounge.php", "clan vip lounge", ClanLoungeRequest::parseResponse)
+          .add("closet.php", "closet", ClosetRequest::parseTransfer)
+          .add("fillcloset.php", "closet", ClosetRequest::parseTransfer)
+          .add("craft.php", "crafting", CreateItemRequest::parseCrafting)
+          .add("crimbo09.php", "crimbo09", Crimbo09Request::parseResponse)
+          .add("crimbo10.php", "crimbo10", Crimbo10Request::parseResponse)
+          .add("crimbo11.php", "crimbo11", Crimbo11Request::parseResponse)
+          .add("crimbo21tree.php", "crimbo21 tree", Crimbo21TreeRequest::parseResponse)
+          .add("curse.php", "curse", CurseRequest::parseResponse)
+          .add("da.php", "shrine", ShrineRequest::parseResponse)
+          .add("desc_skill.php", "skill description", ResponseTextParser::parseSkillDescription)
+          .add(
+              "desc_item.php",
+              "item description",
+              location -> !location.contains("otherplayer="),
+              ResponseTextParser::parseItemDescription)
+          .add("desc_effect.php", "effect description", ResponseTextParser::parseEffectDescription)
+          .add(
+              "diary.php",
+              "diary",
+              (location, responseText) -> UseItemRequest.handleDiary(responseText))
+          .add("dig.php", "dig", DigRequest::parseResponse)
+          .add("dwarfcontraption.php", "dwarf contraption", DwarfContraptionRequest::parseResponse)
+          .add("dwarffactory.php", "dwarf factory", DwarfFactoryRequest::parseResponse)
+          .add(
+              "familiar.php",
+              "terrarium",
+              (location, responseText) -> {
+                FamiliarRequest.parseResponse(location, responseText);
+                if (!location.contains("ajax=1")) {
+                  FamiliarData.registerFamiliarData(responseText);
+                }
+              })
+          .add("qterrarium.php", "quantum terrarium", QuantumTerrariumRequest::parseResponse)
+          .add("famteam.php", "familiar team", FamTeamRequest::parseResponse)
+          .add("familiarbinger.php", "familiar binge", UseItemRequest::parseBinge)
+          .add("gamestore.php", "game shoppe", GameShoppeRequest::parseResponse)
+          .add("guild.php", "guild", GuildRequest::parseResponse)
+          .add("hermit.php", "hermit", HermitRequest::parseHermitTrade)
+          .add("heydeze.php", "hey deze", HeyDezeRequest::parseResponse)
+          .add("friars.php", "friars", FriarRequest::parseResponse)
+          .add("gnomes.php", "gnome tinker", GnomeTinkerRequest::parseCreation)
+          // Keep your current equipment and familiars updated, if you
+          // visit the appropriate pages.
+          .add("inventory.php", "inventory", ResponseTextParser::parseInventory)
+          .add(
+              "inv_equip.php",
+              "equipment change",
+              location -> location.contains("ajax=1"),
+              // If we are changing equipment via a chat command,
+              // try to deduce what changed.
+              EquipmentRequest::parseEquipmentChange)
+          .add(
+              "inv_eat.php",
+              "item use",
+              location -> location.contains("whichitem"),
+              ResponseTextParser::parseItemUse)
+          .add(
+              "inv_booze.php",
+              "item use",
+              location -> location.contains("whichitem"),
+              ResponseTextParser::parseItemUse)
+          .add(
+              "inv_spleen.php",
+              "item use",
+              location -> location.contains("whichitem"),
+              ResponseTextParser::parseItemUse)
+          .add(
+              "inv_use.php",
+              "item use",
+              location -> location.contains("whichitem"),
+              ResponseTextParser::parseItemUse)
+          .add(
+              "inv_familiar.php",
+              "item use",
+              location -> location.contains("whichitem"),
+              ResponseTextParser::parseItemUse)
+          .add("knoll_mushrooms.php", "mushroom plot", MushroomRequest::parseResponse)
+          .add("leaflet.php", "leaflet", LeafletRequest::parseResponse)
+          .add("mallstore.php", "mall purchase", MallPurchaseRequest::parseResponse)
+          .add("managecollection.php", "display case", DisplayCaseRequest::parseDisplayTransfer)
+          .add(
+              "managecollectionshelves.php",
+              "display case shelves",
+              DisplayCaseRequest::parseDisplayArrangement)
+          .add("managestore.php", "store transfer", AutoMallRequest::parseTransfer)
+          .add("mining.php", "mining", MineDecorator::parseResponse)
+          .add("monkeycastle.php", "big brother", "who", "2", BigBrotherRequest::parseResponse)
+          .add(
+              "monkeycastle.php",
+              "big brother",
+              "action",
+              "buyitem",
+              BigBrotherRequest::parseResponse)
+          .add("monkeycastle.php", "mom", "who", "4", MomRequest::parseResponse)
+          .add("mrstore.php", "mr. store", MrStoreRequest::parseResponse)
+          .add(
+              "multiuse.php",
+              "item use",
+              location -> location.contains("useitem"),
+              ResponseTextParser::parseItemUse)
+          .add(
+              "skills.php",
+              "item use",
+              location -> location.contains("useitem") || location.contains("action=useditem"),
+              ResponseTextParser::parseItemUse)
+          .add("pandamonium.php", "pandamonium", PandamoniumRequest::parseResponse)
+          .add("peevpee.php", "pvp", PeeVPeeRequest::parseResponse)
+          .add("place.php", "place", PlaceRequest::parseResponse)
+          .add(
+              "questlog.php",
+              "quest log",
+              (location, responseText) -> {
+                MonsterManuelRequest.parseResponse(location, responseText);
+                QuestLogRequest.registerQuests(true, location, responseText);
+              })
+          .add("raffle.php", "raffle", RaffleRequest::parseResponse)
+          .add("runskillz.php", "skill use", UseSkillRequest::parseResponse)
+          .add("skillz.php", "skill use", UseSkillRequest::parseResponse)
+          .add("sea_merkin.php", "sea merkin", SeaMerkinRequest::parseResponse)
+          .add("sea_skatepark.php", "skate park", SkateParkRequest::parseResponse)
+          .add(
+              "sellstuff.php",
+              "compact autosell",
+              (location, responseText) -> AutoSellRequest.parseCompactAutoSell(location))
+          .add("sellstuff_ugly.php", "detailed autosell", AutoSellRequest::parseDetailedAutoSell)
+          .add("sendmessage.php", "send mail", SendMailRequest::parseTransfer)
+          .add("shop.php", "shop", NPCPurchaseRequest::parseShopResponse)
+          .add("showclan.php", "show clan", ShowClanRequest::parseResponse)
+          .add("spaaace.php", "spaaace", SpaaaceRequest::parseResponse)
+          .add("storage.php", "storage", StorageRequest::parseTransfer)
+          .add("suburbandis.php", "suburban dis", SuburbanDisRequest::parseResponse)
+          .add(
+              "sushi.php",
+              "sushi",
+              (location, responseText) ->
+                  SushiRequest.parseConsumption(location, responseText, true))
+          .add("tavern.php", "tavern", TavernRequest::parseResponse)
+          .add(
+              "tiles.php",
+              "dvorak's revenge",
+              (location, responseText) -> {
+                if (responseText.contains("charpane.php")) {
+                  // Since a charpane refresh was requested, this might have taken a turn
+                  AdventureSpentDatabase.setNoncombatEncountered(true);
+                }
+                DvorakManager.parseResponse(location, responseText);
+              })
+          .add(
+              "topmenu.php",
+              "top menu",
+              (location, responseText) -> {
+                if (KoLCharacter.getLimitmode() == Limitmode.BATMAN) {
+                  BatManager.parseTopMenu(responseText);
+                }
+              })
+          .add("town_altar.php", "altar of literacy", AltarOfLiteracyRequest::parseResponse)
+          .add("town_right.php", "gourd", GourdRequest::parseResponse)
+          .add("town_sendgift.php", "send gift", SendGiftRequest::parseTransfer)
+          .add("traveler.php", "traveling trader", TravelingTraderRequest::parseResponse)
+          .add("trophy.php", "trophy hut", TrophyHutRequest::parseResponse)
+          .add("tutorial.php", "tutorial", TutorialRequest::parseResponse)
+          .add("typeii.php", "trendy", TrendyRequest::parseResponse)
+          .add(
+              "volcanoisland.php",
+              "volcano island",
+              (location, responseText) -> {
+                PhineasRequest.parseResponse(location, responseText);
+                VolcanoIslandRequest.parseResponse(location, responseText);
+              })
+          .add("volcanomaze.php", "volcano maze", VolcanoMazeRequest::parseResponse)
+          .add("wand.php", "zap", ZapRequest::parseResponse)
+          .add("witchess.php", "witchess", WitchessRequest::parseResponse)
+          .add("crypt.php", "cyrpt", ResponseTextParser::parseCrypt);
+
   public static final void externalUpdate(final GenericRequest request) {
     ResponseTextParser.externalUpdate(request.getURLString(), request.responseText);
   }
@@ -222,417 +477,194 @@ public class ResponseTextParser {
       return;
     }
 
-    if (location.startsWith("account.php")) {
-      AccountRequest.parseAccountData(location, responseText);
-    } else if (location.startsWith("account_contactlist.php")) {
-      ContactListRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("account_manageoutfits.php")) {
-      CustomOutfitRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("adventure.php")) {
-      SeaMerkinRequest.parseColosseumResponse(location, responseText);
-    } else if (location.startsWith("api.php")) {
-      ApiRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("ascend.php")
-        && location.contains("alttext=communityservice")
-        && !Preferences.getBoolean("kingLiberated")) {
-      // Redirect from donating body to science in Community Service
-      ChoiceManager.canWalkAway();
-      KoLCharacter.liberateKing();
-    } else if (location.startsWith("ascensionhistory.php")) {
-      AscensionHistoryRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("arena.php")) {
-      CakeArenaRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("backoffice.php")) {
-      ManageStoreRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("basement.php")) {
-      BasementRequest.checkBasement(responseText);
-    } else if (location.startsWith("bedazzle.php")) {
-      EquipmentRequest.parseBedazzlements(responseText);
-    } else if (location.startsWith("beerpong.php")) {
-      BeerPongRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("bigisland.php") || location.startsWith("postwarisland.php")) {
-      IslandRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("bone_altar.php")) {
-      AltarOfBonesRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("bounty.php")) {
-      BountyHunterHunterRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("campground.php")) {
-      CampgroundRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("cafe.php")) {
-      ChezSnooteeRequest.parseResponse(location, responseText);
-      MicroBreweryRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("cave.php")) {
-      NemesisRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("charsheet.php") && !location.contains("ajax=1")) {
-      CharSheetRequest.parseStatus(responseText);
-    } else if (location.startsWith("choice.php")) {
-      if (location.contains("whichchoice=562")) {
-        FudgeWandRequest.parseResponse(location, responseText);
-      } else if (location.contains("whichchoice=585")) {
-        ClanLoungeSwimmingPoolRequest.parseResponse(location, responseText);
-      } else if (location.contains("whichchoice=922")) {
-        SummoningChamberRequest.parseResponse(location, responseText);
-      } else if (location.contains("whichchoice=1278")) {
-        ClanFortuneRequest.parseResponse(location, responseText);
-      }
-    } else if (location.startsWith("clan_hall.php")) {
-      ClanHallRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("clan_rumpus.php")) {
-      ClanRumpusRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("clan_stash.php")) {
-      ClanStashRequest.parseTransfer(location, responseText);
-    } else if (location.startsWith("clan_dreadsylvania.php")) {
-      DreadsylvaniaRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("clan_viplounge.php")) {
-      if (location.contains("preaction=lovetester")) {
-        ClanFortuneRequest.parseResponse(location, responseText);
-      } else {
-        ClanLoungeRequest.parseResponse(location, responseText);
-      }
-    } else if (location.startsWith("closet.php") || location.startsWith("fillcloset.php")) {
-      ClosetRequest.parseTransfer(location, responseText);
-    } else if (location.startsWith("craft.php")) {
-      CreateItemRequest.parseCrafting(location, responseText);
-    } else if (location.startsWith("crimbo09.php")) {
-      Crimbo09Request.parseResponse(location, responseText);
-    } else if (location.startsWith("crimbo10.php")) {
-      Crimbo10Request.parseResponse(location, responseText);
-    } else if (location.startsWith("crimbo11.php")) {
-      Crimbo11Request.parseResponse(location, responseText);
-    } else if (location.startsWith("crimbo21tree.php")) {
-      Crimbo21TreeRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("curse.php")) {
-      CurseRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("da.php")) {
-      ShrineRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("desc_skill.php")) {
-      Matcher m = ResponseTextParser.NEWSKILL2_PATTERN.matcher(location);
-      if (m.find()) {
-        int skill = StringUtilities.parseInt(m.group(1));
-        String skillName = SkillDatabase.getSkillName(skill);
-        if (skillName == null) {
-          SkillDatabase.registerSkill(responseText, skill, null);
-        }
-        if (location.contains("self=true")) {
-          ConsequenceManager.parseSkillDesc(skill, responseText);
-        }
-      }
-    } else if (location.startsWith("desc_item.php") && !location.contains("otherplayer=")) {
-      Matcher m = ResponseTextParser.DESCITEM_PATTERN.matcher(location);
-      if (m.find()) {
-        String descid = m.group(1);
-        ConsequenceManager.parseItemDesc(descid, responseText);
-        int itemId = ItemDatabase.getItemIdFromDescription(descid);
-
-        boolean changesFromTimeToTime = true;
-
-        switch (itemId) {
-          case ItemPool.YEARBOOK_CAMERA:
-            ItemDatabase.parseYearbookCamera(responseText);
-            break;
-          case ItemPool.KNOCK_OFF_RETRO_SUPERHERO_CAPE:
-            ItemDatabase.parseRetroCape(responseText);
-            break;
-          case ItemPool.HATSEAT:
-            ItemDatabase.parseCrownOfThrones(responseText);
-            break;
-          case ItemPool.BUDDY_BJORN:
-            ItemDatabase.parseBuddyBjorn(responseText);
-            break;
-          case ItemPool.FOURTH_SABER:
-            ItemDatabase.parseSaber(responseText);
-            break;
-          case ItemPool.VAMPIRE_VINTNER_WINE:
-            ItemDatabase.parseVampireVintnerWine(responseText);
-            break;
-          case ItemPool.COMBAT_LOVERS_LOCKET:
-            LocketManager.parseLocket(responseText);
-            break;
-          case ItemPool.UNBREAKABLE_UMBRELLA:
-            ItemDatabase.parseUmbrella(responseText);
-            break;
-          case ItemPool.JUNE_CLEAVER:
-            ItemDatabase.parseCleaver(responseText);
-            break;
-          case ItemPool.DESIGNER_SWEATPANTS:
-            ItemDatabase.parseDesignerSweatpants(responseText);
-            break;
-          default:
-            changesFromTimeToTime = false;
-            break;
-        }
+    ResponseTextParser.PARSERS.dispatch(location, responseText);
 
-        if (changesFromTimeToTime) {
-          SpadingManager.processDescItem(ItemPool.get(itemId), responseText);
-        }
-      }
-    } else if (location.startsWith("desc_effect.php")) {
-      Matcher m = ResponseTextParser.DESCEFFECT_PATTERN.matcher(location);
-      if (m.find()) {
-        String descid = m.group(1);
-        ConsequenceManager.parseEffectDesc(descid, responseText);
-        int effectId = EffectDatabase.getEffectIdFromDescription(descid);
-        switch (effectId) {
-          case EffectPool.WINE_FORTIFIED:
-          case EffectPool.WINE_HOT:
-          case EffectPool.WINE_FRISKY:
-          case EffectPool.WINE_COLD:
-          case EffectPool.WINE_DARK:
-          case EffectPool.WINE_BEFOULED:
-          case EffectPool.WINE_FRIENDLY:
-            EffectDatabase.parseVampireVintnerWineEffect(responseText, effectId);
-            break;
-        }
+    // You can learn a skill on many pages.
+    ResponseTextParser.learnSkill(location, responseText);
+
+    // Currently, required recipes can only be learned via using an
+    // item, but that's probably not guaranteed to be true forever.
+    // Update: you can now learn them from the April Shower
+    ResponseTextParser.learnRecipe(location, responseText);
+
+    // New items may show up on many pages.
+    ResponseTextParser.findNewItems(responseText);
+  }
+
+  private static void parseSkillDescription(final String location, final String responseText) {
+    Matcher m = ResponseTextParser.NEWSKILL2_PATTERN.matcher(location);
+    if (m.find()) {
+      int skill = StringUtilities.parseInt(m.group(1));
+      String skillName = SkillDatabase.getSkillName(skill);
+      if (skillName == null) {
+        SkillDatabase.registerSkill(responseText, skill, null);
       }
-    } else if (location.startsWith("diary.php")) {
-      UseItemRequest.handleDiary(responseText);
-    } else if (location.startsWith("dig.php")) {
-      DigRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("dwarfcontraption.php")) {
-      DwarfContraptionRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("dwarffactory.php")) {
-      DwarfFactoryRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("familiar.php")) {
-      FamiliarRequest.parseResponse(location, responseText);
-      if (!location.contains("ajax=1")) {
-        FamiliarData.registerFamiliarData(responseText);
-      }
-    } else if (location.startsWith("qterrarium.php")) {
-      QuantumTerrariumRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("famteam.php")) {
-      FamTeamRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("familiarbinger.php")) {
-      UseItemRequest.parseBinge(location, responseText);
-    } else if (location.startsWith("gamestore.php")) {
-      GameShoppeRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("guild.php")) {
-      GuildRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("hermit.php")) {
-      HermitRequest.parseHermitTrade(location, responseText);
-    } else if (location.startsWith("heydeze.php")) {
-      HeyDezeRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("friars.php")) {
-      FriarRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("gamestore")) {
-      GameShoppeRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("gnomes.php")) {
-      GnomeTinkerRequest.parseCreation(location, responseText);
-    }
-
-    // Keep your current equipment and familiars updated, if you
-    // visit the appropriate pages.
-
-    else if (location.startsWith("inventory.php")) {
-      // If KoL is showing us our current equipment, parse it.
-      if (location.contains("which=2") || location.contains("curequip=1")) {
-        EquipmentRequest.parseEquipment(location, responseText);
-
-        // Slimeling binge requests come here, too
-        if (location.contains("action=slime")) {
-          UseItemRequest.parseBinge(location, responseText);
-        }
-        // Certain requests, like inserting cards into
-        // an El Vibrato helmet, have a usage message,
-        // not an equipment page. Check for that, too.
-        else {
-          AdventureResult item = UseItemRequest.getLastItemUsed();
-          UseItemRequest.parseConsumption(responseText, false);
-          SpadingManager.processConsumeItem(item, responseText);
-        }
+      if (location.contains("self=true")) {
+        ConsequenceManager.parseSkillDesc(skill, responseText);
       }
+    }
+  }
 
-      // If there is a consumption message, parse it
-      else if (location.contains("action=message")) {
-        AdventureResult item = UseItemRequest.getLastItemUsed();
-        UseItemRequest.parseConsumption(responseText, false);
-        AWOLQuartermasterRequest.parseResponse(responseText);
-        BURTRequest.parseResponse(responseText);
-        SpadingManager.processConsumeItem(item, responseText);
-      }
+  private static void parseItemDescription(final String location, final String responseText) {
+    Matcher m = ResponseTextParser.DESCITEM_PATTERN.matcher(location);
+    if (m.find()) {
+      String descid = m.group(1);
+      ConsequenceManager.parseItemDesc(descid, responseText);
+      int itemId = ItemDatabase.getItemIdFromDescription(descid);
 
-      // If there is a bricko message, parse it
-      else if (location.contains("action=breakbricko")) {
-        UseItemRequest.parseBricko(responseText);
-      }
+      boolean changesFromTimeToTime = true;
 
-      // If there is a binge message, parse it
-      else if (location.contains("action=ghost")
-          || location.contains("action=hobo")
-          || location.contains("action=slime")
-          || location.contains("action=candy")) {
-        UseItemRequest.parseBinge(location, responseText);
+      switch (itemId) {
+        case ItemPool.YEARBOOK_CAMERA:
+          ItemDatabase.parseYearbookCamera(responseText);
+          break;
+        case ItemPool.KNOCK_OFF_RETRO_SUPERHERO_CAPE:
+          ItemDatabase.parseRetroCape(responseText);
+          break;
+        case ItemPool.HATSEAT:
+          ItemDatabase.parseCrownOfThrones(responseText);
+          break;
+        case ItemPool.BUDDY_BJORN:
+          ItemDatabase.parseBuddyBjorn(responseText);
+          break;
+        case ItemPool.FOURTH_SABER:
+          ItemDatabase.parseSaber(responseText);
+          break;
+        case ItemPool.VAMPIRE_VINTNER_WINE:
+          ItemDatabase.parseVampireVintnerWine(responseText);
+          break;
+        case ItemPool.COMBAT_LOVERS_LOCKET:
+          LocketManager.parseLocket(responseText);
+          break;
+        case ItemPool.UNBREAKABLE_UMBRELLA:
+          ItemDatabase.parseUmbrella(responseText);
+          break;
+        case ItemPool.JUNE_CLEAVER:
+          ItemDatabase.parseCleaver(responseText);
+          break;
+        case ItemPool.DESIGNER_SWEATPANTS:
+          ItemDatabase.parseDesignerSweatpants(responseText);
+          break;
+        default:
+          changesFromTimeToTime = false;
+          break;
       }
 
-      // Robortender consumption
-      else if (location.contains("action=robooze")) {
-        UseItemRequest.parseRobortenderBinge(location, responseText);
+      if (changesFromTimeToTime) {
+        SpadingManager.processDescItem(ItemPool.get(itemId), responseText);
       }
+    }
+  }
 
-      // If there is an absorb message, parse it
-      else if (location.contains("absorb=")) {
-        UseItemRequest.parseAbsorb(location, responseText);
+  private static void parseEffectDescription(final String location, final String responseText) {
+    Matcher m = ResponseTextParser.DESCEFFECT_PATTERN.matcher(location);
+    if (m.find()) {
+      String descid = m.group(1);
+      ConsequenceManager.parseEffectDesc(descid, responseText);
+      int effectId = EffectDatabase.getEffectIdFromDescription(descid);
+      switch (effectId) {
+        case EffectPool.WINE_FORTIFIED:
+        case EffectPool.WINE_HOT:
+        case EffectPool.WINE_FRISKY:
+        case EffectPool.WINE_COLD:
+        case EffectPool.WINE_DARK:
+        case EffectPool.WINE_BEFOULED:
+        case EffectPool.WINE_FRIENDLY:
+          EffectDatabase.parseVampireVintnerWineEffect(responseText, effectId);
+          break;
       }
+    }
+  }
 
-      // Closet transfers can come via inventory.php
-      else if (location.contains("action=closetpush") || location.contains("action=closetpull")) {
-        ClosetRequest.parseTransfer(location, responseText);
-      }
+  private static void parseInventory(final String location, final String responseText) {
+    // If KoL is showing us our current equipment, parse it.
+    if (location.contains("which=2") || location.contains("curequip=1")) {
+      EquipmentRequest.parseEquipment(location, responseText);
 
-      // Emptying storage can come via inventory.php
-      else if (location.contains("action=pullall")) {
-        StorageRequest.parseTransfer(location, responseText);
-      }
-    } else if (location.startsWith("inv_equip.php") && location.contains("ajax=1")) {
-      // If we are changing equipment via a chat command,
-      // try to deduce what changed.
-      EquipmentRequest.parseEquipmentChange(location, responseText);
-    } else if ((location.startsWith("inv_eat.php")
-            || location.startsWith("inv_booze.php")
-            || location.startsWith("inv_spleen.php")
-            || location.startsWith("inv_use.php")
-            || location.startsWith("inv_familiar.php"))
-        && location.contains("whichitem")) {
-      AdventureResult item = UseItemRequest.getLastItemUsed();
-      UseItemRequest.parseConsumption(responseText, false);
-      SpadingManager.processConsumeItem(item, responseText);
-    } else if (location.startsWith("knoll_mushrooms.php")) {
-      MushroomRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("leaflet.php")) {
-      LeafletRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("mallstore.php")) {
-      MallPurchaseRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("managecollection.php")) {
-      DisplayCaseRequest.parseDisplayTransfer(location, responseText);
-    } else if (location.startsWith("managecollectionshelves.php")) {
-      DisplayCaseRequest.parseDisplayArrangement(location, responseText);
-    } else if (location.startsWith("managestore.php")) {
-      AutoMallRequest.parseTransfer(location, responseText);
-    } else if (location.startsWith("mining.php")) {
-      MineDecorator.parseResponse(location, responseText);
-    } else if (location.startsWith("monkeycastle.php")) {
-      if (location.contains("who=2") || location.contains("action=buyitem")) {
-        BigBrotherRequest.parseResponse(location, responseText);
-      } else if (location.contains("who=4")) {
-        MomRequest.parseResponse(location, responseText);
+      // Slimeling binge requests come here, too
+      if (location.contains("action=slime")) {
+        UseItemRequest.parseBinge(location, responseText);
       }
-    } else if (location.startsWith("mrstore.php")) {
-      MrStoreRequest.parseResponse(location, responseText);
-    } else if ((location.startsWith("multiuse.php") || location.startsWith("skills.php"))
-        && location.contains("useitem")) {
-      AdventureResult item = UseItemRequest.getLastItemUsed();
-      UseItemRequest.parseConsumption(responseText, false);
-      SpadingManager.processConsumeItem(item, responseText);
-    } else if (location.startsWith("pandamonium.php")) {
-      PandamoniumRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("peevpee.php")) {
-      PeeVPeeRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("place.php")) {
-      PlaceRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("questlog.php")) {
-      MonsterManuelRequest.parseResponse(location, responseText);
-      QuestLogRequest.registerQuests(true, location, responseText);
-    } else if (location.startsWith("raffle.php")) {
-      RaffleRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("runskillz.php") || location.startsWith("skillz.php")) {
-      UseSkillRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("sea_merkin.php")) {
-      SeaMerkinRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("sea_skatepark.php")) {
-      SkateParkRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("sellstuff.php")) {
-      AutoSellRequest.parseCompactAutoSell(location);
-    } else if (location.startsWith("sellstuff_ugly.php")) {
-      AutoSellRequest.parseDetailedAutoSell(location, responseText);
-    } else if (location.startsWith("sendmessage.php")) {
-      SendMailRequest.parseTransfer(location, responseText);
-    } else if (location.startsWith("shop.php")) {
-      NPCPurchaseRequest.parseShopResponse(location, responseText);
-    } else if (location.startsWith("showclan.php")) {
-      ShowClanRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("skills.php")) {
-      if (location.contains("action=useditem")) {
+      // Certain requests, like inserting cards into
+      // an El Vibrato helmet, have a usage message,
+      // not an equipment page. Check for that, too.
+      else {
         AdventureResult item = UseItemRequest.getLastItemUsed();
         UseItemRequest.parseConsumption(responseText, false);
         SpadingManager.processConsumeItem(item, responseText);
       }
-    } else if (location.startsWith("spaaace.php")) {
-      SpaaaceRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("storage.php")) {
-      StorageRequest.parseTransfer(location, responseText);
-    } else if (location.startsWith("suburbandis.php")) {
-      SuburbanDisRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("sushi.php")) {
-      SushiRequest.parseConsumption(location, responseText, true);
-    } else if (location.startsWith("tavern.php")) {
-      TavernRequest.parseResponse(location, responseText);
-    }
-
-    if (location.startsWith("tiles.php")) {
-      if (responseText.contains("charpane.php")) {
-        // Since a charpane refresh was requested, this might have taken a turn
-        AdventureSpentDatabase.setNoncombatEncountered(true);
-      }
-      DvorakManager.parseResponse(location, responseText);
-    } else if (location.startsWith("topmenu.php")) {
-      if (KoLCharacter.getLimitmode() == Limitmode.BATMAN) {
-        BatManager.parseTopMenu(responseText);
-      }
-    } else if (location.startsWith("town_altar.php")) {
-      AltarOfLiteracyRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("town_right.php")) {
-      GourdRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("town_sendgift.php")) {
-      SendGiftRequest.parseTransfer(location, responseText);
-    } else if (location.startsWith("traveler.php")) {
-      TravelingTraderRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("trophy.php")) {
-      TrophyHutRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("tutorial.php")) {
-      TutorialRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("typeii.php")) {
-      TrendyRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("volcanoisland.php")) {
-      PhineasRequest.parseResponse(location, responseText);
-      VolcanoIslandRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("volcanomaze.php")) {
-      VolcanoMazeRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("wand.php")) {
-      ZapRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("witchess.php")) {
-      WitchessRequest.parseResponse(location, responseText);
-    } else if (location.startsWith("crypt.php")) {
-      // Check if crypt areas have unexpectedly vanished and correct if so
-      if (!responseText.contains("The Defiled Alcove")
-              && Preferences.getInteger("cyrptAlcoveEvilness") > 0
-          || !responseText.contains("The Defiled Cranny")
-              && Preferences.getInteger("cyrptCrannyEvilness") > 0
-          || !responseText.contains("The Defiled Niche")
-              && Preferences.getInteger("cyrptNicheEvilness") > 0
-          || !responseText.contains("The Defiled Nook")
-              && Preferences.getInteger("cyrptNookEvilness") > 0) {
-        if (InventoryManager.hasItem(ItemPool.EVILOMETER)) {
-          RequestThread.postRequest(UseItemRequest.getInstance(ItemPool.EVILOMETER));
-        } else {
-          // Must have completed quest and already used and lost Evilometer
-          Preferences.setInteger("cyrptAlcoveEvilness", 0);
-          Preferences.setInteger("cyrptCrannyEvilness", 0);
-          Preferences.setInteger("cyrptNicheEvilness", 0);
-          Preferences.setInteger("cyrptNookEvilness", 0);
-          Preferences.setInteger("cyrptTotalEvilness", 0);
-        }
-      }
     }
 
-    // You can learn a skill on many pages.
-    ResponseTextParser.learnSkill(location, responseText);
+    // If there is a consumption message, parse it
+    else if (location.contains("action=message")) {
+      AdventureResult item = UseItemRequest.getLastItemUsed();
+      UseItemRequest.parseConsumption(responseText, false);
+      AWOLQuartermasterRequest.parseResponse(responseText);
+      BURTRequest.parseResponse(responseText);
+      SpadingManager.processConsumeItem(item, responseText);
+    }
 
-    // Currently, required recipes can only be learned via using an
-    // item, but that's probably not guaranteed to be true forever.
-    // Update: you can now learn them from the April Shower
-    ResponseTextParser.learnRecipe(location, responseText);
+    // If there is a bricko message, parse it
+    else if (location.contains("action=breakbricko")) {
+      UseItemRequest.parseBricko(responseText);
+    }
 
-    // New items may show up on many pages.
-    ResponseTextParser.findNewItems(responseText);
+    // If there is a binge message, parse it
+    else if (location.contains("action=ghost")
+        || location.contains("action=hobo")
+        || location.contains("action=slime")
+        || location.contains("action=candy")) {
+      UseItemRequest.parseBinge(location, responseText);
+    }
+
+    // Robortender consumption
+    else if (location.contains("action=robooze")) {
+      UseItemRequest.parseRobortenderBinge(location, responseText);
+    }
+
+    // If there is an absorb message, parse it
+    else if (location.contains("absorb=")) {
+      UseItemRequest.parseAbsorb(location, responseText);
+    }
+
+    // Closet transfers can come via inventory.php
+    else if (location.contains("action=closetpush") || location.contains("action=closetpull")) {
+      ClosetRequest.parseTransfer(location, responseText);
+    }
+
+    // Emptying storage can come via inventory.php
+    else if (location.contains("action=pullall")) {
+      StorageRequest.parseTransfer(location, responseText);
+    }
+  }
+
+  private static void parseItemUse(final String location, final String responseText) {
+    AdventureResult item = UseItemRequest.getLastItemUsed();
+    UseItemRequest.parseConsumption(responseText, false);
+    SpadingManager.processConsumeItem(item, responseText);
+  }
+
+  private static void parseCrypt(final String location, final String responseText) {
+    // Check if crypt areas have unexpectedly vanished and correct if so
+    if (!responseText.contains("The Defiled Alcove")
+            && Preferences.getInteger("cyrptAlcoveEvilness") > 0
+        || !responseText.contains("The Defiled Cranny")
+            && Preferences.getInteger("cyrptCrannyEvilness") > 0
+        || !responseText.contains("The Defiled Niche")
+            && Preferences.getInteger("cyrptNicheEvilness") > 0
+        || !responseText.contains("The Defiled Nook")
+            && Preferences.getInteger("cyrptNookEvilness") > 0) {
+      if (InventoryManager.hasItem(ItemPool.EVILOMETER)) {
+        RequestThread.postRequest(UseItemRequest.getInstance(ItemPool.EVILOMETER));
+      } else {
+        // Must have completed quest and already used and lost Evilometer
+        Preferences.setInteger("cyrptAlcoveEvilness", 0);
+        Preferences.setInteger("cyrptCrannyEvilness", 0);
+        Preferences.setInteger("cyrptNicheEvilness", 0);
+        Preferences.setInteger("cyrptNookEvilness", 0);
+        Preferences.setInteger("cyrptTotalEvilness", 0);
+      }
+    }
   }
 
   private static final Pattern DIV_LINK_PATTERN =
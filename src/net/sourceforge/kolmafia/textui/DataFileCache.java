@@ -1,5 +1,6 @@
 package net.sourceforge.kolmafia.textui;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.File;
@@ -7,13 +8,18 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.Consumer;
 import net.java.dev.spellcast.utilities.DataUtilities;
 import net.sourceforge.kolmafia.KoLConstants;
 import net.sourceforge.kolmafia.KoLmafia;
 import net.sourceforge.kolmafia.RequestLogger;
+import net.sourceforge.kolmafia.textui.parsetree.CompositeValue;
 import net.sourceforge.kolmafia.textui.parsetree.Value;
 import net.sourceforge.kolmafia.utilities.ByteBufferUtilities;
 import net.sourceforge.kolmafia.utilities.RollingLinkedList;
@@ -25,12 +31,37 @@ public class DataFileCache {
   private static final Map<String, byte[]> dataFileDataCache =
       Collections.synchronizedMap(new HashMap<>());
 
+  // Maps read from data files, so that a script which reads the same file over and over only has
+  // to parse it once. Each script gets its own copy of the map.
+  private static final int PARSED_MAP_LIMIT = 32;
+  private static final Map<String, ParsedMap> parsedMapCache =
+      Collections.synchronizedMap(
+          new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, ParsedMap> eldest) {
+              return this.size() > DataFileCache.PARSED_MAP_LIMIT;
+            }
+          });
+
+  private static class ParsedMap {
+    private final long modifiedTime;
+    private final boolean compact;
+    private final CompositeValue map;
+
+    private ParsedMap(final long modifiedTime, final boolean compact, final CompositeValue map) {
+      this.modifiedTime = modifiedTime;
+      this.compact = compact;
+      this.map = map;
+    }
+  }
+
   private DataFileCache() {}
 
   public static void clearCache() {
     DataFileCache.recentlyUsedList.clear();
     DataFileCache.dataFileTimestampCache.clear();
     DataFileCache.dataFileDataCache.clear();
+    DataFileCache.parsedMapCache.clear();
   }
 
   public static File getFile(String filename, boolean readOnly) {
@@ -135,8 +166,16 @@ public class DataFileCache {
     return false;
   }
 
+  private static boolean isRemote(final String filename) {
+    return filename.startsWith("http://") || filename.startsWith("https://");
+  }
+
+  private static String getCacheKey(final File file) {
+    return file.getPath().substring(KoLConstants.ROOT_LOCATION.getPath().length() + 1);
+  }
+
   public static BufferedReader getReader(final String filename) {
-    if (filename.startsWith("http://") || filename.startsWith("https://")) {
+    if (DataFileCache.isRemote(filename)) {
       return DataUtilities.getReader("", filename);
     }
     byte[] data = DataFileCache.getBytes(filename);
@@ -151,8 +190,7 @@ public class DataFileCache {
       return new byte[0];
     }
 
-    String sanitizedFilename =
-        input.getPath().substring(KoLConstants.ROOT_LOCATION.getPath().length() + 1);
+    String sanitizedFilename = DataFileCache.getCacheKey(input);
 
     long modifiedTime = input.lastModified();
 
@@ -216,10 +254,130 @@ public class DataFileCache {
       return DataTypes.FALSE_VALUE;
     }
 
-    DataFileCache.updateCache(filename, output.lastModified(), data);
+    String sanitizedFilename = DataFileCache.getCacheKey(output);
+    DataFileCache.parsedMapCache.remove(sanitizedFilename);
+    DataFileCache.updateCache(sanitizedFilename, output.lastModified(), data);
     return DataTypes.TRUE_VALUE;
   }
 
+  /**
+   * Writes a data file straight to disk, rather than building its contents in memory first.
+   *
+   * @param filename The file to write
+   * @param writer Prints the contents of the file
+   * @return true if the file was written
+   */
+  public static Value printData(final String filename, final Consumer<PrintStream> writer) {
+    File output = DataFileCache.getFile(filename, false);
+
+    if (output == null) {
+      return DataTypes.FALSE_VALUE;
+    }
+
+    File parent = output.getParentFile();
+    if (parent != null) {
+      parent.mkdirs();
+    }
+
+    boolean written;
+    try (PrintStream ostream =
+        new PrintStream(
+            new BufferedOutputStream(new FileOutputStream(output, false)),
+            false,
+            StandardCharsets.UTF_8)) {
+      writer.accept(ostream);
+      written = !ostream.checkError();
+    } catch (IOException e) {
+      return DataTypes.FALSE_VALUE;
+    }
+
+    // The cached contents are out of date. Don't trust the timestamp to show that: the file may
+    // have been written more than once within its resolution.
+    String sanitizedFilename = DataFileCache.getCacheKey(output);
+    DataFileCache.dataFileTimestampCache.remove(sanitizedFilename);
+    DataFileCache.dataFileDataCache.remove(sanitizedFilename);
+    DataFileCache.parsedMapCache.remove(sanitizedFilename);
+
+    return DataTypes.makeBooleanValue(written);
+  }
+
+  /**
+   * Returns the modification time of a data file, for use with {@link #readMap} and {@link
+   * #saveMap}, or -1 if its contents can't be cached.
+   */
+  public static long lastModified(final String filename) {
+    if (DataFileCache.isRemote(filename)) {
+      return -1;
+    }
+
+    File input = DataFileCache.getFile(filename, true);
+    return input == null ? -1 : input.lastModified();
+  }
+
+  /**
+   * Fills in a map from a copy of the one read from a data file before, if the file hasn't changed
+   * since and was read into a map of the same type.
+   *
+   * @param filename The data file
+   * @param modifiedTime The modification time of the file, from {@link #lastModified}
+   * @param result The map to fill in
+   * @param compact Whether the file is in compact form
+   * @return true if the map was filled in
+   */
+  public static boolean readMap(
+      final String filename,
+      final long modifiedTime,
+      final CompositeValue result,
+      final boolean compact) {
+    if (modifiedTime < 0) {
+      return false;
+    }
+
+    File input = DataFileCache.getFile(filename, true);
+    if (input == null) {
+      return false;
+    }
+
+    ParsedMap parsed = DataFileCache.parsedMapCache.get(DataFileCache.getCacheKey(input));
+    if (parsed == null
+        || parsed.modifiedTime != modifiedTime
+        || parsed.compact != compact
+        || parsed.map.getType() != result.getType()) {
+      return false;
+    }
+
+    result.copyFrom(parsed.map);
+    return true;
+  }
+
+  /**
+   * Remembers a copy of a map read from a data file, so that it need not be parsed again while the
+   * file is unchanged.
+   *
+   * @param filename The data file
+   * @param modifiedTime The modification time of the file when it was read
+   * @param map The map read from it
+   * @param compact Whether the file is in compact form
+   */
+  public static void saveMap(
+      final String filename,
+      final long modifiedTime,
+      final CompositeValue map,
+      final boolean compact) {
+    if (modifiedTime < 0) {
+      return;
+    }
+
+    File input = DataFileCache.getFile(filename, true);
+    if (input == null) {
+      return;
+    }
+
+    DataFileCache.parsedMapCache.put(
+        DataFileCache.getCacheKey(input),
+        new ParsedMap(modifiedTime, compact, (CompositeValue) map.copy()));
+  }
+
   private static void updateCache(String filename, long modifiedTime, byte[] data) {
     String recentlyUsedCheck = DataFileCache.recentlyUsedList.update(filename);
 
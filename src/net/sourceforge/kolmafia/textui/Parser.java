@@ -13,6 +13,8 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.util.*;
 import net.java.dev.spellcast.utilities.DataUtilities;
 import net.sourceforge.kolmafia.KoLConstants;
@@ -109,6 +111,7 @@ public class Parser {
   private final long modificationTimestamp;
   private String scriptName;
   private final InputStream istream;
+  private byte[] contentDigest = null;
 
   private Line currentLine;
   private int currentIndex;
@@ -154,14 +157,18 @@ public class Parser {
     }
 
     try {
+      final MessageDigest digest = MessageDigest.getInstance("SHA-256");
       final LineNumberReader commandStream =
-          new LineNumberReader(new InputStreamReader(this.istream, StandardCharsets.UTF_8));
+          new LineNumberReader(
+              new InputStreamReader(
+                  new DigestInputStream(this.istream, digest), StandardCharsets.UTF_8));
       this.currentLine = new Line(commandStream);
 
       Line line = this.currentLine;
       while (line.content != null) {
         line = new Line(commandStream, line);
       }
+      this.contentDigest = digest.digest();
 
       // Move up to the first non-empty line
       while (this.currentLine.content != null && this.currentLine.content.length() == 0) {
@@ -238,6 +245,11 @@ public class Parser {
     return this.modificationTimestamp;
   }
 
+  /** Returns the SHA-256 digest of the text that was parsed, or null if it couldn't be read. */
+  public byte[] getContentDigest() {
+    return this.contentDigest;
+  }
+
   public Function getMainMethod() {
     return this.mainMethod;
   }
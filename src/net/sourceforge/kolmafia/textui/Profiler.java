@@ -1,101 +1,455 @@
 package net.sourceforge.kolmafia.textui;
 
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import net.sourceforge.kolmafia.KoLConstants;
 
+/**
+ * Profiles a script run, building a tree of the calls it made with the time spent in each.
+ *
+ * <p>ASH scripts are profiled by instrumenting them: the interpreter calls {@link #enter} and
+ * {@link #exit} around every function call, and requests call them around waiting on the server.
+ * JavaScript functions are compiled to Java classes, which the interpreter never sees called, so
+ * JavaScript is profiled by sampling instead: a background thread looks at the script's stack every
+ * few milliseconds and charges the time since the last sample to the functions on it.
+ *
+ * <p>Each node of the tree is a call site: a function, called from a particular line of its caller.
+ * It records how many times it was called (or sampled), its total time, its self time (excluding
+ * the functions it called), and how much memory was allocated while it was running. The tree can be
+ * summarized as tables, or written in the collapsed stack format read by flame graph tools.
+ */
 public class Profiler {
-  public String name;
-  public int count;
-  public long total; // milliseconds, added to all functions in call stack
-  public long net; // milliseconds, added to current function only
-  public long net0; // starting point for current net time accumulation
-
-  private Profiler next; // linked list
-  private static Profiler freeList;
-  private static final Map<String, Profiler> totals = new HashMap<>();
-
-  private Profiler() {}
-
-  public static Profiler create(String name) {
-    Profiler rv = Profiler.freeList;
-    if (rv == null) {
-      rv = new Profiler();
-    } else {
-      Profiler.freeList = rv.next;
-    }
-    rv.name = name;
-    rv.total = 0L;
-    rv.net = 0L;
-    return rv;
-  }
-
-  public void finish() {
-    Profiler existing = Profiler.totals.get(this.name);
-    if (existing != null) {
-      ++existing.count;
-      existing.total += this.total;
-      existing.net += this.net;
-      this.next = Profiler.freeList;
-      Profiler.freeList = this;
-    } else {
-      this.count = 1;
-      Profiler.totals.put(this.name, this);
-    }
-  }
-
-  public static String summary() {
-    StringBuffer buff = new StringBuffer();
-    ArrayList<Profiler> list = new ArrayList<Profiler>();
-    list.addAll(Profiler.totals.values());
-    Profiler.totals.clear();
+  public static final String NETWORK = "[network]";
+  public static final int SAMPLE_INTERVAL = 10; // milliseconds
 
+  private static final ThreadLocal<Profiler> current = new ThreadLocal<>();
+
+  public enum Kind {
+    SCRIPT,
+    LIBRARY,
+    NETWORK
+  }
+
+  // Strings cache their hash codes, so looking up a call site costs no more than its name
+  private record CallSite(String name, String site) {}
+
+  public static class Node {
+    public final String name;
+    public final String site;
+    public final Kind kind;
+    public final Node parent;
+    private final Map<CallSite, Node> children = new LinkedHashMap<>();
+
+    public long count;
+    public long total; // nanoseconds, including called functions
+    public long self; // nanoseconds, in this function only
+    public long allocated; // bytes
+
+    // When this call started, while it is running
+    private long start;
+
+    private Node(final String name, final String site, final Kind kind, final Node parent) {
+      this.name = name;
+      this.site = site;
+      this.kind = kind;
+      this.parent = parent;
+    }
+
+    private Node child(final String name, final String site, final Kind kind) {
+      CallSite key = new CallSite(name, site);
+      Node child = this.children.get(key);
+      if (child == null) {
+        child = new Node(name, site, kind, this);
+        this.children.put(key, child);
+      }
+      return child;
+    }
+
+    public List<Node> getChildren() {
+      return new ArrayList<>(this.children.values());
+    }
+
+    // Whether a function of the same name is already running further up the stack, in which case
+    // its time is already counted in the total of that function
+    private boolean isRecursive() {
+      for (Node node = this.parent; node != null; node = node.parent) {
+        if (node.name.equals(this.name)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  private final Node root;
+  private final Thread thread;
+  private final com.sun.management.ThreadMXBean allocations;
+
+  // Instrumented profiles: the running call, and when time was last charged to it
+  private Node node;
+  private long lastTime;
+  private long lastAllocated;
+
+  // Sampled profiles
+  private Thread sampler = null;
+  private volatile boolean running = false;
+
+  private Profiler(final String name, final Thread thread) {
+    this.root = new Node(name, null, Kind.SCRIPT, null);
+    this.thread = thread;
+
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    this.allocations =
+        bean instanceof com.sun.management.ThreadMXBean sunBean
+                && sunBean.isThreadAllocatedMemorySupported()
+                && sunBean.isThreadAllocatedMemoryEnabled()
+            ? sunBean
+            : null;
+  }
+
+  /** Returns the instrumented profile being made on this thread, if any. */
+  public static Profiler current() {
+    return Profiler.current.get();
+  }
+
+  /**
+   * Starts an instrumented profile on this thread. Calls are recorded with {@link #enter} and
+   * {@link #exit} until {@link #stop} is called.
+   */
+  public static Profiler instrument(final String name) {
+    Profiler profiler = new Profiler(name, Thread.currentThread());
+    profiler.node = profiler.root;
+    profiler.root.count = 1;
+    profiler.root.start = profiler.lastTime = System.nanoTime();
+    profiler.lastAllocated = profiler.allocatedBytes();
+    Profiler.current.set(profiler);
+    return profiler;
+  }
+
+  /** Starts sampling the stack of this thread in the background, until {@link #stop} is called. */
+  public static Profiler sample(final String name) {
+    Profiler profiler = new Profiler(name, Thread.currentThread());
+    profiler.root.count = 1;
+    profiler.running = true;
+    profiler.sampler = new Thread(profiler::sampleLoop, "Profiler");
+    profiler.sampler.setDaemon(true);
+    profiler.sampler.start();
+    return profiler;
+  }
+
+  private long allocatedBytes() {
+    if (this.allocations == null) {
+      return 0;
+    }
+    // Instrumented profiles are made on the profiled thread, which can read its own counter
+    // without the JVM having to find it among every thread
+    return Thread.currentThread() == this.thread
+        ? this.allocations.getCurrentThreadAllocatedBytes()
+        : this.allocations.getThreadAllocatedBytes(this.thread.getId());
+  }
+
+  // Charges the time and memory used since the last call to the running call
+  private void charge(final long now) {
+    long allocated = this.allocatedBytes();
+    this.node.self += now - this.lastTime;
+    this.node.allocated += allocated - this.lastAllocated;
+    this.lastTime = now;
+    this.lastAllocated = allocated;
+  }
+
+  /**
+   * Records the start of a call.
+   *
+   * @param name The function called
+   * @param site Where it was called from, or null
+   * @param kind What sort of function it is
+   */
+  public void enter(final String name, final String site, final Kind kind) {
+    long now = System.nanoTime();
+    this.charge(now);
+    this.node = this.node.child(name, site, kind);
+    this.node.count++;
+    this.node.start = now;
+  }
+
+  /**
+   * Records the start of waiting on the server, if an instrumented profile is being made on this
+   * thread.
+   *
+   * @param path The page requested
+   * @return The profile to pass to {@link #exitNetwork}, or null
+   */
+  public static Profiler enterNetwork(final String path) {
+    Profiler profiler = Profiler.current.get();
+    if (profiler != null) {
+      profiler.enter(NETWORK + " " + path, null, Kind.NETWORK);
+    }
+    return profiler;
+  }
+
+  public static void exitNetwork(final Profiler profiler) {
+    if (profiler != null) {
+      profiler.exit();
+    }
+  }
+
+  /** Records the end of the call most recently entered. */
+  public void exit() {
+    if (this.node == this.root) {
+      return;
+    }
+    long now = System.nanoTime();
+    this.charge(now);
+    this.node.total += now - this.node.start;
+    this.node = this.node.parent;
+  }
+
+  /** Finishes the profile. */
+  public void stop() {
+    if (this.sampler != null) {
+      this.running = false;
+      this.sampler.interrupt();
+      try {
+        this.sampler.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      this.sampler = null;
+      return;
+    }
+
+    if (Profiler.current.get() == this) {
+      Profiler.current.remove();
+    }
+    if (this.node == null) {
+      return;
+    }
+    while (this.node != this.root) {
+      this.exit();
+    }
+    long now = System.nanoTime();
+    this.charge(now);
+    this.root.total = now - this.root.start;
+    this.node = null;
+  }
+
+  public Node getRoot() {
+    return this.root;
+  }
+
+  // **************** Sampling *****************
+
+  private void sampleLoop() {
+    long last = System.nanoTime();
+    long lastAllocated = this.allocatedBytes();
+    while (this.running) {
+      try {
+        Thread.sleep(SAMPLE_INTERVAL);
+      } catch (InterruptedException e) {
+        break;
+      }
+      StackTraceElement[] stack = this.thread.getStackTrace();
+      long now = System.nanoTime();
+      long allocated = this.allocatedBytes();
+      this.addSample(stack, now - last, allocated - lastAllocated);
+      last = now;
+      lastAllocated = allocated;
+    }
+  }
+
+  /**
+   * Charges time to the script functions on a Java stack.
+   *
+   * @param stack The stack, innermost call first
+   * @param elapsed Nanoseconds since the last sample
+   * @param allocated Bytes allocated since the last sample
+   */
+  public void addSample(final StackTraceElement[] stack, final long elapsed, final long allocated) {
+    Node node = this.root;
+    String site = null;
+    node.total += elapsed;
+
+    for (int i = stack.length - 1; i >= 0; --i) {
+      StackTraceElement frame = stack[i];
+      String className = frame.getClassName();
+      String methodName = frame.getMethodName();
+
+      if (className.startsWith("org.mozilla.javascript.gen.") && methodName.startsWith("_c_")) {
+        // Rhino names the method compiled from a function _c_<name>_<number>
+        String name = methodName.substring(3, Math.max(3, methodName.lastIndexOf('_')));
+        if (name.equals("script")) {
+          // The top level of a module
+          site = frame.getFileName() + ":" + frame.getLineNumber();
+          continue;
+        }
+        node = node.child(name.isEmpty() ? "(anonymous)" : name, site, Kind.SCRIPT);
+        site = frame.getFileName() + ":" + frame.getLineNumber();
+      } else if (className.equals(RuntimeLibrary.class.getName())) {
+        node = node.child(methodName, site, Kind.LIBRARY);
+        site = null;
+      } else if (Profiler.isNetwork(className, methodName)) {
+        node = node.child(NETWORK, site, Kind.NETWORK);
+        node.count++;
+        node.total += elapsed;
+        break;
+      } else {
+        continue;
+      }
+
+      node.count++;
+      node.total += elapsed;
+    }
+
+    node.self += elapsed;
+    node.allocated += allocated;
+  }
+
+  private static boolean isNetwork(final String className, final String methodName) {
+    return className.equals("net.sourceforge.kolmafia.request.GenericRequest")
+            && methodName.equals("sendRequest")
+        || className.equals("net.sourceforge.kolmafia.utilities.ByteBufferUtilities")
+            && methodName.equals("read");
+  }
+
+  // **************** Reporting *****************
+
+  private static void collect(final Node node, final List<Node> nodes) {
+    nodes.add(node);
+    for (Node child : node.children.values()) {
+      Profiler.collect(child, nodes);
+    }
+  }
+
+  private List<Node> nodes() {
+    List<Node> nodes = new ArrayList<>();
+    Profiler.collect(this.root, nodes);
+    return nodes;
+  }
+
+  private static String frameName(final Node node) {
+    return node.name.replace(';', ',').replace('\n', ' ');
+  }
+
+  private static void appendPath(final StringBuilder path, final Node node) {
+    if (node.parent != null) {
+      Profiler.appendPath(path, node.parent);
+      path.append(';');
+    }
+    path.append(Profiler.frameName(node));
+  }
+
+  /**
+   * Writes the profile in collapsed stack format: one line for each call path, giving the functions
+   * on it separated by semicolons and the microseconds spent in the last of them.
+   */
+  public void writeCollapsedStacks(final PrintStream stream) {
+    for (Node node : this.nodes()) {
+      long micros = node.self / 1000;
+      if (micros <= 0) {
+        continue;
+      }
+      StringBuilder path = new StringBuilder();
+      Profiler.appendPath(path, node);
+      path.append(' ');
+      path.append(micros);
+      stream.println(path);
+    }
+  }
+
+  /** Returns the profile as HTML tables, for the gCLI. */
+  public String summary() {
+    List<Node> sites = this.nodes();
+    sites.remove(this.root);
+
+    // Add up the call sites of each function
+    Map<String, Node> functions = new LinkedHashMap<>();
+    long library = 0;
+    long network = 0;
+    for (Node site : sites) {
+      Node function = functions.get(site.name);
+      if (function == null) {
+        function = new Node(site.name, null, site.kind, null);
+        functions.put(site.name, function);
+      }
+      function.count += site.count;
+      function.self += site.self;
+      function.allocated += site.allocated;
+      if (!site.isRecursive()) {
+        function.total += site.total;
+      }
+      switch (site.kind) {
+        case LIBRARY -> library += site.self;
+        case NETWORK -> network += site.self;
+        default -> {}
+      }
+    }
+
+    StringBuilder buff = new StringBuilder();
     buff.append("<br>");
+    buff.append("Total: ");
+    buff.append(Profiler.seconds(this.root.total));
+    buff.append(" s, in library functions: ");
+    buff.append(Profiler.seconds(library));
+    buff.append(" s, waiting on the server: ");
+    buff.append(Profiler.seconds(network));
+    buff.append(" s<br>");
 
-    list.sort(
-        new Comparator<Profiler>() {
-          @Override
-          public int compare(Profiler left, Profiler right) {
-            return (int) Math.signum(right.total - left.total);
-          }
-        });
-    Profiler.addTable(buff, list, "(sorted by total time)");
+    List<Node> list = new ArrayList<>(functions.values());
 
     buff.append("<br>");
+    list.sort(Comparator.comparingLong((Node node) -> node.total).reversed());
+    Profiler.addTable(buff, list, "(sorted by total time)", false);
 
-    list.sort(
-        new Comparator<Profiler>() {
-          @Override
-          public int compare(Profiler left, Profiler right) {
-            return (int) Math.signum(right.net - left.net);
-          }
-        });
-    Profiler.addTable(buff, list, "(sorted by net time)");
+    buff.append("<br>");
+    list.sort(Comparator.comparingLong((Node node) -> node.self).reversed());
+    Profiler.addTable(buff, list, "(sorted by net time)", false);
+
+    buff.append("<br>");
+    sites.sort(Comparator.comparingLong((Node node) -> node.self).reversed());
+    Profiler.addTable(buff, sites, "(call sites, sorted by net time)", true);
 
     buff.append("<br>");
     return buff.toString();
   }
 
-  private static void addTable(StringBuffer buff, ArrayList<Profiler> list, String title) {
+  private static String seconds(final long nanos) {
+    return KoLConstants.NONSCIENTIFIC_FORMAT.format(nanos / 1e9d);
+  }
+
+  private static void addTable(
+      final StringBuilder buff, final List<Node> list, final String title, final boolean sites) {
     buff.append("<table border=0><tr><td>Count</td><td>Total</td>");
-    buff.append("<td>Net</td><td>Name ");
+    buff.append("<td>Net</td><td>Alloc (MB)</td><td>Name ");
     buff.append(title);
-    buff.append("</td></tr>");
-    Iterator<Profiler> i = list.iterator();
-    while (i.hasNext()) {
-      Profiler p = i.next();
+    buff.append("</td>");
+    if (sites) {
+      buff.append("<td>Called from</td>");
+    }
+    buff.append("</tr>");
+    for (Node node : list) {
       buff.append("<tr><td>");
-      buff.append(p.count);
+      buff.append(node.count);
+      buff.append("</td><td>");
+      buff.append(Profiler.seconds(node.total));
       buff.append("</td><td>");
-      buff.append(KoLConstants.NONSCIENTIFIC_FORMAT.format(p.total / 1e9d));
+      buff.append(Profiler.seconds(node.self));
       buff.append("</td><td>");
-      buff.append(KoLConstants.NONSCIENTIFIC_FORMAT.format(p.net / 1e9d));
+      buff.append(KoLConstants.NONSCIENTIFIC_FORMAT.format(node.allocated / 1048576d));
       buff.append("</td><td>");
-      buff.append(p.name);
-      buff.append("</td></tr>");
+      buff.append(node.name);
+      buff.append("</td>");
+      if (sites) {
+        buff.append("<td>");
+        buff.append(node.site == null ? "" : node.site);
+        buff.append("</td>");
+      }
+      buff.append("</tr>");
     }
     buff.append("</table>");
   }
@@ -167,7 +167,6 @@ import net.sourceforge.kolmafia.utilities.ChoiceUtilities;
 import net.sourceforge.kolmafia.utilities.FileUtilities;
 import net.sourceforge.kolmafia.utilities.HTMLParserUtils;
 import net.sourceforge.kolmafia.utilities.InputFieldUtilities;
-import net.sourceforge.kolmafia.utilities.LogStream;
 import net.sourceforge.kolmafia.utilities.StringUtilities;
 import net.sourceforge.kolmafia.webui.RelayServer;
 import org.htmlcleaner.HtmlCleaner;
@@ -8038,6 +8037,11 @@ public abstract class RuntimeLibrary {
     CompositeValue result = (CompositeValue) var2;
     boolean compact = var3.intValue() == 1;
 
+    long modifiedTime = DataFileCache.lastModified(filename);
+    if (DataFileCache.readMap(filename, modifiedTime, result, compact)) {
+      return DataTypes.TRUE_VALUE;
+    }
+
     BufferedReader reader = DataFileCache.getReader(filename);
     if (reader == null) {
       return DataTypes.FALSE_VALUE;
@@ -8082,6 +8086,7 @@ public abstract class RuntimeLibrary {
       return DataTypes.FALSE_VALUE;
     }
 
+    DataFileCache.saveMap(filename, modifiedTime, result, compact);
     return DataTypes.TRUE_VALUE;
   }
 
@@ -8095,14 +8100,7 @@ public abstract class RuntimeLibrary {
     String filename = var2.toString();
     boolean compact = var3.intValue() == 1;
 
-    ByteArrayOutputStream cacheStream = new ByteArrayOutputStream();
-
-    PrintStream writer = LogStream.openStream(cacheStream, StandardCharsets.UTF_8);
-    map_variable.dump(writer, "", compact);
-    writer.close();
-
-    byte[] data = cacheStream.toByteArray();
-    return DataFileCache.printBytes(filename, data);
+    return DataFileCache.printData(filename, writer -> map_variable.dump(writer, "", compact));
   }
 
   public static Value file_to_array(ScriptRuntime controller, final Value var1) {
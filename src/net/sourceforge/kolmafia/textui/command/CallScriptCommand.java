@@ -1,6 +1,7 @@
 package net.sourceforge.kolmafia.textui.command;
 
 import java.io.File;
+import java.io.PrintStream;
 import java.util.List;
 import java.util.regex.Pattern;
 import net.java.dev.spellcast.utilities.DataUtilities;
@@ -16,6 +17,7 @@ import net.sourceforge.kolmafia.textui.Profiler;
 import net.sourceforge.kolmafia.textui.ScriptRuntime;
 import net.sourceforge.kolmafia.textui.javascript.JavascriptRuntime;
 import net.sourceforge.kolmafia.textui.parsetree.Value;
+import net.sourceforge.kolmafia.utilities.LogStream;
 import net.sourceforge.kolmafia.utilities.StringUtilities;
 
 public class CallScriptCommand extends AbstractCommand {
@@ -134,7 +136,9 @@ public class CallScriptCommand extends AbstractCommand {
           || CallScriptCommand.JSNAME_PATTERN.matcher(scriptFile.getPath()).find()) {
         ScriptRuntime interpreter = KoLmafiaASH.getInterpreter(scriptFile);
 
-        if (!command.equals("call") && interpreter instanceof JavascriptRuntime) {
+        if (!command.equals("call")
+            && !command.equals("profile")
+            && interpreter instanceof JavascriptRuntime) {
           KoLmafia.updateDisplay(
               MafiaState.ERROR, "Cannot use command " + command + " with JavaScript scripts.");
           return;
@@ -149,35 +153,51 @@ public class CallScriptCommand extends AbstractCommand {
             KoLmafiaASH.showUserFunctions((AshRuntime) interpreter, "");
 
             RequestLogger.printLine();
+            RequestLogger.printLine(
+                "Parsed "
+                    + KoLmafiaASH.getParsedFileCount(scriptFile)
+                    + " file(s) in "
+                    + KoLmafiaASH.getParseTime(scriptFile)
+                    + " ms.");
             RequestLogger.printLine("Script verification complete.");
           }
 
           return;
         }
 
-        if (command.equals("profile")) {
-          if (interpreter instanceof AshRuntime) {
-            AshRuntime ashInterpreter = (AshRuntime) interpreter;
-            Profiler prof = Profiler.create("toplevel");
-            long t0 = System.nanoTime();
-            prof.net0 = t0;
-            ashInterpreter.profiler = prof;
+        if (command.equals("profile") && interpreter != null) {
+          // JavaScript functions can't be instrumented, so are sampled instead
+          Profiler profiler =
+              interpreter instanceof AshRuntime
+                  ? Profiler.instrument(scriptFile.getName())
+                  : Profiler.sample(scriptFile.getName());
+          if (interpreter instanceof AshRuntime ashInterpreter) {
+            ashInterpreter.profiler = profiler;
+          }
 
+          try {
             for (int i = 0; i < runCount && KoLmafia.permitsContinue(); ++i) {
               KoLmafiaASH.logScriptExecution(
-                  "Starting ASH script: ", scriptFile.getName(), interpreter);
-              ashInterpreter.execute("main", arguments);
+                  "Starting script: ", scriptFile.getName(), interpreter);
+              interpreter.execute("main", arguments);
               KoLmafiaASH.logScriptExecution(
-                  "Finished ASH script: ", scriptFile.getName(), interpreter);
+                  "Finished script: ", scriptFile.getName(), interpreter);
+            }
+          } finally {
+            profiler.stop();
+            if (interpreter instanceof AshRuntime ashInterpreter) {
+              ashInterpreter.profiler = null;
             }
-
-            long t1 = System.nanoTime();
-            prof.total = t1 - t0;
-            prof.net += t1 - prof.net0;
-            prof.finish();
-            ashInterpreter.profiler = null;
-            RequestLogger.printLine(Profiler.summary());
           }
+
+          RequestLogger.printLine(profiler.summary());
+
+          // For flame graph tools
+          String stacksName = "PROFILE_" + scriptFile.getName() + ".txt";
+          PrintStream stacks = LogStream.openStream(stacksName, true);
+          profiler.writeCollapsedStacks(stacks);
+          stacks.close();
+          RequestLogger.printLine("Call stacks written to " + stacksName);
           return;
         }
 
@@ -1,6 +1,6 @@
 package net.sourceforge.kolmafia.textui.command;
 
-import net.sourceforge.kolmafia.KoLConstants;
+import net.sourceforge.kolmafia.RequestLogger;
 
 public class ClearBufferCommand extends AbstractCommand {
   public ClearBufferCommand() {
@@ -9,6 +9,6 @@ public class ClearBufferCommand extends AbstractCommand {
 
   @Override
   public void run(final String cmd, final String parameters) {
-    KoLConstants.commandBuffer.clear();
+    RequestLogger.clearOutput();
   }
 }
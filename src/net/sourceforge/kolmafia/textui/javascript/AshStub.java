@@ -29,6 +29,10 @@ public abstract class AshStub extends BaseFunction {
     this.ashFunctionName = ashFunctionName;
   }
 
+  protected ScriptRuntime getController() {
+    return this.controller;
+  }
+
   @Override
   public String getFunctionName() {
     return JavascriptRuntime.toCamelCase(ashFunctionName);
@@ -79,7 +83,8 @@ public abstract class AshStub extends BaseFunction {
     Function function = findMatchingFunction(ashArgs);
 
     if (function == null) {
-      throw controller.runtimeException(Parser.undefinedFunctionMessage(ashFunctionName, ashArgs));
+      throw getController()
+          .runtimeException(Parser.undefinedFunctionMessage(ashFunctionName, ashArgs));
     }
 
     // Second, infer the type for any missing arguments from the closest function match.
@@ -90,14 +95,15 @@ public abstract class AshStub extends BaseFunction {
         // Try again, this time with a type hint.
         coerced = coercer.fromJava(original, function.getVariableReferences().get(i).getType());
         if (coerced == null) {
-          throw controller.runtimeException("Could not coerce argument to valid ASH value.");
+          throw getController().runtimeException("Could not coerce argument to valid ASH value.");
         }
       }
     }
     function = findMatchingFunction(ashArgs);
 
     if (function == null) {
-      throw controller.runtimeException(Parser.undefinedFunctionMessage(ashFunctionName, ashArgs));
+      throw getController()
+          .runtimeException(Parser.undefinedFunctionMessage(ashFunctionName, ashArgs));
     }
 
     Value ashReturnValue = execute(function, ashArgs);
@@ -106,7 +112,7 @@ public abstract class AshStub extends BaseFunction {
     // capturing the return
     // value of those functions. In JavaScript we don't want this behaviour at all
     if (!KoLmafia.refusesContinue() && ashReturnValue != null) {
-      this.controller.setState(ScriptRuntime.State.NORMAL);
+      getController().setState(ScriptRuntime.State.NORMAL);
       KoLmafia.forceContinue();
     }
 
@@ -122,7 +128,7 @@ public abstract class AshStub extends BaseFunction {
     }
 
     if (returnValue instanceof NativeJavaObject) {
-      throw controller.runtimeException("ASH function returned native Java object.");
+      throw getController().runtimeException("ASH function returned native Java object.");
     }
 
     return returnValue;
@@ -2,9 +2,9 @@ package net.sourceforge.kolmafia.textui.javascript;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import net.sourceforge.kolmafia.textui.DataTypes;
 import net.sourceforge.kolmafia.textui.ScriptException;
 import net.sourceforge.kolmafia.textui.parsetree.ProxyRecordValue;
@@ -20,7 +20,9 @@ public class EnumeratedWrapper extends ScriptableObject {
   private static final long serialVersionUID = 1L;
 
   // Make sure each wrapper is a singleton, so that equality comparison works in JS.
-  private static final Map<Scriptable, Map<Value, EnumeratedWrapper>> registry = new HashMap<>();
+  // Scripts may run on several threads at once, each with its own top scope.
+  private static final Map<Scriptable, Map<Value, EnumeratedWrapper>> registry =
+      new ConcurrentHashMap<>();
 
   private final Class<?> recordValueClass;
   // NB: This wrapped value is NOT the proxy record type version.
@@ -40,19 +42,20 @@ public class EnumeratedWrapper extends ScriptableObject {
       proto = scope.getPrototype();
     }
 
-    Map<Value, EnumeratedWrapper> subRegistry = registry.getOrDefault(scope, null);
-    if (subRegistry == null) {
-      subRegistry = new HashMap<>();
-      registry.put(scope, subRegistry);
-    }
+    Map<Value, EnumeratedWrapper> subRegistry =
+        registry.computeIfAbsent(scope, k -> new ConcurrentHashMap<>());
 
-    EnumeratedWrapper existing = subRegistry.getOrDefault(wrapped, null);
+    EnumeratedWrapper existing = subRegistry.get(wrapped);
     if (existing == null) {
-      existing = new EnumeratedWrapper(recordValueClass, wrapped);
-      existing.setPrototype(
+      EnumeratedWrapper wrapper = new EnumeratedWrapper(recordValueClass, wrapped);
+      wrapper.setPrototype(
           EnumeratedWrapperPrototype.getPrototypeInstance(scope, wrapped.getType()));
-      existing.sealObject();
-      subRegistry.put(wrapped, existing);
+      wrapper.sealObject();
+      // Another thread may have got there first
+      existing = subRegistry.putIfAbsent(wrapped, wrapper);
+      if (existing == null) {
+        existing = wrapper;
+      }
     }
 
     return existing;
@@ -116,7 +119,7 @@ public class EnumeratedWrapper extends ScriptableObject {
     String typeName = (String) ScriptableObject.getProperty(functionObject, "typeName");
     Type type = DataTypes.simpleTypes.find(typeName);
 
-    Scriptable scope = ScriptableObject.getTopLevelScope(thisObject);
+    Scriptable scope = JavascriptRuntime.getCurrentTopScope(thisObject);
 
     Object arg = args[0];
     if (arg instanceof Iterable) {
@@ -139,7 +142,7 @@ public class EnumeratedWrapper extends ScriptableObject {
     String typeName = (String) ScriptableObject.getProperty(functionObject, "typeName");
     Type type = DataTypes.simpleTypes.find(typeName);
 
-    Scriptable scope = ScriptableObject.getTopLevelScope(thisObject);
+    Scriptable scope = JavascriptRuntime.getCurrentTopScope(thisObject);
     ValueConverter coercer = new ValueConverter(cx, scope);
 
     return cx.newArray(
@@ -44,6 +44,14 @@ public class JavascriptRuntime extends AbstractRuntime {
   static final Set<JavascriptRuntime> runningRuntimes = ConcurrentHashMap.newKeySet();
   static final ContextFactory contextFactory = new ObservingContextFactory();
 
+  // The runtime library and enumerated types are built once, in a scope of their own, and shared
+  // by every script. Nothing in that scope can be modified, and library functions look up the
+  // runtime that is calling them, so it is safe to share between threads.
+  private static Scriptable sharedScope = null;
+  private static Scriptable sharedStdLib = null;
+  private static List<String> sharedFunctionNames = null;
+  private static final ThreadLocal<JavascriptRuntime> currentRuntime = new ThreadLocal<>();
+
   private File scriptFile = null;
   private String scriptString = null;
 
@@ -108,33 +116,26 @@ public class JavascriptRuntime extends AbstractRuntime {
     return functions;
   }
 
-  private Scriptable initRuntimeLibrary(Context cx, Scriptable scope, boolean addToTopScope) {
+  private static Scriptable initRuntimeLibrary(Context cx, Scriptable scope) {
     Set<String> uniqueFunctionNames =
         getFunctions().stream().map(Symbol::getName).collect(Collectors.toCollection(TreeSet::new));
 
     Scriptable stdLib = cx.newObject(scope);
     int permanentReadOnly = ScriptableObject.PERMANENT | ScriptableObject.READONLY;
 
+    List<String> functionNames = new ArrayList<>();
     for (String libraryFunctionName : uniqueFunctionNames) {
       String jsName = toCamelCase(libraryFunctionName);
       ScriptableObject.defineProperty(
           stdLib,
           jsName,
           new LibraryFunctionStub(
-              stdLib, ScriptableObject.getFunctionPrototype(stdLib), this, libraryFunctionName),
+              stdLib, ScriptableObject.getFunctionPrototype(stdLib), libraryFunctionName),
           permanentReadOnly);
-      if (addToTopScope) {
-        ScriptableObject.defineProperty(
-            scope,
-            jsName,
-            new LibraryFunctionStub(
-                scope, ScriptableObject.getFunctionPrototype(scope), this, libraryFunctionName),
-            ScriptableObject.DONTENUM);
-      }
+      functionNames.add(jsName);
     }
 
-    ScriptableObject.defineProperty(
-        scope, DEFAULT_RUNTIME_LIBRARY_NAME, stdLib, ScriptableObject.DONTENUM | permanentReadOnly);
+    sharedFunctionNames = functionNames;
     return stdLib;
   }
 
@@ -163,6 +164,71 @@ public class JavascriptRuntime extends AbstractRuntime {
     }
   }
 
+  private static synchronized Scriptable getSharedScope(Context cx) {
+    if (sharedScope == null) {
+      ScriptableObject scope = cx.initSafeStandardObjects(null, true);
+      Scriptable stdLib = initRuntimeLibrary(cx, scope);
+      initEnumeratedTypes(cx, scope, stdLib);
+      ((ScriptableObject) stdLib).sealObject();
+      scope.sealObject();
+
+      sharedStdLib = stdLib;
+      sharedScope = scope;
+    }
+    return sharedScope;
+  }
+
+  /**
+   * Makes the shared runtime library and enumerated types visible from a script's top scope.
+   *
+   * @param cx The current context
+   * @param scope The top scope of the script
+   * @param addToTopScope True if library functions should also be callable without a prefix
+   * @return The runtime library object
+   */
+  private static Scriptable installRuntimeLibrary(
+      Context cx, Scriptable scope, boolean addToTopScope) {
+    Scriptable shared = getSharedScope(cx);
+    int permanentReadOnly = ScriptableObject.PERMANENT | ScriptableObject.READONLY;
+
+    for (Type valueType : DataTypes.enumeratedTypes) {
+      String className = EnumeratedWrapperPrototype.getClassName(valueType);
+      ScriptableObject.defineProperty(
+          scope, className, shared.get(className, shared), ScriptableObject.DONTENUM);
+    }
+
+    if (addToTopScope) {
+      for (String jsName : sharedFunctionNames) {
+        ScriptableObject.defineProperty(
+            scope, jsName, sharedStdLib.get(jsName, sharedStdLib), ScriptableObject.DONTENUM);
+      }
+    }
+
+    ScriptableObject.defineProperty(
+        scope,
+        DEFAULT_RUNTIME_LIBRARY_NAME,
+        sharedStdLib,
+        ScriptableObject.DONTENUM | permanentReadOnly);
+    return sharedStdLib;
+  }
+
+  /** Returns the runtime whose script is running on this thread, if any. */
+  static JavascriptRuntime getCurrentRuntime() {
+    return currentRuntime.get();
+  }
+
+  /**
+   * Returns the top scope of the script running on this thread. Objects in the shared scope, such
+   * as the enumerated type constructors, use this in place of their own top scope.
+   */
+  static Scriptable getCurrentTopScope(Scriptable scope) {
+    JavascriptRuntime runtime = currentRuntime.get();
+    if (runtime != null && runtime.currentTopScope != null) {
+      return runtime.currentTopScope;
+    }
+    return ScriptableObject.getTopLevelScope(scope);
+  }
+
   @Override
   public Value execute(
       final String functionName, final Object[] arguments, final boolean executeTopLevel) {
@@ -181,15 +247,14 @@ public class JavascriptRuntime extends AbstractRuntime {
     cx.setOptimizationLevel(1);
     runningRuntimes.add(this);
 
-    // TODO: Use a shared parent scope and initialize this with that as a prototype.
-    // But be careful. May mess up our EnumeratedWrapper registries.
+    // Each script gets its own standard objects, so that it can add to them without affecting
+    // others, but the runtime library comes from the shared scope.
     Scriptable scope = cx.initSafeStandardObjects();
     currentTopScope = scope;
 
     try {
       // If executing from GCLI (and not file), add std lib to top scope.
-      currentStdLib = initRuntimeLibrary(cx, scope, scriptFile == null);
-      initEnumeratedTypes(cx, scope, currentStdLib);
+      currentStdLib = installRuntimeLibrary(cx, scope, scriptFile == null);
 
       setState(State.NORMAL);
 
@@ -208,6 +273,8 @@ public class JavascriptRuntime extends AbstractRuntime {
 
     boolean stackOnAbort = Preferences.getBoolean("printStackOnAbort");
 
+    JavascriptRuntime previousRuntime = currentRuntime.get();
+    currentRuntime.set(this);
     try {
       returnValue = callback.get();
     } catch (WrappedException e) {
@@ -241,6 +308,7 @@ public class JavascriptRuntime extends AbstractRuntime {
       String escapedMessage = escapeHtmlInMessage("Script exception: " + e.getMessage());
       KoLmafia.updateDisplay(KoLConstants.MafiaState.ERROR, escapedMessage);
     } finally {
+      currentRuntime.set(previousRuntime);
       setState(State.EXIT);
     }
 
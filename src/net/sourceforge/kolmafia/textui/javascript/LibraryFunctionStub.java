@@ -20,9 +20,14 @@ public class LibraryFunctionStub extends AshStub {
 
   private final List<String> bufferFunctions = List.of("buffer_to_file", "write_ccs");
 
-  public LibraryFunctionStub(
-      Scriptable scope, Scriptable prototype, ScriptRuntime controller, String ashFunctionName) {
-    super(scope, prototype, controller, ashFunctionName);
+  public LibraryFunctionStub(Scriptable scope, Scriptable prototype, String ashFunctionName) {
+    super(scope, prototype, null, ashFunctionName);
+  }
+
+  @Override
+  protected ScriptRuntime getController() {
+    // Library functions are shared by every script, so run on behalf of the current one
+    return JavascriptRuntime.getCurrentRuntime();
   }
 
   @Override
@@ -32,6 +37,7 @@ public class LibraryFunctionStub extends AshStub {
 
   @Override
   protected Value execute(Function function, List<Value> ashArgs) {
+    ScriptRuntime controller = getController();
     LibraryFunction ashFunction;
     if (function instanceof LibraryFunction) {
       ashFunction = (LibraryFunction) function;
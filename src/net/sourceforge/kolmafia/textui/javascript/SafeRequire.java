@@ -17,6 +17,7 @@ import net.sourceforge.kolmafia.textui.parsetree.UserDefinedFunction;
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.Scriptable;
 import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.commonjs.module.ModuleScriptProvider;
 import org.mozilla.javascript.commonjs.module.Require;
 import org.mozilla.javascript.commonjs.module.provider.SoftCachingModuleScriptProvider;
 import org.mozilla.javascript.commonjs.module.provider.UrlModuleSourceProvider;
@@ -24,20 +25,22 @@ import org.mozilla.javascript.commonjs.module.provider.UrlModuleSourceProvider;
 public class SafeRequire extends Require {
   private static final long serialVersionUID = 1L;
 
+  // Compiled scripts are kept between runs. Rhino would otherwise trust them for a minute before
+  // looking at their files again, so they are checked on every require, and compiled again if
+  // their modification date has changed.
+  private static final ModuleScriptProvider moduleScriptProvider =
+      new SoftCachingModuleScriptProvider(
+          new UrlModuleSourceProvider(
+              Arrays.asList(
+                  KoLConstants.ROOT_LOCATION.toURI(), KoLConstants.SCRIPT_LOCATION.toURI()),
+              null,
+              urlConnection -> 0,
+              null));
+
   private final Scriptable stdLib;
 
   public SafeRequire(Context cx, Scriptable nativeScope, Scriptable stdLib) {
-    super(
-        cx,
-        nativeScope,
-        new SoftCachingModuleScriptProvider(
-            new UrlModuleSourceProvider(
-                Arrays.asList(
-                    KoLConstants.ROOT_LOCATION.toURI(), KoLConstants.SCRIPT_LOCATION.toURI()),
-                null)),
-        null,
-        new MainWarningScript(),
-        true);
+    super(cx, nativeScope, moduleScriptProvider, null, new MainWarningScript(), true);
     this.stdLib = stdLib;
   }
 
@@ -1,6 +1,7 @@
 package net.sourceforge.kolmafia.textui.parsetree;
 
 import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.List;
 import net.sourceforge.kolmafia.textui.AshRuntime;
 import net.sourceforge.kolmafia.textui.DataTypes;
@@ -94,6 +95,16 @@ public class ArrayValue extends AggregateValue {
     }
   }
 
+  @Override
+  public Value copy() {
+    Value[] array = (Value[]) this.content;
+    List<Value> values = new ArrayList<>(array.length);
+    for (Value value : array) {
+      values.add(value.copy());
+    }
+    return new ArrayValue((AggregateType) this.type, values);
+  }
+
   @Override
   public int count() {
     Value[] array = (Value[]) this.content;
@@ -45,6 +45,17 @@ public abstract class CompositeValue extends Value {
     return ((CompositeType) this.type).getDataType(key).initialValue();
   }
 
+  /**
+   * Replaces the contents of this value with copies of the contents of another value of the same
+   * type.
+   */
+  public void copyFrom(final CompositeValue source) {
+    this.clear();
+    for (Value key : source.keys()) {
+      this.aset(key, source.aref(key).copy());
+    }
+  }
+
   @Override
   public void dump(final PrintStream writer, final String prefix, final boolean compact) {
     Value[] keys = this.keys();
@@ -15,6 +15,8 @@ public class FunctionCall extends Evaluable {
   protected final List<Evaluable> params;
   protected final String fileName;
   protected final int lineNumber;
+  // Where this call is, for profiles
+  private final String site;
 
   public FunctionCall(
       final Location location,
@@ -26,6 +28,7 @@ public class FunctionCall extends Evaluable {
     this.params = params;
     this.fileName = parser.getShortFileName();
     this.lineNumber = parser.getLineNumber();
+    this.site = this.fileName + ":" + this.lineNumber;
   }
 
   public Function getTarget() {
@@ -93,22 +96,17 @@ public class FunctionCall extends Evaluable {
     interpreter.pushFrame(this.target.getName());
 
     Value result;
-    Profiler prev = interpreter.profiler;
-    if (prev != null) {
-      long t0 = System.nanoTime();
-      prev.net += t0 - prev.net0;
-      Profiler curr = Profiler.create(this.target.getSignature());
-      curr.net0 = t0;
-      interpreter.profiler = curr;
-
-      result = this.target.execute(interpreter, values);
-
-      long t1 = System.nanoTime();
-      prev.net0 = t1;
-      interpreter.profiler = prev;
-      curr.total = t1 - t0;
-      curr.net += t1 - curr.net0;
-      curr.finish();
+    Profiler profiler = interpreter.profiler;
+    if (profiler != null) {
+      profiler.enter(
+          this.target.getSignature(),
+          this.site,
+          this.target instanceof LibraryFunction ? Profiler.Kind.LIBRARY : Profiler.Kind.SCRIPT);
+      try {
+        result = this.target.execute(interpreter, values);
+      } finally {
+        profiler.exit();
+      }
     } else {
       result = this.target.execute(interpreter, values);
     }
@@ -1,7 +1,8 @@
 package net.sourceforge.kolmafia.textui.parsetree;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import net.sourceforge.kolmafia.KoLmafia;
 import net.sourceforge.kolmafia.RequestLogger;
 import net.sourceforge.kolmafia.StaticEntity;
@@ -11,7 +12,8 @@ import net.sourceforge.kolmafia.textui.ScriptException;
 import net.sourceforge.kolmafia.textui.ScriptRuntime;
 
 public class LibraryFunction extends Function {
-  private Method method;
+  // Bound once to the runtime library method, taking the interpreter and arguments as an array
+  private MethodHandle method;
 
   public LibraryFunction(final String name, final Type type, final Type[] params) {
     super(name.toLowerCase(), type);
@@ -29,7 +31,11 @@ public class LibraryFunction extends Function {
     }
 
     try {
-      this.method = RuntimeLibrary.findMethod(name, args);
+      this.method =
+          MethodHandles.publicLookup()
+              .unreflect(RuntimeLibrary.findMethod(name, args))
+              .asSpreader(Object[].class, args.length)
+              .asType(MethodType.methodType(Value.class, Object[].class));
     } catch (Exception e) {
       // This should not happen; it denotes a coding
       // error that must be fixed before release.
@@ -60,20 +66,14 @@ public class LibraryFunction extends Function {
       values = this.bindVariableReferences(interpreter, values);
 
       // Invoke the method
-      return (Value) this.method.invoke(this, values);
-    } catch (InvocationTargetException e) {
+      return (Value) this.method.invokeExact(values);
+    } catch (ScriptException e) {
+      // Pass up exceptions intentionally generated by library
+      throw e;
+    } catch (Throwable e) {
       // This is an error in the called method. Pass
       // it on up so that we'll print a stack trace.
-
-      Throwable cause = e.getCause();
-      if (cause instanceof ScriptException) {
-        // Pass up exceptions intentionally generated by library
-        throw (ScriptException) cause;
-      }
-      throw new RuntimeException(cause);
-    } catch (IllegalAccessException e) {
-      // This is not expected, but is an internal error in ASH
-      throw new ScriptException(e);
+      throw new RuntimeException(e);
     }
   }
 
@@ -93,20 +93,14 @@ public class LibraryFunction extends Function {
       values = this.bindVariableReferences(null, values);
 
       // Invoke the method
-      return (Value) this.method.invoke(this, values);
-    } catch (InvocationTargetException e) {
+      return (Value) this.method.invokeExact(values);
+    } catch (ScriptException e) {
+      // Pass up exceptions intentionally generated by library
+      throw e;
+    } catch (Throwable e) {
       // This is an error in the called method. Pass
       // it on up so that we'll print a stack trace.
-
-      Throwable cause = e.getCause();
-      if (cause instanceof ScriptException) {
-        // Pass up exceptions intentionally generated by library
-        throw (ScriptException) cause;
-      }
-      throw new RuntimeException(cause);
-    } catch (IllegalAccessException e) {
-      // This is not expected, but is an internal error in ASH
-      throw new ScriptException(e);
+      throw new RuntimeException(e);
     }
   }
 }
@@ -3,22 +3,19 @@ package net.sourceforge.kolmafia.textui.parsetree;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
 import java.util.TreeMap;
 import net.sourceforge.kolmafia.textui.AshRuntime;
 import net.sourceforge.kolmafia.textui.DataTypes;
 
 public class MapValue extends AggregateValue {
   public MapValue(final AggregateType type) {
-    super(type);
-    this.content = new TreeMap<Value, Value>();
+    this(type, false);
   }
 
   public MapValue(final AggregateType type, boolean caseInsensitive) {
     super(type);
-    this.content =
-        caseInsensitive
-            ? new TreeMap<Value, Value>(Value.ignoreCaseComparator)
-            : new TreeMap<Value, Value>();
+    this.content = MapValue.newMap(type, caseInsensitive);
   }
 
   public MapValue(final AggregateType type, Map<?, ?> value) {
@@ -26,6 +23,16 @@ public class MapValue extends AggregateValue {
     this.content = value;
   }
 
+  // Maps keyed on ints, strings and the types that compare as ints are kept in a hash table, and
+  // everything else in a tree. Either way, foreach visits keys in order.
+  private static Map<Value, Value> newMap(final AggregateType type, final boolean caseInsensitive) {
+    if (caseInsensitive) {
+      return new TreeMap<Value, Value>(Value.ignoreCaseComparator);
+    }
+    Map<Value, Value> map = ValueHashMap.forIndexType(type.getIndexType());
+    return map != null ? map : new TreeMap<Value, Value>();
+  }
+
   @SuppressWarnings("unchecked")
   private Map<Value, Value> getMap() {
     return (Map<Value, Value>) this.content;
@@ -101,6 +108,42 @@ public class MapValue extends AggregateValue {
     map.clear();
   }
 
+  @Override
+  public Value copy() {
+    Map<Value, Value> map = this.getMap();
+    MapValue copy =
+        new MapValue(
+            (AggregateType) this.type,
+            map instanceof SortedMap<Value, Value> sorted
+                ? new TreeMap<Value, Value>(sorted.comparator())
+                : MapValue.newMap((AggregateType) this.type, false));
+    copy.copyFrom(this);
+    return copy;
+  }
+
+  @Override
+  public void copyFrom(final CompositeValue source) {
+    if (!(source instanceof MapValue)) {
+      super.copyFrom(source);
+      return;
+    }
+
+    Map<Value, Value> map = this.getMap();
+    map.clear();
+
+    // Copying one TreeMap into an empty one with the same ordering takes linear time, as does
+    // copying a map in order into an empty ValueHashMap
+    map.putAll(((MapValue) source).getMap());
+
+    for (Map.Entry<Value, Value> entry : map.entrySet()) {
+      Value value = entry.getValue();
+      Value copy = value.copy();
+      if (copy != value) {
+        entry.setValue(copy);
+      }
+    }
+  }
+
   @Override
   public int count() {
     Map<Value, Value> map = this.getMap();
@@ -9,7 +9,74 @@ import net.sourceforge.kolmafia.textui.ScriptRuntime;
 import org.eclipse.lsp4j.Location;
 
 public class Operator extends Command {
+  /**
+   * What an operator does to its operands' values. "-" is SUBTRACT whether it has one operand or
+   * two.
+   */
+  enum Op {
+    NOT,
+    INVERT,
+    OR,
+    AND,
+    CONTAINS,
+    EQ,
+    APPROX,
+    NE,
+    LT,
+    GT,
+    LE,
+    GE,
+    ADD,
+    SUBTRACT,
+    MULTIPLY,
+    DIVIDE,
+    MODULO,
+    POWER,
+    SHIFT_LEFT,
+    SHIFT_RIGHT,
+    SHIFT_RIGHT_UNSIGNED,
+    BIT_AND,
+    BIT_XOR,
+    BIT_OR;
+
+    boolean isComparison() {
+      return this.ordinal() >= EQ.ordinal() && this.ordinal() <= GE.ordinal();
+    }
+
+    // Returns null for operators which do more than apply themselves to values, such as "remove"
+    static Op decode(final String operator) {
+      return switch (operator) {
+        case "!" -> NOT;
+        case "~" -> INVERT;
+        case "||" -> OR;
+        case "&&" -> AND;
+        case "contains" -> CONTAINS;
+        case "==" -> EQ;
+        case Parser.APPROX -> APPROX;
+        case "!=" -> NE;
+        case "<" -> LT;
+        case ">" -> GT;
+        case "<=" -> LE;
+        case ">=" -> GE;
+        case "+" -> ADD;
+        case "-" -> SUBTRACT;
+        case "*" -> MULTIPLY;
+        case "/" -> DIVIDE;
+        case "%" -> MODULO;
+        case "**" -> POWER;
+        case "<<" -> SHIFT_LEFT;
+        case ">>" -> SHIFT_RIGHT;
+        case ">>>" -> SHIFT_RIGHT_UNSIGNED;
+        case "&" -> BIT_AND;
+        case "^" -> BIT_XOR;
+        case "|" -> BIT_OR;
+        default -> null;
+      };
+    }
+  }
+
   final String operator;
+  private final Op op;
 
   // For runtime error messages
   private final String fileName;
@@ -18,6 +85,7 @@ public class Operator extends Command {
   public Operator(final Location location, final String operator, final Parser parser) {
     super(location);
     this.operator = operator;
+    this.op = Op.decode(operator);
     this.fileName = parser.getShortFileName();
     this.lineNumber = parser.getLineNumber();
   }
@@ -257,6 +325,28 @@ public class Operator extends Command {
   }
 
   private Value compareValues(final AshRuntime interpreter, Value leftValue, Value rightValue) {
+    Value result = Operator.compare(this.op, leftValue, rightValue);
+    if (ScriptRuntime.isTracing()) {
+      interpreter.trace("<- " + result);
+    }
+    interpreter.traceUnindent();
+    return result;
+  }
+
+  private static boolean test(final Op op, final int c) {
+    return switch (op) {
+      case EQ, APPROX -> c == 0;
+      case NE -> c != 0;
+      case GE -> c >= 0;
+      case LE -> c <= 0;
+      case GT -> c > 0;
+      case LT -> c < 0;
+      default -> false;
+    };
+  }
+
+  /** Applies a comparison operator to two values, converting them by their runtime types. */
+  private static Value compare(final Op op, final Value leftValue, final Value rightValue) {
     Type ltype = leftValue.getType();
     Type rtype = rightValue.getType();
     boolean bool;
@@ -265,22 +355,8 @@ public class Operator extends Command {
     if (Operator.isStringLike(ltype) || Operator.isStringLike(rtype)) {
       String lstring = leftValue.toString();
       String rstring = rightValue.toString();
-      int c =
-          this.operator.equals(Parser.APPROX)
-              ? lstring.compareToIgnoreCase(rstring)
-              : lstring.compareTo(rstring);
-      bool =
-          (this.operator.equals("==") || this.operator.equals(Parser.APPROX))
-              ? c == 0
-              : this.operator.equals("!=")
-                  ? c != 0
-                  : this.operator.equals(">=")
-                      ? c >= 0
-                      : this.operator.equals("<=")
-                          ? c <= 0
-                          : this.operator.equals(">")
-                              ? c > 0
-                              : this.operator.equals("<") ? c < 0 : false;
+      int c = op == Op.APPROX ? lstring.compareToIgnoreCase(rstring) : lstring.compareTo(rstring);
+      bool = Operator.test(op, c);
     }
 
     // If either value is a float, coerce to float and compare.
@@ -289,36 +365,22 @@ public class Operator extends Command {
       double lfloat = leftValue.toFloatValue().floatValue();
       double rfloat = rightValue.toFloatValue().floatValue();
       bool =
-          (this.operator.equals("==") || this.operator.equals(Parser.APPROX))
-              ? lfloat == rfloat
-              : this.operator.equals("!=")
-                  ? lfloat != rfloat
-                  : this.operator.equals(">=")
-                      ? lfloat >= rfloat
-                      : this.operator.equals("<=")
-                          ? lfloat <= rfloat
-                          : this.operator.equals(">")
-                              ? lfloat > rfloat
-                              : this.operator.equals("<") ? lfloat < rfloat : false;
+          switch (op) {
+            case EQ, APPROX -> lfloat == rfloat;
+            case NE -> lfloat != rfloat;
+            case GE -> lfloat >= rfloat;
+            case LE -> lfloat <= rfloat;
+            case GT -> lfloat > rfloat;
+            case LT -> lfloat < rfloat;
+            default -> false;
+          };
     }
 
     // VYKEA companions have a "name" component which should not be compared
     else if (ltype.equals(DataTypes.TYPE_VYKEA) || rtype.equals(DataTypes.TYPE_VYKEA)) {
       VYKEACompanionData v1 = (VYKEACompanionData) (leftValue.content);
       VYKEACompanionData v2 = (VYKEACompanionData) (rightValue.content);
-      int c = v1.compareTo(v2);
-      bool =
-          (this.operator.equals("==") || this.operator.equals(Parser.APPROX))
-              ? c == 0
-              : this.operator.equals("!=")
-                  ? c != 0
-                  : this.operator.equals(">=")
-                      ? c >= 0
-                      : this.operator.equals("<=")
-                          ? c <= 0
-                          : this.operator.equals(">")
-                              ? c > 0
-                              : this.operator.equals("<") ? c < 0 : false;
+      bool = Operator.test(op, v1.compareTo(v2));
     }
 
     // Otherwise, compare integers
@@ -326,20 +388,22 @@ public class Operator extends Command {
       long lint = leftValue.intValue();
       long rint = rightValue.intValue();
       bool =
-          (this.operator.equals("==") || this.operator.equals(Parser.APPROX))
-              ? lint == rint
-              : this.operator.equals("!=")
-                  ? lint != rint
-                  : this.operator.equals(">=")
-                      ? lint >= rint
-                      : this.operator.equals("<=")
-                          ? lint <= rint
-                          : this.operator.equals(">")
-                              ? lint > rint
-                              : this.operator.equals("<") ? lint < rint : false;
-    }
-
-    Value result = bool ? DataTypes.TRUE_VALUE : DataTypes.FALSE_VALUE;
+          switch (op) {
+            case EQ, APPROX -> lint == rint;
+            case NE -> lint != rint;
+            case GE -> lint >= rint;
+            case LE -> lint <= rint;
+            case GT -> lint > rint;
+            case LT -> lint < rint;
+            default -> false;
+          };
+    }
+
+    return bool ? DataTypes.TRUE_VALUE : DataTypes.FALSE_VALUE;
+  }
+
+  private Value performArithmetic(final AshRuntime interpreter, Value leftValue, Value rightValue) {
+    Value result = this.arithmetic(interpreter, leftValue, rightValue);
     if (ScriptRuntime.isTracing()) {
       interpreter.trace("<- " + result);
     }
@@ -347,16 +411,19 @@ public class Operator extends Command {
     return result;
   }
 
-  private Value performArithmetic(final AshRuntime interpreter, Value leftValue, Value rightValue) {
+  /**
+   * Applies an arithmetic, logical or shift operator to two values, converting them by their
+   * runtime types.
+   */
+  private Value arithmetic(final AshRuntime interpreter, final Value leftValue, final Value rightValue) {
     Type ltype = leftValue.getType();
     Type rtype = rightValue.getType();
-    Value result;
 
     // If either side is non-numeric, perform string operations
     if (Operator.isStringLike(ltype) || Operator.isStringLike(rtype)) {
       // Since we only do string concatenation, we should
       // only get here if the operator is "+".
-      if (!this.operator.equals("+")) {
+      if (this.op != Op.ADD) {
         throw interpreter.runtimeException(
             "Operator '" + this.operator + "' applied to string operands",
             this.fileName,
@@ -364,14 +431,14 @@ public class Operator extends Command {
       }
 
       String string = leftValue.toStringValue().toString() + rightValue.toStringValue().toString();
-      result = new Value(string);
+      return new Value(string);
     }
 
     // If either value is a float, coerce to float
 
-    else if (ltype.equals(DataTypes.TYPE_FLOAT) || rtype.equals(DataTypes.TYPE_FLOAT)) {
+    if (ltype.equals(DataTypes.TYPE_FLOAT) || rtype.equals(DataTypes.TYPE_FLOAT)) {
       double rfloat = rightValue.toFloatValue().floatValue();
-      if ((this.operator.equals("/") || this.operator.equals("%")) && rfloat == 0.0) {
+      if ((this.op == Op.DIVIDE || this.op == Op.MODULO) && rfloat == 0.0) {
         throw interpreter.runtimeException("Division by zero", this.fileName, this.lineNumber);
       }
 
@@ -379,7 +446,7 @@ public class Operator extends Command {
 
       double val;
 
-      if (this.operator.equals("**")) {
+      if (this.op == Op.POWER) {
         val = Math.pow(lfloat, rfloat);
         if (Double.isNaN(val) || Double.isInfinite(val)) {
           throw interpreter.runtimeException(
@@ -389,71 +456,57 @@ public class Operator extends Command {
         }
       } else {
         val =
-            this.operator.equals("+")
-                ? lfloat + rfloat
-                : this.operator.equals("-")
-                    ? lfloat - rfloat
-                    : this.operator.equals("*")
-                        ? lfloat * rfloat
-                        : this.operator.equals("/")
-                            ? lfloat / rfloat
-                            : this.operator.equals("%") ? lfloat % rfloat : 0.0;
+            switch (this.op) {
+              case ADD -> lfloat + rfloat;
+              case SUBTRACT -> lfloat - rfloat;
+              case MULTIPLY -> lfloat * rfloat;
+              case DIVIDE -> lfloat / rfloat;
+              case MODULO -> lfloat % rfloat;
+              default -> 0.0;
+            };
       }
 
-      result = DataTypes.makeFloatValue(val);
+      return DataTypes.makeFloatValue(val);
     }
 
     // If this is a logical operator, return an int or boolean
-    else if (this.isLogical()) {
+    if (this.isLogical()) {
       long lint = leftValue.intValue();
       long rint = rightValue.intValue();
       long val =
-          this.operator.equals("&")
-              ? lint & rint
-              : this.operator.equals("^")
-                  ? lint ^ rint
-                  : this.operator.equals("|") ? lint | rint : 0;
-      result =
-          ltype.equals(DataTypes.TYPE_BOOLEAN)
-              ? DataTypes.makeBooleanValue(val != 0)
-              : DataTypes.makeIntValue(val);
+          switch (this.op) {
+            case BIT_AND -> lint & rint;
+            case BIT_XOR -> lint ^ rint;
+            case BIT_OR -> lint | rint;
+            default -> 0;
+          };
+      return ltype.equals(DataTypes.TYPE_BOOLEAN)
+          ? DataTypes.makeBooleanValue(val != 0)
+          : DataTypes.makeIntValue(val);
     }
 
     // Otherwise, perform arithmetic on integers
 
-    else {
-      long rint = rightValue.intValue();
-      if ((this.operator.equals("/") || this.operator.equals("%")) && rint == 0) {
-        throw interpreter.runtimeException("Division by zero", this.fileName, this.lineNumber);
-      }
-
-      long lint = leftValue.intValue();
-      long val =
-          this.operator.equals("+")
-              ? lint + rint
-              : this.operator.equals("-")
-                  ? lint - rint
-                  : this.operator.equals("*")
-                      ? lint * rint
-                      : this.operator.equals("/")
-                          ? lint / rint
-                          : this.operator.equals("%")
-                              ? lint % rint
-                              : this.operator.equals("**")
-                                  ? (long) Math.pow(lint, rint)
-                                  : this.operator.equals("<<")
-                                      ? lint << rint
-                                      : this.operator.equals(">>")
-                                          ? lint >> rint
-                                          : this.operator.equals(">>>") ? lint >>> rint : 0;
-      result = DataTypes.makeIntValue(val);
-    }
-
-    if (ScriptRuntime.isTracing()) {
-      interpreter.trace("<- " + result);
-    }
-    interpreter.traceUnindent();
-    return result;
+    long rint = rightValue.intValue();
+    if ((this.op == Op.DIVIDE || this.op == Op.MODULO) && rint == 0) {
+      throw interpreter.runtimeException("Division by zero", this.fileName, this.lineNumber);
+    }
+
+    long lint = leftValue.intValue();
+    long val =
+        switch (this.op) {
+          case ADD -> lint + rint;
+          case SUBTRACT -> lint - rint;
+          case MULTIPLY -> lint * rint;
+          case DIVIDE -> lint / rint;
+          case MODULO -> lint % rint;
+          case POWER -> (long) Math.pow(lint, rint);
+          case SHIFT_LEFT -> lint << rint;
+          case SHIFT_RIGHT -> lint >> rint;
+          case SHIFT_RIGHT_UNSIGNED -> lint >>> rint;
+          default -> 0;
+        };
+    return DataTypes.makeIntValue(val);
   }
 
   public Value applyTo(final AshRuntime interpreter, final TypedNode lhs) {
@@ -712,12 +765,12 @@ public class Operator extends Command {
     }
 
     // Comparison operators
-    if (this.isComparison()) {
+    if (this.op != null && this.op.isComparison()) {
       return this.compareValues(interpreter, leftValue, rightValue);
     }
 
     // Arithmetic operators
-    if (this.isArithmetic() || this.isLogical() || this.isInteger()) {
+    if (this.op != null && (this.isArithmetic() || this.isLogical() || this.isInteger())) {
       return this.performArithmetic(interpreter, leftValue, rightValue);
     }
 
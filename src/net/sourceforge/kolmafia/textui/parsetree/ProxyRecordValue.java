@@ -1,9 +1,13 @@
 package net.sourceforge.kolmafia.textui.parsetree;
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import net.sourceforge.kolmafia.AdventureResult;
 import net.sourceforge.kolmafia.AreaCombatData;
@@ -29,8 +33,12 @@ import net.sourceforge.kolmafia.request.UseItemRequest;
 import net.sourceforge.kolmafia.request.WildfireCampRequest;
 import net.sourceforge.kolmafia.textui.AshRuntime;
 import net.sourceforge.kolmafia.textui.DataTypes;
+import net.sourceforge.kolmafia.textui.ScriptException;
 
 public class ProxyRecordValue extends RecordValue {
+  // The getter for each field of each proxy record type, found the first time it is used
+  private static final Map<RecordType, MethodHandle[]> GETTERS = new ConcurrentHashMap<>();
+
   public ProxyRecordValue(final RecordType type, final Value obj) {
     super(type);
 
@@ -58,10 +66,10 @@ public class ProxyRecordValue extends RecordValue {
 
     Object rv;
     try {
-      rv = this.getClass().getMethod("get_" + type.getFieldNames()[index]).invoke(this);
-    } catch (InvocationTargetException e) {
-      throw interpreter.runtimeException("Unable to invoke attribute getter: " + e.getCause());
-    } catch (Exception e) {
+      rv = this.getter(type, index).invokeExact(this);
+    } catch (ScriptException e) {
+      throw e;
+    } catch (Throwable e) {
       throw interpreter.runtimeException("Unable to invoke attribute getter: " + e);
     }
 
@@ -105,6 +113,21 @@ public class ProxyRecordValue extends RecordValue {
         "Unable to convert attribute value of type: " + rv.getClass());
   }
 
+  private MethodHandle getter(final RecordType type, final int index)
+      throws ReflectiveOperationException {
+    MethodHandle[] getters =
+        ProxyRecordValue.GETTERS.computeIfAbsent(type, t -> new MethodHandle[t.fieldCount()]);
+    MethodHandle getter = getters[index];
+    if (getter == null) {
+      getter =
+          MethodHandles.publicLookup()
+              .unreflect(this.getClass().getMethod("get_" + type.getFieldNames()[index]))
+              .asType(MethodType.methodType(Object.class, ProxyRecordValue.class));
+      getters[index] = getter;
+    }
+    return getter;
+  }
+
   @Override
   public void aset(final Value key, final Value val, final AshRuntime interpreter) {
     throw interpreter.runtimeException("Cannot assign to a proxy record field");
@@ -101,6 +101,17 @@ public class RecordValue extends CompositeValue {
     }
   }
 
+  @Override
+  public Value copy() {
+    RecordValue copy = new RecordValue((RecordType) this.type);
+    Value[] array = (Value[]) this.content;
+    Value[] content = (Value[]) copy.content;
+    for (int index = 0; index < array.length; ++index) {
+      content[index] = array[index].copy();
+    }
+    return copy;
+  }
+
   @Override
   public Value[] keys() {
     return ((RecordType) this.type).getFieldIndices();
@@ -93,6 +93,17 @@ public class Value implements TypedNode, Comparable<Value> {
     this.content = original.content;
   }
 
+  /**
+   * Returns a copy of this value which can be changed without changing this one. Simple values are
+   * never changed once made, so they are shared; buffers and composite values are copied.
+   */
+  public Value copy() {
+    if (this.content instanceof StringBuffer buffer) {
+      return new Value(this.type, this.contentLong, this.contentString, new StringBuffer(buffer));
+    }
+    return this;
+  }
+
   public Value toFloatValue() {
     if (this.getType().equals(DataTypes.TYPE_FLOAT)) {
       return this;
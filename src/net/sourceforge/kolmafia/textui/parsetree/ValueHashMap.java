@@ -0,0 +1,427 @@
+package net.sourceforge.kolmafia.textui.parsetree;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import net.sourceforge.kolmafia.textui.DataTypes;
+
+/**
+ * The contents of an ASH map whose keys are ints, strings or one of the types which compare as
+ * numbers (items, skills, effects and so on), kept in a hash table rather than a tree.
+ *
+ * <p>Keys are hashed on the part of the value which {@link Value#compareTo} looks at for their
+ * type, so two keys are the same key exactly when a TreeMap would think so. Looking up, adding and
+ * replacing a value takes constant time.
+ *
+ * <p>foreach still visits keys in order. Keys are kept in a list in the order they were added, and
+ * the list is sorted the first time the map is iterated after a key is added out of order. Maps
+ * which are filled in order (from a data file, or in a counting loop) are never sorted at all, and
+ * a sorted list with a few keys added at the end sorts in close to linear time.
+ */
+public abstract class ValueHashMap extends AbstractMap<Value, Value> {
+  // Keys in the order foreach visits them, once sorted. Removed keys stay until the list is next
+  // copied.
+  private Node[] order = new Node[8];
+  private int orderSize = 0;
+  private boolean sorted = true;
+
+  // Incremented when a key is added or removed, so iterators can report changes made underneath
+  // them as a TreeMap's would
+  private int modCount = 0;
+
+  /**
+   * Returns an empty hash map for keys of the given type, or null if keys of that type have to be
+   * kept in a tree.
+   */
+  public static ValueHashMap forIndexType(final Type indexType) {
+    switch (indexType.getBaseType().getType()) {
+      case DataTypes.TYPE_BOOLEAN:
+      case DataTypes.TYPE_INT:
+      case DataTypes.TYPE_ITEM:
+      case DataTypes.TYPE_EFFECT:
+      case DataTypes.TYPE_CLASS:
+      case DataTypes.TYPE_SKILL:
+      case DataTypes.TYPE_FAMILIAR:
+      case DataTypes.TYPE_SLOT:
+      case DataTypes.TYPE_THRALL:
+      case DataTypes.TYPE_SERVANT:
+        return new IntKeyed();
+      case DataTypes.TYPE_STRING:
+        return new StringKeyed();
+      default:
+        return null;
+    }
+  }
+
+  /** Returns the node for a key, or null if there is none. */
+  abstract Node getNode(final Value key);
+
+  /** Adds the node for a key which has none. */
+  abstract void putNode(final Node node);
+
+  /** Removes the node for a key, returning it, or null if there was none. */
+  abstract Node removeNode(final Value key);
+
+  abstract void clearNodes();
+
+  /** Compares two keys, in the order foreach visits them. */
+  protected abstract int compareKeys(final Value key1, final Value key2);
+
+  /**
+   * A map whose keys compare by {@link Value#contentLong}. The keys are kept unboxed, in an open
+   * addressing table with linear probing.
+   */
+  public static class IntKeyed extends ValueHashMap {
+    private static final int INITIAL_CAPACITY = 16;
+
+    // A slot is empty if its node is null, in which case its key means nothing
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private Node[] nodes = new Node[INITIAL_CAPACITY];
+    private int size = 0;
+
+    private static int hash(final long key) {
+      long h = key * 0x9E3779B97F4A7C15L;
+      return (int) (h ^ (h >>> 32));
+    }
+
+    // Returns the slot holding the key, or the empty slot where it would go
+    private int slot(final long key) {
+      int mask = this.nodes.length - 1;
+      int i = IntKeyed.hash(key) & mask;
+      while (this.nodes[i] != null && this.keys[i] != key) {
+        i = (i + 1) & mask;
+      }
+      return i;
+    }
+
+    private void resize(final int capacity) {
+      long[] oldKeys = this.keys;
+      Node[] oldNodes = this.nodes;
+      this.keys = new long[capacity];
+      this.nodes = new Node[capacity];
+      for (int i = 0; i < oldNodes.length; ++i) {
+        if (oldNodes[i] != null) {
+          int slot = this.slot(oldKeys[i]);
+          this.keys[slot] = oldKeys[i];
+          this.nodes[slot] = oldNodes[i];
+        }
+      }
+    }
+
+    @Override
+    Node getNode(final Value key) {
+      return this.nodes[this.slot(key.contentLong)];
+    }
+
+    @Override
+    void putNode(final Node node) {
+      // Keep the table at most half full, so that runs stay short
+      if (2 * (this.size + 1) > this.nodes.length) {
+        this.resize(this.nodes.length * 2);
+      }
+      long key = node.key.contentLong;
+      int slot = this.slot(key);
+      this.keys[slot] = key;
+      this.nodes[slot] = node;
+      this.size++;
+    }
+
+    @Override
+    Node removeNode(final Value key) {
+      int gap = this.slot(key.contentLong);
+      Node node = this.nodes[gap];
+      if (node == null) {
+        return null;
+      }
+
+      // Move back any later key in the same run that would otherwise be cut off from its home slot
+      // by the gap, leaving no tombstones
+      int mask = this.nodes.length - 1;
+      for (int i = (gap + 1) & mask; this.nodes[i] != null; i = (i + 1) & mask) {
+        int home = IntKeyed.hash(this.keys[i]) & mask;
+        if (((i - home) & mask) >= ((i - gap) & mask)) {
+          this.keys[gap] = this.keys[i];
+          this.nodes[gap] = this.nodes[i];
+          gap = i;
+        }
+      }
+      this.nodes[gap] = null;
+      this.size--;
+      return node;
+    }
+
+    @Override
+    void clearNodes() {
+      this.keys = new long[INITIAL_CAPACITY];
+      this.nodes = new Node[INITIAL_CAPACITY];
+      this.size = 0;
+    }
+
+    @Override
+    public int size() {
+      return this.size;
+    }
+
+    @Override
+    protected int compareKeys(final Value key1, final Value key2) {
+      return Long.compare(key1.contentLong, key2.contentLong);
+    }
+  }
+
+  /** A map whose keys compare by {@link Value#contentString}. */
+  public static class StringKeyed extends ValueHashMap {
+    private final HashMap<String, Node> nodes = new HashMap<>();
+
+    // Keys should all be strings, but a key of another type goes by its string form
+    private static String keyString(final Value key) {
+      return key.contentString != null ? key.contentString : key.toString();
+    }
+
+    @Override
+    Node getNode(final Value key) {
+      return this.nodes.get(StringKeyed.keyString(key));
+    }
+
+    @Override
+    void putNode(final Node node) {
+      this.nodes.put(StringKeyed.keyString(node.key), node);
+    }
+
+    @Override
+    Node removeNode(final Value key) {
+      return this.nodes.remove(StringKeyed.keyString(key));
+    }
+
+    @Override
+    void clearNodes() {
+      this.nodes.clear();
+    }
+
+    @Override
+    public int size() {
+      return this.nodes.size();
+    }
+
+    @Override
+    protected int compareKeys(final Value key1, final Value key2) {
+      return StringKeyed.keyString(key1).compareTo(StringKeyed.keyString(key2));
+    }
+  }
+
+  private static class Node implements Map.Entry<Value, Value> {
+    private final Value key;
+    private Value value;
+    private boolean removed = false;
+
+    private Node(final Value key, final Value value) {
+      this.key = key;
+      this.value = value;
+    }
+
+    @Override
+    public Value getKey() {
+      return this.key;
+    }
+
+    @Override
+    public Value getValue() {
+      return this.value;
+    }
+
+    @Override
+    public Value setValue(final Value value) {
+      Value old = this.value;
+      this.value = value;
+      return old;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      return o instanceof Map.Entry<?, ?> e
+          && this.key.equals(e.getKey())
+          && (this.value == null ? e.getValue() == null : this.value.equals(e.getValue()));
+    }
+
+    @Override
+    public int hashCode() {
+      return this.key.hashCode() ^ (this.value == null ? 0 : this.value.hashCode());
+    }
+
+    @Override
+    public String toString() {
+      return this.key + "=" + this.value;
+    }
+  }
+
+  @Override
+  public boolean containsKey(final Object key) {
+    return key instanceof Value v && this.getNode(v) != null;
+  }
+
+  @Override
+  public Value get(final Object key) {
+    if (!(key instanceof Value v)) {
+      return null;
+    }
+    Node node = this.getNode(v);
+    return node == null ? null : node.value;
+  }
+
+  @Override
+  public Value put(final Value key, final Value value) {
+    Node node = this.getNode(key);
+    if (node != null) {
+      return node.setValue(value);
+    }
+
+    if (this.orderSize == this.order.length) {
+      this.compact();
+      if (this.orderSize == this.order.length) {
+        this.order = Arrays.copyOf(this.order, this.orderSize * 2);
+      }
+    }
+    if (this.sorted
+        && this.orderSize > 0
+        && this.compareKeys(this.order[this.orderSize - 1].key, key) > 0) {
+      this.sorted = false;
+    }
+    node = new Node(key, value);
+    this.putNode(node);
+    this.order[this.orderSize++] = node;
+    this.modCount++;
+    return null;
+  }
+
+  @Override
+  public Value remove(final Object key) {
+    if (!(key instanceof Value v)) {
+      return null;
+    }
+    Node node = this.removeNode(v);
+    if (node == null) {
+      return null;
+    }
+    node.removed = true;
+    this.modCount++;
+    return node.value;
+  }
+
+  @Override
+  public void clear() {
+    this.clearNodes();
+    this.order = new Node[8];
+    this.orderSize = 0;
+    this.sorted = true;
+    this.modCount++;
+  }
+
+  // Drops removed keys from the list. A new array is made, rather than changing the old one in
+  // place, so that iterators over the old one are not disturbed.
+  private void compact() {
+    if (this.orderSize == this.size()) {
+      return;
+    }
+
+    Node[] live = new Node[Math.max(8, this.size() * 2)];
+    int size = 0;
+    for (int i = 0; i < this.orderSize; ++i) {
+      if (!this.order[i].removed) {
+        live[size++] = this.order[i];
+      }
+    }
+
+    this.order = live;
+    this.orderSize = size;
+  }
+
+  // Brings the list of keys up to date before iterating over it
+  private void sort() {
+    this.compact();
+    if (this.sorted) {
+      return;
+    }
+
+    Node[] sorted = Arrays.copyOf(this.order, this.order.length);
+    Arrays.sort(sorted, 0, this.orderSize, (n1, n2) -> this.compareKeys(n1.key, n2.key));
+    this.order = sorted;
+    this.sorted = true;
+  }
+
+  @Override
+  public Set<Map.Entry<Value, Value>> entrySet() {
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<Map.Entry<Value, Value>> iterator() {
+        return new EntryIterator();
+      }
+
+      @Override
+      public int size() {
+        return ValueHashMap.this.size();
+      }
+
+      @Override
+      public void clear() {
+        ValueHashMap.this.clear();
+      }
+    };
+  }
+
+  private class EntryIterator implements Iterator<Map.Entry<Value, Value>> {
+    private final Node[] order;
+    private final int size;
+    private int expectedModCount;
+    private int next = 0;
+    private Node current = null;
+
+    private EntryIterator() {
+      ValueHashMap.this.sort();
+      this.order = ValueHashMap.this.order;
+      this.size = ValueHashMap.this.orderSize;
+      this.expectedModCount = ValueHashMap.this.modCount;
+    }
+
+    private void skipRemoved() {
+      while (this.next < this.size && this.order[this.next].removed) {
+        this.next++;
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      this.skipRemoved();
+      return this.next < this.size;
+    }
+
+    @Override
+    public Map.Entry<Value, Value> next() {
+      if (ValueHashMap.this.modCount != this.expectedModCount) {
+        throw new ConcurrentModificationException();
+      }
+      this.skipRemoved();
+      if (this.next >= this.size) {
+        throw new NoSuchElementException();
+      }
+      this.current = this.order[this.next++];
+      return this.current;
+    }
+
+    @Override
+    public void remove() {
+      if (this.current == null || this.current.removed) {
+        throw new IllegalStateException();
+      }
+      if (ValueHashMap.this.modCount != this.expectedModCount) {
+        throw new ConcurrentModificationException();
+      }
+      ValueHashMap.this.remove(this.current.key);
+      this.expectedModCount = ValueHashMap.this.modCount;
+    }
+  }
+}
@@ -0,0 +1,138 @@
+package net.sourceforge.kolmafia.utilities;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import net.java.dev.spellcast.utilities.DataUtilities;
+import net.sourceforge.kolmafia.KoLConstants;
+
+/**
+ * Reads the built-in data files of the game databases in parallel when KoLmafia starts, so that
+ * by the time each database is first used its data is already in memory.
+ *
+ * <p>The databases themselves are still initialized when they are first used, one at a time:
+ * their static initializers refer to each other in cycles (items, consumables, concoctions and
+ * modifiers, for example), and initializing them on several threads at once could deadlock. Their
+ * files don't depend on each other, though, so reading them is done on a fork/join pool.
+ *
+ * <p>Only the bytes of each file are held, and they are decoded and split into fields as the
+ * database reads them. Files in the data snapshot are already in memory, so for them this only
+ * loads the snapshot. Each file is handed out once, and then forgotten; a second read of the same
+ * file goes to the file itself. Files which are never asked for may be dropped if memory is short.
+ * Files with an override in the user's data directory are not read ahead of time.
+ */
+public class DataPrefetcher {
+  public static final List<String> FILES =
+      List.of(
+          "adventures.txt",
+          "bounty.txt",
+          "classskills.txt",
+          "coinmasters.txt",
+          "combats.txt",
+          "concoctions.txt",
+          "consequences.txt",
+          "dailylimits.txt",
+          "encounters.txt",
+          "equipment.txt",
+          "familiars.txt",
+          "foldgroups.txt",
+          "fullness.txt",
+          "inebriety.txt",
+          "items.txt",
+          "modifiers.txt",
+          "monsters.txt",
+          "nonfilling.txt",
+          "npcstores.txt",
+          "outfits.txt",
+          "pulverize.txt",
+          "questscouncil.txt",
+          "questslog.txt",
+          "restores.txt",
+          "spleenhit.txt",
+          "statuseffects.txt",
+          "zapgroups.txt",
+          "zonelist.txt");
+
+  private static final Map<String, Future<SoftReference<byte[]>>> prefetched =
+      new ConcurrentHashMap<>();
+
+  private DataPrefetcher() {}
+
+  /** Starts reading the data files in the background. */
+  public static void start() {
+    DataPrefetcher.start(FILES, ForkJoinPool.commonPool());
+  }
+
+  public static void start(final List<String> filenames, final ForkJoinPool pool) {
+    for (String filename : filenames) {
+      if (new File(KoLConstants.DATA_LOCATION, filename).exists()) {
+        continue;
+      }
+      DataPrefetcher.prefetched.put(
+          filename, CompletableFuture.supplyAsync(() -> DataPrefetcher.load(filename), pool));
+    }
+  }
+
+  public static void reset() {
+    DataPrefetcher.prefetched.clear();
+  }
+
+  private static SoftReference<byte[]> load(final String filename) {
+    DataSnapshot snapshot = DataSnapshot.getInstance();
+    if (snapshot != null && snapshot.getFileReader(filename) != null) {
+      return null;
+    }
+
+    // Read the built-in file directly. DataUtilities.getReader reports overrides through a shared
+    // message, which must not be disturbed from another thread.
+    try (InputStream istream =
+        DataPrefetcher.class
+            .getClassLoader()
+            .getResourceAsStream(KoLConstants.DATA_DIRECTORY + filename)) {
+      return istream == null ? null : new SoftReference<>(istream.readAllBytes());
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns a reader for the given data file, if it was read ahead of time, waiting for it to be
+   * read if necessary.
+   *
+   * @param filename The data file
+   * @return A reader over its contents, or null if it has to be read from the file
+   */
+  public static BufferedReader getReader(final String filename) {
+    Future<SoftReference<byte[]>> future = DataPrefetcher.prefetched.remove(filename);
+    if (future == null) {
+      return null;
+    }
+
+    SoftReference<byte[]> contents;
+    try {
+      contents = future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (ExecutionException e) {
+      return null;
+    }
+
+    byte[] bytes = contents == null ? null : contents.get();
+    if (bytes == null) {
+      return null;
+    }
+
+    return DataUtilities.getReader(new ByteArrayInputStream(bytes));
+  }
+}
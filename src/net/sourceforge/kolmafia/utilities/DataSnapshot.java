@@ -0,0 +1,327 @@
+package net.sourceforge.kolmafia.utilities;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import net.sourceforge.kolmafia.KoLConstants;
+import net.sourceforge.kolmafia.StaticEntity;
+
+/**
+ * A binary snapshot of the largest of KoLmafia's built-in data files, made when KoLmafia is built,
+ * so that they need not be read and split into fields every time KoLmafia starts.
+ *
+ * <p>The snapshot holds a table of every distinct field, followed by each file's rows as lists of
+ * indexes into that table. Rows are only turned back into strings as they are read, and each
+ * distinct field is decoded once. Comments and blank lines are left out, since readData skips
+ * them anyway. The layout is row by row, not column by column, since the databases read each file
+ * a whole row at a time.
+ *
+ * <p>A file with an override in the user's data directory is always read as text.
+ */
+public class DataSnapshot {
+  public static final String FILENAME = "snapshot.bin";
+
+  // The files worth snapshotting: those read at startup by the item, effect, skill, monster,
+  // concoction, equipment, consumable and modifier databases.
+  public static final List<String> FILES =
+      List.of(
+          "classskills.txt",
+          "concoctions.txt",
+          "equipment.txt",
+          "foldgroups.txt",
+          "fullness.txt",
+          "inebriety.txt",
+          "items.txt",
+          "modifiers.txt",
+          "monsters.txt",
+          "nonfilling.txt",
+          "outfits.txt",
+          "pulverize.txt",
+          "spleenhit.txt",
+          "statuseffects.txt");
+
+  private static final int MAGIC = 0x4B6F4C53;
+  private static final int FORMAT_VERSION = 1;
+
+  private static DataSnapshot instance = null;
+  private static boolean loaded = false;
+
+  private final ByteBuffer buffer;
+  private final int[] stringOffsets;
+  private final String[] strings;
+  private final int stringBase;
+  private final Map<String, Integer> files = new HashMap<>();
+
+  private DataSnapshot(final ByteBuffer buffer) throws IOException {
+    this.buffer = buffer;
+
+    if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+      throw new IOException("Unrecognized data snapshot");
+    }
+
+    int stringCount = buffer.getInt();
+    this.stringOffsets = new int[stringCount + 1];
+    for (int i = 0; i <= stringCount; ++i) {
+      this.stringOffsets[i] = buffer.getInt();
+    }
+    this.strings = new String[stringCount];
+    this.stringBase = buffer.position();
+    buffer.position(this.stringBase + this.stringOffsets[stringCount]);
+
+    int fileCount = buffer.getInt();
+    for (int i = 0; i < fileCount; ++i) {
+      byte[] name = new byte[buffer.getShort()];
+      buffer.get(name);
+      this.files.put(new String(name, StandardCharsets.UTF_8), buffer.getInt());
+    }
+  }
+
+  /** Returns the snapshot built into KoLmafia, or null if there isn't a usable one. */
+  public static synchronized DataSnapshot getInstance() {
+    if (!DataSnapshot.loaded) {
+      DataSnapshot.loaded = true;
+      try {
+        ByteBuffer buffer = DataSnapshot.load();
+        DataSnapshot.instance = buffer == null ? null : new DataSnapshot(buffer);
+      } catch (IOException | RuntimeException e) {
+        // Fall back to reading text
+        StaticEntity.printStackTrace(e, "Could not read data snapshot");
+      }
+    }
+    return DataSnapshot.instance;
+  }
+
+  // For tests
+  public static synchronized void setInstance(final DataSnapshot snapshot) {
+    DataSnapshot.instance = snapshot;
+    DataSnapshot.loaded = true;
+  }
+
+  private static URL getResource(final String filename) {
+    return DataSnapshot.class.getClassLoader().getResource(KoLConstants.DATA_DIRECTORY + filename);
+  }
+
+  // Returns the file a resource was loaded from, or null if it is inside a jar
+  private static File getFile(final URL url) {
+    if (url == null || !url.getProtocol().equals("file")) {
+      return null;
+    }
+    try {
+      return new File(url.toURI());
+    } catch (URISyntaxException | IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private static ByteBuffer load() throws IOException {
+    URL url = DataSnapshot.getResource(DataSnapshot.FILENAME);
+    if (url == null) {
+      return null;
+    }
+
+    // When running from a build directory rather than a jar, the data files may have been edited
+    // since the snapshot was made
+    File file = DataSnapshot.getFile(url);
+    if (file != null) {
+      List<File> sources = new ArrayList<>();
+      for (String filename : DataSnapshot.FILES) {
+        File source = DataSnapshot.getFile(DataSnapshot.getResource(filename));
+        if (source != null) {
+          sources.add(source);
+        }
+      }
+      if (DataSnapshot.isOutOfDate(file, sources)) {
+        return null;
+      }
+    }
+
+    // Read rather than map the file, so that it isn't held open
+    try (InputStream istream = url.openStream()) {
+      return ByteBuffer.wrap(istream.readAllBytes());
+    }
+  }
+
+  /** Returns whether any of the given data files has been changed since the snapshot was made. */
+  static boolean isOutOfDate(final File snapshot, final List<File> sources) {
+    long made = snapshot.lastModified();
+    for (File source : sources) {
+      if (source.lastModified() > made) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Reads a snapshot from the given bytes. */
+  public static DataSnapshot read(final ByteBuffer buffer) throws IOException {
+    return new DataSnapshot(buffer);
+  }
+
+  /**
+   * Returns a reader for the built-in copy of the given data file, or null if it should be read
+   * as text: because it is not in the snapshot, or because the user has an override for it.
+   */
+  public static BufferedReader getReader(final String filename) {
+    if (new File(KoLConstants.DATA_LOCATION, filename).exists()) {
+      return null;
+    }
+    DataSnapshot snapshot = DataSnapshot.getInstance();
+    return snapshot == null ? null : snapshot.getFileReader(filename);
+  }
+
+  public BufferedReader getFileReader(final String filename) {
+    Integer position = this.files.get(filename);
+    if (position == null) {
+      return null;
+    }
+    ByteBuffer rows = this.buffer.duplicate();
+    rows.position(position);
+    return new SnapshotReader(rows);
+  }
+
+  private String getString(final int index) {
+    String string = this.strings[index];
+    if (string == null) {
+      int start = this.stringOffsets[index];
+      int length = this.stringOffsets[index + 1] - start;
+      byte[] bytes = new byte[length];
+      this.buffer.duplicate().position(this.stringBase + start).get(bytes);
+      string = new String(bytes, StandardCharsets.UTF_8);
+      this.strings[index] = string;
+    }
+    return string;
+  }
+
+  /** Reads the rows of one file from the snapshot. */
+  public class SnapshotReader extends RowReader {
+    private final ByteBuffer rows;
+    private int remaining;
+
+    private SnapshotReader(final ByteBuffer rows) {
+      this.rows = rows;
+      this.remaining = rows.getInt();
+    }
+
+    @Override
+    public String[] readRow() {
+      if (this.remaining <= 0) {
+        return null;
+      }
+      --this.remaining;
+
+      String[] row = new String[this.rows.getShort()];
+      for (int i = 0; i < row.length; ++i) {
+        row[i] = DataSnapshot.this.getString(this.rows.getInt());
+      }
+      return row;
+    }
+
+    @Override
+    public void close() {
+      this.remaining = 0;
+    }
+  }
+
+  /**
+   * Writes a snapshot of the given data files.
+   *
+   * @param directory The directory holding the data files
+   * @param filenames The files to include
+   * @return The snapshot
+   */
+  public static byte[] write(final File directory, final List<String> filenames)
+      throws IOException {
+    Map<String, Integer> strings = new LinkedHashMap<>();
+    Map<String, List<int[]>> files = new LinkedHashMap<>();
+
+    for (String filename : filenames) {
+      List<int[]> rows = new ArrayList<>();
+      for (String line : Files.readAllLines(new File(directory, filename).toPath())) {
+        if (line.startsWith("#") || line.length() == 0) {
+          continue;
+        }
+        String[] fields = line.split("\t", -1);
+        int[] row = new int[fields.length];
+        for (int i = 0; i < fields.length; ++i) {
+          row[i] = strings.computeIfAbsent(fields[i], k -> strings.size());
+        }
+        rows.add(row);
+      }
+      files.put(filename, rows);
+    }
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(MAGIC);
+    out.writeInt(FORMAT_VERSION);
+
+    List<byte[]> encoded = new ArrayList<>(strings.size());
+    out.writeInt(strings.size());
+    int offset = 0;
+    out.writeInt(offset);
+    for (String string : strings.keySet()) {
+      byte[] utf8 = string.getBytes(StandardCharsets.UTF_8);
+      encoded.add(utf8);
+      offset += utf8.length;
+      out.writeInt(offset);
+    }
+    for (byte[] utf8 : encoded) {
+      out.write(utf8);
+    }
+
+    // The file table goes before the rows, so work out where each file's rows will start
+    int position = out.size() + 4;
+    for (String filename : files.keySet()) {
+      position += 2 + filename.getBytes(StandardCharsets.UTF_8).length + 4;
+    }
+
+    out.writeInt(files.size());
+    for (Map.Entry<String, List<int[]>> entry : files.entrySet()) {
+      byte[] name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+      out.writeShort(name.length);
+      out.write(name);
+      out.writeInt(position);
+      position += 4;
+      for (int[] row : entry.getValue()) {
+        position += 2 + 4 * row.length;
+      }
+    }
+
+    for (List<int[]> rows : files.values()) {
+      out.writeInt(rows.size());
+      for (int[] row : rows) {
+        out.writeShort(row.length);
+        for (int index : row) {
+          out.writeInt(index);
+        }
+      }
+    }
+
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Builds the snapshot. Run as part of the build.
+   *
+   * @param args The directory holding the data files, and the snapshot file to write
+   */
+  public static void main(final String[] args) throws IOException {
+    File output = new File(args[1]);
+    output.getParentFile().mkdirs();
+    Files.write(output.toPath(), DataSnapshot.write(new File(args[0]), DataSnapshot.FILES));
+  }
+}
@@ -14,8 +14,14 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.zip.GZIPInputStream;
@@ -74,9 +80,16 @@ public class FileUtilities {
   }
 
   public static final BufferedReader getVersionedReader(final String filename, final int version) {
-    BufferedReader reader =
-        FileUtilities.getReader(
-            DataUtilities.getReader(KoLConstants.DATA_DIRECTORY, filename, true));
+    // Use the file as read ahead of time, or the built-in snapshot of it, if there is one
+    BufferedReader reader = DataPrefetcher.getReader(filename);
+    if (reader == null) {
+      reader = DataSnapshot.getReader(filename);
+    }
+    if (reader == null) {
+      reader =
+          FileUtilities.getReader(
+              DataUtilities.getReader(KoLConstants.DATA_DIRECTORY, filename, true));
+    }
 
     // If no file, no reader
     if (reader == null) {
@@ -151,8 +164,33 @@ public class FileUtilities {
       return null;
     }
 
+    if (reader instanceof RowReader rows) {
+      return rows.readRow();
+    }
+
     String line = readLine(reader);
-    return line == null ? null : line.split("\t", -1);
+    return line == null ? null : FileUtilities.splitFields(line);
+  }
+
+  /**
+   * Splits a line of a data file into its tab-separated fields, keeping empty ones. Equivalent to
+   * {@code line.split("\t", -1)}, without building an intermediate list.
+   */
+  public static final String[] splitFields(final String line) {
+    int count = 1;
+    for (int i = line.indexOf('\t'); i != -1; i = line.indexOf('\t', i + 1)) {
+      ++count;
+    }
+
+    String[] fields = new String[count];
+    int start = 0;
+    for (int field = 0; field < count - 1; ++field) {
+      int end = line.indexOf('\t', start);
+      fields[field] = line.substring(start, end);
+      start = end + 1;
+    }
+    fields[count - 1] = line.substring(start);
+    return fields;
   }
 
   public static final boolean internalRelayScriptExists(final String filename) {
@@ -493,6 +531,50 @@ public class FileUtilities {
     }
   }
 
+  public interface Mover {
+    void move(Path source, Path target) throws IOException;
+  }
+
+  /** Replaces the contents of a file, such that it never holds only part of them. */
+  public static void writeAtomically(final File file, final byte[] contents) throws IOException {
+    FileUtilities.writeAtomically(file, contents, FileUtilities::move);
+  }
+
+  /**
+   * Replaces the contents of a file as {@link #writeAtomically(File, byte[])} does, using the given
+   * move to put the new contents in place, so that tests can make it fail.
+   */
+  public static void writeAtomically(final File file, final byte[] contents, final Mover mover)
+      throws IOException {
+    Path target = file.toPath().toAbsolutePath();
+    Path directory = target.getParent();
+    Files.createDirectories(directory);
+
+    Path temp = Files.createTempFile(directory, file.getName(), ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+        ByteBuffer buffer = ByteBuffer.wrap(contents);
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+        channel.force(true);
+      }
+
+      mover.move(temp, target);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  private static void move(final Path source, final Path target) throws IOException {
+    try {
+      Files.move(
+          source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
   private static List<Object> getPathList(File f) {
     List<Object> l = new ArrayList<>();
     File r;
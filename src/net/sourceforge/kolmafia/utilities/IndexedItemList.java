@@ -0,0 +1,16 @@
+package net.sourceforge.kolmafia.utilities;
+
+import net.sourceforge.kolmafia.AdventureResult;
+
+/**
+ * A sorted list of items which also keeps them indexed by item id, so that looking one up doesn't
+ * need a search. No two items in the list may have the same id.
+ */
+public interface IndexedItemList {
+  /**
+   * Returns the element with the given item id, or null if there is none
+   *
+   * @param itemId Item id, which must be positive
+   */
+  AdventureResult findItem(int itemId);
+}
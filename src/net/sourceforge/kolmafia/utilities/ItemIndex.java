@@ -0,0 +1,58 @@
+package net.sourceforge.kolmafia.utilities;
+
+import java.util.Arrays;
+import java.util.List;
+import net.sourceforge.kolmafia.AdventureResult;
+
+/**
+ * The index behind an {@link IndexedItemList}. Elements are stored by item id. The index is
+ * updated as single elements are added, replaced or removed, and is rebuilt from the list on the
+ * next lookup after anything else changes it. Callers are responsible for synchronization.
+ */
+class ItemIndex {
+  private AdventureResult[] byId = null;
+
+  void invalidate() {
+    this.byId = null;
+  }
+
+  void added(final AdventureResult element) {
+    if (this.byId != null) {
+      this.put(element);
+    }
+  }
+
+  void removed(final AdventureResult element) {
+    if (this.byId == null || element == null || !element.isItem()) {
+      return;
+    }
+    int id = element.getItemId();
+    if (id > 0 && id < this.byId.length && this.byId[id] == element) {
+      this.byId[id] = null;
+    }
+  }
+
+  AdventureResult find(final int itemId, final List<AdventureResult> elements) {
+    if (this.byId == null) {
+      this.byId = new AdventureResult[0];
+      for (AdventureResult element : elements) {
+        this.put(element);
+      }
+    }
+    return itemId < this.byId.length ? this.byId[itemId] : null;
+  }
+
+  private void put(final AdventureResult element) {
+    if (element == null || !element.isItem()) {
+      return;
+    }
+    int id = element.getItemId();
+    if (id <= 0) {
+      return;
+    }
+    if (id >= this.byId.length) {
+      this.byId = Arrays.copyOf(this.byId, Math.max(id + 1, this.byId.length * 2));
+    }
+    this.byId[id] = element;
+  }
+}
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 import net.java.dev.spellcast.utilities.LockableListModel;
 import net.java.dev.spellcast.utilities.SortedListModel;
+import net.sourceforge.kolmafia.AdventureResult;
 
 /**
  * {@link net.java.dev.spellcast.utilities.LockableListModel} is used to hold data, but it depends
@@ -43,6 +44,19 @@ public class LockableListFactory {
     return i;
   }
 
+  /**
+   * Get an instance of SortedItemListModel if Swing is available, else get a SortedItemList. Both
+   * can also find an item by id; see {@link IndexedItemList}.
+   *
+   * @return SortedItemListModel or a SortedItemList if Swing cannot be loaded
+   */
+  public static List<AdventureResult> getSortedItemInstance() {
+    if (SwinglessUIUtils.isSwingAvailable) {
+      return new SortedItemListModel();
+    }
+    return new SortedItemList();
+  }
+
   /**
    * Calls {@link net.java.dev.spellcast.utilities.LockableListModel#getSize()} if possible, else
    * returns list size
@@ -0,0 +1,185 @@
+package net.sourceforge.kolmafia.utilities;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Finds which of a fixed set of strings occur in a text, in a single pass over it.
+ *
+ * <p>This is the Aho-Corasick algorithm: the strings are built into a trie, each node of which
+ * also links to the node for its longest proper suffix that is in the trie, so the text is read
+ * once however many strings there are, rather than once per string as with repeated calls to
+ * indexOf.
+ *
+ * <p>The links are followed ahead of time, giving a table of where each character leads from each
+ * node, so that reading a character of the text is a couple of array lookups. Characters which are
+ * in none of the strings share a single column of that table.
+ */
+public class MultiStringMatcher {
+  // How much of the text is read at once
+  private static final int CHUNK_SIZE = 4096;
+
+  private final int count;
+
+  // The column of the table for each ASCII character, and for each other character in the
+  // strings, in order
+  private final int[] asciiColumns = new int[128];
+  private final char[] otherChars;
+  private final int[] otherColumns;
+  private final int width;
+
+  // For each node and column, the node reached by reading a character in that column
+  private final int[] table;
+  // For each node, the strings which end at it, or at its suffixes
+  private final int[][] matches;
+
+  public MultiStringMatcher(final List<String> strings) {
+    this.count = strings.size();
+
+    List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+    List<List<Integer>> ends = new ArrayList<>();
+    trie.add(new TreeMap<>());
+    ends.add(new ArrayList<>());
+    TreeSet<Character> alphabet = new TreeSet<>();
+
+    for (int i = 0; i < strings.size(); ++i) {
+      String string = strings.get(i);
+      if (string.isEmpty()) {
+        throw new IllegalArgumentException("Cannot match an empty string");
+      }
+      int node = 0;
+      for (int j = 0; j < string.length(); ++j) {
+        char c = string.charAt(j);
+        alphabet.add(c);
+        Integer child = trie.get(node).get(c);
+        if (child == null) {
+          child = trie.size();
+          trie.add(new TreeMap<>());
+          ends.add(new ArrayList<>());
+          trie.get(node).put(c, child);
+        }
+        node = child;
+      }
+      ends.get(node).add(i);
+    }
+
+    // Column 0 is for characters in none of the strings
+    int column = 1;
+    List<Character> others = new ArrayList<>();
+    for (char c : alphabet) {
+      if (c < 128) {
+        this.asciiColumns[c] = column++;
+      } else {
+        others.add(c);
+      }
+    }
+    this.otherChars = new char[others.size()];
+    this.otherColumns = new int[others.size()];
+    for (int k = 0; k < others.size(); ++k) {
+      this.otherChars[k] = others.get(k);
+      this.otherColumns[k] = column++;
+    }
+    int width = this.width = column;
+
+    // Breadth first, so that a node's suffix is done before the node
+    int size = trie.size();
+    int[] fail = new int[size];
+    this.table = new int[size * width];
+    this.matches = new int[size][];
+    this.matches[0] = new int[0];
+    Queue<Integer> queue = new ArrayDeque<>();
+    for (var edge : trie.get(0).entrySet()) {
+      this.table[this.column(edge.getKey())] = edge.getValue();
+      queue.add(edge.getValue());
+    }
+    while (!queue.isEmpty()) {
+      int node = queue.remove();
+      int[] inherited = this.matches[fail[node]];
+      List<Integer> own = ends.get(node);
+      int[] all = Arrays.copyOf(inherited, inherited.length + own.size());
+      for (int k = 0; k < own.size(); ++k) {
+        all[inherited.length + k] = own.get(k);
+      }
+      this.matches[node] = all;
+
+      // A character leads wherever it leads from the node's suffix, unless the node has a child
+      // for it, whose own suffix is then wherever the character leads from the node's suffix
+      System.arraycopy(this.table, fail[node] * width, this.table, node * width, width);
+      for (var edge : trie.get(node).entrySet()) {
+        int child = edge.getValue();
+        int index = node * width + this.column(edge.getKey());
+        fail[child] = this.table[index];
+        this.table[index] = child;
+        queue.add(child);
+      }
+    }
+  }
+
+  // Returns the column of the table for a character
+  private int column(final char c) {
+    if (c < 128) {
+      return this.asciiColumns[c];
+    }
+    int k = Arrays.binarySearch(this.otherChars, c);
+    return k < 0 ? 0 : this.otherColumns[k];
+  }
+
+  /**
+   * Returns, for each string given to the constructor, whether it occurs in the text. Stops
+   * reading the text once all have been found.
+   */
+  public boolean[] find(final CharSequence text) {
+    boolean[] found = new boolean[this.count];
+    int remaining = this.count;
+    int node = 0;
+
+    // Read the text a chunk at a time rather than copying all of it, or locking a StringBuffer
+    // for every character
+    int length = text.length();
+    char[] chunk = new char[Math.min(length, CHUNK_SIZE)];
+
+    for (int start = 0; start < length && remaining > 0; start += chunk.length) {
+      int end = Math.min(length, start + chunk.length);
+      MultiStringMatcher.getChars(text, start, end, chunk);
+
+      for (int i = 0; i < end - start && remaining > 0; ++i) {
+        char c = chunk[i];
+        node = this.table[node * this.width + (c < 128 ? this.asciiColumns[c] : this.column(c))];
+
+        int[] matches = this.matches[node];
+        if (matches.length == 0) {
+          continue;
+        }
+        for (int match : matches) {
+          if (!found[match]) {
+            found[match] = true;
+            --remaining;
+          }
+        }
+      }
+    }
+
+    return found;
+  }
+
+  // Copies part of the text into the start of the chunk
+  private static void getChars(
+      final CharSequence text, final int start, final int end, final char[] chunk) {
+    if (text instanceof String string) {
+      string.getChars(start, end, chunk, 0);
+    } else if (text instanceof StringBuffer buffer) {
+      buffer.getChars(start, end, chunk, 0);
+    } else if (text instanceof StringBuilder builder) {
+      builder.getChars(start, end, chunk, 0);
+    } else {
+      for (int i = start; i < end; ++i) {
+        chunk[i - start] = text.charAt(i);
+      }
+    }
+  }
+}
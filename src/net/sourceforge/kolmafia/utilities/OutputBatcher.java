@@ -0,0 +1,126 @@
+package net.sourceforge.kolmafia.utilities;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Collects output and hands it on in batches.
+ *
+ * <p>Adding output never blocks: it is queued, and a short while later a background thread joins
+ * everything queued in the meantime and hands it to the sink in one go. A script that prints
+ * thousands of lines thus causes a few dozen updates of the display rather than thousands.
+ *
+ * <p>If output arrives faster than it is handed on, the oldest output is dropped once more than
+ * the given number of characters are waiting, as it would have scrolled out of the display
+ * anyway. Output which is too long to hold by itself is cut down to its last lines, as ChatBuffer
+ * trims the display, so that the newest output is always shown.
+ */
+public class OutputBatcher {
+  private final Consumer<String> sink;
+  private final long delay;
+  private final int maximumLength;
+  private final ScheduledExecutorService executor;
+
+  private final Queue<String> pending = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger pendingLength = new AtomicInteger();
+  private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+  // Held while handing output to the sink, so that batches arrive in order
+  private final Object io = new Object();
+
+  /**
+   * @param sink Given each batch of output, on a background thread
+   * @param delay Milliseconds to wait for further output before handing it on
+   * @param maximumLength The most characters to hold before dropping the oldest
+   */
+  public OutputBatcher(final Consumer<String> sink, final long delay, final int maximumLength) {
+    this.sink = sink;
+    this.delay = delay;
+    this.maximumLength = maximumLength;
+    this.executor =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread thread = new Thread(r, "OutputBatcher");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /** Queues output to be handed on shortly. */
+  public void add(final String output) {
+    if (output == null || output.isEmpty()) {
+      return;
+    }
+
+    String kept = OutputBatcher.trim(output, this.maximumLength);
+    this.pending.add(kept);
+    int length = this.pendingLength.addAndGet(kept.length());
+
+    while (length > this.maximumLength) {
+      String dropped = this.pending.poll();
+      if (dropped == null) {
+        break;
+      }
+      length = this.pendingLength.addAndGet(-dropped.length());
+    }
+
+    if (this.scheduled.compareAndSet(false, true)) {
+      this.executor.schedule(this::flush, this.delay, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  // Returns the end of the output, from the start of a line if there is one, holding no more than
+  // the given number of characters
+  static String trim(final String output, final int maximumLength) {
+    if (output.length() <= maximumLength) {
+      return output;
+    }
+
+    int start = output.length() - maximumLength;
+    int lineIndex = output.indexOf("<br", start);
+    if (lineIndex != -1) {
+      lineIndex = output.indexOf(">", lineIndex) + 1;
+    }
+    return output.substring(lineIndex > 0 ? lineIndex : start);
+  }
+
+  /** Returns whether any output is waiting to be handed on. */
+  public boolean isPending() {
+    return !this.pending.isEmpty();
+  }
+
+  /** Hands on all queued output, on this thread. */
+  public void flush() {
+    synchronized (this.io) {
+      this.scheduled.set(false);
+      String batch = this.drain();
+      if (!batch.isEmpty()) {
+        this.sink.accept(batch);
+      }
+    }
+  }
+
+  /** Drops all queued output, then runs the given action before any further output is handed on. */
+  public void clear(final Runnable action) {
+    synchronized (this.io) {
+      this.drain();
+      action.run();
+    }
+  }
+
+  private String drain() {
+    StringBuilder batch = new StringBuilder();
+    String output;
+    while ((output = this.pending.poll()) != null) {
+      this.pendingLength.addAndGet(-output.length());
+      batch.append(output);
+    }
+    return batch.toString();
+  }
+}
@@ -0,0 +1,27 @@
+package net.sourceforge.kolmafia.utilities;
+
+import java.io.BufferedReader;
+import java.io.Reader;
+
+/**
+ * A reader over a data file whose lines have already been split into fields. FileUtilities.readData
+ * returns each row as it is; readLine returns it joined back together with tabs, as it was in the
+ * file. Comments and blank lines have already been removed.
+ */
+public abstract class RowReader extends BufferedReader {
+  protected RowReader() {
+    super(Reader.nullReader(), 1);
+  }
+
+  /** Returns the next row, or null at the end of the file. */
+  public abstract String[] readRow();
+
+  @Override
+  public String readLine() {
+    String[] row = this.readRow();
+    return row == null ? null : String.join("\t", row);
+  }
+
+  @Override
+  public void close() {}
+}
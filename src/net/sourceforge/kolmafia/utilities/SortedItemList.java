@@ -0,0 +1,96 @@
+package net.sourceforge.kolmafia.utilities;
+
+import java.util.Collection;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import net.sourceforge.kolmafia.AdventureResult;
+
+/** A {@link SortedList} of items which can also find an item by id. */
+public class SortedItemList extends SortedList<AdventureResult> implements IndexedItemList {
+  private transient ItemIndex index = new ItemIndex();
+
+  @Override
+  public synchronized AdventureResult findItem(final int itemId) {
+    return this.index.find(itemId, this);
+  }
+
+  @Override
+  public synchronized boolean add(final AdventureResult o) {
+    boolean added = super.add(o);
+    if (added) {
+      this.index.added(o);
+    }
+    return added;
+  }
+
+  @Override
+  public synchronized boolean addAll(
+      final int index, final Collection<? extends AdventureResult> c) {
+    this.index.invalidate();
+    return super.addAll(index, c);
+  }
+
+  @Override
+  public synchronized AdventureResult set(final int index, final AdventureResult element) {
+    AdventureResult original = super.set(index, element);
+    this.index.removed(original);
+    this.index.added(element);
+    return original;
+  }
+
+  @Override
+  public synchronized AdventureResult remove(final int index) {
+    AdventureResult removed = super.remove(index);
+    this.index.removed(removed);
+    return removed;
+  }
+
+  @Override
+  public synchronized boolean remove(final Object o) {
+    this.index.invalidate();
+    return super.remove(o);
+  }
+
+  @Override
+  public synchronized boolean removeAll(final Collection<?> c) {
+    this.index.invalidate();
+    return super.removeAll(c);
+  }
+
+  @Override
+  public synchronized boolean retainAll(final Collection<?> c) {
+    this.index.invalidate();
+    return super.retainAll(c);
+  }
+
+  @Override
+  public synchronized boolean removeIf(final Predicate<? super AdventureResult> filter) {
+    this.index.invalidate();
+    return super.removeIf(filter);
+  }
+
+  @Override
+  public synchronized void replaceAll(final UnaryOperator<AdventureResult> operator) {
+    this.index.invalidate();
+    super.replaceAll(operator);
+  }
+
+  @Override
+  public synchronized void clear() {
+    this.index.invalidate();
+    super.clear();
+  }
+
+  @Override
+  protected synchronized void removeRange(final int fromIndex, final int toIndex) {
+    this.index.invalidate();
+    super.removeRange(fromIndex, toIndex);
+  }
+
+  @Override
+  public synchronized Object clone() {
+    SortedItemList copy = (SortedItemList) super.clone();
+    copy.index = new ItemIndex();
+    return copy;
+  }
+}
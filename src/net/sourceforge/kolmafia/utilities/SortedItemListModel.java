@@ -0,0 +1,73 @@
+package net.sourceforge.kolmafia.utilities;
+
+import java.util.Collection;
+import net.java.dev.spellcast.utilities.SortedListModel;
+import net.sourceforge.kolmafia.AdventureResult;
+
+/** A {@link SortedListModel} of items which can also find an item by id. */
+public class SortedItemListModel extends SortedListModel<AdventureResult>
+    implements IndexedItemList {
+  private transient ItemIndex index = new ItemIndex();
+
+  @Override
+  public AdventureResult findItem(final int itemId) {
+    synchronized (this.actualElements) {
+      return this.index.find(itemId, this.actualElements);
+    }
+  }
+
+  @Override
+  public boolean add(final AdventureResult o) {
+    synchronized (this.actualElements) {
+      boolean added = super.add(o);
+      if (added) {
+        this.index.added(o);
+      }
+      return added;
+    }
+  }
+
+  @Override
+  public boolean addAll(final int index, final Collection<? extends AdventureResult> c) {
+    synchronized (this.actualElements) {
+      this.index.invalidate();
+      return super.addAll(index, c);
+    }
+  }
+
+  @Override
+  public AdventureResult set(final int index, final AdventureResult element) {
+    synchronized (this.actualElements) {
+      AdventureResult original = super.set(index, element);
+      if (element != null) {
+        this.index.removed(original);
+        this.index.added(element);
+      }
+      return original;
+    }
+  }
+
+  @Override
+  public AdventureResult remove(final int index) {
+    synchronized (this.actualElements) {
+      AdventureResult removed = super.remove(index);
+      this.index.removed(removed);
+      return removed;
+    }
+  }
+
+  @Override
+  public void clear() {
+    synchronized (this.actualElements) {
+      this.index.invalidate();
+      super.clear();
+    }
+  }
+
+  @Override
+  public Object clone() {
+    SortedItemListModel copy = (SortedItemListModel) super.clone();
+    copy.index = new ItemIndex();
+    return copy;
+  }
+}
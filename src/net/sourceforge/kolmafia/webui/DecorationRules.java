@@ -0,0 +1,85 @@
+package net.sourceforge.kolmafia.webui;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import net.sourceforge.kolmafia.utilities.MultiStringMatcher;
+
+/**
+ * An ordered list of decorations, each of which only does anything to a page containing one of
+ * its anchors.
+ *
+ * <p>Rather than each decoration scanning the whole page for its own anchors, the page is scanned
+ * once for all of them, and only the decorations whose anchors were found are run, in the order
+ * they were added. A decoration which runs may have added or removed the anchors of those after
+ * it, so the page is scanned again before the next one is looked at. A scan costs far less than
+ * the regular expressions many decorations use, so this pays off when any of them is skipped.
+ *
+ * <p>A decoration must leave a page without any of its anchors alone, so that the result is the
+ * same as running every decoration in turn.
+ */
+public class DecorationRules {
+  private record Rule(String name, Consumer<StringBuffer> action, int[] anchors) {}
+
+  private final List<Rule> rules = new ArrayList<>();
+  private final List<String> anchors = new ArrayList<>();
+  private MultiStringMatcher matcher = null;
+
+  /**
+   * Adds a decoration, to be run after those already added.
+   *
+   * @param name Describes the decoration
+   * @param action Decorates a page
+   * @param anchors Strings at least one of which a page must contain to be decorated
+   */
+  public synchronized DecorationRules add(
+      final String name, final Consumer<StringBuffer> action, final String... anchors) {
+    int[] indices = new int[anchors.length];
+    for (int i = 0; i < anchors.length; ++i) {
+      indices[i] = this.anchors.size();
+      this.anchors.add(anchors[i]);
+    }
+    this.rules.add(new Rule(name, action, indices));
+    this.matcher = null;
+    return this;
+  }
+
+  private synchronized MultiStringMatcher getMatcher() {
+    if (this.matcher == null) {
+      this.matcher = new MultiStringMatcher(this.anchors);
+    }
+    return this.matcher;
+  }
+
+  public List<String> getNames() {
+    return this.rules.stream().map(Rule::name).toList();
+  }
+
+  /** Runs each decoration whose anchors are on the page. */
+  public void apply(final StringBuffer buffer) {
+    MultiStringMatcher matcher = this.getMatcher();
+    boolean[] found = matcher.find(buffer);
+    boolean changed = false;
+
+    for (Rule rule : this.rules) {
+      if (changed) {
+        found = matcher.find(buffer);
+        changed = false;
+      }
+      if (!DecorationRules.anyFound(found, rule.anchors())) {
+        continue;
+      }
+      rule.action().accept(buffer);
+      changed = true;
+    }
+  }
+
+  private static boolean anyFound(final boolean[] found, final int[] anchors) {
+    for (int anchor : anchors) {
+      if (found[anchor]) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
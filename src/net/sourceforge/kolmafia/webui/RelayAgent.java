@@ -1,6 +1,7 @@
 package net.sourceforge.kolmafia.webui;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
@@ -25,7 +26,6 @@ import net.sourceforge.kolmafia.request.RelayRequest;
 import net.sourceforge.kolmafia.session.ActionBarManager;
 import net.sourceforge.kolmafia.session.ChoiceManager;
 import net.sourceforge.kolmafia.session.LeafletManager;
-import net.sourceforge.kolmafia.utilities.PauseObject;
 import net.sourceforge.kolmafia.utilities.StringUtilities;
 
 public class RelayAgent extends Thread {
@@ -44,17 +44,21 @@ public class RelayAgent extends Thread {
     RelayAgent.errorRequestPath = null;
   }
 
+  // How long to wait for another request on a kept-alive connection
+  private static final int KEEP_ALIVE_TIMEOUT = 5000;
+
   private final char[] data = new char[8192];
   private final StringBuffer buffer = new StringBuffer();
-  private final PauseObject pauser = new PauseObject();
 
-  private Socket socket = null;
+  private volatile Socket socket = null;
   private BufferedReader reader;
   private PrintStream writer;
 
   private String path;
   private String requestMethod;
   private String isCheckingModified;
+  private String isCheckingETag;
+  private boolean keepAlive;
   private final RelayRequest request;
 
   public RelayAgent(final int id) {
@@ -62,20 +66,12 @@ public class RelayAgent extends Thread {
     this.request = new RelayRequest(true);
   }
 
-  public boolean isWaiting() {
-    return this.socket == null;
-  }
-
-  public void setSocket(final Socket socket) {
-    this.socket = socket;
-    this.pauser.unpause();
-  }
-
   @Override
   public void run() {
     while (true) {
+      this.socket = RelayServer.nextSocket(this);
       if (this.socket == null) {
-        this.pauser.pause();
+        return;
       }
 
       try {
@@ -86,22 +82,48 @@ public class RelayAgent extends Thread {
     }
   }
 
+  /** Stops the agent: wakes it if it is waiting for a connection, and closes any it has. */
+  void shutdown() {
+    this.interrupt();
+
+    Socket socket = this.socket;
+    if (socket != null) {
+      try {
+        socket.close();
+      } catch (IOException e) {
+        // The agent sees the connection as closed regardless
+      }
+    }
+  }
+
+  // Serve requests from the browser until it closes the connection, or
+  // until it goes quiet or another connection is waiting for an agent.
+  // Pipelined requests are answered in the order they were sent.
+
   public void performRelay() {
     if (this.socket == null) {
       return;
     }
 
-    this.path = null;
     this.reader = null;
     this.writer = null;
 
     try {
-      if (!this.readBrowserRequest()) {
-        return;
-      }
+      this.socket.setSoTimeout(RelayAgent.KEEP_ALIVE_TIMEOUT);
+      this.reader = new BufferedReader(new InputStreamReader(this.socket.getInputStream()));
+      this.writer = new PrintStream(this.socket.getOutputStream(), false);
+
+      do {
+        this.path = null;
+        this.keepAlive = Preferences.getBoolean("relayUsesKeepAlive");
 
-      this.readServerResponse();
-      this.sendServerResponse();
+        if (!this.readBrowserRequest()) {
+          return;
+        }
+
+        this.readServerResponse();
+        this.sendServerResponse();
+      } while (this.keepAlive && !RelayServer.hasPendingSockets());
     } catch (IOException e) {
     } catch (Exception e) {
       StaticEntity.printStackTrace(e, "Horrible relay failure");
@@ -113,8 +135,6 @@ public class RelayAgent extends Thread {
         RequestLogger.isDebugging() && Preferences.getBoolean("logBrowserInteractions");
     boolean tracing = RequestLogger.isTracing();
 
-    this.reader = new BufferedReader(new InputStreamReader(this.socket.getInputStream()));
-
     String requestLine = this.reader.readLine();
 
     if (requestLine == null) {
@@ -151,6 +171,7 @@ public class RelayAgent extends Thread {
     this.request.constructURLString(this.path, usePostMethod);
     this.request.responseText = null;
     this.isCheckingModified = null;
+    this.isCheckingETag = null;
 
     String currentLine;
     int contentLength = 0;
@@ -180,9 +201,17 @@ public class RelayAgent extends Thread {
         case "if-modified-since":
           this.isCheckingModified = headerValue;
           break;
+        case "if-none-match":
+          this.isCheckingETag = headerValue;
+          break;
         case "content-length":
           contentLength = StringUtilities.parseInt(headerValue);
           break;
+        case "connection":
+          if (headerValue.equalsIgnoreCase("close")) {
+            this.keepAlive = false;
+          }
+          break;
         case "user-agent":
           GenericRequest.saveUserAgent(headerValue);
           break;
@@ -218,7 +247,12 @@ public class RelayAgent extends Thread {
       int remaining = contentLength;
 
       while (remaining > 0) {
-        int current = this.reader.read(this.data);
+        // Don't read past the body into a pipelined request
+        int current = this.reader.read(this.data, 0, Math.min(remaining, this.data.length));
+        if (current == -1) {
+          this.buffer.setLength(0);
+          return false;
+        }
         this.buffer.append(this.data, 0, current);
         remaining -= current;
       }
@@ -329,21 +363,40 @@ public class RelayAgent extends Thread {
     }
   }
 
-  private static boolean modifiedSince(String date, File file) {
-    return file != null && file.exists() && StringUtilities.parseDate(date) < file.lastModified();
+  // HTTP dates are only accurate to the second
+
+  private static boolean notModifiedSince(String date, long lastModified) {
+    return lastModified > 0 && lastModified / 1000 <= StringUtilities.parseDate(date) / 1000;
+  }
+
+  private static boolean notModifiedSince(String date, File file) {
+    return file != null && RelayAgent.notModifiedSince(date, file.lastModified());
+  }
+
+  private boolean imageNotModified(final File file) {
+    // Answer from memory if we can, rather than looking at the file
+    RelayFileCache.Entry cached = RelayFileCache.peek(file);
+    if (cached != null) {
+      if (this.isCheckingETag != null) {
+        return this.isCheckingETag.contains(cached.etag);
+      }
+      return RelayAgent.notModifiedSince(this.isCheckingModified, cached.lastModified);
+    }
+
+    return this.isCheckingModified != null
+        && RelayAgent.notModifiedSince(this.isCheckingModified, file);
   }
 
   private boolean shouldSendNotModified() {
     // Things in the "images" directory come from KoL's image server.
     // We set the modification date to KoL's modification date.
     if (this.path.startsWith("/images")) {
-      return RelayAgent.modifiedSince(
-          this.isCheckingModified, RelayRequest.findLocalImage(this.path.substring(1)));
+      return this.imageNotModified(RelayRequest.findLocalImage(this.path.substring(1)));
     }
 
     // Things in the "relay" directory are either KoLmafia builtin
     // files or are provided by user scripts.
-    if (!this.path.startsWith("/relay")) {
+    if (this.isCheckingModified == null || !this.path.startsWith("/relay")) {
       return false;
     }
 
@@ -354,13 +407,13 @@ public class RelayAgent extends Thread {
 
     // Otherwise, look at the modification date of the file in the
     // file system
-    return RelayAgent.modifiedSince(
+    return RelayAgent.notModifiedSince(
         this.isCheckingModified, RelayRequest.findRelayFile(this.path.substring(1)));
   }
 
   private void readServerResponse() throws IOException {
     // If sending a local page, check modification date of file
-    if (this.isCheckingModified != null) {
+    if (this.isCheckingModified != null || this.isCheckingETag != null) {
       if (this.shouldSendNotModified()) {
         this.request.pseudoResponse("HTTP/1.1 304 Not Modified", "");
         this.request.responseCode = 304;
@@ -459,6 +512,9 @@ public class RelayAgent extends Thread {
     }
   }
 
+  private static final Pattern CONTENT_LENGTH_PATTERN =
+      Pattern.compile("^Content-Length:", Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
+
   private static final String NOCACHE_IMAGES = "(memes|otherimages/zonefont)?";
 
   private static final Pattern IMAGE_PATTERN =
@@ -472,11 +528,24 @@ public class RelayAgent extends Thread {
               + ")"
               + RelayAgent.NOCACHE_IMAGES);
 
+  // Start fetching an image that the browser is about to ask for
+
+  private static void prefetchImage(final String text, final int start) {
+    int end = start;
+    while (end < text.length() && "\"'() <>?#\\\r\n\t".indexOf(text.charAt(end)) == -1) {
+      ++end;
+    }
+    if (end > start) {
+      RelayRequest.prefetchImage("images/" + text.substring(start, end));
+    }
+  }
+
   private void sendServerResponse() throws IOException {
     if (this.request.rawByteBuffer == null) {
       if (this.request.responseText == null) {
         // We did not make a request of KoL and did not
         // create a pseudoResponse
+        this.keepAlive = false;
         return;
       }
 
@@ -489,6 +558,7 @@ public class RelayAgent extends Thread {
             matcher.appendReplacement(responseBuffer, "$0");
           } else {
             matcher.appendReplacement(responseBuffer, "/images/");
+            RelayAgent.prefetchImage(this.request.responseText, matcher.end());
           }
         }
 
@@ -501,11 +571,28 @@ public class RelayAgent extends Thread {
       this.request.rawByteBuffer = this.request.responseText.getBytes(StandardCharsets.UTF_8);
     }
 
-    this.writer = new PrintStream(this.socket.getOutputStream(), false);
+    // Responses to HEAD requests and Not Modified responses have no body
+    boolean hasBody = this.request.responseCode != 304 && !this.requestMethod.equals("HEAD");
+
+    ByteArrayOutputStream headers = new ByteArrayOutputStream();
+    this.request.printHeaders(new PrintStream(headers, false));
+    String headerText = headers.toString();
+
     this.writer.println(this.request.statusLine);
-    this.request.printHeaders(this.writer);
+    this.writer.print(headerText);
+    if (!RelayAgent.CONTENT_LENGTH_PATTERN.matcher(headerText).find()) {
+      if (hasBody) {
+        this.writer.println("Content-Length: " + this.request.rawByteBuffer.length);
+      } else if (this.request.responseCode != 304) {
+        // We can't say how long the body would have been
+        this.keepAlive = false;
+      }
+    }
+    this.writer.println(this.keepAlive ? "Connection: keep-alive" : "Connection: close");
     this.writer.println();
-    this.writer.write(this.request.rawByteBuffer);
+    if (hasBody) {
+      this.writer.write(this.request.rawByteBuffer);
+    }
     this.writer.flush();
 
     if (RequestLogger.isTracing()) {
@@ -0,0 +1,281 @@
+package net.sourceforge.kolmafia.webui;
+
+import java.io.File;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import net.sourceforge.kolmafia.preferences.Preferences;
+import net.sourceforge.kolmafia.utilities.ByteBufferUtilities;
+import net.sourceforge.kolmafia.utilities.FileUtilities;
+
+/**
+ * Keeps recently served relay files in memory, in front of the files on disk.
+ *
+ * <p>Images from KoL's image server never change once downloaded, so a cached image is served
+ * without looking at the file system at all. Other files may be edited while KoLmafia is running,
+ * so they are checked against the file's modification date and length, but no more than once every
+ * few seconds. Memory use is bounded by relayMemoryCacheSize (in megabytes); the least recently
+ * used files are dropped first.
+ */
+public class RelayFileCache {
+  // How long to trust a cached copy of a file that might change
+  private static final long RECHECK_INTERVAL = 5000;
+
+  // Files larger than this are read from disk every time
+  private static final int MAX_ENTRY_SIZE = 1024 * 1024;
+
+  private static final Map<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+  private static long cachedBytes = 0;
+
+  // Images being downloaded, which anyone else who wants them waits for
+  private static final Map<String, CompletableFuture<Entry>> downloads = new ConcurrentHashMap<>();
+
+  private static final ThreadPoolExecutor PREFETCH =
+      new ThreadPoolExecutor(
+          4,
+          4,
+          30,
+          TimeUnit.SECONDS,
+          new ArrayBlockingQueue<>(256),
+          r -> {
+            Thread thread = new Thread(r, "RelayImagePrefetch");
+            thread.setDaemon(true);
+            return thread;
+          },
+          new ThreadPoolExecutor.DiscardPolicy());
+
+  static {
+    RelayFileCache.PREFETCH.allowCoreThreadTimeOut(true);
+  }
+
+  private RelayFileCache() {}
+
+  public static class Entry {
+    public final byte[] bytes;
+    public final long lastModified;
+    public final String etag;
+
+    private final long length;
+    private final boolean immutable;
+    private long checked;
+    private String text;
+
+    private Entry(final byte[] bytes, final long lastModified, final boolean immutable) {
+      this.bytes = bytes;
+      this.lastModified = lastModified;
+      this.length = bytes.length;
+      this.immutable = immutable;
+      this.checked = System.currentTimeMillis();
+      this.etag = RelayFileCache.computeETag(bytes);
+    }
+  }
+
+  private static String computeETag(final byte[] bytes) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-1").digest(bytes);
+      StringBuilder etag = new StringBuilder("\"");
+      for (int i = 0; i < 12; ++i) {
+        etag.append(String.format("%02x", digest[i]));
+      }
+      return etag.append('"').toString();
+    } catch (NoSuchAlgorithmException e) {
+      return "\"" + bytes.length + "-" + Arrays.hashCode(bytes) + "\"";
+    }
+  }
+
+  /**
+   * Returns the cached copy of the given file if it is in memory and known to be current, without
+   * touching the file system.
+   */
+  public static Entry peek(final File file) {
+    if (file == null) {
+      return null;
+    }
+
+    synchronized (RelayFileCache.entries) {
+      Entry entry = RelayFileCache.entries.get(file.getPath());
+      if (entry == null) {
+        return null;
+      }
+      if (entry.immutable
+          || System.currentTimeMillis() - entry.checked < RelayFileCache.RECHECK_INTERVAL) {
+        return entry;
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Returns the contents of the given file, from memory if possible.
+   *
+   * @param file The file to read
+   * @param immutable True if the file will never change once it exists
+   * @return The cached contents, or null if the file does not exist
+   */
+  public static Entry get(final File file, final boolean immutable) {
+    if (file == null) {
+      return null;
+    }
+
+    Entry entry = RelayFileCache.peek(file);
+    if (entry != null) {
+      return entry;
+    }
+
+    String key = file.getPath();
+    long length = file.length();
+    long lastModified = file.lastModified();
+    if (lastModified == 0 || length == 0) {
+      // The file does not exist, or is empty
+      RelayFileCache.remove(key);
+      return null;
+    }
+
+    synchronized (RelayFileCache.entries) {
+      entry = RelayFileCache.entries.get(key);
+      if (entry != null && entry.lastModified == lastModified && entry.length == length) {
+        entry.checked = System.currentTimeMillis();
+        return entry;
+      }
+    }
+
+    byte[] bytes = ByteBufferUtilities.read(file);
+    if (bytes.length == 0) {
+      return null;
+    }
+
+    entry = new Entry(bytes, lastModified, immutable);
+    if (bytes.length <= RelayFileCache.MAX_ENTRY_SIZE) {
+      RelayFileCache.put(key, entry);
+    }
+    return entry;
+  }
+
+  /**
+   * Returns the contents of the given text file, from memory if possible.
+   *
+   * @param file The file to read
+   * @param reader Reads the file as text on a cache miss
+   * @return The text, or null if the file does not exist
+   */
+  public static String getText(final File file, final Function<File, String> reader) {
+    Entry entry = RelayFileCache.get(file, false);
+    if (entry == null) {
+      return null;
+    }
+
+    synchronized (entry) {
+      if (entry.text == null) {
+        entry.text = reader.apply(file);
+      }
+      return entry.text;
+    }
+  }
+
+  private static void put(final String key, final Entry entry) {
+    long limit = Math.max(0, Preferences.getInteger("relayMemoryCacheSize")) * 1024L * 1024L;
+
+    synchronized (RelayFileCache.entries) {
+      Entry old = RelayFileCache.entries.put(key, entry);
+      if (old != null) {
+        RelayFileCache.cachedBytes -= old.length;
+      }
+      RelayFileCache.cachedBytes += entry.length;
+
+      Iterator<Entry> it = RelayFileCache.entries.values().iterator();
+      while (RelayFileCache.cachedBytes > limit && it.hasNext()) {
+        RelayFileCache.cachedBytes -= it.next().length;
+        it.remove();
+      }
+    }
+  }
+
+  private static void remove(final String key) {
+    synchronized (RelayFileCache.entries) {
+      Entry old = RelayFileCache.entries.remove(key);
+      if (old != null) {
+        RelayFileCache.cachedBytes -= old.length;
+      }
+    }
+  }
+
+  public static void clear() {
+    synchronized (RelayFileCache.entries) {
+      RelayFileCache.entries.clear();
+      RelayFileCache.cachedBytes = 0;
+    }
+  }
+
+  /**
+   * Returns the contents of an image from KoL's image server, downloading it first if it is not
+   * already on disk. Only one thread downloads a given image at a time, so that nobody sees (or
+   * caches) a partly written file; anyone else who wants it waits for that download to finish.
+   *
+   * @param url The URL of the image
+   * @param immutable True if the image will never change once downloaded
+   * @return The cached contents, or null if the image could not be downloaded
+   */
+  public static Entry getImage(final String url, final boolean immutable) {
+    return RelayFileCache.getImage(url, immutable, FileUtilities::downloadImage);
+  }
+
+  static Entry getImage(
+      final String url, final boolean immutable, final Function<String, File> downloader) {
+    File file = FileUtilities.imageFile(url);
+    if (file == null) {
+      return null;
+    }
+
+    Entry entry = RelayFileCache.peek(file);
+    if (entry != null) {
+      return entry;
+    }
+
+    String key = file.getPath();
+    CompletableFuture<Entry> download = new CompletableFuture<>();
+    CompletableFuture<Entry> current = RelayFileCache.downloads.putIfAbsent(key, download);
+    if (current != null) {
+      return current.join();
+    }
+
+    try {
+      // A download may have finished since we looked
+      entry = RelayFileCache.peek(file);
+      if (entry == null) {
+        entry = RelayFileCache.get(downloader.apply(url), immutable);
+      }
+      download.complete(entry);
+      return entry;
+    } catch (RuntimeException e) {
+      download.completeExceptionally(e);
+      throw e;
+    } finally {
+      // Anyone who arrives from now on finds the image in memory or on disk
+      RelayFileCache.downloads.remove(key, download);
+    }
+  }
+
+  /**
+   * Starts fetching an image in the background, so that it is ready by the time the browser asks
+   * for it.
+   *
+   * @param url The URL of the image
+   */
+  public static void prefetchImage(final String url) {
+    File file = FileUtilities.imageFile(url);
+    if (file == null || RelayFileCache.peek(file) != null) {
+      return;
+    }
+
+    RelayFileCache.PREFETCH.execute(() -> RelayFileCache.getImage(url, true));
+  }
+}
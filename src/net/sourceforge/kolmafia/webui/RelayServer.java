@@ -1,11 +1,16 @@
 package net.sourceforge.kolmafia.webui;
 
+import java.io.IOException;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.UnknownHostException;
-import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import net.sourceforge.kolmafia.KoLConstants;
 import net.sourceforge.kolmafia.KoLmafia;
 import net.sourceforge.kolmafia.StaticEntity;
@@ -14,7 +19,14 @@ import net.sourceforge.kolmafia.utilities.FileUtilities;
 import net.sourceforge.kolmafia.utilities.StringUtilities;
 
 public class RelayServer implements Runnable {
-  public static final Set<RelayAgent> agentThreads = new HashSet<RelayAgent>();
+  public static final Set<RelayAgent> agentThreads = ConcurrentHashMap.newKeySet();
+
+  // Accepted connections waiting for an agent. Agents are started as needed, up to
+  // relayMaxAgents, and retire after sitting idle for a while.
+  private static final BlockingQueue<Socket> pendingSockets = new LinkedBlockingQueue<>();
+  private static final AtomicInteger idleAgents = new AtomicInteger();
+  private static final AtomicInteger agentIds = new AtomicInteger();
+  private static final long AGENT_IDLE_TIMEOUT = 60;
 
   private static long lastStatusMessage = 0;
   private static Thread relayThread = null;
@@ -24,7 +36,6 @@ public class RelayServer implements Runnable {
   private static boolean listening = false;
   private static boolean updateStatus = false;
 
-  private static final RelayServer INSTANCE = new RelayServer();
   private static final StringBuffer statusMessages = new StringBuffer();
 
   private RelayServer() {
@@ -35,13 +46,18 @@ public class RelayServer implements Runnable {
     Preferences.setString("lastRelayUpdate", StaticEntity.getVersion());
   }
 
+  // Made when the server is first started, since that installs the relay files
+  private static class Holder {
+    private static final RelayServer INSTANCE = new RelayServer();
+  }
+
   public static final void updateStatus() {
     RelayServer.updateStatus = true;
   }
 
   public static final synchronized void startThread() {
     if (RelayServer.relayThread == null) {
-      Thread relayServer = new Thread(RelayServer.INSTANCE, "LocalRelayServer");
+      Thread relayServer = new Thread(Holder.INSTANCE, "LocalRelayServer");
       relayServer.start();
       RelayServer.relayThread = relayServer;
     }
@@ -117,7 +133,7 @@ public class RelayServer implements Runnable {
 
     while (RelayServer.listening) {
       try {
-        this.dispatchAgent(this.serverSocket.accept());
+        RelayServer.dispatchAgent(this.serverSocket.accept());
       } catch (Exception e) {
         // If an exception occurs here, that means
         // someone closed the thread; just reset
@@ -127,7 +143,7 @@ public class RelayServer implements Runnable {
       }
     }
 
-    this.closeAgents();
+    RelayServer.closeAgents();
 
     try {
       if (this.serverSocket != null) {
@@ -146,10 +162,10 @@ public class RelayServer implements Runnable {
   private synchronized boolean openServerSocket() {
     try {
       if (Preferences.getBoolean("relayAllowRemoteAccess")) {
-        this.serverSocket = new ServerSocket(RelayServer.port, 25);
+        this.serverSocket = new ServerSocket(RelayServer.port, 50);
       } else {
         this.serverSocket =
-            new ServerSocket(RelayServer.port, 25, InetAddress.getByName("127.0.0.1"));
+            new ServerSocket(RelayServer.port, 50, InetAddress.getByName("127.0.0.1"));
       }
 
       return true;
@@ -158,32 +174,75 @@ public class RelayServer implements Runnable {
     }
   }
 
-  private synchronized void closeAgents() {
-    for (RelayAgent agent : agentThreads) {
-      agent.setSocket(null);
+  static void closeAgents() {
+    synchronized (RelayServer.agentThreads) {
+      Socket socket;
+      while ((socket = RelayServer.pendingSockets.poll()) != null) {
+        try {
+          socket.close();
+        } catch (IOException e) {
+          // The socket is going away regardless
+        }
+      }
+      for (RelayAgent agent : RelayServer.agentThreads) {
+        agent.shutdown();
+      }
+      agentThreads.clear();
     }
-    agentThreads.clear();
   }
 
-  private synchronized void dispatchAgent(final Socket socket) {
-    for (RelayAgent agent : agentThreads) {
-      if (agent.isWaiting()) {
-        agent.setSocket(socket);
-        return;
+  static void dispatchAgent(final Socket socket) {
+    synchronized (RelayServer.agentThreads) {
+      RelayServer.pendingSockets.add(socket);
+
+      int maxAgents = Math.max(1, Preferences.getInteger("relayMaxAgents"));
+      if (RelayServer.idleAgents.get() == 0 && RelayServer.agentThreads.size() < maxAgents) {
+        RelayServer.createAgent();
       }
     }
-
-    this.createAgent(socket);
   }
 
-  private synchronized void createAgent(final Socket socket) {
-    RelayAgent agent = new RelayAgent(RelayServer.agentThreads.size());
-    agent.setSocket(socket);
-
+  private static void createAgent() {
+    RelayAgent agent = new RelayAgent(RelayServer.agentIds.incrementAndGet());
     RelayServer.agentThreads.add(agent);
     agent.start();
   }
 
+  /**
+   * Waits for the next connection for the given agent to handle.
+   *
+   * @return the connection, or null if the agent has been idle long enough that it should exit
+   */
+  static final Socket nextSocket(final RelayAgent agent) {
+    while (true) {
+      Socket socket = null;
+      RelayServer.idleAgents.incrementAndGet();
+      try {
+        socket = RelayServer.pendingSockets.poll(AGENT_IDLE_TIMEOUT, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        // Treat as a timeout
+      } finally {
+        RelayServer.idleAgents.decrementAndGet();
+      }
+
+      if (socket != null) {
+        return socket;
+      }
+
+      synchronized (RelayServer.agentThreads) {
+        if (RelayServer.pendingSockets.isEmpty()) {
+          RelayServer.agentThreads.remove(agent);
+          return null;
+        }
+      }
+    }
+  }
+
+  /** Returns true if a connection is waiting for an agent to become free. */
+  static final boolean hasPendingSockets() {
+    return !RelayServer.pendingSockets.isEmpty();
+  }
+
   public static final void addStatusMessage(final String message) {
     if (System.currentTimeMillis() - RelayServer.lastStatusMessage < 4000) {
       RelayServer.statusMessages.append(message);
@@ -15,6 +15,7 @@ import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
@@ -27,7 +28,7 @@ import javax.net.ssl.SSLParameters;
 
 public class FakeHttpClient extends HttpClient {
 
-  private final List<HttpRequest> requests = new ArrayList<>();
+  private final List<HttpRequest> requests = Collections.synchronizedList(new ArrayList<>());
   private int responseCode = 0;
   private String response = "";
 
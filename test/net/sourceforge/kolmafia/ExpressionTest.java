@@ -4,6 +4,11 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import net.sourceforge.kolmafia.preferences.Preferences;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -85,4 +90,36 @@ public class ExpressionTest {
     var exp = new Expression("1+(4*path(The Source))", "nonexistent function");
     assertThat(exp.hasErrors(), equalTo(true));
   }
+
+  @Test
+  void canEvaluateOnManyThreads() throws Exception {
+    var exp = new Expression("(1+2)*(3+(4*(5+6)))", "nested arithmetic");
+    var pool = Executors.newFixedThreadPool(4);
+    try {
+      List<Callable<Boolean>> tasks = new ArrayList<>();
+      for (int i = 0; i < 8; ++i) {
+        tasks.add(
+            () -> {
+              for (int j = 0; j < 1000; ++j) {
+                if (exp.eval() != 141.0) {
+                  return false;
+                }
+              }
+              return true;
+            });
+      }
+      for (Future<Boolean> result : pool.invokeAll(tasks)) {
+        assertThat(result.get(), equalTo(true));
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  void canEvaluateAfterError() {
+    new Expression("1/0", "divide by zero").eval();
+    var exp = new Expression("2*3", "after error");
+    assertEquals(6.0, exp.eval());
+  }
 }
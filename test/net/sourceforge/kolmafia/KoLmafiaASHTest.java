@@ -0,0 +1,81 @@
+package net.sourceforge.kolmafia;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class KoLmafiaASHTest {
+  // Imports are only found in the scripts directory, so the scripts under test live there
+  private Path dir;
+
+  @BeforeEach
+  public void createScriptDirectory() throws IOException {
+    KoLConstants.SCRIPT_LOCATION.mkdirs();
+    this.dir = Files.createTempDirectory(KoLConstants.SCRIPT_LOCATION.toPath(), "ashtest");
+  }
+
+  @AfterEach
+  public void deleteScriptDirectory() {
+    File[] files = this.dir.toFile().listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    this.dir.toFile().delete();
+  }
+
+  private File write(String name, String contents) throws IOException {
+    return Files.writeString(this.dir.resolve(name), contents).toFile();
+  }
+
+  @Test
+  public void touchedScriptIsNotParsedAgain() throws IOException {
+    File script = this.write("touched.ash", "void main() { print(1); }");
+    var interpreter = KoLmafiaASH.getInterpreter(script);
+    assertThat(interpreter, notNullValue());
+    assertThat(KoLmafiaASH.getParseTime(script), greaterThanOrEqualTo(0L));
+
+    script.setLastModified(script.lastModified() + 10_000);
+    assertThat(KoLmafiaASH.getInterpreter(script), sameInstance(interpreter));
+  }
+
+  @Test
+  public void changedScriptIsParsedAgain() throws IOException {
+    File script = this.write("changed.ash", "void main() { print(1); }");
+    var interpreter = KoLmafiaASH.getInterpreter(script);
+
+    this.write("changed.ash", "void main() { print(2); }");
+    script.setLastModified(script.lastModified() + 10_000);
+    assertThat(KoLmafiaASH.getInterpreter(script), not(sameInstance(interpreter)));
+  }
+
+  @Test
+  public void changedImportIsParsedAgain() throws IOException {
+    File library = this.write("library.ash", "int value() { return 1; }");
+    File script =
+        this.write(
+            "importer.ash",
+            "import <" + this.dir.getFileName() + "/library.ash>\nvoid main() {}");
+    var interpreter = KoLmafiaASH.getInterpreter(script);
+    assertThat(KoLmafiaASH.getParsedFileCount(script), equalTo(2));
+
+    library.setLastModified(library.lastModified() + 10_000);
+    assertThat(KoLmafiaASH.getInterpreter(script), sameInstance(interpreter));
+
+    this.write("library.ash", "int value() { return 2; }");
+    library.setLastModified(library.lastModified() + 20_000);
+    assertThat(KoLmafiaASH.getInterpreter(script), not(sameInstance(interpreter)));
+  }
+}
@@ -0,0 +1,118 @@
+package net.sourceforge.kolmafia;
+
+import static internal.helpers.Player.withCampgroundItem;
+import static internal.helpers.Player.withEffect;
+import static internal.helpers.Player.withItem;
+import static internal.helpers.Player.withLevel;
+import static internal.helpers.Player.withSkill;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import internal.helpers.Cleanups;
+import net.sourceforge.kolmafia.objectpool.EffectPool;
+import net.sourceforge.kolmafia.objectpool.ItemPool;
+import net.sourceforge.kolmafia.persistence.EffectDatabase;
+import net.sourceforge.kolmafia.session.EquipmentManager;
+import org.junit.jupiter.api.Test;
+
+public class ModifierAccumulatorTest {
+  private static void assertSameModifiers(Modifiers actual, Modifiers expected) {
+    for (int i = 0; i < Modifiers.DOUBLE_MODIFIERS; ++i) {
+      assertThat(Modifiers.getModifierName(i), actual.get(i), equalTo(expected.get(i)));
+    }
+    for (int i = 0; i < Modifiers.STRING_MODIFIERS; ++i) {
+      assertThat(
+          Modifiers.getStringModifierName(i), actual.getString(i), equalTo(expected.getString(i)));
+    }
+  }
+
+  @Test
+  public void replayedSpeculationMatchesFreshSpeculation() {
+    var cleanups =
+        new Cleanups(
+            withSkill("Amphibian Sympathy"),
+            withSkill("Powers of Observatiogn"),
+            withEffect("Fat Leon's Phat Loot Lyric"));
+    try (cleanups) {
+      KoLCharacter.recalculateAdjustments();
+
+      Speculation spec = new Speculation();
+      spec.equip(EquipmentManager.ACCESSORY1, AdventureResult.tallyItem("Mr. Accessory"));
+      spec.calculate();
+      spec.equip(EquipmentManager.ACCESSORY1, AdventureResult.tallyItem("Mr. Accessory Jr."));
+      Modifiers replayed = spec.calculate();
+
+      Speculation fresh = new Speculation();
+      fresh.equip(EquipmentManager.ACCESSORY1, AdventureResult.tallyItem("Mr. Accessory Jr."));
+      Modifiers expected = fresh.calculate();
+
+      assertThat(replayed.get(Modifiers.ITEMDROP), equalTo(55.0));
+      assertThat(replayed.get(Modifiers.FAMILIAR_WEIGHT), equalTo(5.0));
+      assertSameModifiers(replayed, expected);
+    }
+  }
+
+  @Test
+  public void changedEffectsAreNotReplayed() {
+    var cleanups = new Cleanups(withEffect("Fat Leon's Phat Loot Lyric"));
+    try (cleanups) {
+      KoLCharacter.recalculateAdjustments();
+
+      Speculation spec = new Speculation();
+      assertThat(spec.calculate().get(Modifiers.ITEMDROP), equalTo(20.0));
+
+      spec.removeEffect(EffectPool.get(EffectDatabase.getEffectId("Fat Leon's Phat Loot Lyric")));
+      assertThat(spec.calculate().get(Modifiers.ITEMDROP), equalTo(0.0));
+    }
+  }
+
+  @Test
+  public void changedCampgroundIsNotReplayed() {
+    KoLCharacter.recalculateAdjustments();
+    Speculation spec = new Speculation();
+    assertThat(spec.calculate().get(Modifiers.ADVENTURES), equalTo(0.0));
+
+    try (var cleanups = withCampgroundItem(ItemPool.PAGODA_PLANS)) {
+      assertThat(spec.calculate().get(Modifiers.ADVENTURES), equalTo(3.0));
+    }
+  }
+
+  @Test
+  public void changedInventoryIsNotReplayed() {
+    KoLCharacter.recalculateAdjustments();
+    Speculation spec = new Speculation();
+    assertThat(spec.calculate().get(Modifiers.FISHING_SKILL), equalTo(0.0));
+
+    try (var cleanups = withItem(ItemPool.FISHING_POLE)) {
+      assertThat(spec.calculate().get(Modifiers.FISHING_SKILL), equalTo(20.0));
+    }
+  }
+
+  @Test
+  public void recalculatingDiscardsRecordings() {
+    KoLCharacter.recalculateAdjustments();
+    Speculation spec = new Speculation();
+    assertThat(spec.calculate().get(Modifiers.ITEMDROP), equalTo(0.0));
+
+    var cleanups = new Cleanups(withSkill("Powers of Observatiogn"));
+    try (cleanups) {
+      KoLCharacter.recalculateAdjustments();
+      assertThat(spec.calculate().get(Modifiers.ITEMDROP), equalTo(10.0));
+    }
+  }
+
+  @Test
+  public void variableModifiersAreEvaluatedEachTime() {
+    var cleanups = new Cleanups(withLevel(5), withEffect("A Few Extra Pounds"));
+    try (cleanups) {
+      KoLCharacter.recalculateAdjustments();
+
+      Speculation spec = new Speculation();
+      assertThat(spec.calculate().get(Modifiers.HP), equalTo(25.0));
+
+      try (var level = withLevel(10)) {
+        assertThat(spec.calculate().get(Modifiers.HP), equalTo(50.0));
+      }
+    }
+  }
+}
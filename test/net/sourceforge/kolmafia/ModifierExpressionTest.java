@@ -25,6 +25,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import internal.helpers.Cleanups;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
+import java.util.concurrent.CompletableFuture;
 import net.sourceforge.kolmafia.objectpool.FamiliarPool;
 import net.sourceforge.kolmafia.persistence.HolidayDatabase;
 import net.sourceforge.kolmafia.persistence.MonsterDatabase;
@@ -377,6 +378,46 @@ public class ModifierExpressionTest {
     }
   }
 
+  @Test
+  public void holidayIsCachedWithinEpoch() {
+    var exp = new ModifierExpression("J", "Festival of Jarlsberg");
+    Expression.beginEpoch();
+    try {
+      try (var cleanups = withDay(new GregorianCalendar(2020, 0, 1))) {
+        assertThat(exp.eval(), is(1.0));
+      }
+      try (var cleanups = withDay(new GregorianCalendar(2020, 5, 1))) {
+        assertThat(exp.eval(), is(1.0));
+      }
+    } finally {
+      Expression.endEpoch();
+    }
+
+    try (var cleanups = withDay(new GregorianCalendar(2020, 5, 1))) {
+      assertThat(exp.eval(), is(0.0));
+    }
+  }
+
+  @Test
+  public void epochIsOnlySeenByItsThread() throws Exception {
+    var exp = new ModifierExpression("J", "Festival of Jarlsberg");
+    Expression.beginEpoch();
+    try {
+      try (var cleanups = withDay(new GregorianCalendar(2020, 0, 1))) {
+        assertThat(exp.eval(), is(1.0));
+      }
+      try (var cleanups = withDay(new GregorianCalendar(2020, 5, 1))) {
+        Expression.Epoch epoch = Expression.getEpoch();
+        assertThat(CompletableFuture.supplyAsync(exp::eval).get(), is(0.0));
+        assertThat(
+            CompletableFuture.supplyAsync(() -> Expression.inEpoch(epoch, exp::eval)).get(),
+            is(1.0));
+      }
+    } finally {
+      Expression.endEpoch();
+    }
+  }
+
   @Test
   public void canDetectSmithness() {
     var cleanups = withEffect("Smithsness Presence");
@@ -789,4 +789,37 @@ public class ModifiersTest {
       }
     }
   }
+
+  @Nested
+  class ById {
+    @Test
+    void preloadedModifiersMatchLookedUpModifiers() {
+      Modifiers.preloadModifiers();
+
+      Modifiers accessory = Modifiers.getItemModifiers(ItemPool.MR_ACCESSORY);
+      assertThat(accessory.get(Modifiers.MUS), equalTo(15.0));
+
+      Modifiers visor = Modifiers.getItemModifiers(ItemPool.RAVE_VISOR);
+      assertThat(visor.get(Modifiers.MP), equalTo(20.0));
+      assertThat(visor.getBitmap(Modifiers.RAVEOSITY), equalTo(2));
+    }
+
+    @Test
+    void overridingItemModifiersReplacesCachedModifiers() {
+      String lookup = "Item:[" + ItemPool.MR_ACCESSORY + "]";
+      Modifiers mods = Modifiers.getItemModifiers(ItemPool.MR_ACCESSORY);
+      String original = mods.getString(Modifiers.MODIFIERS);
+
+      Modifiers.overrideModifier(lookup, "Muscle: +1");
+      try {
+        mods = Modifiers.getItemModifiers(ItemPool.MR_ACCESSORY);
+        assertThat(mods.get(Modifiers.MUS), equalTo(1.0));
+      } finally {
+        Modifiers.overrideModifier(lookup, original);
+      }
+
+      mods = Modifiers.getItemModifiers(ItemPool.MR_ACCESSORY);
+      assertThat(mods.get(Modifiers.MUS), equalTo(15.0));
+    }
+  }
 }
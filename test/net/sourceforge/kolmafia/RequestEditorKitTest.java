@@ -1,13 +1,46 @@
 package net.sourceforge.kolmafia;
 
 import static internal.helpers.Networking.html;
+import static internal.helpers.Player.withItem;
+import static internal.helpers.Player.withProperty;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
 import static org.junit.jupiter.api.Assertions.*;
 
+import internal.helpers.Cleanups;
+import internal.helpers.HttpClientWrapper;
+import java.io.File;
+import java.util.Arrays;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import net.sourceforge.kolmafia.objectpool.ItemPool;
+import net.sourceforge.kolmafia.request.GenericRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
 
 public class RequestEditorKitTest {
+  @BeforeEach
+  public void beforeEach() {
+    // Some decorations make requests
+    HttpClientWrapper.setupFakeClient();
+  }
+
+  @AfterEach
+  public void afterEach() {
+    GenericRequest.sessionId = null;
+  }
+
+  private static File[] savedPages() {
+    File[] pages = new File("request").listFiles((dir, name) -> name.endsWith(".html"));
+    assertNotNull(pages);
+    Arrays.sort(pages);
+    return pages;
+  }
 
   @Test
   public void willSuppressRedundantCharPaneRefreshes() {
@@ -71,4 +104,127 @@ public class RequestEditorKitTest {
     matcher = CHARPANE_REFRESH_PATTERN.matcher(buffer);
     assertEquals(1, matcher.results().count());
   }
+
+  @Test
+  public void routesPagesToTheirDecorations() {
+    assertThat(
+        RequestEditorKit.PAGE_DECORATIONS.getNames("place.php"), contains("arcade", "place"));
+    assertThat(RequestEditorKit.PAGE_DECORATIONS.getNames("charpane.php"), empty());
+
+    StringBuffer buffer = new StringBuffer("<b>Arcade</b>");
+    assertEquals(
+        "arcade",
+        RequestEditorKit.PAGE_DECORATIONS.dispatch(
+            "place.php?whichplace=arcade",
+            new RequestEditorKit.DecoratedPage(buffer, false)));
+    assertEquals("<b>Arcade (0 tokens, 0 tickets)</b>", buffer.toString());
+  }
+
+  // The global decorations as they were made before being gathered into rules
+  private static void decorateEachInTurn(final StringBuffer buffer) {
+    RequestEditorKit.suppressRedundantRefreshes(buffer);
+    RequestEditorKit.changePunchcardNames(buffer);
+    RequestEditorKit.changePotionImages(buffer);
+    RequestEditorKit.decorateLevelGain(buffer);
+    RequestEditorKit.addAbsintheLink(buffer);
+    RequestEditorKit.addTransponderLink(buffer);
+    RequestEditorKit.addBatteryLink(buffer);
+    RequestEditorKit.addFolioLink(buffer);
+    RequestEditorKit.addNewLocationLinks(buffer);
+    RequestEditorKit.suppressPotentialMalware(buffer);
+    RequestEditorKit.extendRightClickMenu(buffer);
+  }
+
+  // Returns the decorated page
+  private static String assertDecoratedAsEachInTurn(final String name, final String html) {
+    StringBuffer scanned = new StringBuffer(html);
+    StringBuffer expected = new StringBuffer(html);
+
+    RequestEditorKit.GLOBAL_DECORATIONS.apply(scanned);
+    decorateEachInTurn(expected);
+
+    assertEquals(expected.toString(), scanned.toString(), name);
+    return scanned.toString();
+  }
+
+  // Gives the decorations which depend on what you have something to do
+  private static Cleanups withEveryDecoration() {
+    return new Cleanups(
+        withItem(ItemPool.ABSINTHE),
+        withItem(ItemPool.TRANSPORTER_TRANSPONDER),
+        withItem(ItemPool.WARBEAR_BATTERY),
+        withItem(ItemPool.DEVILISH_FOLIO),
+        withProperty("relayShowSpoilers", true),
+        withProperty("lastBangPotion819", "teleportitis"),
+        withProperty("lastSlimeVial3885", "strong"));
+  }
+
+  @Test
+  public void globalDecorationsMatchRunningEachInTurn() {
+    try (var cleanups = withEveryDecoration()) {
+      for (File page : savedPages()) {
+        assertDecoratedAsEachInTurn(page.getName(), html("request/" + page.getName()));
+      }
+
+      // None of the saved pages has the text these look for
+      String links =
+          "<html><body>"
+              + "For some reason, you can't find your way back there.<br>"
+              + "You can't get here without the proper transporter frequency.<br>"
+              + "Your hoverbelt would totally do the trick to get you up there, only it's out of juice.<br>"
+              + "'Til you do, you can't visit the Suburbs of Dis!<br>"
+              + "<img src=\"exclam.gif\"><b>milky potion</b>"
+              + "<img src=\"vial.gif\"><b>vial of red slime</b>"
+              + "</body></html>";
+      String decorated = assertDecoratedAsEachInTurn("links", links);
+      assertThat(
+          decorated,
+          allOf(
+              containsString("use absinthe"),
+              containsString("use transponder"),
+              containsString("install warbear battery"),
+              containsString("use devilish folio"),
+              containsString("milky potion of teleportitis</b>"),
+              containsString("vial of red slime: strong</b>")));
+    }
+  }
+
+  /**
+   * Compares decorating the saved pages by scanning once for every decoration's anchors with
+   * running every decoration in turn. Run with KOLMAFIA_BENCHMARK set to see the timings.
+   */
+  @Test
+  @EnabledIfEnvironmentVariable(named = "KOLMAFIA_BENCHMARK", matches = ".+")
+  public void benchmarkGlobalDecorations() {
+    File[] pages = savedPages();
+    String[] html = new String[pages.length];
+    for (int i = 0; i < pages.length; ++i) {
+      html[i] = html("request/" + pages[i].getName());
+    }
+
+    try (var cleanups = withEveryDecoration()) {
+      for (int round = 0; round < 5; ++round) {
+        long start = System.nanoTime();
+        for (String page : html) {
+          decorateEachInTurn(new StringBuffer(page));
+        }
+        long each = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (String page : html) {
+          RequestEditorKit.GLOBAL_DECORATIONS.apply(new StringBuffer(page));
+        }
+        long scanned = System.nanoTime() - start;
+
+        System.out.println(
+            "Round "
+                + round
+                + ": each in turn "
+                + each / 1000 / pages.length
+                + " us/page, scanned once "
+                + scanned / 1000 / pages.length
+                + " us/page");
+      }
+    }
+  }
 }
@@ -1,6 +1,7 @@
 package net.sourceforge.kolmafia.maximizer;
 
 import static internal.helpers.Maximizer.commandStartsWith;
+import static internal.helpers.Maximizer.getBoosts;
 import static internal.helpers.Maximizer.getSlot;
 import static internal.helpers.Maximizer.maximize;
 import static internal.helpers.Maximizer.modFor;
@@ -27,6 +28,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import internal.helpers.Cleanups;
 import java.util.Optional;
+import java.util.stream.Collectors;
 import net.sourceforge.kolmafia.AscensionPath.Path;
 import net.sourceforge.kolmafia.KoLCharacter;
 import net.sourceforge.kolmafia.Modifiers;
@@ -219,6 +221,52 @@ public class MaximizerTest {
     }
   }
 
+  @Nested
+  class Parallel {
+    @Test
+    public void parallelSearchFindsSameEquipment() {
+      final var cleanups =
+          new Cleanups(
+              withEquippableItem("blue glowstick"),
+              withEquippableItem("glowstick on a string"),
+              withEquippableItem("teddybear backpack"),
+              withEquippableItem("rave visor"),
+              withEquippableItem("baggy rave pants"),
+              withProperty("maximizerParallelSearch", true));
+      try (cleanups) {
+        assertTrue(maximize("raveosity -tie"));
+        recommendedSlotIs(EquipmentManager.HAT, "rave visor");
+        recommendedSlotIs(EquipmentManager.PANTS, "baggy rave pants");
+        recommendedSlotIs(EquipmentManager.CONTAINER, "teddybear backpack");
+        recommendedSlotIs(EquipmentManager.OFFHAND, "glowstick on a string");
+        assertEquals(7, modFor("Raveosity"), 0.01);
+      }
+    }
+
+    @Test
+    public void parallelSearchMatchesSerialSearch() {
+      final var cleanups =
+          new Cleanups(
+              withEquippableItem("helmet turtle"),
+              withEquippableItem("clown wig"),
+              withEquippableItem("polka-dot bow tie"),
+              withEquippableItem("Snow Suit"),
+              withEquippableItem("wax lips"),
+              withFamiliar(FamiliarPool.BLOOD_FACED_VOLLEYBALL));
+      try (cleanups) {
+        assertTrue(maximize("mus, exp, hp regen"));
+        var serial = getBoosts().stream().map(Boost::toString).collect(Collectors.toList());
+
+        try (var parallel = withProperty("maximizerParallelSearch", true)) {
+          assertTrue(maximize("mus, exp, hp regen"));
+          assertThat(
+              getBoosts().stream().map(Boost::toString).collect(Collectors.toList()),
+              equalTo(serial));
+        }
+      }
+    }
+  }
+
   @Nested
   class Surgeonosity {
     @Test
@@ -0,0 +1,87 @@
+package net.sourceforge.kolmafia.pages;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class PageDispatcherTest {
+  @Test
+  public void findsPathOfLocation() {
+    assertThat(PageDispatcher.getPath("choice.php?whichchoice=1"), equalTo("choice.php"));
+    assertThat(PageDispatcher.getPath("main.php"), equalTo("main.php"));
+  }
+
+  @Test
+  public void findsFieldOfLocation() {
+    String location = "clan_viplounge.php?preaction=lovetester&action=x&whichid=";
+    assertThat(PageDispatcher.getField(location, "action"), equalTo("x"));
+    assertThat(PageDispatcher.getField(location, "preaction"), equalTo("lovetester"));
+    assertThat(PageDispatcher.getField(location, "whichid"), equalTo(""));
+    assertThat(PageDispatcher.getField(location, "which"), nullValue());
+    assertThat(PageDispatcher.getField("main.php", "action"), nullValue());
+  }
+
+  @Test
+  public void runsHandlerForFieldValue() {
+    List<String> ran = new ArrayList<>();
+    PageDispatcher<String> dispatcher =
+        new PageDispatcher<String>()
+            .add("choice.php", "one", "whichchoice", "1", (location, page) -> ran.add("one"))
+            .add("choice.php", "two", "whichchoice", "2", (location, page) -> ran.add("two"))
+            .add("choice.php", "again", "whichchoice", "1", (location, page) -> ran.add("again"))
+            .add("choice.php", "rest", (location, page) -> ran.add("rest"));
+
+    assertThat(dispatcher.dispatch("choice.php?pwd&whichchoice=2&option=1", ""), equalTo("two"));
+    assertThat(dispatcher.dispatch("choice.php?whichchoice=1", ""), equalTo("one"));
+    assertThat(dispatcher.dispatch("choice.php?whichchoice=12", ""), equalTo("rest"));
+    assertThat(dispatcher.dispatch("choice.php", ""), equalTo("rest"));
+    assertThat(ran, contains("two", "one", "rest", "rest"));
+    assertThat(dispatcher.getNames("choice.php"), contains("one", "two", "again", "rest"));
+  }
+
+  @Test
+  public void runsFirstHandlerWhichWantsLocation() {
+    List<String> ran = new ArrayList<>();
+    PageDispatcher<String> dispatcher =
+        new PageDispatcher<String>()
+            .add(
+                "choice.php",
+                "first",
+                location -> location.contains("whichchoice=1"),
+                (location, responseText) -> ran.add("first " + responseText))
+            .add("choice.php", "rest", (location, responseText) -> ran.add("rest " + responseText))
+            .add("choice.php", "never", (location, responseText) -> ran.add("never"));
+
+    assertThat(dispatcher.dispatch("choice.php?whichchoice=1", "a"), equalTo("first"));
+    assertThat(dispatcher.dispatch("choice.php?whichchoice=2", "b"), equalTo("rest"));
+    assertThat(ran, contains("first a", "rest b"));
+  }
+
+  @Test
+  public void ignoresPagesWithoutHandlers() {
+    PageDispatcher<String> dispatcher =
+        new PageDispatcher<String>().add("choice.php", "choice", (location, responseText) -> {});
+
+    assertThat(dispatcher.dispatch("choice.php.bak", ""), nullValue());
+    assertThat(dispatcher.dispatch("main.php?choice.php", ""), nullValue());
+    assertThat(dispatcher.getNames("main.php"), empty());
+  }
+
+  @Test
+  public void listsHandlers() {
+    PageDispatcher<String> dispatcher =
+        new PageDispatcher<String>()
+            .add("shop.php", "shop", (location, responseText) -> {})
+            .add("choice.php", "one", location -> false, (location, responseText) -> {})
+            .add("choice.php", "two", (location, responseText) -> {});
+
+    assertThat(dispatcher.getPaths(), contains("choice.php", "shop.php"));
+    assertThat(dispatcher.getNames("choice.php"), contains("one", "two"));
+  }
+}
@@ -0,0 +1,82 @@
+package net.sourceforge.kolmafia.persistence;
+
+import static internal.helpers.Player.withItem;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import internal.helpers.Cleanups;
+import java.util.ArrayList;
+import java.util.List;
+import net.sourceforge.kolmafia.KoLCharacter;
+import net.sourceforge.kolmafia.objectpool.Concoction;
+import net.sourceforge.kolmafia.objectpool.ConcoctionPool;
+import net.sourceforge.kolmafia.preferences.Preferences;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ConcoctionDatabaseTest {
+  @BeforeEach
+  public void init() {
+    KoLCharacter.reset("concoctions");
+    KoLCharacter.reset(true);
+    Preferences.reset("concoctions");
+    KoLCharacter.setAvailableMeat(1_000);
+    ConcoctionDatabase.refreshConcoctionsNow();
+  }
+
+  private static List<List<Integer>> getAvailability() {
+    List<List<Integer>> availability = new ArrayList<>();
+    for (Concoction c : ConcoctionPool.concoctions()) {
+      availability.add(
+          List.of(c.getInitial(), c.creatable, c.getAvailable(), c.getTurnFreeAvailable()));
+    }
+    return availability;
+  }
+
+  private static int getCreatable(String name) {
+    return ConcoctionPool.get(ItemDatabase.getItemId(name)).creatable;
+  }
+
+  private static void gainItem(String name) {
+    ConcoctionDatabase.setRefreshNeeded(ItemDatabase.getItemId(name));
+  }
+
+  @Test
+  public void incrementalRefreshMatchesFullRefresh() {
+    // Meat paste always needs a full refresh, so only bum cheeks are said to have changed
+    var cleanups = new Cleanups(withItem("meat paste"), withItem("bum cheek", 2));
+    try (cleanups) {
+      gainItem("bum cheek");
+      ConcoctionDatabase.refreshConcoctions(false);
+      assertThat(ConcoctionDatabase.lastRefreshWasIncremental, equalTo(true));
+      assertThat(getCreatable("asshat"), equalTo(1));
+      var incremental = getAvailability();
+
+      ConcoctionDatabase.refreshConcoctionsNow();
+      assertThat(getAvailability(), equalTo(incremental));
+    }
+  }
+
+  @Test
+  public void incrementalRefreshHandlesLostItems() {
+    var cleanups = new Cleanups(withItem("bum cheek", 2));
+    try (cleanups) {
+      gainItem("bum cheek");
+      ConcoctionDatabase.refreshConcoctions(false);
+      assertThat(ConcoctionDatabase.lastRefreshWasIncremental, equalTo(true));
+      var incremental = getAvailability();
+
+      ConcoctionDatabase.refreshConcoctionsNow();
+      assertThat(getAvailability(), equalTo(incremental));
+    }
+
+    gainItem("bum cheek");
+    ConcoctionDatabase.refreshConcoctions(false);
+    assertThat(ConcoctionDatabase.lastRefreshWasIncremental, equalTo(true));
+    assertThat(getCreatable("asshat"), equalTo(0));
+    var incremental = getAvailability();
+
+    ConcoctionDatabase.refreshConcoctionsNow();
+    assertThat(getAvailability(), equalTo(incremental));
+  }
+}
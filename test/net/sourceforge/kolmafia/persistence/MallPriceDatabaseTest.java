@@ -6,12 +6,23 @@ import static org.hamcrest.Matchers.*;
 
 import internal.network.FakeHttpClientBuilder;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import net.sourceforge.kolmafia.session.MallPriceManager;
 import net.sourceforge.kolmafia.utilities.HttpUtilities;
 import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 public class MallPriceDatabaseTest {
 
@@ -25,6 +36,18 @@ public class MallPriceDatabaseTest {
     MallPriceDatabase.savePricesToFile = true;
   }
 
+  private Runnable restorePrices;
+
+  @BeforeEach
+  void beforeEach() {
+    this.restorePrices = MallPriceDatabase.clearPrices();
+  }
+
+  @AfterEach
+  void afterEach() {
+    this.restorePrices.run();
+  }
+
   @Test
   void submitsDataToUrl() {
     // setup fake client
@@ -68,4 +91,89 @@ public class MallPriceDatabaseTest {
     assertThat(lines[2], matchesPattern("^600\t\\d+\t5$"));
     assertThat(lines[3], matchesPattern("^607\t\\d+\t50$"));
   }
+
+  @Test
+  void storesItemsBeyondKnownItems() {
+    int itemId = ItemDatabase.maxItemId() + 1000;
+    MallPriceDatabase.recordPrice(itemId, 1234, true);
+
+    assertThat(MallPriceDatabase.getPrice(itemId), equalTo(1234));
+    assertThat(MallPriceDatabase.getAge(itemId), lessThan(1.0f));
+    assertThat(MallPriceDatabase.getPrice(itemId + 1), equalTo(0));
+    assertThat(MallPriceDatabase.getAge(itemId + 1), equalTo(Float.POSITIVE_INFINITY));
+  }
+
+  @Test
+  void keepsPricesOfZero() {
+    MallPriceDatabase.recordPrice(620, 0, true);
+
+    assertThat(MallPriceDatabase.getPrice(620), equalTo(0));
+    assertThat(MallPriceDatabase.getAge(620), lessThan(1.0f));
+
+    var baos = new ByteArrayOutputStream();
+    try (PrintStream writer = new PrintStream(baos, true, StandardCharsets.UTF_8)) {
+      MallPriceDatabase.writePrices(writer);
+    }
+    var lines = baos.toString(StandardCharsets.UTF_8).split("\\r?\\n");
+    assertThat(lines, arrayWithSize(2));
+    assertThat(lines[1], matchesPattern("^620\t\\d+\t0$"));
+  }
+
+  @Test
+  void journalReplaysOnlyNewerPrices(@TempDir Path dir) throws IOException {
+    long now = MallPriceManager.currentTimeMillis() / 1000L;
+    MallPriceDatabase.recordPrice(610, 100, true);
+    MallPriceDatabase.recordPrice(611, 100, true);
+
+    File journal = dir.resolve("mallprices.journal").toFile();
+    Files.writeString(
+        journal.toPath(),
+        String.join(
+            "\n",
+            "610\t" + (now - 86400) + "\t200",
+            "611\t" + (now + 60) + "\t300",
+            "612\t" + now + "\t400",
+            "613\t" + now + "\t0",
+            "garbage",
+            ""));
+
+    assertThat(MallPriceDatabase.readJournal(journal), equalTo(2));
+    assertThat(MallPriceDatabase.getPrice(610), equalTo(100));
+    assertThat(MallPriceDatabase.getPrice(611), equalTo(300));
+    assertThat(MallPriceDatabase.getPrice(612), equalTo(400));
+    assertThat(MallPriceDatabase.getPrice(613), equalTo(0));
+  }
+
+  @Test
+  void readersSeeWholePrices() throws InterruptedException {
+    // Each price is a multiple of its item id, so a price read for the wrong item is noticed
+    AtomicReference<String> failure = new AtomicReference<>();
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; ++t) {
+      int first = 20000 + t * 1000;
+      threads.add(
+          new Thread(
+              () -> {
+                for (int i = 1; i <= 500; ++i) {
+                  int itemId = first + i;
+                  MallPriceDatabase.recordPrice(itemId, itemId * i, true);
+                  for (int j = first + 1; j <= itemId; ++j) {
+                    int price = MallPriceDatabase.getPrice(j);
+                    if (price == 0 || price % j != 0) {
+                      failure.set("Read " + price + " for item " + j);
+                      return;
+                    }
+                  }
+                }
+              }));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertThat(failure.get(), nullValue());
+  }
 }
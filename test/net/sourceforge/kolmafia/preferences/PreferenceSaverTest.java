@@ -0,0 +1,191 @@
+package net.sourceforge.kolmafia.preferences;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import net.sourceforge.kolmafia.utilities.FileUtilities;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PreferenceSaverTest {
+  @TempDir Path dir;
+
+  // The contents of a preferences file at a given version: every line, and the number of lines,
+  // depends on the version, so a partly written file can be recognized
+  private static byte[] contents(final int version) {
+    StringBuilder buffer = new StringBuilder();
+    int lines = 1000 + version % 7 * 100;
+    for (int i = 0; i < lines; ++i) {
+      buffer.append("pref").append(i).append('=').append(version).append('\n');
+    }
+    buffer.append("lines=").append(lines).append('\n');
+    return buffer.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static boolean isComplete(final List<String> lines) {
+    if (lines.isEmpty()) {
+      return false;
+    }
+    String version = lines.get(0).substring(lines.get(0).indexOf('=') + 1);
+    for (int i = 0; i < lines.size() - 1; ++i) {
+      if (!lines.get(i).equals("pref" + i + "=" + version)) {
+        return false;
+      }
+    }
+    return lines.get(lines.size() - 1).equals("lines=" + (lines.size() - 1));
+  }
+
+  private long temporaryFiles() throws IOException {
+    try (Stream<Path> files = Files.list(this.dir)) {
+      return files.filter(path -> path.toString().endsWith(".tmp")).count();
+    }
+  }
+
+  @Test
+  public void changesAreWrittenTogether() throws Exception {
+    File file = this.dir.resolve("user_prefs.txt").toFile();
+    AtomicInteger version = new AtomicInteger();
+    AtomicInteger writes = new AtomicInteger();
+    CountDownLatch written = new CountDownLatch(1);
+    PreferenceSaver saver =
+        new PreferenceSaver(
+            f -> {
+              writes.incrementAndGet();
+              return contents(version.get());
+            },
+            200,
+            (f, contents) -> {
+              FileUtilities.writeAtomically(f, contents);
+              written.countDown();
+            });
+
+    for (int i = 1; i <= 50; ++i) {
+      version.set(i);
+      saver.schedule(file);
+    }
+
+    assertThat(file.exists(), equalTo(false));
+    assertThat(written.await(10, TimeUnit.SECONDS), equalTo(true));
+
+    assertThat(writes.get(), equalTo(1));
+    assertThat(Files.readAllBytes(file.toPath()), equalTo(contents(50)));
+    assertThat(saver.isPending(), equalTo(false));
+  }
+
+  @Test
+  public void flushWritesImmediately() throws Exception {
+    File file = this.dir.resolve("user_prefs.txt").toFile();
+    PreferenceSaver saver = new PreferenceSaver(f -> contents(3), 60000);
+
+    saver.schedule(file);
+    saver.flush();
+
+    assertThat(Files.readAllBytes(file.toPath()), equalTo(contents(3)));
+    assertThat(saver.isPending(), equalTo(false));
+    assertThat(temporaryFiles(), equalTo(0L));
+  }
+
+  @Test
+  public void filesNoLongerInUseAreNotWritten() throws Exception {
+    File file = this.dir.resolve("old_prefs.txt").toFile();
+    PreferenceSaver saver = new PreferenceSaver(f -> null, 60000);
+
+    saver.schedule(file);
+    saver.flush();
+
+    assertThat(file.exists(), equalTo(false));
+  }
+
+  @Test
+  public void fileIsKeptIfRenamingFails() throws Exception {
+    File file = this.dir.resolve("user_prefs.txt").toFile();
+    FileUtilities.writeAtomically(file, contents(1));
+
+    AtomicInteger attempts = new AtomicInteger();
+    PreferenceSaver saver =
+        new PreferenceSaver(
+            f -> contents(2),
+            60000,
+            (f, contents) ->
+                FileUtilities.writeAtomically(
+                    f,
+                    contents,
+                    (source, target) -> {
+                      // Stop as if KoLmafia had crashed, with the new contents not yet in place
+                      if (attempts.incrementAndGet() == 1) {
+                        throw new IOException("Simulated crash");
+                      }
+                      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+                    }));
+
+    saver.schedule(file);
+    saver.flush();
+
+    assertThat(Files.readAllBytes(file.toPath()), equalTo(contents(1)));
+    assertThat(temporaryFiles(), equalTo(0L));
+    assertThat(saver.isPending(), equalTo(true));
+
+    saver.flush();
+
+    assertThat(attempts.get(), equalTo(2));
+    assertThat(Files.readAllBytes(file.toPath()), equalTo(contents(2)));
+    assertThat(saver.isPending(), equalTo(false));
+  }
+
+  @Test
+  public void readersNeverSeePartlyWrittenFiles() throws Exception {
+    File file = this.dir.resolve("user_prefs.txt").toFile();
+    FileUtilities.writeAtomically(file, contents(0));
+
+    AtomicReference<String> failure = new AtomicReference<>();
+    Thread reader =
+        new Thread(
+            () -> {
+              while (!Thread.currentThread().isInterrupted()) {
+                try {
+                  List<String> lines = Files.readAllLines(file.toPath());
+                  if (!isComplete(lines)) {
+                    failure.set("Read a partly written file of " + lines.size() + " lines");
+                    return;
+                  }
+                } catch (NoSuchFileException e) {
+                  // The file is always there
+                  failure.set("File was missing");
+                  return;
+                } catch (IOException e) {
+                  // Windows refuses to read a file as it is renamed over
+                }
+              }
+            });
+    reader.start();
+
+    AtomicInteger version = new AtomicInteger();
+    PreferenceSaver saver = new PreferenceSaver(f -> contents(version.get()), 60000);
+    for (int i = 1; i <= 200 && failure.get() == null; ++i) {
+      version.set(i);
+      saver.schedule(file);
+      saver.flush();
+    }
+
+    reader.interrupt();
+    reader.join();
+
+    assertThat(failure.get(), nullValue());
+    assertThat(isComplete(Files.readAllLines(file.toPath())), equalTo(true));
+    assertThat(temporaryFiles(), equalTo(0L));
+  }
+}
@@ -3,6 +3,7 @@ package net.sourceforge.kolmafia.preferences;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.File;
+import java.nio.file.Files;
 import java.util.TreeMap;
 import net.sourceforge.kolmafia.KoLCharacter;
 import org.junit.jupiter.api.AfterEach;
@@ -571,4 +572,79 @@ class PreferencesTest {
     Preferences.reset("dot_is_....not_good");
     assertTrue(globalfile.exists());
   }
+
+  @Test
+  public void flushWritesChangedPreferences() throws Exception {
+    // Allow files to be written
+    Preferences.saveSettingsToFile = true;
+    String userName = "settings/" + Preferences.baseUserName("fakePrefUser") + "_prefs.txt";
+    File userFile = new File(userName);
+
+    Preferences.setString("aFlushedTestProp", "flushed");
+    Preferences.flush();
+
+    String contents = Files.readString(userFile.toPath());
+    assertTrue(contents.contains("aFlushedTestProp=flushed"));
+  }
+
+  @Test
+  public void typedReadsFollowChanges() {
+    String propName = "aTypedTestProp";
+    Preferences.setInteger(propName, 3);
+    assertEquals(3, Preferences.getInteger(propName));
+    assertEquals(3L, Preferences.getLong(propName));
+    Preferences.setString(propName, "7");
+    assertEquals(7, Preferences.getInteger(propName));
+    assertEquals(7.0, Preferences.getDouble(propName));
+    Preferences.setBoolean(propName, true);
+    assertTrue(Preferences.getBoolean(propName));
+    assertEquals("true", Preferences.getString(propName));
+  }
+
+  @Test
+  public void typedReadsDoNotChangeStoredValue() {
+    String propName = "aTypedTestProp";
+    Preferences.setString(propName, "1.5");
+    assertEquals(1.5f, Preferences.getFloat(propName));
+    Preferences.getInteger(propName);
+    assertEquals("1.5", Preferences.getString(propName));
+  }
+
+  @Test
+  public void concurrentReadsSeeWrittenValues() throws Exception {
+    String propName = "aConcurrentTestProp";
+    Preferences.setInteger(propName, 0);
+
+    Thread[] readers = new Thread[4];
+    boolean[] failed = new boolean[readers.length];
+    for (int i = 0; i < readers.length; ++i) {
+      int reader = i;
+      readers[i] =
+          new Thread(
+              () -> {
+                int last = 0;
+                for (int j = 0; j < 100000; ++j) {
+                  int value = Preferences.getInteger(propName);
+                  if (value < last) {
+                    failed[reader] = true;
+                    return;
+                  }
+                  last = value;
+                }
+              });
+      readers[i].start();
+    }
+
+    for (int i = 1; i <= 1000; ++i) {
+      Preferences.setInteger(propName, i);
+    }
+
+    for (Thread reader : readers) {
+      reader.join();
+    }
+    for (boolean failure : failed) {
+      assertFalse(failure, "Read an older value after a newer one");
+    }
+    assertEquals(1000, Preferences.getInteger(propName));
+  }
 }
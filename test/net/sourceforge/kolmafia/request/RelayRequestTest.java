@@ -20,6 +20,15 @@ public class RelayRequestTest {
     assertTrue(f.exists(), "Supposed to find file that exists.");
   }
 
+  @Test
+  public void onlyImageServerImagesAreImmutable() {
+    assertTrue(RelayRequest.immutableImage("images/itemimages/pasta.gif"));
+    assertTrue(RelayRequest.immutableImage("iii/otherimages/trophy.gif"));
+    assertFalse(RelayRequest.immutableImage("images/playerpics/someone.jpg"));
+    assertFalse(RelayRequest.immutableImage("images/relayimages/chit.gif"));
+    assertFalse(RelayRequest.immutableImage("favicon.ico"));
+  }
+
   @Test
   public void exerciseSomeStaticThingsForCoverage() {
     RelayRequest.loadOverrideImages(false);
@@ -15,12 +15,15 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import net.sourceforge.kolmafia.KoLConstants.MafiaState;
 import net.sourceforge.kolmafia.StaticEntity;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.transport.URIish;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.DisabledOnOs;
 import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
 
 @DisabledOnOs(
     value = {OS.WINDOWS},
@@ -250,6 +253,83 @@ public class GitManagerTest {
     }
   }
 
+  @Nested
+  public class ConcurrentUpdateTests {
+    private static final int PROJECTS = 4;
+
+    private static String id(int i) {
+      return "concurrent-update-test-" + i;
+    }
+
+    private static void commit(Git git, String path, String contents) throws Exception {
+      Path file = git.getRepository().getWorkTree().toPath().resolve(path);
+      Files.createDirectories(file.getParent());
+      Files.writeString(file, contents);
+      git.add().addFilepattern(path).call();
+      git.commit()
+          .setMessage("Update " + path)
+          .setAuthor("test", "test@example.com")
+          .setCommitter("test", "test@example.com")
+          .call();
+    }
+
+    @Test
+    public void shouldUpdateProjectsFromLocalRemotes(@TempDir Path remotes) throws Exception {
+      Git[] work = new Git[PROJECTS];
+      try {
+        for (int i = 0; i < PROJECTS; ++i) {
+          // Each project is cloned from a bare repository, which is pushed to from another clone
+          Path workPath = remotes.resolve("work-" + i);
+          work[i] = Git.init().setInitialBranch("main").setDirectory(workPath.toFile()).call();
+          commit(work[i], "scripts/" + id(i) + ".ash", "v1");
+          Path barePath = remotes.resolve(id(i) + ".git");
+          Git.cloneRepository()
+              .setBare(true)
+              .setURI(workPath.toUri().toString())
+              .setDirectory(barePath.toFile())
+              .call()
+              .close();
+          work[i]
+              .remoteAdd()
+              .setName("origin")
+              .setUri(new URIish(barePath.toUri().toString()))
+              .call();
+          Git.cloneRepository()
+              .setURI(barePath.toUri().toString())
+              .setDirectory(Paths.get("git", id(i)).toFile())
+              .call()
+              .close();
+          CliCaller.callCli("git", "sync " + id(i));
+        }
+
+        for (int i = 0; i < PROJECTS; i += 2) {
+          commit(work[i], "scripts/" + id(i) + ".ash", "v2");
+          commit(work[i], "relay/" + id(i) + ".ash", "new");
+          work[i].push().setRemote("origin").add("main").call();
+        }
+
+        String output = CliCaller.callCli("git", "update");
+
+        assertThat(output, containsString("projects in"));
+        assertEquals(MafiaState.CONTINUE, StaticEntity.getContinuationState());
+        for (int i = 0; i < PROJECTS; ++i) {
+          boolean changed = i % 2 == 0;
+          assertThat(output, containsString("Updating project " + id(i)));
+          assertEquals(
+              changed ? "v2" : "v1", Files.readString(Paths.get("scripts", id(i) + ".ash")));
+          assertEquals(changed, Files.exists(Paths.get("relay", id(i) + ".ash")));
+        }
+      } finally {
+        for (int i = 0; i < PROJECTS; ++i) {
+          if (work[i] != null) {
+            work[i].close();
+          }
+          removeGitIfExists(id(i));
+        }
+      }
+    }
+  }
+
   private static void removeGitIfExists(String remove) {
     if (Files.exists(Paths.get("git", remove))) {
       String output = CliCaller.callCli("git", "delete " + remove);
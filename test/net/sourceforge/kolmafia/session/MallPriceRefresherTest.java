@@ -0,0 +1,163 @@
+package net.sourceforge.kolmafia.session;
+
+import static internal.helpers.HttpClientWrapper.getRequests;
+import static internal.helpers.Networking.html;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasSize;
+
+import internal.helpers.HttpClientWrapper;
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import net.sourceforge.kolmafia.AdventureResult;
+import net.sourceforge.kolmafia.KoLCharacter;
+import net.sourceforge.kolmafia.KoLConstants.MafiaState;
+import net.sourceforge.kolmafia.KoLmafia;
+import net.sourceforge.kolmafia.StaticEntity;
+import net.sourceforge.kolmafia.objectpool.ItemPool;
+import net.sourceforge.kolmafia.persistence.MallPriceDatabase;
+import net.sourceforge.kolmafia.preferences.Preferences;
+import net.sourceforge.kolmafia.request.CharPaneRequest;
+import net.sourceforge.kolmafia.request.GenericRequest;
+import net.sourceforge.kolmafia.request.PurchaseRequest;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class MallPriceRefresherTest {
+  private static final List<Integer> ITEMS =
+      List.of(
+          ItemPool.HELL_RAMEN,
+          ItemPool.DRY_NOODLES,
+          ItemPool.BOXED_WINE,
+          ItemPool.TOMATO,
+          ItemPool.MR_ACCESSORY,
+          ItemPool.FORTUNE_COOKIE);
+
+  @BeforeAll
+  public static void beforeAll() {
+    KoLCharacter.reset("");
+    KoLCharacter.reset("mall price refresher user");
+    CharPaneRequest.setCanInteract(true);
+    MallPriceDatabase.savePricesToFile = false;
+    Preferences.saveSettingsToFile = false;
+  }
+
+  @AfterAll
+  public static void afterAll() {
+    MallPriceDatabase.savePricesToFile = true;
+    Preferences.saveSettingsToFile = true;
+  }
+
+  @BeforeEach
+  public void beforeEach() {
+    HttpClientWrapper.setupFakeClient();
+    // Every search gets the same results, which is all these tests need
+    HttpClientWrapper.fakeClientBuilder.client.setResponse(
+        200, html("request/test_mall_search_hell_ramen.html"));
+    MallPriceManager.reset();
+  }
+
+  @AfterEach
+  public void afterEach() {
+    GenericRequest.sessionId = null;
+    KoLmafia.forceContinue();
+    MallPriceManager.reset();
+  }
+
+  private static List<HttpRequest> mallSearches() {
+    List<HttpRequest> searches = new ArrayList<>();
+    for (HttpRequest request : getRequests()) {
+      if (request.uri().getPath().endsWith("mall.php")) {
+        searches.add(request);
+      }
+    }
+    return searches;
+  }
+
+  @Test
+  public void searchesEveryItemAndReportsOnCallingThread() {
+    Thread caller = Thread.currentThread();
+    Map<Integer, List<PurchaseRequest>> found = new TreeMap<>();
+    List<Thread> threads = new ArrayList<>();
+
+    int count =
+        new MallPriceRefresher(3, 0)
+            .refresh(
+                ITEMS,
+                (itemId, results) -> {
+                  threads.add(Thread.currentThread());
+                  found.put(itemId, results);
+                });
+
+    assertThat(count, equalTo(ITEMS.size()));
+    assertThat(mallSearches(), hasSize(ITEMS.size()));
+    assertThat(found.keySet(), hasSize(ITEMS.size()));
+    for (List<PurchaseRequest> results : found.values()) {
+      assertThat(results, hasSize(60));
+    }
+    for (Thread thread : threads) {
+      assertThat(thread, equalTo(caller));
+    }
+  }
+
+  @Test
+  public void limitsRequestRate() {
+    long start = System.nanoTime();
+    new MallPriceRefresher(ITEMS.size(), 20).refresh(ITEMS, (itemId, results) -> {});
+    long elapsed = (System.nanoTime() - start) / 1000000;
+
+    // Six requests, at most one every 50 ms
+    assertThat(elapsed, greaterThanOrEqualTo(240L));
+  }
+
+  @Test
+  public void refreshesOnlyMissingAndStalePrices() {
+    // A fresh price needs no search
+    MallPriceDatabase.recordPrice(ItemPool.TOMATO, 100, true);
+
+    List<AdventureResult> items = new ArrayList<>();
+    for (int itemId : ITEMS) {
+      items.add(ItemPool.get(itemId));
+    }
+    // Nor does an item that is asked for twice
+    items.add(ItemPool.get(ItemPool.HELL_RAMEN));
+
+    int count = MallPriceManager.getMallPrices(items.toArray(new AdventureResult[0]), 1.0f);
+
+    assertThat(count, equalTo(ITEMS.size() - 1));
+    assertThat(mallSearches(), hasSize(ITEMS.size() - 1));
+
+    // The prices found are used without searching again
+    assertThat(MallPriceManager.getMallPrice(ItemPool.HELL_RAMEN), greaterThan(0));
+    assertThat(mallSearches(), hasSize(ITEMS.size() - 1));
+  }
+
+  @Test
+  public void failedSearchDoesNotLoseOtherResults() {
+    Map<Integer, List<PurchaseRequest>> found = new TreeMap<>();
+
+    int count =
+        new MallPriceRefresher(3, 0) {
+          @Override
+          Search search(final int itemId) throws InterruptedException {
+            if (itemId == ItemPool.BOXED_WINE) {
+              throw new IllegalStateException("Search failed");
+            }
+            return super.search(itemId);
+          }
+        }.refresh(ITEMS, found::put);
+
+    assertThat(count, equalTo(ITEMS.size() - 1));
+    assertThat(found.keySet(), hasSize(ITEMS.size() - 1));
+    assertThat(found.containsKey(ItemPool.BOXED_WINE), equalTo(false));
+    assertThat(StaticEntity.getContinuationState(), equalTo(MafiaState.ERROR));
+  }
+}
@@ -0,0 +1,104 @@
+package net.sourceforge.kolmafia.session;
+
+import static internal.helpers.Player.withProperty;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.nullValue;
+
+import internal.helpers.Cleanups;
+import net.sourceforge.kolmafia.preferences.Preferences;
+import org.junit.jupiter.api.Test;
+
+public class ResponseTextParserTest {
+  @Test
+  public void routesChoicesByChoiceNumber() {
+    assertThat(
+        ResponseTextParser.PARSERS.getNames("choice.php"),
+        contains("fudge wand", "swimming pool", "summoning chamber", "clan fortune"));
+  }
+
+  @Test
+  public void routesEveryWayOfUsingAnItem() {
+    for (String path :
+        new String[] {
+          "inv_eat.php",
+          "inv_booze.php",
+          "inv_spleen.php",
+          "inv_use.php",
+          "inv_familiar.php",
+          "multiuse.php",
+          "skills.php"
+        }) {
+      assertThat(path, ResponseTextParser.PARSERS.getNames(path), contains("item use"));
+    }
+  }
+
+  @Test
+  public void doesNotRouteUnparsedPages() {
+    assertThat(ResponseTextParser.PARSERS.getNames("main.php"), empty());
+    assertThat(ResponseTextParser.PARSERS.getNames("fight.php"), empty());
+  }
+
+  @Test
+  public void routesPagesWithSeveralNames() {
+    assertThat(
+        ResponseTextParser.PARSERS.getPaths(),
+        hasItems("bigisland.php", "postwarisland.php", "closet.php", "fillcloset.php"));
+  }
+
+  private static final String FORTUNE_TELLER =
+      "<b>Relationship Fortune Teller</b> You can ask about a clanmate 2 times today.";
+
+  @Test
+  public void parsesFortuneTellerChoice() {
+    var cleanups =
+        new Cleanups(
+            withProperty("_clanFortuneConsultUses", 0),
+            withProperty("_clanFortuneBuffUsed", false));
+    try (cleanups) {
+      assertThat(
+          ResponseTextParser.PARSERS.dispatch(
+              "choice.php?pwd&whichchoice=1278&option=1", FORTUNE_TELLER),
+          equalTo("clan fortune"));
+      assertThat(Preferences.getInteger("_clanFortuneConsultUses"), equalTo(1));
+    }
+  }
+
+  @Test
+  public void parsesFortuneTellerInVipLounge() {
+    var cleanups =
+        new Cleanups(
+            withProperty("_clanFortuneConsultUses", 0),
+            withProperty("_clanFortuneBuffUsed", false));
+    try (cleanups) {
+      assertThat(
+          ResponseTextParser.PARSERS.dispatch(
+              "clan_viplounge.php?preaction=lovetester", FORTUNE_TELLER),
+          equalTo("clan fortune"));
+      assertThat(Preferences.getInteger("_clanFortuneConsultUses"), equalTo(1));
+    }
+  }
+
+  @Test
+  public void onlyParsesChoicesWithTheirOwnNumber() {
+    var cleanups = new Cleanups(withProperty("_clanFortuneConsultUses", 0));
+    try (cleanups) {
+      assertThat(
+          ResponseTextParser.PARSERS.dispatch(
+              "choice.php?pwd&whichchoice=12780&option=1", FORTUNE_TELLER),
+          nullValue());
+      assertThat(Preferences.getInteger("_clanFortuneConsultUses"), equalTo(0));
+    }
+  }
+
+  @Test
+  public void doesNotParseOtherPlayersItems() {
+    assertThat(
+        ResponseTextParser.PARSERS.dispatch(
+            "desc_item.php?whichitem=503220568&otherplayer=121572", "<html></html>"),
+        nullValue());
+  }
+}
@@ -8,6 +8,7 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -425,4 +426,14 @@ public class ParserTest {
         "bar, char 6 to line 3, char 4");
     Preferences.resetToDefault("commandLineNamespace");
   }
+
+  @Test
+  public void contentDigestIsOfTheTextParsed() throws Exception {
+    byte[] text = "void main() {}\n".getBytes(StandardCharsets.UTF_8);
+    // The file doesn't exist: only the stream is read
+    Parser parser = new Parser(new File("nonexistent.ash"), new ByteArrayInputStream(text), null);
+
+    byte[] expected = MessageDigest.getInstance("SHA-256").digest(text);
+    assertArrayEquals(expected, parser.getContentDigest());
+  }
 }
@@ -0,0 +1,142 @@
+package net.sourceforge.kolmafia.textui;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class ProfilerTest {
+  private static List<String> collapsedStackNames(final Profiler profiler) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    profiler.writeCollapsedStacks(new PrintStream(bytes, true, StandardCharsets.UTF_8));
+    List<String> paths = new ArrayList<>();
+    for (String line : bytes.toString(StandardCharsets.UTF_8).split("\n")) {
+      if (!line.isEmpty()) {
+        paths.add(line.substring(0, line.lastIndexOf(' ')));
+      }
+    }
+    return paths;
+  }
+
+  private static void spin(final long millis) {
+    long end = System.nanoTime() + millis * 1000000;
+    while (System.nanoTime() < end) {
+      Thread.onSpinWait();
+    }
+  }
+
+  @Test
+  public void instrumentedCallsAreRecordedPerCallSite() {
+    Profiler profiler = Profiler.instrument("test.ash");
+    try {
+      for (int i = 0; i < 2; ++i) {
+        profiler.enter("void outer()", "test.ash:1", Profiler.Kind.SCRIPT);
+        spin(2);
+        profiler.enter("int inner()", "test.ash:5", Profiler.Kind.SCRIPT);
+        spin(2);
+        profiler.exit();
+        profiler.exit();
+      }
+      profiler.enter("int inner()", "test.ash:9", Profiler.Kind.SCRIPT);
+      profiler.exit();
+    } finally {
+      profiler.stop();
+    }
+
+    Profiler.Node root = profiler.getRoot();
+    assertThat(root.getChildren(), hasSize(2));
+
+    Profiler.Node outer = root.getChildren().get(0);
+    assertThat(outer.name, equalTo("void outer()"));
+    assertThat(outer.count, equalTo(2L));
+    assertThat(outer.total, greaterThanOrEqualTo(8000000L));
+    assertThat(outer.self, greaterThanOrEqualTo(4000000L));
+
+    Profiler.Node inner = outer.getChildren().get(0);
+    assertThat(inner.site, equalTo("test.ash:5"));
+    assertThat(inner.count, equalTo(2L));
+    assertThat(inner.self, equalTo(inner.total));
+
+    assertThat(root.getChildren().get(1).site, equalTo("test.ash:9"));
+    assertThat(root.total, greaterThanOrEqualTo(outer.total));
+  }
+
+  @Test
+  public void stoppingClosesUnfinishedCalls() {
+    Profiler profiler = Profiler.instrument("test.ash");
+    profiler.enter("void outer()", "test.ash:1", Profiler.Kind.SCRIPT);
+    Profiler network = Profiler.enterNetwork("fight.php");
+    profiler.stop();
+
+    assertThat(network, equalTo(profiler));
+    assertThat(Profiler.current(), nullValue());
+    assertThat(Profiler.enterNetwork("fight.php"), nullValue());
+
+    Profiler.Node outer = profiler.getRoot().getChildren().get(0);
+    Profiler.Node request = outer.getChildren().get(0);
+    assertThat(request.name, equalTo("[network] fight.php"));
+    assertThat(request.kind, equalTo(Profiler.Kind.NETWORK));
+    assertThat(outer.total, greaterThanOrEqualTo(request.total));
+  }
+
+  @Test
+  public void samplesAreChargedToScriptFrames() {
+    StackTraceElement[] stack = {
+      new StackTraceElement(
+          "net.sourceforge.kolmafia.request.GenericRequest", "sendRequest", "x.java", 1),
+      new StackTraceElement("net.sourceforge.kolmafia.request.GenericRequest", "run", "x.java", 1),
+      new StackTraceElement(RuntimeLibrary.class.getName(), "visit_url", "x.java", 1),
+      new StackTraceElement("org.mozilla.javascript.gen.file_x_1", "call", "daily.js", 12),
+      new StackTraceElement("org.mozilla.javascript.gen.file_x_1", "_c_doQuest_3", "daily.js", 12),
+      new StackTraceElement("org.mozilla.javascript.gen.file_x_1", "_c_script_0", "daily.js", 40),
+      new StackTraceElement("java.lang.Thread", "run", "Thread.java", 1),
+    };
+
+    Profiler profiler = Profiler.sample("daily.js");
+    profiler.stop();
+    profiler.addSample(stack, 3000000, 100);
+    profiler.addSample(stack, 5000000, 100);
+
+    // Only script functions, library functions and the network wait are charged. Other frames,
+    // such as the module's top level and GenericRequest.run, are skipped
+    assertThat(collapsedStackNames(profiler), hasItem("daily.js;doQuest;visit_url;[network]"));
+
+    Profiler.Node doQuest = profiler.getRoot().getChildren().get(0);
+    assertThat(doQuest.site, equalTo("daily.js:40"));
+    assertThat(doQuest.count, equalTo(2L));
+    assertThat(doQuest.total, equalTo(8000000L));
+    assertThat(doQuest.self, equalTo(0L));
+
+    Profiler.Node visitUrl = doQuest.getChildren().get(0);
+    assertThat(visitUrl.site, equalTo("daily.js:12"));
+    assertThat(visitUrl.kind, equalTo(Profiler.Kind.LIBRARY));
+
+    Profiler.Node network = visitUrl.getChildren().get(0);
+    assertThat(network.self, equalTo(8000000L));
+    assertThat(network.allocated, equalTo(200L));
+  }
+
+  @Test
+  public void summaryListsFunctionsAndCallSites() {
+    Profiler profiler = Profiler.instrument("test.ash");
+    profiler.enter("void outer()", "test.ash:1", Profiler.Kind.SCRIPT);
+    profiler.enter("buffer visit_url(string)", "test.ash:2", Profiler.Kind.LIBRARY);
+    profiler.exit();
+    profiler.exit();
+    profiler.stop();
+
+    String summary = profiler.summary();
+    assertThat(summary, containsString("in library functions"));
+    assertThat(summary, containsString("<td>buffer visit_url(string)</td><td>test.ash:2</td>"));
+  }
+}
@@ -15,11 +15,14 @@ import static org.hamcrest.Matchers.equalTo;
 
 import internal.helpers.Cleanups;
 import internal.helpers.HttpClientWrapper;
+import java.io.File;
 import net.sourceforge.kolmafia.KoLCharacter;
+import net.sourceforge.kolmafia.KoLConstants;
 import net.sourceforge.kolmafia.objectpool.FamiliarPool;
 import net.sourceforge.kolmafia.preferences.Preferences;
 import net.sourceforge.kolmafia.request.CharSheetRequest;
 import net.sourceforge.kolmafia.textui.command.AbstractCommandTestBase;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -286,4 +289,45 @@ public class RuntimeLibraryTest extends AbstractCommandTestBase {
       }
     }
   }
+
+  @Nested
+  class DataFiles {
+    private static final String FILENAME = "runtime_library_test.txt";
+
+    @AfterEach
+    public void deleteFile() {
+      new File(KoLConstants.DATA_LOCATION, FILENAME).delete();
+      DataFileCache.clearCache();
+    }
+
+    @Test
+    void mapsReadAgainAreSeparateCopies() {
+      String output =
+          execute(
+              "record r { int x; }; r[string] m; m[\"a\"].x = 1; map_to_file(m, \""
+                  + FILENAME
+                  + "\"); for i from 1 to 2 { r[string] n; file_to_map(\""
+                  + FILENAME
+                  + "\", n); n[\"a\"].x += 1; print(n[\"a\"].x); }");
+
+      assertContinueState();
+      assertThat(output, containsString("2\n2\n"));
+    }
+
+    @Test
+    void mapsAreReadAgainAfterTheFileIsWritten() {
+      String output =
+          execute(
+              "int[string] m; m[\"a\"] = 1; map_to_file(m, \""
+                  + FILENAME
+                  + "\"); for i from 1 to 2 { int[string] n; file_to_map(\""
+                  + FILENAME
+                  + "\", n); print(n[\"a\"]); m[\"a\"] = 5; map_to_file(m, \""
+                  + FILENAME
+                  + "\"); }");
+
+      assertContinueState();
+      assertThat(output, containsString("1\n5\n"));
+    }
+  }
 }
@@ -0,0 +1,65 @@
+package net.sourceforge.kolmafia.textui.javascript;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import net.sourceforge.kolmafia.KoLConstants;
+import org.junit.jupiter.api.Test;
+
+public class JavascriptRuntimeTest {
+  private static String run(String script) {
+    return new JavascriptRuntime(script).execute(null, null, true).toString();
+  }
+
+  @Test
+  void enumeratedValuesAreTheSameObject() {
+    assertThat(run("Item.get(\"hot wing\") === toItem(\"hot wing\")"), equalTo("true"));
+    assertThat(run("Item.get(\"hot wing\") instanceof Item"), equalTo("true"));
+  }
+
+  @Test
+  void runtimeLibraryIsAvailableToEveryRun() {
+    assertThat(run("toInt(Item.get(\"hot wing\"))"), equalTo("471"));
+    assertThat(run("require(\"kolmafia\").toInt(Item.get(\"hot wing\"))"), equalTo("471"));
+  }
+
+  @Test
+  void runsDoNotShareGlobals() {
+    assertThat(run("var shared = 1; typeof shared"), equalTo("number"));
+    assertThat(run("typeof shared"), equalTo("undefined"));
+  }
+
+  @Test
+  void runsDoNotShareStandardObjects() {
+    assertThat(run("Array.prototype.extra = 1; [].extra"), equalTo("1"));
+    assertThat(run("typeof [].extra"), equalTo("undefined"));
+  }
+
+  @Test
+  void editedModuleIsRequiredAfresh() throws IOException {
+    KoLConstants.SCRIPT_LOCATION.mkdirs();
+    Path dir = Files.createTempDirectory(KoLConstants.SCRIPT_LOCATION.toPath(), "jstest");
+    File module = dir.resolve("module.js").toFile();
+    String require = "require(\"" + dir.getFileName() + "/module\").value";
+
+    try {
+      Files.writeString(module.toPath(), "module.exports.value = \"before\";");
+      assertThat(run(require), equalTo("before"));
+
+      long modified = module.lastModified();
+      Files.writeString(module.toPath(), "module.exports.value = \"after\";");
+      // Some file systems only keep modification dates to the second
+      if (module.lastModified() == modified) {
+        module.setLastModified(modified + 1000);
+      }
+      assertThat(run(require), equalTo("after"));
+    } finally {
+      module.delete();
+      dir.toFile().delete();
+    }
+  }
+}
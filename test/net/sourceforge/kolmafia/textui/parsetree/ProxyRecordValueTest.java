@@ -0,0 +1,111 @@
+package net.sourceforge.kolmafia.textui.parsetree;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+
+import java.lang.reflect.Method;
+import net.sourceforge.kolmafia.objectpool.ItemPool;
+import net.sourceforge.kolmafia.persistence.ItemDatabase;
+import net.sourceforge.kolmafia.textui.DataTypes;
+import net.sourceforge.kolmafia.textui.RuntimeLibrary;
+import net.sourceforge.kolmafia.textui.ScriptRuntime;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+public class ProxyRecordValueTest {
+  private static RecordValue itemProxy(int itemId) {
+    return (RecordValue) DataTypes.makeItemValue(itemId, true).asProxy();
+  }
+
+  private static LibraryFunction itemToInt() {
+    for (Function function : RuntimeLibrary.functions.findFunctions("to_int")) {
+      if (function.getVariableReferences().size() == 1
+          && function.getVariableReferences().get(0).getType().equals(DataTypes.ITEM_TYPE)) {
+        return (LibraryFunction) function;
+      }
+    }
+    throw new AssertionError("to_int(item) not found");
+  }
+
+  @Test
+  public void proxyFieldsMatchGetters() throws Exception {
+    RecordValue proxy = itemProxy(ItemPool.HOT_WING);
+    RecordType type = (RecordType) proxy.getType();
+
+    assertThat(proxy.aref(new Value("name"), null).toString(), equalTo("hot wing"));
+    assertThat(proxy.aref(new Value("fullness"), null).intValue(), equalTo(1L));
+
+    for (int i = 0; i < type.fieldCount(); ++i) {
+      Value value = proxy.aref(i, null);
+      assertThat(type.getFieldNames()[i], value, notNullValue());
+    }
+  }
+
+  @Test
+  public void libraryFunctionsAreCalled() {
+    Value result =
+        itemToInt()
+            .executeWithoutInterpreter(
+                null, new Object[] {null, DataTypes.makeItemValue(ItemPool.HOT_WING, true)});
+    assertThat(result.intValue(), equalTo((long) ItemPool.HOT_WING));
+  }
+
+  /**
+   * Compares reading fields of every item through reflection, as field access used to work, with
+   * reading them through the proxy. Run with KOLMAFIA_BENCHMARK set to see the timings.
+   */
+  @Test
+  @EnabledIfEnvironmentVariable(named = "KOLMAFIA_BENCHMARK", matches = ".+")
+  public void benchmarkFieldAccess() throws Exception {
+    int maxItemId = ItemDatabase.maxItemId();
+    String[] fields = ProxyRecordValue.ItemProxy._type.getFieldNames();
+    LibraryFunction toInt = itemToInt();
+    Method toIntMethod =
+        RuntimeLibrary.findMethod("to_int", new Class<?>[] {ScriptRuntime.class, Value.class});
+
+    for (int round = 0; round < 5; ++round) {
+      long reflective = 0, proxied = 0, reflectiveCalls = 0, proxiedCalls = 0;
+      for (int id = 1; id <= maxItemId; ++id) {
+        if (ItemDatabase.getItemDataName(id) == null) {
+          continue;
+        }
+        Value item = DataTypes.makeItemValue(id, true);
+        RecordValue proxy = (RecordValue) item.asProxy();
+
+        long start = System.nanoTime();
+        for (String field : fields) {
+          proxy.getClass().getMethod("get_" + field).invoke(proxy);
+        }
+        reflective += System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < fields.length; ++i) {
+          proxy.aref(i, null);
+        }
+        proxied += System.nanoTime() - start;
+
+        start = System.nanoTime();
+        toIntMethod.invoke(null, null, item);
+        reflectiveCalls += System.nanoTime() - start;
+
+        start = System.nanoTime();
+        toInt.executeWithoutInterpreter(null, new Object[] {null, item});
+        proxiedCalls += System.nanoTime() - start;
+      }
+
+      System.out.println(
+          "Round "
+              + round
+              + ": fields reflective "
+              + reflective / 1_000_000
+              + " ms, handles "
+              + proxied / 1_000_000
+              + " ms; to_int reflective "
+              + reflectiveCalls / 1_000_000
+              + " ms, handles "
+              + proxiedCalls / 1_000_000
+              + " ms");
+    }
+  }
+}
@@ -0,0 +1,237 @@
+package net.sourceforge.kolmafia.textui.parsetree;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import net.sourceforge.kolmafia.textui.DataTypes;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+public class ValueHashMapTest {
+  private static final AggregateType INT_TO_INT =
+      new AggregateType(DataTypes.INT_TYPE, DataTypes.INT_TYPE);
+  private static final AggregateType STRING_TO_INT =
+      new AggregateType(DataTypes.INT_TYPE, DataTypes.STRING_TYPE);
+
+  private static List<Long> intKeys(final Map<Value, Value> map) {
+    List<Long> keys = new ArrayList<>();
+    for (Value key : map.keySet()) {
+      keys.add(key.intValue());
+    }
+    return keys;
+  }
+
+  @Test
+  public void mapsAreHashedByIndexType() {
+    assertThat(new MapValue(INT_TO_INT).content, instanceOf(ValueHashMap.IntKeyed.class));
+    assertThat(new MapValue(STRING_TO_INT).content, instanceOf(ValueHashMap.StringKeyed.class));
+    assertThat(
+        new MapValue(new AggregateType(DataTypes.INT_TYPE, DataTypes.ITEM_TYPE)).content,
+        instanceOf(ValueHashMap.IntKeyed.class));
+    assertThat(
+        new MapValue(new AggregateType(DataTypes.INT_TYPE, DataTypes.FLOAT_TYPE)).content,
+        instanceOf(TreeMap.class));
+    assertThat(new MapValue(STRING_TO_INT, true).content, instanceOf(TreeMap.class));
+  }
+
+  @Test
+  public void keysAreVisitedInOrder() {
+    ValueHashMap map = ValueHashMap.forIndexType(DataTypes.INT_TYPE);
+    for (long key : new long[] {5, 3, 9, 1, 7}) {
+      map.put(new Value(key), new Value(key * 10));
+    }
+
+    assertThat(intKeys(map), contains(1L, 3L, 5L, 7L, 9L));
+
+    map.put(new Value(4), new Value(40));
+    map.remove(new Value(9));
+    assertThat(intKeys(map), contains(1L, 3L, 4L, 5L, 7L));
+    assertThat(map.get(new Value(4)).intValue(), equalTo(40L));
+    assertThat(map.get(new Value(9)), nullValue());
+  }
+
+  @Test
+  public void stringKeysAreVisitedInOrder() {
+    ValueHashMap map = ValueHashMap.forIndexType(DataTypes.STRING_TYPE);
+    for (String key : new String[] {"pear", "apple", "Zebra", "fig"}) {
+      map.put(new Value(key), new Value(key.length()));
+    }
+
+    List<String> keys = new ArrayList<>();
+    for (Value key : map.keySet()) {
+      keys.add(key.toString());
+    }
+    assertThat(keys, contains("Zebra", "apple", "fig", "pear"));
+  }
+
+  @Test
+  public void currentKeyCanBeRemovedWhileIterating() {
+    ValueHashMap map = ValueHashMap.forIndexType(DataTypes.INT_TYPE);
+    for (long key = 0; key < 10; ++key) {
+      map.put(new Value(key), new Value(key));
+    }
+
+    Iterator<Value> it = map.keySet().iterator();
+    while (it.hasNext()) {
+      if (it.next().intValue() % 2 == 0) {
+        it.remove();
+      }
+    }
+
+    assertThat(intKeys(map), contains(1L, 3L, 5L, 7L, 9L));
+    assertThat(map.size(), equalTo(5));
+  }
+
+  @Test
+  public void addingKeysWhileIteratingIsAnError() {
+    ValueHashMap map = ValueHashMap.forIndexType(DataTypes.INT_TYPE);
+    map.put(new Value(1), new Value(1));
+    map.put(new Value(2), new Value(2));
+
+    Iterator<Value> it = map.keySet().iterator();
+    it.next();
+    map.put(new Value(1), new Value(10));
+    it.next();
+
+    Iterator<Value> it2 = map.keySet().iterator();
+    it2.next();
+    map.put(new Value(3), new Value(3));
+    assertThrows(ConcurrentModificationException.class, it2::next);
+  }
+
+  private static void behavesLikeATreeMap(final LongSupplier keys) {
+    Random random = new Random(42);
+    Map<Value, Value> expected = new TreeMap<>();
+    ValueHashMap actual = ValueHashMap.forIndexType(DataTypes.INT_TYPE);
+
+    for (int i = 0; i < 10000; ++i) {
+      Value key = new Value(keys.getAsLong());
+      switch (random.nextInt(4)) {
+        case 0 -> assertThat(actual.remove(key), equalTo(expected.remove(key)));
+        case 1 -> assertThat(intKeys(actual), equalTo(intKeys(expected)));
+        default -> {
+          Value value = new Value(i);
+          assertThat(actual.put(key, value), equalTo(expected.put(key, value)));
+        }
+      }
+      assertThat(actual.size(), equalTo(expected.size()));
+      assertThat(actual.get(key), equalTo(expected.get(key)));
+    }
+
+    assertThat(intKeys(actual), equalTo(intKeys(expected)));
+  }
+
+  @Test
+  public void behavesLikeATreeMap() {
+    Random random = new Random(1);
+    behavesLikeATreeMap(() -> random.nextInt(500));
+  }
+
+  @Test
+  public void keysDifferingInHighBitsBehaveLikeATreeMap() {
+    Random random = new Random(1);
+    behavesLikeATreeMap(() -> (random.nextInt(500) - 250) * 0x100000000L);
+  }
+
+  @Test
+  public void copiesKeepTheirKind() {
+    MapValue map = new MapValue(STRING_TO_INT);
+    map.aset(new Value("b"), new Value(2));
+    map.aset(new Value("a"), new Value(1));
+
+    MapValue copy = (MapValue) map.copy();
+    copy.aset(new Value("c"), new Value(3));
+
+    assertThat(copy.content, instanceOf(ValueHashMap.StringKeyed.class));
+    assertThat(map.count(), equalTo(2));
+    assertThat(copy.keys()[0].toString(), equalTo("a"));
+    assertThat(copy.keys()[2].toString(), equalTo("c"));
+  }
+
+  private static long time(final Runnable idiom) {
+    long start = System.nanoTime();
+    idiom.run();
+    return (System.nanoTime() - start) / 1000000;
+  }
+
+  private static void benchmark(
+      final String name, final AggregateType type, final Consumer<MapValue> idiom) {
+    Supplier<MapValue> tree = () -> new MapValue(type, new TreeMap<Value, Value>());
+    Supplier<MapValue> hash = () -> new MapValue(type);
+
+    for (int round = 1; round <= 5; ++round) {
+      long treeTime = time(() -> idiom.accept(tree.get()));
+      long hashTime = time(() -> idiom.accept(hash.get()));
+      System.out.println(
+          name + " round " + round + ": tree " + treeTime + " ms, hash " + hashTime + " ms");
+    }
+  }
+
+  /**
+   * Times some common ways scripts use maps, with maps kept in a tree and in a hash table. Run
+   * with KOLMAFIA_BENCHMARK set to see the timings.
+   */
+  @Test
+  @EnabledIfEnvironmentVariable(named = "KOLMAFIA_BENCHMARK", matches = ".+")
+  public void benchmarkScriptIdioms() {
+    int size = 200000;
+
+    // int[int] filled in a counting loop, then looked up
+    benchmark(
+        "fill and look up",
+        INT_TO_INT,
+        map -> {
+          for (int i = 0; i < size; ++i) {
+            map.aset(new Value(i), new Value(i));
+          }
+          long total = 0;
+          for (int i = 0; i < size; ++i) {
+            total += map.aref(new Value(i), null).intValue();
+          }
+          assertThat(total, equalTo((long) size * (size - 1) / 2));
+        });
+
+    // int[string] counting occurrences: counts[name] += 1
+    benchmark(
+        "count strings",
+        STRING_TO_INT,
+        map -> {
+          for (int i = 0; i < size; ++i) {
+            Value key = new Value("key" + (i % 5000));
+            Value count = map.aref(key, null);
+            map.aset(key, new Value(count == null ? 1 : count.intValue() + 1));
+          }
+        });
+
+    // int[int] filled out of order, then visited with foreach
+    benchmark(
+        "shuffled fill and foreach",
+        INT_TO_INT,
+        map -> {
+          Random random = new Random(1);
+          for (int i = 0; i < size; ++i) {
+            map.aset(new Value(random.nextInt(size * 4)), new Value(i));
+          }
+          for (int pass = 0; pass < 10; ++pass) {
+            Iterator<Value> it = map.iterator();
+            while (it.hasNext()) {
+              map.aref(it.next(), null);
+            }
+          }
+        });
+  }
+}
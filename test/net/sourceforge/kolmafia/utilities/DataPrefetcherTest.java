@@ -0,0 +1,66 @@
+package net.sourceforge.kolmafia.utilities;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import net.sourceforge.kolmafia.KoLConstants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class DataPrefetcherTest {
+  @AfterEach
+  public void reset() {
+    DataPrefetcher.reset();
+  }
+
+  @Test
+  public void prefetchedFileMatchesFile() throws IOException {
+    DataPrefetcher.start(List.of("zapgroups.txt"), ForkJoinPool.commonPool());
+
+    try (BufferedReader prefetched = DataPrefetcher.getReader("zapgroups.txt");
+        BufferedReader file = FileUtilities.getReader("zapgroups.txt", false)) {
+      assertThat(prefetched, notNullValue());
+      String line;
+      while ((line = FileUtilities.readLine(file)) != null) {
+        assertThat(FileUtilities.readLine(prefetched), equalTo(line));
+      }
+      assertThat(FileUtilities.readData(prefetched), nullValue());
+    }
+  }
+
+  @Test
+  public void prefetchedFileIsOnlyHandedOutOnce() throws IOException {
+    DataPrefetcher.start(List.of("zapgroups.txt"), ForkJoinPool.commonPool());
+
+    try (BufferedReader reader = DataPrefetcher.getReader("zapgroups.txt")) {
+      assertThat(reader, notNullValue());
+    }
+    assertThat(DataPrefetcher.getReader("zapgroups.txt"), nullValue());
+  }
+
+  @Test
+  public void overriddenFileIsNotPrefetched() throws IOException {
+    File override = new File(KoLConstants.DATA_LOCATION, "zapgroups.txt");
+    Files.writeString(override.toPath(), "1\n");
+    try {
+      DataPrefetcher.start(List.of("zapgroups.txt"), ForkJoinPool.commonPool());
+      assertThat(DataPrefetcher.getReader("zapgroups.txt"), nullValue());
+    } finally {
+      override.delete();
+    }
+  }
+
+  @Test
+  public void missingFileIsNotPrefetched() {
+    DataPrefetcher.start(List.of("nosuchfile.txt"), ForkJoinPool.commonPool());
+    assertThat(DataPrefetcher.getReader("nosuchfile.txt"), nullValue());
+  }
+}
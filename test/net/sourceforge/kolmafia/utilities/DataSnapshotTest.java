@@ -0,0 +1,141 @@
+package net.sourceforge.kolmafia.utilities;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import net.sourceforge.kolmafia.KoLConstants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.io.TempDir;
+
+public class DataSnapshotTest {
+  private static final String DATA =
+      "1\n# A comment\n\nfirst\tsecond\t\nthird\tcafé\n\t\nfirst\tfourth\n";
+
+  @TempDir Path dir;
+
+  private DataSnapshot original;
+
+  @BeforeEach
+  public void saveSnapshot() {
+    this.original = DataSnapshot.getInstance();
+  }
+
+  @AfterEach
+  public void restoreSnapshot() {
+    DataSnapshot.setInstance(this.original);
+  }
+
+  private DataSnapshot snapshot() throws IOException {
+    Files.writeString(this.dir.resolve("snapshottest.txt"), DATA);
+    byte[] bytes = DataSnapshot.write(this.dir.toFile(), List.of("snapshottest.txt"));
+    return DataSnapshot.read(ByteBuffer.wrap(bytes));
+  }
+
+  @Test
+  public void rowsMatchSplitLines() throws IOException {
+    BufferedReader reader = this.snapshot().getFileReader("snapshottest.txt");
+
+    assertThat(FileUtilities.readData(reader), arrayContaining("1"));
+    assertThat(FileUtilities.readData(reader), arrayContaining("first", "second", ""));
+    assertThat(FileUtilities.readLine(reader), equalTo("third\tcafé"));
+    assertThat(FileUtilities.readData(reader), arrayContaining("", ""));
+    assertThat(FileUtilities.readData(reader), arrayContaining("first", "fourth"));
+    assertThat(FileUtilities.readData(reader), nullValue());
+  }
+
+  @Test
+  public void missingFilesAreNotInSnapshot() throws IOException {
+    assertThat(this.snapshot().getFileReader("missing.txt"), nullValue());
+  }
+
+  @Test
+  public void versionedReaderUsesSnapshot() throws IOException {
+    DataSnapshot.setInstance(this.snapshot());
+
+    try (BufferedReader reader = FileUtilities.getVersionedReader("snapshottest.txt", 1)) {
+      assertThat(FileUtilities.readData(reader), arrayContaining("first", "second", ""));
+    }
+  }
+
+  @Test
+  public void overriddenFilesAreReadAsText() throws IOException {
+    DataSnapshot.setInstance(this.snapshot());
+    File override = new File(KoLConstants.DATA_LOCATION, "snapshottest.txt");
+    Files.writeString(override.toPath(), "1\noverride\n");
+
+    try {
+      assertThat(DataSnapshot.getReader("snapshottest.txt"), nullValue());
+      try (BufferedReader reader = FileUtilities.getVersionedReader("snapshottest.txt", 1)) {
+        assertThat(FileUtilities.readData(reader), arrayContaining("override"));
+      }
+    } finally {
+      override.delete();
+    }
+  }
+
+  @Test
+  public void editedSourcesMakeSnapshotOutOfDate() throws IOException {
+    File source = Files.writeString(this.dir.resolve("snapshottest.txt"), DATA).toFile();
+    File snapshot = new File(this.dir.toFile(), DataSnapshot.FILENAME);
+    Files.write(
+        snapshot.toPath(), DataSnapshot.write(this.dir.toFile(), List.of(source.getName())));
+
+    source.setLastModified(snapshot.lastModified() - 10_000);
+    assertThat(DataSnapshot.isOutOfDate(snapshot, List.of(source)), equalTo(false));
+
+    source.setLastModified(snapshot.lastModified() + 10_000);
+    assertThat(DataSnapshot.isOutOfDate(snapshot, List.of(source)), equalTo(true));
+  }
+
+  /**
+   * Compares reading the snapshotted data files as text with reading them from a snapshot, as at
+   * startup. Each round starts from a fresh snapshot, so that no field has been decoded yet. Run
+   * with KOLMAFIA_BENCHMARK set to see the timings.
+   */
+  @Test
+  @EnabledIfEnvironmentVariable(named = "KOLMAFIA_BENCHMARK", matches = ".+")
+  public void benchmarkStartupData() throws IOException {
+    File source = new File("../../src/data");
+    byte[] bytes = DataSnapshot.write(source, DataSnapshot.FILES);
+
+    for (int round = 0; round < 5; ++round) {
+      long start = System.nanoTime();
+      for (String filename : DataSnapshot.FILES) {
+        try (BufferedReader reader = FileUtilities.getReader(new File(source, filename))) {
+          while (FileUtilities.readData(reader) != null) {}
+        }
+      }
+      long text = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      DataSnapshot snapshot = DataSnapshot.read(ByteBuffer.wrap(bytes));
+      for (String filename : DataSnapshot.FILES) {
+        try (BufferedReader reader = snapshot.getFileReader(filename)) {
+          while (FileUtilities.readData(reader) != null) {}
+        }
+      }
+      long binary = System.nanoTime() - start;
+
+      System.out.println(
+          "Round "
+              + round
+              + ": text "
+              + text / 1_000_000
+              + " ms, snapshot "
+              + binary / 1_000_000
+              + " ms");
+    }
+  }
+}
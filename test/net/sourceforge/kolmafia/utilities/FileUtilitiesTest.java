@@ -9,6 +9,8 @@ import net.sourceforge.kolmafia.StaticEntity;
 import net.sourceforge.kolmafia.preferences.Preferences;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
 class FileUtilitiesTest {
 
@@ -104,4 +106,10 @@ class FileUtilitiesTest {
     assertNull(FileUtilities.readData(null));
     assertNull(FileUtilities.readLine(null));
   }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"", "a", "a\tb", "a\t\tb", "\ta", "a\t", "\t\t", "one\ttwo\tthree"})
+  public void itShouldSplitFieldsLikeSplit(String line) {
+    assertArrayEquals(line.split("\t", -1), FileUtilities.splitFields(line));
+  }
 }
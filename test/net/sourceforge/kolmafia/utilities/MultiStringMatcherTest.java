@@ -0,0 +1,74 @@
+package net.sourceforge.kolmafia.utilities;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class MultiStringMatcherTest {
+  @Test
+  public void findsStringsInsideOthers() {
+    MultiStringMatcher matcher = new MultiStringMatcher(List.of("he", "she", "his", "hers"));
+
+    assertThat(matcher.find("ushers"), equalTo(new boolean[] {true, true, false, true}));
+    assertThat(matcher.find("this"), equalTo(new boolean[] {false, false, true, false}));
+    assertThat(matcher.find(""), equalTo(new boolean[] {false, false, false, false}));
+  }
+
+  @Test
+  public void findsRepeatedStrings() {
+    MultiStringMatcher matcher = new MultiStringMatcher(List.of("abc", "abc", "x"));
+
+    assertThat(
+        matcher.find(new StringBuffer("zzabcz")), equalTo(new boolean[] {true, true, false}));
+  }
+
+  @Test
+  public void findsStringsAcrossChunks() {
+    MultiStringMatcher matcher = new MultiStringMatcher(List.of("needle", "haystack"));
+    String text = "x".repeat(4093) + "needle" + "x".repeat(10000) + "haystack";
+
+    boolean[] expected = new boolean[] {true, true};
+    assertThat(matcher.find(text), equalTo(expected));
+    assertThat(matcher.find(new StringBuffer(text)), equalTo(expected));
+    assertThat(matcher.find(new StringBuilder(text)), equalTo(expected));
+    assertThat(matcher.find(CharBuffer.wrap(text)), equalTo(expected));
+  }
+
+  @Test
+  public void rejectsEmptyStrings() {
+    assertThrows(IllegalArgumentException.class, () -> new MultiStringMatcher(List.of("a", "")));
+  }
+
+  @Test
+  public void agreesWithIndexOf() {
+    Random random = new Random(24);
+    for (int round = 0; round < 2000; ++round) {
+      List<String> strings = new ArrayList<>();
+      int count = 1 + random.nextInt(8);
+      for (int i = 0; i < count; ++i) {
+        strings.add(randomString(random, 1 + random.nextInt(5), 3));
+      }
+      String text = randomString(random, random.nextInt(40), 4);
+
+      boolean[] found = new MultiStringMatcher(strings).find(text);
+      for (int i = 0; i < count; ++i) {
+        String string = strings.get(i);
+        assertThat(string + " in " + text, found[i], equalTo(text.contains(string)));
+      }
+    }
+  }
+
+  private static String randomString(final Random random, final int length, final int letters) {
+    StringBuilder buffer = new StringBuilder();
+    for (int i = 0; i < length; ++i) {
+      buffer.append((char) ('a' + random.nextInt(letters)));
+    }
+    return buffer.toString();
+  }
+}
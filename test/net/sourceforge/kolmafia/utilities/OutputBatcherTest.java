@@ -0,0 +1,122 @@
+package net.sourceforge.kolmafia.utilities;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class OutputBatcherTest {
+  @Test
+  public void outputIsHandedOnTogether() throws InterruptedException {
+    List<String> batches = Collections.synchronizedList(new ArrayList<>());
+    OutputBatcher batcher = new OutputBatcher(batches::add, 200, 100000);
+
+    for (int i = 0; i < 1000; ++i) {
+      batcher.add(i + "<br>");
+    }
+
+    assertThat(batches.size(), equalTo(0));
+    Thread.sleep(1000);
+
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 1000; ++i) {
+      expected.append(i).append("<br>");
+    }
+    assertThat(batches, equalTo(List.of(expected.toString())));
+    assertThat(batcher.isPending(), equalTo(false));
+  }
+
+  @Test
+  public void flushHandsOnImmediately() {
+    List<String> batches = new ArrayList<>();
+    OutputBatcher batcher = new OutputBatcher(batches::add, 60000, 100000);
+
+    batcher.add("one<br>");
+    batcher.add("two<br>");
+    batcher.flush();
+    batcher.flush();
+
+    assertThat(batches, equalTo(List.of("one<br>two<br>")));
+  }
+
+  @Test
+  public void oldestOutputIsDroppedWhenTooMuchIsWaiting() {
+    List<String> batches = new ArrayList<>();
+    OutputBatcher batcher = new OutputBatcher(batches::add, 60000, 10);
+
+    batcher.add("12345");
+    batcher.add("67890");
+    batcher.add("abcde");
+    batcher.flush();
+
+    assertThat(batches, equalTo(List.of("67890abcde")));
+  }
+
+  @Test
+  public void outputTooLongToHoldKeepsItsLastLines() {
+    List<String> batches = new ArrayList<>();
+    OutputBatcher batcher = new OutputBatcher(batches::add, 60000, 10);
+
+    batcher.add("12345");
+    batcher.add("ab<br>cd<br>ef<br>");
+    batcher.flush();
+    batcher.add("abcdefghijklmno");
+    batcher.flush();
+
+    assertThat(batches, equalTo(List.of("ef<br>", "fghijklmno")));
+  }
+
+  @Test
+  public void clearDropsWaitingOutput() {
+    List<String> batches = new ArrayList<>();
+    OutputBatcher batcher = new OutputBatcher(batches::add, 60000, 100000);
+
+    batcher.add("before<br>");
+    batcher.clear(() -> batches.add("cleared"));
+    batcher.add("after<br>");
+    batcher.flush();
+
+    assertThat(batches, equalTo(List.of("cleared", "after<br>")));
+  }
+
+  @Test
+  public void concurrentOutputIsKeptInOrderPerThread() throws InterruptedException {
+    StringBuffer shown = new StringBuffer();
+    OutputBatcher batcher = new OutputBatcher(shown::append, 1, 10000000);
+
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; ++t) {
+      char name = (char) ('a' + t);
+      threads.add(
+          new Thread(
+              () -> {
+                for (int i = 0; i < 2000; ++i) {
+                  batcher.add(name + String.valueOf(i) + ";");
+                }
+              }));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    batcher.flush();
+
+    int[] next = new int[4];
+    for (String line : shown.toString().split(";")) {
+      int t = line.charAt(0) - 'a';
+      assertThat(Integer.parseInt(line.substring(1)), equalTo(next[t]));
+      ++next[t];
+    }
+    for (int count : next) {
+      assertThat(count, equalTo(2000));
+    }
+    assertThat(batcher.isPending(), equalTo(false));
+    assertThat(shown.length(), lessThan(100000));
+  }
+}
@@ -0,0 +1,58 @@
+package net.sourceforge.kolmafia.utilities;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.List;
+import net.sourceforge.kolmafia.AdventureResult;
+import net.sourceforge.kolmafia.objectpool.ItemPool;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class SortedItemListTest {
+  private static List<AdventureResult> newList(boolean swing) {
+    return swing ? new SortedItemListModel() : new SortedItemList();
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {true, false})
+  public void canFindAddedItems(boolean swing) {
+    var list = newList(swing);
+    var index = (IndexedItemList) list;
+    list.addAll(List.of(ItemPool.get(ItemPool.SEAL_TOOTH, 3), ItemPool.get(ItemPool.RAVE_VISOR)));
+
+    assertThat(index.findItem(ItemPool.SEAL_TOOTH).getCount(), equalTo(3));
+    assertThat(index.findItem(ItemPool.MR_ACCESSORY), nullValue());
+
+    var accessory = ItemPool.get(ItemPool.MR_ACCESSORY, 2);
+    list.add(accessory);
+    assertThat(index.findItem(ItemPool.MR_ACCESSORY), sameInstance(accessory));
+    assertThat(ItemPool.get(ItemPool.MR_ACCESSORY).getCount(list), equalTo(2));
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {true, false})
+  public void indexFollowsChangesToList(boolean swing) {
+    var list = newList(swing);
+    var index = (IndexedItemList) list;
+    AdventureResult.addResultToList(list, ItemPool.get(ItemPool.SEAL_TOOTH, 1));
+    AdventureResult.addResultToList(list, ItemPool.get(ItemPool.RAVE_VISOR, 1));
+    assertThat(ItemPool.get(ItemPool.SEAL_TOOTH).getCount(list), equalTo(1));
+
+    AdventureResult.addResultToList(list, ItemPool.get(ItemPool.SEAL_TOOTH, 4));
+    assertThat(ItemPool.get(ItemPool.SEAL_TOOTH).getCount(list), equalTo(5));
+
+    AdventureResult.addResultToList(list, ItemPool.get(ItemPool.SEAL_TOOTH, -5));
+    assertThat(index.findItem(ItemPool.SEAL_TOOTH), nullValue());
+    assertThat(ItemPool.get(ItemPool.SEAL_TOOTH).getCount(list), equalTo(0));
+
+    list.remove(ItemPool.get(ItemPool.RAVE_VISOR));
+    assertThat(index.findItem(ItemPool.RAVE_VISOR), nullValue());
+
+    list.add(ItemPool.get(ItemPool.RAVE_VISOR, 2));
+    list.clear();
+    assertThat(index.findItem(ItemPool.RAVE_VISOR), nullValue());
+  }
+}
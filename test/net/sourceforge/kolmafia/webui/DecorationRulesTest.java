@@ -0,0 +1,63 @@
+package net.sourceforge.kolmafia.webui;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.sourceforge.kolmafia.utilities.StringUtilities;
+import org.junit.jupiter.api.Test;
+
+public class DecorationRulesTest {
+  @Test
+  public void onlyRunsDecorationsWithAnchorsOnThePage() {
+    List<String> ran = new ArrayList<>();
+    DecorationRules rules =
+        new DecorationRules()
+            .add("one", buffer -> ran.add("one"), "alpha")
+            .add("two", buffer -> ran.add("two"), "beta", "gamma")
+            .add("three", buffer -> ran.add("three"), "delta");
+
+    rules.apply(new StringBuffer("nothing to see here"));
+    assertThat(ran, empty());
+
+    rules.apply(new StringBuffer("gamma, then alpha"));
+    assertThat(ran, contains("one", "two"));
+  }
+
+  @Test
+  public void laterDecorationsSeeEarlierChanges() {
+    DecorationRules rules =
+        new DecorationRules()
+            .add(
+                "add",
+                buffer -> StringUtilities.singleStringReplace(buffer, "alpha", "alpha beta"),
+                "alpha")
+            .add("remove", buffer -> StringUtilities.globalStringDelete(buffer, "gamma"), "gamma")
+            .add("mark", buffer -> buffer.append(" [beta]"), "beta")
+            .add(
+                "unmark",
+                buffer -> {
+                  if (buffer.indexOf("gamma") != -1) {
+                    buffer.append(" [gamma]");
+                  }
+                },
+                "gamma");
+
+    StringBuffer buffer = new StringBuffer("alpha gamma");
+    rules.apply(buffer);
+
+    // "mark" runs for the anchor "add" made, and "unmark" not for the one "remove" took away
+    assertThat(buffer.toString(), equalTo("alpha beta  [beta]"));
+  }
+
+  @Test
+  public void namesDecorationsInOrder() {
+    DecorationRules rules =
+        new DecorationRules().add("one", buffer -> {}, "a").add("two", buffer -> {}, "b");
+
+    assertThat(rules.getNames(), contains("one", "two"));
+  }
+}
@@ -0,0 +1,266 @@
+package net.sourceforge.kolmafia.webui;
+
+import static internal.helpers.Player.withProperty;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.not;
+
+import internal.helpers.Cleanups;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.sourceforge.kolmafia.request.RelayRequest;
+import net.sourceforge.kolmafia.utilities.StringUtilities;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class RelayAgentTest {
+  private static final String FILE = "relayAgentTest.txt";
+
+  private ServerSocket listener;
+  private File file;
+  private boolean createdDirectory;
+
+  private record Response(String status, Map<String, String> headers, String body) {}
+
+  // A connection from a browser, whose other end has been handed to the relay agents
+  private class Browser implements AutoCloseable {
+    private final Socket socket;
+    private final OutputStream out;
+    private final InputStream in;
+
+    Browser() throws IOException {
+      this.socket = new Socket(InetAddress.getLoopbackAddress(), listener.getLocalPort());
+      this.socket.setSoTimeout(10000);
+      this.out = this.socket.getOutputStream();
+      this.in = new BufferedInputStream(this.socket.getInputStream());
+      RelayServer.dispatchAgent(listener.accept());
+    }
+
+    void send(String... requests) throws IOException {
+      this.out.write(String.join("", requests).getBytes(StandardCharsets.UTF_8));
+      this.out.flush();
+    }
+
+    Response receive() throws IOException {
+      String status = this.readLine();
+      Map<String, String> headers = new HashMap<>();
+      String line;
+      while (!(line = this.readLine()).isEmpty()) {
+        String[] header = line.split(":", 2);
+        headers.put(header[0].trim().toLowerCase(), header[1].trim());
+      }
+
+      int length = StringUtilities.parseInt(headers.getOrDefault("content-length", "0"));
+      byte[] body = this.in.readNBytes(length);
+      return new Response(status, headers, new String(body, StandardCharsets.UTF_8));
+    }
+
+    // Returns whether the agent has closed the connection without sending anything more
+    boolean closed() throws IOException {
+      return this.in.read() == -1;
+    }
+
+    private String readLine() throws IOException {
+      ByteArrayOutputStream line = new ByteArrayOutputStream();
+      int c;
+      while ((c = this.in.read()) != '\n') {
+        if (c == -1) {
+          throw new IOException("Connection closed");
+        }
+        if (c != '\r') {
+          line.write(c);
+        }
+      }
+      return line.toString(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+      this.socket.close();
+    }
+  }
+
+  private static String get(String path, String... headers) {
+    return request("GET", path, headers);
+  }
+
+  private static String request(String method, String path, String... headers) {
+    StringBuilder request = new StringBuilder();
+    request.append(method).append(" ").append(path).append(" HTTP/1.1\r\n");
+    request.append("Host: 127.0.0.1\r\n");
+    for (String header : headers) {
+      request.append(header).append("\r\n");
+    }
+    return request.append("\r\n").toString();
+  }
+
+  @BeforeEach
+  public void beforeEach() throws IOException {
+    this.listener = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+
+    this.file = RelayRequest.findRelayFile(FILE);
+    File directory = this.file.getParentFile();
+    this.createdDirectory = directory.mkdirs();
+    Files.writeString(this.file.toPath(), "hello");
+  }
+
+  @AfterEach
+  public void afterEach() throws IOException, InterruptedException {
+    List<RelayAgent> agents = List.copyOf(RelayServer.agentThreads);
+    RelayServer.closeAgents();
+    for (RelayAgent agent : agents) {
+      // Closing the agents wakes them, so they should all be gone at once
+      agent.join(10000);
+      assertThat(agent.isAlive(), equalTo(false));
+    }
+    this.listener.close();
+
+    this.file.delete();
+    if (this.createdDirectory) {
+      this.file.getParentFile().delete();
+    }
+  }
+
+  @Test
+  public void keepsConnectionOpenBetweenRequests() throws IOException {
+    var cleanups = new Cleanups(withProperty("relayUsesKeepAlive", true));
+    try (cleanups;
+        var browser = new Browser()) {
+      browser.send(get("/" + FILE));
+      var first = browser.receive();
+      assertThat(first.status(), equalTo("HTTP/1.1 200 OK"));
+      assertThat(first.headers().get("connection"), equalTo("keep-alive"));
+      assertThat(first.headers().get("content-length"), equalTo("5"));
+      assertThat(first.body(), equalTo("hello"));
+
+      browser.send(get("/robots.txt"));
+      var second = browser.receive();
+      assertThat(second.status(), equalTo("HTTP/1.1 404 Not Found"));
+      assertThat(second.headers().get("content-length"), equalTo("0"));
+    }
+  }
+
+  @Test
+  public void closesConnectionWhenAsked() throws IOException {
+    var cleanups = new Cleanups(withProperty("relayUsesKeepAlive", true));
+    try (cleanups;
+        var browser = new Browser()) {
+      browser.send(get("/" + FILE, "Connection: close"));
+      var response = browser.receive();
+      assertThat(response.headers().get("connection"), equalTo("close"));
+      assertThat(response.body(), equalTo("hello"));
+      assertThat(browser.closed(), equalTo(true));
+    }
+  }
+
+  @Test
+  public void closesConnectionWithoutKeepAlive() throws IOException {
+    var cleanups = new Cleanups(withProperty("relayUsesKeepAlive", false));
+    try (cleanups;
+        var browser = new Browser()) {
+      browser.send(get("/" + FILE));
+      var response = browser.receive();
+      assertThat(response.headers().get("connection"), equalTo("close"));
+      assertThat(browser.closed(), equalTo(true));
+    }
+  }
+
+  @Test
+  public void answersPipelinedRequestsInOrder() throws IOException {
+    var cleanups = new Cleanups(withProperty("relayUsesKeepAlive", true));
+    try (cleanups;
+        var browser = new Browser()) {
+      browser.send(
+          get("/robots.txt"),
+          request("POST", "/" + FILE, "Content-Length: 7"),
+          "a=1&b=2",
+          get("/" + FILE));
+
+      assertThat(browser.receive().status(), equalTo("HTTP/1.1 404 Not Found"));
+      assertThat(browser.receive().body(), equalTo("hello"));
+      assertThat(browser.receive().body(), equalTo("hello"));
+    }
+  }
+
+  @Test
+  public void headResponseHasNoBody() throws IOException {
+    var cleanups = new Cleanups(withProperty("relayUsesKeepAlive", true));
+    try (cleanups;
+        var browser = new Browser()) {
+      browser.send(request("HEAD", "/" + FILE));
+      var response = browser.receive();
+      assertThat(response.status(), equalTo("HTTP/1.1 200 OK"));
+      assertThat(response.headers(), not(hasKey("content-length")));
+      // Without a length, the connection is the only way to end the response
+      assertThat(response.headers().get("connection"), equalTo("close"));
+      assertThat(browser.closed(), equalTo(true));
+    }
+  }
+
+  @Test
+  public void notModifiedResponseHasNoBody() throws IOException {
+    String tomorrow = StringUtilities.formatDate(System.currentTimeMillis() + 86400000L);
+    var cleanups = new Cleanups(withProperty("relayUsesKeepAlive", true));
+    try (cleanups;
+        var browser = new Browser()) {
+      browser.send(get("/" + FILE, "If-Modified-Since: " + tomorrow), get("/robots.txt"));
+      var response = browser.receive();
+      assertThat(response.status(), equalTo("HTTP/1.1 304 Not Modified"));
+      assertThat(response.headers(), not(hasKey("content-length")));
+      assertThat(response.headers().get("connection"), equalTo("keep-alive"));
+
+      // Had a body been sent, it would be read as this response
+      assertThat(browser.receive().status(), equalTo("HTTP/1.1 404 Not Found"));
+    }
+  }
+
+  @Test
+  public void idleAgentIsReused() throws IOException {
+    var cleanups = new Cleanups(withProperty("relayUsesKeepAlive", false));
+    try (cleanups) {
+      try (var browser = new Browser()) {
+        browser.send(get("/" + FILE));
+        browser.receive();
+        assertThat(browser.closed(), equalTo(true));
+      }
+      try (var browser = new Browser()) {
+        browser.send(get("/" + FILE));
+        assertThat(browser.receive().body(), equalTo("hello"));
+      }
+      assertThat(RelayServer.agentThreads.size(), equalTo(1));
+    }
+  }
+
+  @Test
+  public void waitingConnectionEndsKeepAlive() throws IOException {
+    var cleanups =
+        new Cleanups(withProperty("relayUsesKeepAlive", true), withProperty("relayMaxAgents", 1));
+    try (cleanups;
+        var first = new Browser();
+        var second = new Browser()) {
+      assertThat(RelayServer.agentThreads.size(), equalTo(1));
+
+      first.send(get("/" + FILE));
+      assertThat(first.receive().body(), equalTo("hello"));
+      // The only agent moves on to the waiting connection
+      assertThat(first.closed(), equalTo(true));
+
+      second.send(get("/" + FILE));
+      assertThat(second.receive().body(), equalTo("hello"));
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package net.sourceforge.kolmafia.webui;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.Matchers.startsWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import net.sourceforge.kolmafia.preferences.Preferences;
+import net.sourceforge.kolmafia.utilities.FileUtilities;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class RelayFileCacheTest {
+  @TempDir Path dir;
+
+  @BeforeEach
+  public void beforeEach() {
+    Preferences.resetToDefault("relayMemoryCacheSize");
+    RelayFileCache.clear();
+  }
+
+  private File write(String name, String contents) throws IOException {
+    return Files.writeString(this.dir.resolve(name), contents).toFile();
+  }
+
+  @Test
+  public void servesRepeatedRequestsFromMemory() throws IOException {
+    File file = this.write("one.js", "var one = 1;");
+
+    var first = RelayFileCache.get(file, false);
+    assertThat(first, notNullValue());
+    assertThat(new String(first.bytes), equalTo("var one = 1;"));
+    assertThat(RelayFileCache.peek(file), sameInstance(first));
+    assertThat(RelayFileCache.get(file, false), sameInstance(first));
+  }
+
+  @Test
+  public void entityTagsDependOnContents() throws IOException {
+    var one = RelayFileCache.get(this.write("one.js", "var one = 1;"), false);
+    var two = RelayFileCache.get(this.write("two.js", "var two = 2;"), false);
+    assertThat(one.etag, startsWith("\""));
+    assertThat(one.etag, not(equalTo(two.etag)));
+
+    RelayFileCache.clear();
+    var again = RelayFileCache.get(this.write("three.js", "var one = 1;"), false);
+    assertThat(again.etag, equalTo(one.etag));
+  }
+
+  @Test
+  public void textIsReadOnce() throws IOException {
+    File file = this.write("one.css", "body {}");
+    int[] reads = new int[1];
+
+    for (int i = 0; i < 3; ++i) {
+      String text =
+          RelayFileCache.getText(
+              file,
+              f -> {
+                ++reads[0];
+                return "read";
+              });
+      assertThat(text, equalTo("read"));
+    }
+    assertThat(reads[0], equalTo(1));
+  }
+
+  @Test
+  public void doesNotKeepFilesBeyondMemoryLimit() throws IOException {
+    Preferences.setInteger("relayMemoryCacheSize", 0);
+    File file = this.write("one.js", "var one = 1;");
+
+    assertThat(RelayFileCache.get(file, false), notNullValue());
+    assertThat(RelayFileCache.peek(file), nullValue());
+  }
+
+  @Test
+  public void missingFilesAreNotCached() {
+    File file = this.dir.resolve("missing.js").toFile();
+    assertThat(RelayFileCache.get(file, false), nullValue());
+    assertThat(RelayFileCache.peek(file), nullValue());
+  }
+
+  @Test
+  public void imageIsDownloadedOnce() throws Exception {
+    String url = "https://images.kingdomofloathing.com/relayFileCacheTest/once.gif";
+    File file = FileUtilities.imageFile(url);
+    AtomicInteger downloads = new AtomicInteger();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Function<String, File> downloader =
+        u -> {
+          downloads.incrementAndGet();
+          started.countDown();
+          try {
+            release.await();
+            file.getParentFile().mkdirs();
+            Files.writeString(file.toPath(), "GIF89a");
+          } catch (InterruptedException | IOException e) {
+            throw new RuntimeException(e);
+          }
+          return file;
+        };
+
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<RelayFileCache.Entry>> results = new ArrayList<>();
+      results.add(pool.submit(() -> RelayFileCache.getImage(url, true, downloader)));
+      started.await();
+      for (int i = 0; i < 3; ++i) {
+        results.add(pool.submit(() -> RelayFileCache.getImage(url, true, downloader)));
+      }
+      release.countDown();
+
+      var first = results.get(0).get();
+      assertThat(new String(first.bytes), equalTo("GIF89a"));
+      for (var result : results) {
+        assertThat(result.get(), sameInstance(first));
+      }
+      // Arriving once the download is over
+      assertThat(RelayFileCache.getImage(url, true, downloader), sameInstance(first));
+      assertThat(downloads.get(), equalTo(1));
+    } finally {
+      pool.shutdownNow();
+      file.delete();
+      file.getParentFile().delete();
+    }
+  }
+}